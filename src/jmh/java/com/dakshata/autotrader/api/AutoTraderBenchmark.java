@@ -0,0 +1,94 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.ProductType;
+import com.dakshata.constants.trading.TradeType;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.trading.model.platform.PlatformOrder;
+
+/**
+ * End to end benchmark of {@link AutoTrader} (request encoding, http client,
+ * response parsing) against an in-process {@link StubServer}. Reports
+ * throughput and latency distribution, run with the gc profiler (default in
+ * the gradle build) for allocation per operation.
+ *
+ * Run with <code>./gradlew jmh</code>.
+ *
+ * @author PRITESH
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class AutoTraderBenchmark {
+
+	private static final String ACCOUNT = "ACC1";
+
+	/**
+	 * Number of orders returned by readPlatformOrders.
+	 */
+	@Param({ "500" })
+	private int orders;
+
+	private StubServer server;
+
+	private IAutoTrader autoTrader;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.server = new StubServer(this.orders);
+		// Unique key, as instances are cached per api key
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder()
+				.apiKey(UUID.randomUUID().toString()).serviceUrl(this.server.url()).build());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Benchmark
+	public IOperationResponse<String> placeRegularOrder() {
+		return this.autoTrader.placeRegularOrder(ACCOUNT, "NSE", "SBIN", TradeType.BUY, OrderType.LIMIT,
+				ProductType.INTRADAY, 1, 500.25f, 0f);
+	}
+
+	@Benchmark
+	public IOperationResponse<Set<PlatformOrder>> readPlatformOrders() {
+		return this.autoTrader.readPlatformOrders(ACCOUNT);
+	}
+
+	@Benchmark
+	public IOperationResponse<Boolean> cancelOrderByPlatformId() {
+		return this.autoTrader.cancelOrderByPlatformId(ACCOUNT, "100001");
+	}
+
+}
@@ -0,0 +1,73 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+import com.dakshata.trading.model.platform.PlatformOrder;
+
+import kong.unirest.GenericType;
+import kong.unirest.JacksonObjectMapper;
+
+/**
+ * Compares parsing of a large orders response by Unirest's object mapper (body
+ * read into a string, type resolved per call) with {@link ResponseCodec}
+ * (cached reader, parsed straight from the stream).
+ *
+ * @author PRITESH
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseCodecBenchmark {
+
+	@Param({ "100", "1000", "5000" })
+	private int orders;
+
+	private byte[] body;
+
+	private JacksonObjectMapper objectMapper;
+
+	@Setup
+	public void setUp() {
+		this.body = StubServer.orders(this.orders);
+		this.objectMapper = new JacksonObjectMapper();
+	}
+
+	@Benchmark
+	public OperationResponse<Set<PlatformOrder>> unirestObjectMapper() {
+		final String text = new String(this.body, UTF_8);
+		return this.objectMapper.readValue(text, new GenericType<OperationResponse<Set<PlatformOrder>>>() {
+		});
+	}
+
+	@Benchmark
+	public IOperationResponse<Set<PlatformOrder>> responseCodec() throws IOException {
+		return ResponseCodec.ORDERS.read(new ByteArrayInputStream(this.body));
+	}
+
+}
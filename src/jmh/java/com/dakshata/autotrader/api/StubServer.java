@@ -0,0 +1,116 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process AutoTrader server stub for benchmarks, serves canned operation
+ * responses from memory.
+ *
+ * @author PRITESH
+ *
+ */
+final class StubServer {
+
+	static {
+		// Otherwise small responses wait for delayed acks (~40ms per request)
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+
+	private final ExecutorService executor;
+
+	private final Map<String, byte[]> responses = new HashMap<>();
+
+	/**
+	 * @param orders number of orders returned by readPlatformOrders
+	 */
+	StubServer(final int orders) throws IOException {
+		this.responses.put("/trading/placeRegularOrder", json("{\"result\":\"220517000012345\"}"));
+		this.responses.put("/trading/cancelOrderByPlatformId", json("{\"result\":true}"));
+		this.responses.put("/trading/readPlatformOrders", orders(orders));
+		this.responses.put("/trading/autoTraderDesktopVersion", json("{\"result\":\"1.0.0\"}"));
+
+		this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/", this::handle);
+		this.server.start();
+	}
+
+	String url() {
+		return "http://127.0.0.1:" + this.server.getAddress().getPort();
+	}
+
+	void stop() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Orders response, as returned by readPlatformOrders.
+	 *
+	 * @param count number of orders
+	 * @return json
+	 */
+	static byte[] orders(final int count) {
+		final StringBuilder json = new StringBuilder("{\"result\":[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"id\":\"").append(i).append("\",\"pseudoAccount\":\"ACC1\",\"tradingAccount\":\"TA1\",")
+					.append("\"exchange\":\"NSE\",\"symbol\":\"SBIN\",\"platformId\":\"").append(100000 + i)
+					.append("\",\"exchangeOrderId\":\"").append(200000 + i)
+					.append("\",\"statusMessage\":\"\",\"tradeType\":\"BUY\",\"orderType\":\"LIMIT\",")
+					.append("\"productType\":\"INTRADAY\",\"variety\":\"REGULAR\",\"validity\":\"DAY\",")
+					.append("\"status\":\"OPEN\",\"quantity\":").append(1 + (i % 100))
+					.append(",\"filledQuantity\":0,\"pendingQuantity\":").append(1 + (i % 100))
+					.append(",\"disclosedQuantity\":0,\"price\":").append(500 + (i % 50))
+					.append(".25,\"triggerPrice\":0,\"averagePrice\":0}");
+		}
+		return json(json.append("]}").toString());
+	}
+
+	private static byte[] json(final String json) {
+		return json.getBytes(UTF_8);
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			final byte[] buffer = new byte[1024];
+			while (in.read(buffer) >= 0) {
+				// Drain the request
+			}
+		}
+
+		final byte[] response = this.responses.get(exchange.getRequestURI().getPath());
+		if (response == null) {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+			return;
+		}
+
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, response.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(response);
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.dakshata.constants.trading.OrderStatus;
+import com.dakshata.constants.trading.PositionCategory;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.trading.model.platform.PlatformOrder;
+import com.dakshata.trading.model.platform.PlatformPosition;
+
+import lombok.NonNull;
+
+/**
+ * In-memory orders & positions of pseudo accounts, maintained from the reads
+ * of {@link IAutoTrader#readPlatformOrders(String)} &
+ * {@link IAutoTrader#readPlatformPositions(String)} (subscribe it to a
+ * {@link PollingScheduler}, or apply the reads with
+ * {@link #updateOrders(String, Collection)} &
+ * {@link #updatePositions(String, Collection)}), and indexed for lookups
+ * without scanning: orders by platform id, by instrument (exchange & symbol)
+ * and by status, positions by instrument, each per account as well as across
+ * accounts.
+ *
+ * Reads are lock-free. A refresh of an account builds its indexes aside and
+ * swaps them in at once, hence a read sees either the previous or the new
+ * state of the account, never a mix. The indexes across accounts are updated
+ * per instrument (and status), in place.
+ *
+ * @author PRITESH
+ *
+ */
+public class AccountBook implements PollListener {
+
+	private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+	/**
+	 * Indexes across accounts, by key & then by account.
+	 */
+	private final Map<Instrument, Map<String, List<PlatformOrder>>> ordersByInstrument = new ConcurrentHashMap<>();
+
+	private final Map<OrderStatus, Map<String, List<PlatformOrder>>> ordersByStatus = new ConcurrentHashMap<>();
+
+	private final Map<Instrument, Map<String, List<PlatformPosition>>> positionsByInstrument =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * Replaces the orders of the given account.
+	 *
+	 * @param orders all orders of the account
+	 */
+	public void updateOrders(@NonNull final String pseudoAccount, @NonNull final Collection<PlatformOrder> orders) {
+		final Account account = this.accounts.computeIfAbsent(pseudoAccount, a -> new Account());
+		synchronized (account) {
+			final Orders before = account.orders;
+			final Orders after = new Orders(orders);
+			account.orders = after;
+			reindex(this.ordersByInstrument, pseudoAccount, before.byInstrument, after.byInstrument);
+			reindex(this.ordersByStatus, pseudoAccount, before.byStatus, after.byStatus);
+		}
+	}
+
+	/**
+	 * Replaces the positions of the given account.
+	 *
+	 * @param positions all positions of the account
+	 */
+	public void updatePositions(@NonNull final String pseudoAccount,
+			@NonNull final Collection<PlatformPosition> positions) {
+		final Account account = this.accounts.computeIfAbsent(pseudoAccount, a -> new Account());
+		synchronized (account) {
+			final Positions before = account.positions;
+			final Positions after = new Positions(positions);
+			account.positions = after;
+			reindex(this.positionsByInstrument, pseudoAccount, before.byInstrument, after.byInstrument);
+		}
+	}
+
+	/**
+	 * Forgets the orders & positions of the given account.
+	 */
+	public void remove(@NonNull final String pseudoAccount) {
+		this.updateOrders(pseudoAccount, Collections.emptyList());
+		this.updatePositions(pseudoAccount, Collections.emptyList());
+		this.accounts.remove(pseudoAccount);
+	}
+
+	@Override
+	public void ordersPolled(final String pseudoAccount, final IOperationResponse<Set<PlatformOrder>> orders) {
+		if (orders.success() && (orders.getResult() != null)) {
+			this.updateOrders(pseudoAccount, orders.getResult());
+		}
+	}
+
+	@Override
+	public void positionsPolled(final String pseudoAccount,
+			final IOperationResponse<Set<PlatformPosition>> positions) {
+		if (positions.success() && (positions.getResult() != null)) {
+			this.updatePositions(pseudoAccount, positions.getResult());
+		}
+	}
+
+	/**
+	 * @return accounts known to the book
+	 */
+	public Set<String> getPseudoAccounts() {
+		return Collections.unmodifiableSet(this.accounts.keySet());
+	}
+
+	/**
+	 * @return order, <code>null</code> if unknown
+	 */
+	public PlatformOrder getOrder(@NonNull final String pseudoAccount, @NonNull final String platformId) {
+		return this.orders(pseudoAccount).byId.get(platformId);
+	}
+
+	public List<PlatformOrder> getOrders(@NonNull final String pseudoAccount) {
+		return this.orders(pseudoAccount).all;
+	}
+
+	public List<PlatformOrder> getOrders(@NonNull final String pseudoAccount, @NonNull final String exchange,
+			@NonNull final String symbol) {
+		return get(this.orders(pseudoAccount).byInstrument, new Instrument(exchange, symbol));
+	}
+
+	public List<PlatformOrder> getOrders(@NonNull final String pseudoAccount, @NonNull final OrderStatus status) {
+		return get(this.orders(pseudoAccount).byStatus, status);
+	}
+
+	/**
+	 * @return orders of the instrument across accounts
+	 */
+	public List<PlatformOrder> getOrders(@NonNull final String exchange, @NonNull final String symbol) {
+		return all(this.ordersByInstrument.get(new Instrument(exchange, symbol)));
+	}
+
+	/**
+	 * @return orders with the given status across accounts
+	 */
+	public List<PlatformOrder> getOrders(@NonNull final OrderStatus status) {
+		return all(this.ordersByStatus.get(status));
+	}
+
+	public List<PlatformPosition> getPositions(@NonNull final String pseudoAccount) {
+		return this.positions(pseudoAccount).all;
+	}
+
+	public List<PlatformPosition> getPositions(@NonNull final String pseudoAccount, @NonNull final String exchange,
+			@NonNull final String symbol) {
+		return get(this.positions(pseudoAccount).byInstrument, new Instrument(exchange, symbol));
+	}
+
+	/**
+	 * @return positions in the instrument across accounts
+	 */
+	public List<PlatformPosition> getPositions(@NonNull final String exchange, @NonNull final String symbol) {
+		return all(this.positionsByInstrument.get(new Instrument(exchange, symbol)));
+	}
+
+	/**
+	 * @return net quantity of the instrument across accounts, as per the
+	 *         positions of the given category
+	 */
+	public long getNetQuantity(@NonNull final PositionCategory category, @NonNull final String exchange,
+			@NonNull final String symbol) {
+		final Map<String, List<PlatformPosition>> byAccount =
+				this.positionsByInstrument.get(new Instrument(exchange, symbol));
+		if (byAccount == null) {
+			return 0;
+		}
+
+		long net = 0;
+		for (final List<PlatformPosition> positions : byAccount.values()) {
+			for (final PlatformPosition position : positions) {
+				if (position.getCategory() == category) {
+					net += position.getNetQuantity();
+				}
+			}
+		}
+		return net;
+	}
+
+	private Orders orders(final String pseudoAccount) {
+		final Account account = this.accounts.get(pseudoAccount);
+		return (account == null) ? Orders.EMPTY : account.orders;
+	}
+
+	private Positions positions(final String pseudoAccount) {
+		final Account account = this.accounts.get(pseudoAccount);
+		return (account == null) ? Positions.EMPTY : account.positions;
+	}
+
+	/**
+	 * Updates an index across accounts with the new index of an account, key by
+	 * key (atomically per key).
+	 */
+	private static <K, T> void reindex(final Map<K, Map<String, List<T>>> index, final String pseudoAccount,
+			final Map<K, List<T>> before, final Map<K, List<T>> after) {
+		for (final K key : before.keySet()) {
+			if (!after.containsKey(key)) {
+				index.computeIfPresent(key, (k, byAccount) -> {
+					byAccount.remove(pseudoAccount);
+					return byAccount.isEmpty() ? null : byAccount;
+				});
+			}
+		}
+		for (final Map.Entry<K, List<T>> entry : after.entrySet()) {
+			index.compute(entry.getKey(), (k, byAccount) -> {
+				final Map<String, List<T>> map = (byAccount == null) ? new ConcurrentHashMap<>() : byAccount;
+				map.put(pseudoAccount, entry.getValue());
+				return map;
+			});
+		}
+	}
+
+	private static <K, T> List<T> get(final Map<K, List<T>> index, final K key) {
+		final List<T> list = index.get(key);
+		return (list == null) ? Collections.emptyList() : list;
+	}
+
+	private static <T> List<T> all(final Map<String, List<T>> byAccount) {
+		if (byAccount == null) {
+			return Collections.emptyList();
+		}
+		final List<T> all = new ArrayList<>();
+		for (final List<T> list : byAccount.values()) {
+			all.addAll(list);
+		}
+		return all;
+	}
+
+	/**
+	 * Groups the items by key, into unmodifiable lists. Items without a key are
+	 * left out.
+	 */
+	private static <K, T> Map<K, List<T>> group(final Map<K, List<T>> groups, final Collection<T> items,
+			final Function<T, K> key) {
+		for (final T item : items) {
+			final K k = key.apply(item);
+			if (k != null) {
+				groups.computeIfAbsent(k, x -> new ArrayList<>()).add(item);
+			}
+		}
+		for (final Map.Entry<K, List<T>> entry : groups.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		return groups;
+	}
+
+	/**
+	 * Orders & positions of an account, replaced (never modified) on refresh.
+	 * Refreshes are guarded by the account.
+	 */
+	private static final class Account {
+
+		private volatile Orders orders = Orders.EMPTY;
+
+		private volatile Positions positions = Positions.EMPTY;
+
+	}
+
+	private static final class Orders {
+
+		private static final Orders EMPTY = new Orders(Collections.emptyList());
+
+		private final List<PlatformOrder> all;
+
+		private final Map<String, PlatformOrder> byId;
+
+		private final Map<Instrument, List<PlatformOrder>> byInstrument;
+
+		private final Map<OrderStatus, List<PlatformOrder>> byStatus;
+
+		Orders(final Collection<PlatformOrder> orders) {
+			this.all = Collections.unmodifiableList(new ArrayList<>(orders));
+			this.byId = new HashMap<>();
+			for (final PlatformOrder order : orders) {
+				if (order.getPlatformId() != null) {
+					this.byId.put(order.getPlatformId(), order);
+				}
+			}
+			this.byInstrument = group(new HashMap<>(), orders, o -> Instrument.of(o.getExchange(), o.getSymbol()));
+			this.byStatus = group(new EnumMap<>(OrderStatus.class), orders, PlatformOrder::getStatus);
+		}
+
+	}
+
+	private static final class Positions {
+
+		private static final Positions EMPTY = new Positions(Collections.emptyList());
+
+		private final List<PlatformPosition> all;
+
+		private final Map<Instrument, List<PlatformPosition>> byInstrument;
+
+		Positions(final Collection<PlatformPosition> positions) {
+			this.all = Collections.unmodifiableList(new ArrayList<>(positions));
+			this.byInstrument = group(new HashMap<>(), positions, p -> Instrument.of(p.getExchange(), p.getSymbol()));
+		}
+
+	}
+
+}
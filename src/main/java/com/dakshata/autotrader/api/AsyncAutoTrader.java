@@ -0,0 +1,313 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import com.dakshata.constants.trading.*;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+import com.dakshata.trading.model.platform.PlatformHolding;
+import com.dakshata.trading.model.platform.PlatformMargin;
+import com.dakshata.trading.model.platform.PlatformOrder;
+import com.dakshata.trading.model.platform.PlatformPosition;
+import com.dakshata.trading.model.portfolio.Order;
+
+import lombok.NonNull;
+
+/**
+ * Implementation of non-blocking AutoTrader API functions. Shares the trading
+ * service (and hence the connection pool) & retry behaviour of the owning
+ * {@link AutoTrader} instance.
+ *
+ * @author PRITESH
+ *
+ */
+class AsyncAutoTrader implements IAsyncAutoTrader {
+
+	private final AutoTrader autoTrader;
+
+	private final TradingService tradingService;
+
+	private final int batchConcurrency;
+
+	AsyncAutoTrader(@NonNull final AutoTrader autoTrader, @NonNull final TradingService tradingService,
+			final int batchConcurrency) {
+		this.autoTrader = autoTrader;
+		this.tradingService = tradingService;
+		this.batchConcurrency = batchConcurrency;
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Set<String>>> fetchLivePseudoAccounts() {
+		return this.autoTrader.callAsync(Endpoint.FETCH_LIVE_PSEUDO_ACCOUNTS, null,
+				() -> this.tradingService.fetchLivePseudoAccountsAsync());
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<String>> placeOrder(@NonNull final Order order) {
+		// Generated once, so that retries are not executed twice
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.PLACE_ORDER, order.getPseudoAccount(),
+				() -> this.tradingService.placeOrderAsync(order, commandId));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<String>> placeRegularOrder(@NonNull final String pseudoAccount,
+			@NonNull final String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
+			@NonNull final OrderType orderType, @NonNull final ProductType productType, final int quantity,
+			final float price, final float triggerPrice) {
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.PLACE_REGULAR_ORDER, pseudoAccount,
+				() -> this.tradingService.placeRegularOrderAsync(pseudoAccount, exchange, symbol, tradeType, orderType,
+				productType, quantity, price, triggerPrice, commandId));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<String>> placeBracketOrder(@NonNull final String pseudoAccount,
+			@NonNull final String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
+			@NonNull final OrderType orderType, final int quantity, final float price, final float triggerPrice,
+			final float target, final float stoploss, final float trailingStoploss) {
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.PLACE_BRACKET_ORDER, pseudoAccount,
+				() -> this.tradingService.placeBracketOrderAsync(pseudoAccount, exchange, symbol, tradeType, orderType,
+				quantity, price, triggerPrice, target, stoploss, trailingStoploss, commandId));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<String>> placeCoverOrder(@NonNull final String pseudoAccount,
+			@NonNull final String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
+			@NonNull final OrderType orderType, final int quantity, final float price, final float triggerPrice) {
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.PLACE_COVER_ORDER, pseudoAccount,
+				() -> this.tradingService.placeCoverOrderAsync(pseudoAccount, exchange, symbol, tradeType, orderType,
+				quantity, price, triggerPrice, commandId));
+	}
+
+	@Override
+	public CompletableFuture<BatchResponse<String>> placeOrders(@NonNull final List<Order> orders) {
+		return BatchExecutor.execute(orders, this.batchConcurrency, this::placeOrder);
+	}
+
+	@Override
+	public CompletableFuture<BatchResponse<Boolean>> cancelOrders(@NonNull final List<CancelOrderRequest> orders) {
+		return BatchExecutor.execute(orders, this.batchConcurrency,
+				o -> this.cancelOrderByPlatformId(o.getPseudoAccount(), o.getPlatformId()));
+	}
+
+	@Override
+	public CompletableFuture<BatchResponse<Boolean>> modifyOrders(@NonNull final List<ModifyOrderRequest> orders) {
+		return BatchExecutor.execute(orders, this.batchConcurrency,
+				o -> this.modifyOrderByPlatformId(o.getPseudoAccount(), o.getPlatformId(), o.getOrderType(),
+						o.getQuantity(), o.getPrice(), o.getTriggerPrice(), o.getDisclosedQtyPct()));
+	}
+
+	@Override
+	public CompletableFuture<FanOutResponse<String>> fanOutOrder(@NonNull final OrderTemplate order,
+			@NonNull final Collection<String> pseudoAccounts, final long deadline) {
+		// Duplicates would place the order twice for an account
+		final List<String> accounts = new ArrayList<>(new LinkedHashSet<>(pseudoAccounts));
+		return BatchExecutor.execute(accounts, this.batchConcurrency, deadline,
+				(final String account) -> this.placeRegularOrder(account, order.getExchange(), order.getSymbol(),
+						order.getTradeType(), order.getOrderType(), order.getProductType(), order.getQuantity(),
+						order.getPrice(), order.getTriggerPrice()))
+				.thenApply(batch -> new FanOutResponse<>(accounts, batch));
+	}
+
+	@Override
+	public CompletableFuture<FanOutResponse<String>> fanOutOrder(@NonNull final OrderTemplate order,
+			final long deadline) {
+		final long start = System.nanoTime();
+		return this.fetchLivePseudoAccounts().thenCompose(response -> {
+			if (!response.success()) {
+				return CompletableFuture.completedFuture(new FanOutResponse<>(response.getError()));
+			}
+			final long elapsed = MILLISECONDS.convert(System.nanoTime() - start, NANOSECONDS);
+			return this.fanOutOrder(order, response.getResult(), (deadline > 0) ? Math.max(1, deadline - elapsed) : 0);
+		});
+	}
+
+	@Override
+	public CompletableFuture<FanOutResponse<Boolean>> emergencySquareOff(@NonNull final PositionCategory category,
+			final long deadline) {
+		final long start = System.nanoTime();
+		final CompletableFuture<IOperationResponse<Set<String>>> live = BatchExecutor.within(
+				this.autoTrader.callUrgentAsync(Endpoint.FETCH_LIVE_PSEUDO_ACCOUNTS, null,
+						() -> this.tradingService.fetchLivePseudoAccountsAsync()),
+				deadline, () -> OperationResponse.<Set<String>>builder()
+						.error(new Exception("Live pseudo accounts not fetched within the deadline")).build());
+
+		return live.handle((response, error) -> (error == null) ? response
+				: OperationResponse.<Set<String>>builder().error(error(error)).build()).thenCompose(response -> {
+					if (!response.success()) {
+						return CompletableFuture.completedFuture(new FanOutResponse<>(response.getError()));
+					}
+
+					// All accounts at once, no queueing
+					final List<String> accounts = new ArrayList<>(response.getResult());
+					final long elapsed = MILLISECONDS.convert(System.nanoTime() - start, NANOSECONDS);
+					return BatchExecutor.execute(accounts, accounts.size(),
+							(deadline > 0) ? Math.max(1, deadline - elapsed) : 0,
+							(final String account) -> this.emergencySquareOff(account, category))
+							.thenApply(batch -> new FanOutResponse<>(accounts, batch));
+				});
+	}
+
+	/**
+	 * Cancels all open orders, then squares off the portfolio (even if the
+	 * cancellation failed, which the square-off retries).
+	 */
+	private CompletableFuture<IOperationResponse<Boolean>> emergencySquareOff(final String pseudoAccount,
+			final PositionCategory category) {
+		final String cancelId = CommandIds.next();
+		final String squareOffId = CommandIds.next();
+		return this.autoTrader.<Boolean>callUrgentAsync(Endpoint.CANCEL_ALL_ORDERS, pseudoAccount,
+				() -> this.tradingService.cancelAllOrdersAsync(pseudoAccount, cancelId))
+				.handle((cancel, error) -> (error == null) ? cancel
+						: OperationResponse.<Boolean>builder().error(error(error)).build())
+				.thenCompose(cancel -> this.autoTrader.<Boolean>callUrgentAsync(Endpoint.SQUARE_OFF_PORTFOLIO,
+						pseudoAccount,
+						() -> this.tradingService.squareOffPortfolioAsync(pseudoAccount, category, true, squareOffId))
+						.thenApply(squareOff -> confirmed(cancel, squareOff)));
+	}
+
+	/**
+	 * @return square-off response, turned into an error unless both requests
+	 *         were accepted
+	 */
+	private static IOperationResponse<Boolean> confirmed(final IOperationResponse<Boolean> cancel,
+			final IOperationResponse<Boolean> squareOff) {
+		if (!squareOff.success()) {
+			return squareOff;
+		}
+		if (!Boolean.TRUE.equals(squareOff.getResult())) {
+			return OperationResponse.<Boolean>builder().result(squareOff.getResult())
+					.error(new Exception("Square-off not accepted: " + squareOff.getMessage())).build();
+		}
+		if (!cancel.success() || !Boolean.TRUE.equals(cancel.getResult())) {
+			final String reason = cancel.success() ? cancel.getMessage() : cancel.getError().getMessage();
+			return OperationResponse.<Boolean>builder().result(squareOff.getResult())
+					.error(new Exception("Square-off accepted, open orders may not be cancelled: " + reason)).build();
+		}
+		return squareOff;
+	}
+
+	private static Exception error(final Throwable error) {
+		final Throwable cause = Retrier.unwrap(error);
+		return (cause instanceof Exception) ? (Exception) cause : new Exception(cause);
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Boolean>> cancelOrderByPlatformId(@NonNull final String pseudoAccount,
+			@NonNull final String platformId) {
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.CANCEL_ORDER, pseudoAccount,
+				() -> this.tradingService.cancelOrderByPlatformIdAsync(pseudoAccount, platformId, commandId));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Boolean>> cancelAllOrders(final String pseudoAccount) {
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.CANCEL_ALL_ORDERS, pseudoAccount,
+				() -> this.tradingService.cancelAllOrdersAsync(pseudoAccount, commandId));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Boolean>> cancelChildOrdersByPlatformId(
+			@NonNull final String pseudoAccount, @NonNull final String platformId) {
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.CANCEL_CHILD_ORDERS, pseudoAccount,
+				() -> this.tradingService.cancelChildOrdersByPlatformIdAsync(pseudoAccount, platformId, commandId));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Boolean>> modifyOrderByPlatformId(final String pseudoAccount,
+			final String platformId, final OrderType orderType, final Integer quantity, final Float price,
+			final Float triggerPrice) {
+		return this.modifyOrderByPlatformId(pseudoAccount, platformId, orderType, quantity, price, triggerPrice, null);
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Boolean>> modifyOrderByPlatformId(final String pseudoAccount,
+			final String platformId, final OrderType orderType, final Integer quantity, final Float price,
+			final Float triggerPrice, final Integer disclosedQtyPct) {
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.MODIFY_ORDER, pseudoAccount,
+				() -> this.tradingService.modifyOrderByPlatformIdAsync(null, pseudoAccount, platformId, orderType,
+				quantity, price, triggerPrice, disclosedQtyPct, commandId));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Boolean>> squareOffPosition(final String pseudoAccount,
+			final PositionCategory category, final PositionType type, final String exchange, final String symbol,
+			final boolean cancelOpenOrders) {
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.SQUARE_OFF_POSITION, pseudoAccount,
+				() -> this.tradingService.squareOffPositionAsync(pseudoAccount, category, type, exchange, symbol,
+				cancelOpenOrders, commandId));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Boolean>> squareOffPortfolio(final String pseudoAccount,
+			final PositionCategory category, final boolean cancelOpenOrders) {
+		final String commandId = CommandIds.next();
+		return this.autoTrader.callAsync(Endpoint.SQUARE_OFF_PORTFOLIO, pseudoAccount,
+				() -> this.tradingService.squareOffPortfolioAsync(pseudoAccount, category, cancelOpenOrders,
+				commandId));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Object>> execute(@NonNull final String command) {
+		return this.autoTrader.callAsync(Endpoint.EXECUTE, null, () -> this.tradingService.executeAsync(command));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Set<PlatformOrder>>> readPlatformOrders(
+			@NonNull final String pseudoAccount) {
+		return this.autoTrader.callAsync(Endpoint.READ_PLATFORM_ORDERS, pseudoAccount,
+				() -> this.tradingService.readPlatformOrdersAsync(pseudoAccount));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Set<PlatformPosition>>> readPlatformPositions(
+			@NonNull final String pseudoAccount) {
+		return this.autoTrader.callAsync(Endpoint.READ_PLATFORM_POSITIONS, pseudoAccount,
+				() -> this.tradingService.readPlatformPositionsAsync(pseudoAccount));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Set<PlatformMargin>>> readPlatformMargins(
+			@NonNull final String pseudoAccount) {
+		return this.autoTrader.callAsync(Endpoint.READ_PLATFORM_MARGINS, pseudoAccount,
+				() -> this.tradingService.readPlatformMarginsAsync(pseudoAccount));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<Set<PlatformHolding>>> readPlatformHoldings(
+			@NonNull final String pseudoAccount) {
+		return this.autoTrader.callAsync(Endpoint.READ_PLATFORM_HOLDINGS, pseudoAccount,
+				() -> this.tradingService.readPlatformHoldingsAsync(pseudoAccount));
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<String>> autoTraderDesktopVersion() {
+		return this.autoTrader.callAsync(Endpoint.AUTOTRADER_DESKTOP_VERSION, null,
+				() -> this.tradingService.autoTraderDesktopVersionAsync());
+	}
+
+	@Override
+	public CompletableFuture<IOperationResponse<String>> autoTraderDesktopMinVersion() {
+		return this.autoTrader.callAsync(Endpoint.AUTOTRADER_DESKTOP_MIN_VERSION, null,
+				() -> this.tradingService.autoTraderDesktopMinVersionAsync());
+	}
+
+}
@@ -4,33 +4,37 @@
 package com.dakshata.autotrader.api;
 
 import static com.dakshata.autotrader.api.AutoTraderClientConfig.defaultConfig;
-import static com.dakshata.constants.autotrader.IAutoTrader.API_KEY_HEADER;
-import static java.util.Collections.synchronizedMap;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-import org.apache.http.NoHttpResponseException;
-
 import com.dakshata.constants.trading.*;
 import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
 import com.dakshata.trading.model.platform.PlatformHolding;
 import com.dakshata.trading.model.platform.PlatformMargin;
 import com.dakshata.trading.model.platform.PlatformOrder;
 import com.dakshata.trading.model.platform.PlatformPosition;
 import com.dakshata.trading.model.portfolio.Order;
 
-import kong.unirest.Config;
-import kong.unirest.JacksonObjectMapper;
-import kong.unirest.UnirestInstance;
+import kong.unirest.UnirestParsingException;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Implementation of AutoTrade API functions. Only create one instance of this
- * class per API key.
+ * class per API key. To serve many API keys over shared connection pools, use
+ * a {@link MultiTenantAutoTrader}.
  *
  * @author PRITESH
  *
@@ -38,11 +42,41 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AutoTrader implements IAutoTrader {
 
-	private static final Map<String, AutoTrader> INSTANCES = synchronizedMap(new HashMap<>());
+	private static final ConcurrentMap<String, AutoTrader> INSTANCES = new ConcurrentHashMap<>();
 
 	private final TradingService tradingService;
 
-	private final boolean autoRetryOnError;
+	private final IAsyncAutoTrader asyncAutoTrader;
+
+	private final RateLimiter rateLimiter;
+
+	private final ResponseCache cache;
+
+	private final SingleFlight singleFlight;
+
+	private final SharedClient client;
+
+	/**
+	 * Multi-tenant client the instance is a tenant of, <code>null</code> if it
+	 * has a client of its own.
+	 */
+	private final MultiTenantAutoTrader host;
+
+	private final ServerPool servers;
+
+	private final Hedger hedger;
+
+	private final Retrier retrier;
+
+	private final CircuitBreaker circuitBreaker;
+
+	private final RequestDispatcher dispatcher;
+
+	private final MetricsRecorder recorder;
+
+	private final List<Consumer<String>> commandListeners = new CopyOnWriteArrayList<>();
+
+	private final String apiKey;
 
 	/**
 	 * Initialize the AutoTrader API with your private API key.
@@ -51,36 +85,91 @@ public class AutoTrader implements IAutoTrader {
 	 * @param serviceUrl AutoTrader api service url
 	 */
 	private AutoTrader(@NonNull final AutoTraderClientConfig config) {
-		this.autoRetryOnError = config.isAutoRetryOnError();
-		this.tradingService = new TradingService(config.getServiceUrl(), this.prepareClient(config));
+		this(config, new SharedClient(config), null);
 	}
 
-	public static final synchronized IAutoTrader createInstance(@NonNull final AutoTraderClientConfig config) {
-		AutoTrader instance = INSTANCES.get(config.getApiKey());
-		if (instance == null) {
-			instance = new AutoTrader(config);
-			INSTANCES.put(config.getApiKey(), instance);
+	/**
+	 * Creates an instance which sends its requests with the given client,
+	 * already retained for it.
+	 *
+	 * @param host multi-tenant client the instance is a tenant of,
+	 *             <code>null</code> if the client is its own
+	 */
+	AutoTrader(@NonNull final AutoTraderClientConfig config, @NonNull final SharedClient client,
+			final MultiTenantAutoTrader host) {
+		this.apiKey = config.getApiKey();
+		this.client = client;
+		this.host = host;
+		this.rateLimiter = RateLimiter.create(config, client.getScheduler());
+		this.cache = ResponseCache.create(config);
+		this.singleFlight = config.isCoalesceReads() ? new SingleFlight() : null;
+		this.servers = client.getServers();
+		this.hedger = Hedger.create(config, client.getScheduler());
+		this.recorder = client.getRecorder();
+		this.retrier = Retrier.create(config, client.getScheduler());
+		this.circuitBreaker = CircuitBreaker.create(config);
+		this.dispatcher = client.getDispatcher();
+		// Tenants authenticate every request with their own api key
+		this.tradingService = (host == null) ? client.getTradingService()
+				: new TradingService(client.getTradingService(), this.apiKey);
+		this.asyncAutoTrader = new AsyncAutoTrader(this, this.tradingService,
+				Math.min(config.getBatchConcurrency(), config.getMaxConnectionsPerRoute()));
+	}
+
+	public static final IAutoTrader createInstance(@NonNull final AutoTraderClientConfig config) {
+		final AutoTrader instance = INSTANCES.get(config.getApiKey());
+		if (instance != null) {
+			return instance;
+		}
+		// Created outside of the map, so that the warm up blocks no other creation.
+		// The instance losing a race is shut down.
+		final AutoTrader created = new AutoTrader(config);
+		final AutoTrader existing = INSTANCES.putIfAbsent(config.getApiKey(), created);
+		if (existing != null) {
+			created.close();
+			return existing;
 		}
-		return instance;
+		created.client.warmUp();
+		return created;
 	}
 
 	public static final IAutoTrader createInstance(@NonNull final String apiKey) {
 		return createInstance(defaultConfig(apiKey));
 	}
 
+	@Override
+	public IAsyncAutoTrader async() {
+		return this.asyncAutoTrader;
+	}
+
 	@Override
 	public IOperationResponse<Set<String>> fetchLivePseudoAccounts() {
-		return this.executeWithRetry(() -> this.tradingService.fetchLivePseudoAccounts());
+		return this.call(Endpoint.FETCH_LIVE_PSEUDO_ACCOUNTS, null,
+				() -> this.tradingService.fetchLivePseudoAccounts());
 	}
 
 	@Override
 	public IOperationResponse<? extends Object> execute(@NonNull final String command) {
-		return this.executeWithRetry(() -> this.tradingService.execute(command));
+		final IOperationResponse<Object> rejection = this.acquire(null);
+		if (rejection != null) {
+			return rejection;
+		}
+
+		// A command may change any account
+		this.invalidate(Endpoint.EXECUTE, null);
+		try {
+			return this.executeWithRetry(Endpoint.EXECUTE, () -> this.tradingService.execute(command));
+		} finally {
+			this.completed(Endpoint.EXECUTE, null);
+		}
 	}
 
 	@Override
 	public IOperationResponse<String> placeOrder(@NonNull final Order order) {
-		return this.executeWithRetry(() -> this.tradingService.placeOrder(order));
+		// Generated once, so that retries are not executed twice
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.PLACE_ORDER, order.getPseudoAccount(),
+				() -> this.tradingService.placeOrder(null, order, commandId));
 	}
 
 	@Override
@@ -88,8 +177,10 @@ public class AutoTrader implements IAutoTrader {
 			final @NonNull String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
 			@NonNull final OrderType orderType, @NonNull final ProductType productType, final int quantity,
 			final float price, final float triggerPrice) {
-		return this.executeWithRetry(() -> this.tradingService.placeRegularOrder(pseudoAccount, exchange, symbol,
-				tradeType, orderType, productType, quantity, price, triggerPrice));
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.PLACE_REGULAR_ORDER, pseudoAccount,
+				() -> this.tradingService.placeRegularOrder(pseudoAccount, exchange, symbol, tradeType, orderType,
+				productType, quantity, price, triggerPrice, commandId));
 	}
 
 	@Override
@@ -97,161 +188,459 @@ public class AutoTrader implements IAutoTrader {
 			@NonNull final String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
 			@NonNull final OrderType orderType, final int quantity, final float price, final float triggerPrice,
 			final float target, final float stoploss, final float trailingStoploss) {
-		return this.executeWithRetry(() -> this.tradingService.placeBracketOrder(pseudoAccount, exchange, symbol,
-				tradeType, orderType, quantity, price, triggerPrice, target, stoploss, trailingStoploss));
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.PLACE_BRACKET_ORDER, pseudoAccount,
+				() -> this.tradingService.placeBracketOrder(pseudoAccount, exchange, symbol, tradeType, orderType,
+				quantity, price, triggerPrice, target, stoploss, trailingStoploss, commandId));
 	}
 
 	@Override
 	public IOperationResponse<String> placeCoverOrder(@NonNull final String pseudoAccount,
 			@NonNull final String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
 			@NonNull final OrderType orderType, final int quantity, final float price, final float triggerPrice) {
-		return this.executeWithRetry(() -> this.tradingService.placeCoverOrder(pseudoAccount, exchange, symbol,
-				tradeType, orderType, quantity, price, triggerPrice));
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.PLACE_COVER_ORDER, pseudoAccount,
+				() -> this.tradingService.placeCoverOrder(pseudoAccount, exchange, symbol, tradeType, orderType,
+				quantity, price, triggerPrice, commandId));
+	}
+
+	@Override
+	public BatchResponse<String> placeOrders(@NonNull final List<Order> orders) {
+		return this.asyncAutoTrader.placeOrders(orders).join();
+	}
+
+	@Override
+	public BatchResponse<Boolean> cancelOrders(@NonNull final List<CancelOrderRequest> orders) {
+		return this.asyncAutoTrader.cancelOrders(orders).join();
+	}
+
+	@Override
+	public BatchResponse<Boolean> modifyOrders(@NonNull final List<ModifyOrderRequest> orders) {
+		return this.asyncAutoTrader.modifyOrders(orders).join();
+	}
+
+	@Override
+	public FanOutResponse<String> fanOutOrder(@NonNull final OrderTemplate order,
+			@NonNull final Collection<String> pseudoAccounts, final long deadline) {
+		return this.asyncAutoTrader.fanOutOrder(order, pseudoAccounts, deadline).join();
+	}
+
+	@Override
+	public FanOutResponse<String> fanOutOrder(@NonNull final OrderTemplate order, final long deadline) {
+		return this.asyncAutoTrader.fanOutOrder(order, deadline).join();
+	}
+
+	@Override
+	public FanOutResponse<Boolean> emergencySquareOff(@NonNull final PositionCategory category, final long deadline) {
+		return this.asyncAutoTrader.emergencySquareOff(category, deadline).join();
 	}
 
 	@Override
 	public IOperationResponse<Boolean> cancelAllOrders(final String pseudoAccount) {
-		return this.executeWithRetry(() -> this.tradingService.cancelAllOrders(pseudoAccount));
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.CANCEL_ALL_ORDERS, pseudoAccount,
+				() -> this.tradingService.cancelAllOrders(null, pseudoAccount, commandId));
 	}
 
 	@Override
 	public IOperationResponse<Boolean> cancelOrderByPlatformId(@NonNull final String pseudoAccount,
 			@NonNull final String platformId) {
-		return this.executeWithRetry(() -> this.tradingService.cancelOrderByPlatformId(pseudoAccount, platformId));
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.CANCEL_ORDER, pseudoAccount,
+				() -> this.tradingService.cancelOrderByPlatformId(null, pseudoAccount, platformId, commandId));
 	}
 
 	@Override
 	public IOperationResponse<Boolean> cancelChildOrdersByPlatformId(@NonNull final String pseudoAccount,
 			@NonNull final String platformId) {
-		return this
-				.executeWithRetry(() -> this.tradingService.cancelChildOrdersByPlatformId(pseudoAccount, platformId));
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.CANCEL_CHILD_ORDERS, pseudoAccount,
+				() -> this.tradingService.cancelChildOrdersByPlatformId(null, pseudoAccount, platformId, commandId));
 	}
 
 	@Override
 	public IOperationResponse<Boolean> modifyOrderByPlatformId(final String pseudoAccount, final String platformId,
 			final OrderType orderType, final Integer quantity, final Float price, final Float triggerPrice) {
-		return this.executeWithRetry(() -> this.tradingService.modifyOrderByPlatformId(pseudoAccount, platformId,
-				orderType, quantity, price, triggerPrice));
+		return this.modifyOrderByPlatformId(pseudoAccount, platformId, orderType, quantity, price, triggerPrice, null);
 	}
 
 	@Override
 	public IOperationResponse<Boolean> modifyOrderByPlatformId(final String pseudoAccount, final String platformId,
 			final OrderType orderType, final Integer quantity, final Float price, final Float triggerPrice,
 			final Integer disclosedQtyPct) {
-		return this.executeWithRetry(() -> this.tradingService.modifyOrderByPlatformId(null, pseudoAccount, platformId,
-				orderType, quantity, price, triggerPrice, disclosedQtyPct));
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.MODIFY_ORDER, pseudoAccount, () -> this.tradingService.modifyOrderByPlatformId(null,
+				pseudoAccount, platformId, orderType, quantity, price, triggerPrice, disclosedQtyPct, commandId));
 	}
 
 	@Override
 	public IOperationResponse<Boolean> squareOffPosition(final String pseudoAccount, final PositionCategory category,
 			final PositionType type, final String exchange, final String symbol, boolean cancelOpenOrders) {
-		return this.executeWithRetry(() -> this.tradingService.squareOffPosition(pseudoAccount, category, type,
-				exchange, symbol, cancelOpenOrders));
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.SQUARE_OFF_POSITION, pseudoAccount,
+				() -> this.tradingService.squareOffPosition(null, pseudoAccount, category, type, exchange, symbol,
+				cancelOpenOrders, commandId));
 	}
 
 	@Override
 	public IOperationResponse<Boolean> squareOffPortfolio(final String pseudoAccount, final PositionCategory category,
 			boolean cancelOpenOrders) {
-		return this.executeWithRetry(
-				() -> this.tradingService.squareOffPortfolio(pseudoAccount, category, cancelOpenOrders));
+		final String commandId = CommandIds.next();
+		return this.call(Endpoint.SQUARE_OFF_PORTFOLIO, pseudoAccount,
+				() -> this.tradingService.squareOffPortfolio(null, pseudoAccount, category, cancelOpenOrders,
+				commandId));
 	}
 
 	@Override
 	public IOperationResponse<Set<PlatformOrder>> readPlatformOrders(@NonNull final String pseudoAccount) {
-		return this.executeWithRetry(() -> this.tradingService.readPlatformOrders(pseudoAccount));
+		return this.call(Endpoint.READ_PLATFORM_ORDERS, pseudoAccount,
+				() -> this.tradingService.readPlatformOrders(pseudoAccount),
+				() -> this.tradingService.readPlatformOrdersAsync(pseudoAccount));
 	}
 
 	@Override
 	public IOperationResponse<Set<PlatformPosition>> readPlatformPositions(@NonNull final String pseudoAccount) {
-		return this.executeWithRetry(() -> this.tradingService.readPlatformPositions(pseudoAccount));
+		return this.call(Endpoint.READ_PLATFORM_POSITIONS, pseudoAccount,
+				() -> this.tradingService.readPlatformPositions(pseudoAccount),
+				() -> this.tradingService.readPlatformPositionsAsync(pseudoAccount));
 	}
 
 	@Override
 	public IOperationResponse<Set<PlatformMargin>> readPlatformMargins(@NonNull final String pseudoAccount) {
-		return this.executeWithRetry(() -> this.tradingService.readPlatformMargins(pseudoAccount));
+		return this.call(Endpoint.READ_PLATFORM_MARGINS, pseudoAccount,
+				() -> this.tradingService.readPlatformMargins(pseudoAccount),
+				() -> this.tradingService.readPlatformMarginsAsync(pseudoAccount));
 	}
 
 	@Override
 	public IOperationResponse<Set<PlatformHolding>> readPlatformHoldings(@NonNull final String pseudoAccount) {
-		return this.executeWithRetry(() -> this.tradingService.readPlatformHoldings(pseudoAccount));
+		return this.call(Endpoint.READ_PLATFORM_HOLDINGS, pseudoAccount,
+				() -> this.tradingService.readPlatformHoldings(pseudoAccount),
+				() -> this.tradingService.readPlatformHoldingsAsync(pseudoAccount));
 	}
 
 	@Override
 	public IOperationResponse<String> autoTraderDesktopVersion() {
-		return this.executeWithRetry(() -> this.tradingService.autoTraderDesktopVersion());
+		return this.call(Endpoint.AUTOTRADER_DESKTOP_VERSION, null,
+				() -> this.tradingService.autoTraderDesktopVersion());
 	}
 
 	@Override
 	public IOperationResponse<String> autoTraderDesktopMinVersion() {
-		return this.executeWithRetry(() -> this.tradingService.autoTraderDesktopMinVersion());
+		return this.call(Endpoint.AUTOTRADER_DESKTOP_MIN_VERSION, null,
+				() -> this.tradingService.autoTraderDesktopMinVersion());
 	}
 
 	/**
-	 * Graceful shutdown. Call when your application is about to terminate.
+	 * Graceful shutdown. Call when your application is about to terminate. A
+	 * tenant of a {@link MultiTenantAutoTrader} is only released, see
+	 * {@link MultiTenantAutoTrader#acquire(String)}.
 	 */
 	@Override
 	public void shutdown() {
-		this.shutdownClient(this.tradingService.getClient());
+		if (this.host == null) {
+			this.close();
+		} else {
+			this.host.release(this);
+		}
+	}
+
+	/**
+	 * Releases the client of the instance, which also runs its delayed
+	 * requests.
+	 */
+	void close() {
+		this.client.release();
 	}
 
-	private final UnirestInstance prepareClient(final AutoTraderClientConfig atConfig) {
-		final Config config = new Config();
-		config.setDefaultHeader(API_KEY_HEADER, atConfig.getApiKey());
-		// Spring boot uses Jackson by default, hence we use jackson here
-		config.setObjectMapper(new JacksonObjectMapper());
-		config.connectTimeout(atConfig.getConnectTimeout());
-		config.socketTimeout(atConfig.getSocketTimeout());
-		config.concurrency(atConfig.getMaxConnections(), atConfig.getMaxConnectionsPerRoute());
-		// Disable ssl verification to improve performance (as we are connecting to our
-		// own servers). This will not stop ssl connection, it will only skip
-		// verification.
-		config.verifySsl(false);
-		return new UnirestInstance(config);
+	String getApiKey() {
+		return this.apiKey;
 	}
 
-	private void shutdownClient(final UnirestInstance client) {
+	@Override
+	public Map<Endpoint, HedgingStats> hedgingStats() {
+		return (this.hedger == null) ? Collections.emptyMap() : this.hedger.stats();
+	}
+
+	@Override
+	public Map<Endpoint, EndpointMetrics> metrics() {
+		return this.client.metrics();
+	}
+
+	@Override
+	public Map<EndpointGroup, CircuitState> circuitStates() {
+		return (this.circuitBreaker == null) ? Collections.emptyMap() : this.circuitBreaker.states();
+	}
+
+	@Override
+	public Map<RequestPriority, DispatchStats> dispatchStats() {
+		return (this.dispatcher == null) ? Collections.emptyMap() : this.dispatcher.stats();
+	}
+
+	@Override
+	public Map<EndpointGroup, BulkheadStats> bulkheadStats() {
+		return this.client.bulkheadStats();
+	}
+
+	/**
+	 * Hedged reads are always sent asynchronously, the calling thread waits for
+	 * the first response.
+	 */
+	private <T> IOperationResponse<T> call(final Endpoint endpoint, final String pseudoAccount,
+			final Supplier<IOperationResponse<T>> f, final Supplier<CompletableFuture<IOperationResponse<T>>> async) {
+		if ((this.hedger == null) || !this.hedger.isHedged(endpoint)) {
+			return this.call(endpoint, pseudoAccount, f);
+		}
+
 		try {
-			if (client != null) {
-				client.shutDown();
+			return this.callAsync(endpoint, pseudoAccount, async).join();
+		} catch (final CompletionException e) {
+			final Throwable cause = Retrier.unwrap(e);
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
 			}
-		} catch (final Exception e) {
-			log.error("Error while shutting down client: ", e);
+			throw e;
 		}
 	}
 
-	private <R> R executeWithRetry(final Supplier<R> f) {
+	private <T> IOperationResponse<T> call(final Endpoint endpoint, final String pseudoAccount,
+			final Supplier<IOperationResponse<T>> f) {
+		if (!endpoint.isReadOnly()) {
+			return this.change(endpoint, pseudoAccount, f);
+		}
+
+		final boolean cached = (this.cache != null) && this.cache.isCached(endpoint);
+		if (cached) {
+			final IOperationResponse<T> response = this.cache.get(endpoint, pseudoAccount);
+			if (response != null) {
+				return response;
+			}
+		}
+
+		if (this.singleFlight == null) {
+			return this.read(endpoint, pseudoAccount, cached, f);
+		}
+		// Identical reads in progress share a single request
+		return this.singleFlight.execute(endpoint, this.apiKey, pseudoAccount,
+				() -> this.read(endpoint, pseudoAccount, cached, f));
+	}
+
+	private <T> IOperationResponse<T> read(final Endpoint endpoint, final String pseudoAccount, final boolean cached,
+			final Supplier<IOperationResponse<T>> f) {
+		final IOperationResponse<T> rejection = this.acquire(pseudoAccount);
+		if (rejection != null) {
+			return rejection;
+		}
+
+		if (!cached) {
+			return this.executeWithRetry(endpoint, f);
+		}
+		final long begin = this.cache.begin();
+		final IOperationResponse<T> response = this.executeWithRetry(endpoint, f);
+		this.cache.put(endpoint, pseudoAccount, begin, response);
+		return response;
+	}
+
+	private <T> IOperationResponse<T> change(final Endpoint endpoint, final String pseudoAccount,
+			final Supplier<IOperationResponse<T>> f) {
+		final IOperationResponse<T> rejection = this.acquire(pseudoAccount);
+		if (rejection != null) {
+			return rejection;
+		}
+
+		this.invalidate(endpoint, pseudoAccount);
 		try {
-			return f.get();
-		} catch (final Exception e) {
-			if (this.shouldRetry(e)) {
-				// Retry
-				log.error("SD-ERR-048: Retrying on error: {}", e.getMessage());
-				return f.get();
-			} else {
-				throw e;
+			return this.executeWithRetry(endpoint, f);
+		} finally {
+			// Invalidate again, as reads made while this request was in progress may not
+			// reflect the change
+			this.completed(endpoint, pseudoAccount);
+		}
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #call(Endpoint, String, Supplier)}.
+	 */
+	<T> CompletableFuture<IOperationResponse<T>> callAsync(final Endpoint endpoint, final String pseudoAccount,
+			final Supplier<CompletableFuture<IOperationResponse<T>>> f) {
+		if (!endpoint.isReadOnly()) {
+			return this.limitAsync(pseudoAccount, () -> {
+				this.invalidate(endpoint, pseudoAccount);
+				return this.executeWithRetryAsync(endpoint, f)
+						.whenComplete((response, error) -> this.completed(endpoint, pseudoAccount));
+			});
+		}
+
+		final boolean cached = (this.cache != null) && this.cache.isCached(endpoint);
+		if (cached) {
+			final IOperationResponse<T> response = this.cache.get(endpoint, pseudoAccount);
+			if (response != null) {
+				return CompletableFuture.completedFuture(response);
 			}
 		}
+
+		final Supplier<CompletableFuture<IOperationResponse<T>>> read = () -> this.limitAsync(pseudoAccount, () -> {
+			if (!cached) {
+				return this.readAsync(endpoint, pseudoAccount, f);
+			}
+			final long begin = this.cache.begin();
+			return this.readAsync(endpoint, pseudoAccount, f)
+					.whenComplete((response, error) -> this.cache.put(endpoint, pseudoAccount, begin, response));
+		});
+
+		if (this.singleFlight == null) {
+			return read.get();
+		}
+		return this.singleFlight.executeAsync(endpoint, this.apiKey, pseudoAccount, read);
 	}
 
-	private boolean shouldRetry(final Exception e) {
-		if (!this.autoRetryOnError) {
-			return false;
+	/**
+	 * Sends the request right away, for emergency actions: bypasses the rate
+	 * limiter (and its queue) as well as the circuit breaker, the request is
+	 * still retried as per the retry policy.
+	 */
+	<T> CompletableFuture<IOperationResponse<T>> callUrgentAsync(final Endpoint endpoint, final String pseudoAccount,
+			final Supplier<CompletableFuture<IOperationResponse<T>>> f) {
+		this.invalidate(endpoint, pseudoAccount);
+		return this.retrier.executeAsync(endpoint, f).thenApply(response -> this.parsed(endpoint, response))
+				.whenComplete((response, error) -> this.completed(endpoint, pseudoAccount));
+	}
+
+	private <T> CompletableFuture<IOperationResponse<T>> readAsync(final Endpoint endpoint, final String pseudoAccount,
+			final Supplier<CompletableFuture<IOperationResponse<T>>> f) {
+		if ((this.hedger == null) || !this.hedger.isHedged(endpoint)) {
+			return this.executeWithRetryAsync(endpoint, f);
 		}
 
-		final Throwable c = e.getCause();
+		// Hedge is sent only if the rate limiter allows it right away
+		return this.hedger.execute(endpoint, () -> this.executeWithRetryAsync(endpoint, f),
+				() -> ((this.rateLimiter == null) || this.rateLimiter.tryAcquire(pseudoAccount))
+						? this.hedgeAsync(endpoint, f)
+						: null);
+	}
+
+	/**
+	 * Sends a hedge to another server (if any). Like any other request it passes
+	 * through the dispatcher & the circuit breaker, though it is not retried. A
+	 * hedge rejected by the open circuit fails, so that the request in flight
+	 * decides the result.
+	 */
+	private <T> CompletableFuture<IOperationResponse<T>> hedgeAsync(final Endpoint endpoint,
+			final Supplier<CompletableFuture<IOperationResponse<T>>> f) {
+		return this.guardAsync(endpoint, () -> this.servers.alternate(f)).get().thenApply(response -> {
+			if ((response != null) && (response.getError() instanceof CircuitOpenException)) {
+				throw new CompletionException(response.getError());
+			}
+			return this.parsed(endpoint, response);
+		});
+	}
 
-		// It is generally considered safe to retry on NoHttpResponseException
-		// https://hc.apache.org/httpclient-legacy/exception-handling.html
-		boolean result = (e instanceof NoHttpResponseException);
-		if (!result && (c != null)) {
-			result = (c instanceof NoHttpResponseException);
+	private <T> CompletableFuture<IOperationResponse<T>> limitAsync(final String pseudoAccount,
+			final Supplier<CompletableFuture<IOperationResponse<T>>> request) {
+		if (this.rateLimiter == null) {
+			return request.get();
 		}
+		return this.rateLimiter.acquireAsync(pseudoAccount, request, AutoTrader::rateLimitExceeded);
+	}
 
-		if (!result && (c.getCause() != null)) {
-			result = (c.getCause() instanceof NoHttpResponseException);
+	/**
+	 * Registers a listener notified (with the pseudo account, <code>null</code>
+	 * for any account) each time a request which may change an account completes.
+	 * Called on the thread which completes the request, hence it must not block.
+	 */
+	void addCommandListener(@NonNull final Consumer<String> listener) {
+		this.commandListeners.add(listener);
+	}
+
+	void removeCommandListener(@NonNull final Consumer<String> listener) {
+		this.commandListeners.remove(listener);
+	}
+
+	/**
+	 * Invalidates cached reads of the account once a request which changes it
+	 * completes, and notifies the command listeners. Reads (e.g. urgent reads)
+	 * change no account, hence notify no one.
+	 */
+	private void completed(final Endpoint endpoint, final String pseudoAccount) {
+		if (endpoint.isReadOnly()) {
+			return;
+		}
+		this.invalidate(endpoint, pseudoAccount);
+		for (final Consumer<String> listener : this.commandListeners) {
+			try {
+				listener.accept(pseudoAccount);
+			} catch (final Exception e) {
+				log.error("SD-ERR-056: Command listener failed: ", e);
+			}
+		}
+	}
+
+	/**
+	 * Invalidates cached reads of the account, if the end point changes it.
+	 */
+	private void invalidate(final Endpoint endpoint, final String pseudoAccount) {
+		if ((this.cache != null) && !endpoint.isReadOnly()) {
+			this.cache.invalidate(pseudoAccount);
+		}
+	}
+
+	/**
+	 * Waits for the client side rate limiter (if enabled) to allow the request.
+	 *
+	 * @return <code>null</code> when the request is allowed, an error response
+	 *         otherwise
+	 */
+	private <T> IOperationResponse<T> acquire(final String pseudoAccount) {
+		if ((this.rateLimiter == null) || this.rateLimiter.acquire(pseudoAccount)) {
+			return null;
 		}
+		return rateLimitExceeded();
+	}
+
+	private static <T> IOperationResponse<T> rateLimitExceeded() {
+		return OperationResponse.<T>builder()
+				.error(new Exception("Client side rate limit exceeded, request was not sent to the server")).build();
+	}
+
+	/**
+	 * Every attempt (including retries) passes through the circuit breaker, hence
+	 * retries stop as soon as the circuit opens, and then the dispatcher.
+	 */
+	private <R extends IOperationResponse<?>> R executeWithRetry(final Endpoint endpoint, final Supplier<R> f) {
+		final Supplier<R> dispatched = (this.dispatcher == null) ? f : this.dispatcher.dispatch(endpoint, f);
+		final Supplier<R> guarded = (this.circuitBreaker == null) ? dispatched
+				: this.circuitBreaker.guard(endpoint, dispatched);
+		return this.parsed(endpoint, this.retrier.execute(endpoint, guarded));
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #executeWithRetry(Endpoint, Supplier)}.
+	 */
+	private <R extends IOperationResponse<?>> CompletableFuture<R> executeWithRetryAsync(final Endpoint endpoint,
+			final Supplier<CompletableFuture<R>> f) {
+		return this.retrier.executeAsync(endpoint, this.guardAsync(endpoint, f))
+				.thenApply(response -> this.parsed(endpoint, response));
+	}
 
-		return result;
+	/**
+	 * @return the request, passing through the circuit breaker & then the
+	 *         dispatcher
+	 */
+	private <R extends IOperationResponse<?>> Supplier<CompletableFuture<R>> guardAsync(final Endpoint endpoint,
+			final Supplier<CompletableFuture<R>> f) {
+		final Supplier<CompletableFuture<R>> dispatched = (this.dispatcher == null) ? f
+				: this.dispatcher.dispatchAsync(endpoint, f);
+		return (this.circuitBreaker == null) ? dispatched : this.circuitBreaker.guardAsync(endpoint, dispatched);
+	}
+
+	/**
+	 * Records the response if it could not be parsed.
+	 */
+	private <R extends IOperationResponse<?>> R parsed(final Endpoint endpoint, final R response) {
+		if ((response != null) && (response.getError() instanceof UnirestParsingException)) {
+			this.recorder.recordParseError(endpoint);
+		}
+		return response;
 	}
 
 }
@@ -3,10 +3,16 @@
  */
 package com.dakshata.autotrader.api;
 
+import static com.dakshata.autotrader.api.IAutoTrader.BACKUP_SERVER_URL;
+import static com.dakshata.autotrader.api.IAutoTrader.PRIMARY_SERVER_URL;
 import static com.dakshata.autotrader.api.IAutoTrader.SERVER_URL;
 import static kong.unirest.Config.DEFAULT_CONNECTION_TIMEOUT;
 import static kong.unirest.Config.DEFAULT_SOCKET_TIMEOUT;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import lombok.Builder;
 import lombok.Getter;
 
@@ -16,7 +22,7 @@ import lombok.Getter;
  * @author PRITESH
  *
  */
-@Builder
+@Builder(toBuilder = true)
 @Getter
 public class AutoTraderClientConfig {
 
@@ -24,16 +30,286 @@ public class AutoTraderClientConfig {
 	private final int maxConnections = 250, maxConnectionsPerRoute = 200,
 			connectTimeout = DEFAULT_CONNECTION_TIMEOUT * 3, socketTimeout = DEFAULT_SOCKET_TIMEOUT * 2;
 
+	/**
+	 * Bulkheads: end point groups with a client (& hence connection pools) of
+	 * their own, e.g. a {@link EndpointGroup#READ} bulkhead keeps a storm of
+	 * holdings reads from taking the connections needed to place orders. The
+	 * other groups share the client configured by {@link #maxConnections},
+	 * {@link #maxConnectionsPerRoute} & the timeouts above. Empty (no bulkheads)
+	 * by default.
+	 */
+	@Builder.Default
+	private final Map<EndpointGroup, BulkheadConfig> bulkheads = Collections.emptyMap();
+
+	/**
+	 * Http transport requests are sent with, e.g. {@link Http2Transport} to
+	 * multiplex requests over a few HTTP/2 connections (Java 11+, it falls back
+	 * to HTTP/1.1 on Java 8). Defaults to the HTTP/1.1 Apache HttpClient of
+	 * Unirest.
+	 */
+	@Builder.Default
+	private final HttpTransport transport = HttpTransport.APACHE;
+
+	/**
+	 * Retries failed requests as per {@link #readRetryPolicy} &
+	 * {@link #orderRetryPolicy}. Disabling it disables all retries.
+	 */
 	@Builder.Default
 	private final boolean autoRetryOnError = true;
 
+	/**
+	 * Retry policy of the read end points. Defaults retry twice with backoff
+	 * (50ms, 100ms, with jitter) when the server is busy or unavailable
+	 * ({@link BackoffRetryPolicy#TRANSIENT_STATUSES}) or does not respond.
+	 */
+	@Builder.Default
+	private final RetryPolicy readRetryPolicy = BackoffRetryPolicy.builder().maxRetries(2).initialDelay(50)
+			.statuses(BackoffRetryPolicy.TRANSIENT_STATUSES).build();
+
+	/**
+	 * Retry policy of the end points which place, modify or cancel orders (or
+	 * otherwise change the account). Defaults retry once, immediately, only when
+	 * the server does not respond on a pooled connection. Retries carry the
+	 * command id of the original request, so that the server executes the
+	 * command only once, which makes retries of statuses like 502 & 503 safe
+	 * as long as the server honours command ids.
+	 */
+	@Builder.Default
+	private final RetryPolicy orderRetryPolicy = BackoffRetryPolicy.builder().build();
+
+	/**
+	 * Retries allowed per request, across all end points, e.g. 0.1 allows one
+	 * retry per ten requests. Retries over the budget are not made, so retries
+	 * cannot amplify an outage. Zero disables the budget.
+	 */
+	@Builder.Default
+	private final double retryBudgetRatio = 0.1;
+
+	/**
+	 * Retries allowed per second irrespective of {@link #retryBudgetRatio}.
+	 */
+	@Builder.Default
+	private final int retryBudgetMinPerSecond = 10;
+
+	/**
+	 * Fraction (0 - 1) of failed requests, among the last
+	 * {@link #circuitWindowSize} requests of an {@link EndpointGroup}, which
+	 * opens the circuit of the group: its requests then fail fast with a
+	 * {@link CircuitOpenException} error for {@link #circuitOpenDuration}, instead
+	 * of waiting for the socket timeout. A request fails when it throws an
+	 * exception or the server responds with a 5xx status, e.g. 0.5. Zero (default)
+	 * disables the circuit breaker.
+	 */
+	@Builder.Default
+	private final double circuitFailureRate = 0;
+
+	@Builder.Default
+	private final int circuitWindowSize = 20;
+
+	/**
+	 * Number of requests (within the window) needed before the circuit can open.
+	 */
+	@Builder.Default
+	private final int circuitMinimumRequests = 10;
+
+	/**
+	 * Time (milliseconds) for which an open circuit fails requests, after which
+	 * it allows {@link #circuitHalfOpenProbes} probe requests. The circuit closes
+	 * if all of them succeed, it opens again otherwise.
+	 */
+	@Builder.Default
+	private final long circuitOpenDuration = 5000;
+
+	@Builder.Default
+	private final int circuitHalfOpenProbes = 3;
+
+	/**
+	 * Notified when a circuit changes state, e.g. to trigger a kill switch.
+	 */
+	private final CircuitBreakerListener circuitBreakerListener;
+
+	/**
+	 * Number of connections opened to every server (with lightweight requests)
+	 * when the instance is created, so that the first orders do not pay for the
+	 * connection setup. Zero disables warm up & keep-alive.
+	 */
+	@Builder.Default
+	private final int warmUpConnections = 0;
+
+	/**
+	 * Maximum time (milliseconds) instance creation waits for the warm up. Others
+	 * asking for the same instance meanwhile get it without waiting.
+	 */
+	@Builder.Default
+	private final long warmUpTimeout = 5000;
+
+	/**
+	 * Interval (milliseconds) at which the warmed up connections are validated &
+	 * kept alive (expired ones are replaced). Zero disables keep-alive.
+	 */
+	@Builder.Default
+	private final long keepAliveInterval = 30000;
+
 	@Builder.Default
 	private final String serviceUrl = SERVER_URL;
 
+	/**
+	 * Servers to fail over to, when {@link #serviceUrl} is down or significantly
+	 * slower. Empty disables failover.
+	 */
+	@Builder.Default
+	private final List<String> backupServiceUrls = Collections.emptyList();
+
+	/**
+	 * Interval (milliseconds) between background health checks of the servers,
+	 * only done when backup servers are configured. Zero disables health checks,
+	 * servers are then tracked using the actual requests only.
+	 */
+	@Builder.Default
+	private final long healthCheckInterval = 5000;
+
+	/**
+	 * Number of consecutive failed requests after which a server is considered
+	 * down.
+	 */
+	@Builder.Default
+	private final int unhealthyThreshold = 3;
+
+	/**
+	 * Client side rate limit (requests per second) for all requests made using the
+	 * api key. Zero disables it.
+	 */
+	@Builder.Default
+	private final double rateLimitPerSecond = 0;
+
+	/**
+	 * Client side rate limit (requests per second) for requests made for a single
+	 * pseudo account. Zero disables it.
+	 */
+	@Builder.Default
+	private final double accountRateLimitPerSecond = 0;
+
+	/**
+	 * Number of requests allowed in a burst, over & above the steady rate.
+	 */
+	@Builder.Default
+	private final int rateLimitBurst = 10, accountRateLimitBurst = 5;
+
+	@Builder.Default
+	private final RateLimitMode rateLimitMode = RateLimitMode.BLOCK;
+
+	/**
+	 * Maximum time (milliseconds) a request waits for the rate limiter in
+	 * {@link RateLimitMode#DEADLINE} mode.
+	 */
+	@Builder.Default
+	private final long rateLimitTimeout = 1000;
+
+	/**
+	 * Maximum number of requests in flight (blocking & non-blocking together),
+	 * beyond which requests queue by {@link RequestPriority} of their end point,
+	 * e.g. cancellations go ahead of queued reads. Set it to (at most)
+	 * {@link #maxConnectionsPerRoute} for requests to queue here, rather than
+	 * first come first served for a pooled connection. Zero disables it.
+	 */
+	@Builder.Default
+	private final int maxRequestsInFlight = 0;
+
+	/**
+	 * Maximum time (milliseconds) a queued request waits behind higher priority
+	 * requests, after which it is dispatched ahead of them (oldest first), so
+	 * that lower priority requests are not starved.
+	 */
+	@Builder.Default
+	private final long maxQueueWait = 500;
+
+	/**
+	 * Maximum number of requests of a batch operation (e.g.
+	 * {@link IAutoTrader#placeOrders(List)}) in flight at a time. It is further
+	 * capped by {@link #maxConnectionsPerRoute}.
+	 */
+	@Builder.Default
+	private final int batchConcurrency = 20;
+
+	/**
+	 * Time to live (milliseconds) of cached responses of
+	 * {@link IAutoTrader#readPlatformOrders(String)},
+	 * {@link IAutoTrader#readPlatformPositions(String)},
+	 * {@link IAutoTrader#readPlatformMargins(String)} &
+	 * {@link IAutoTrader#readPlatformHoldings(String)} respectively. Zero disables
+	 * caching for that end point. Cached responses are shared by all callers,
+	 * hence they must not be modified.
+	 */
+	@Builder.Default
+	private final long ordersCacheTtl = 0, positionsCacheTtl = 0, marginsCacheTtl = 0, holdingsCacheTtl = 0;
+
+	/**
+	 * Maximum number of cached responses, least recently used ones are evicted
+	 * first.
+	 */
+	@Builder.Default
+	private final int cacheMaxEntries = 1000;
+
+	/**
+	 * When enabled, identical read requests (same end point & pseudo account)
+	 * made while one is already in progress do not go to the server, they wait
+	 * for and share the response of the request in progress. Shared responses
+	 * must not be modified.
+	 */
+	@Builder.Default
+	private final boolean coalesceReads = false;
+
+	/**
+	 * Latency percentile (e.g. 95) after which a read of orders, positions,
+	 * margins or holdings is hedged: a duplicate request is sent (to the backup
+	 * server when one is available) and the first response is used. Zero
+	 * disables hedging. Order placement, modification & cancellation are never
+	 * hedged.
+	 */
+	@Builder.Default
+	private final double hedgePercentile = 0;
+
+	/**
+	 * Minimum time (milliseconds) to wait before a hedge request is sent.
+	 */
+	@Builder.Default
+	private final long hedgeMinDelay = 10;
+
+	/**
+	 * Receives per end point latency, status, parse error, retry & connection
+	 * pool metrics, e.g. {@link HdrHistogramMetricsRecorder}. Records nothing by
+	 * default.
+	 */
+	@Builder.Default
+	private final MetricsRecorder metricsRecorder = MetricsRecorder.NOOP;
+
+	/**
+	 * Exposes the recorded metrics through JMX (see {@link MetricsMXBean}), unless
+	 * nothing is recorded.
+	 */
+	@Builder.Default
+	private final boolean metricsMBean = true;
+
+	/**
+	 * Interval (milliseconds) at which the connection pool usage is sampled for
+	 * the metrics recorder, zero to sample only when the metrics are read.
+	 */
+	@Builder.Default
+	private final long poolSampleInterval = 1000;
+
 	private final String apiKey;
 
 	public static final AutoTraderClientConfig defaultConfig(final String apiKey) {
 		return AutoTraderClientConfig.builder().apiKey(apiKey).build();
 	}
 
+	/**
+	 * Default configuration which fails over between the primary & backup
+	 * servers.
+	 */
+	public static final AutoTraderClientConfig failoverConfig(final String apiKey) {
+		return AutoTraderClientConfig.builder().apiKey(apiKey).serviceUrl(PRIMARY_SERVER_URL)
+				.backupServiceUrls(Collections.singletonList(BACKUP_SERVER_URL)).build();
+	}
+
 }
@@ -0,0 +1,104 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.http.NoHttpResponseException;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Retries requests which failed with one of the configured exceptions (found
+ * anywhere in the cause chain) or http statuses, with exponential backoff and
+ * jitter: the n-th retry waits <code>initialDelay * multiplier^n</code>
+ * (capped at <code>maxDelay</code>), reduced by a random fraction of up to
+ * <code>jitter</code> so that clients do not retry in lock step.
+ *
+ * Defaults retry once, immediately, on {@link NoHttpResponseException} only,
+ * which is generally safe even for orders (the server closed a stale pooled
+ * connection).
+ *
+ * @author PRITESH
+ *
+ */
+@Builder
+@Getter
+public class BackoffRetryPolicy implements RetryPolicy {
+
+	/**
+	 * Statuses of a busy or temporarily unavailable server: too many requests,
+	 * bad gateway & service unavailable.
+	 */
+	public static final Set<Integer> TRANSIENT_STATUSES = Collections
+			.unmodifiableSet(new HashSet<>(Arrays.asList(429, 502, 503)));
+
+	@Builder.Default
+	private final int maxRetries = 1;
+
+	/**
+	 * Delay (milliseconds) before the first retry.
+	 */
+	@Builder.Default
+	private final long initialDelay = 0;
+
+	/**
+	 * Maximum delay (milliseconds) between retries.
+	 */
+	@Builder.Default
+	private final long maxDelay = 1000;
+
+	@Builder.Default
+	private final double multiplier = 2;
+
+	/**
+	 * Fraction (0 - 1) of the delay which is randomized.
+	 */
+	@Builder.Default
+	private final double jitter = 0.5;
+
+	@Builder.Default
+	private final Set<Class<? extends Throwable>> exceptions = Collections
+			.singleton(NoHttpResponseException.class);
+
+	@Builder.Default
+	private final Set<Integer> statuses = Collections.emptySet();
+
+	@Override
+	public long retryDelay(final Endpoint endpoint, final int retries, final Throwable error, final int status) {
+		if ((retries >= this.maxRetries) || !this.isRetryable(error, status)) {
+			return -1;
+		}
+
+		final double delay = Math.min(this.maxDelay, this.initialDelay * Math.pow(this.multiplier, retries));
+		if ((delay <= 0) || (this.jitter <= 0)) {
+			return Math.max(0, Math.round(delay));
+		}
+		return Math.round(delay * (1 - (this.jitter * ThreadLocalRandom.current().nextDouble())));
+	}
+
+	private boolean isRetryable(final Throwable error, final int status) {
+		if (error == null) {
+			return this.statuses.contains(status);
+		}
+
+		// Bounded, in case of a cyclic cause chain
+		Throwable t = error;
+		for (int depth = 0; (t != null) && (depth < 10); depth++) {
+			for (final Class<? extends Throwable> type : this.exceptions) {
+				if (type.isInstance(t)) {
+					return true;
+				}
+			}
+			t = t.getCause();
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,249 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+
+import lombok.NonNull;
+
+/**
+ * Pipelines the requests of a batch over the connection pool. At most
+ * <code>concurrency</code> requests are in flight at a time, as soon as one
+ * completes the next one is sent.
+ *
+ * With a deadline, the batch completes at the deadline at the latest: items
+ * not sent by then are not sent at all, and items still in flight are
+ * reported as errors (their requests may still succeed on the server).
+ *
+ * @author PRITESH
+ *
+ */
+final class BatchExecutor<I, T> {
+
+	private final List<I> inputs;
+
+	private final Function<I, CompletableFuture<IOperationResponse<T>>> call;
+
+	private final AtomicReferenceArray<IOperationResponse<T>> results;
+
+	private final long[] latencies, completions;
+
+	private final AtomicInteger next = new AtomicInteger(), remaining;
+
+	private final CompletableFuture<BatchResponse<T>> done = new CompletableFuture<>();
+
+	private final long start = System.nanoTime();
+
+	private volatile ScheduledFuture<?> deadline;
+
+	private BatchExecutor(final List<I> inputs, final Function<I, CompletableFuture<IOperationResponse<T>>> call) {
+		this.inputs = inputs;
+		this.call = call;
+		this.results = new AtomicReferenceArray<>(inputs.size());
+		this.latencies = new long[inputs.size()];
+		this.completions = new long[inputs.size()];
+		this.remaining = new AtomicInteger(inputs.size());
+	}
+
+	/**
+	 * Executes the call for every input. The returned future never completes
+	 * exceptionally, failures of individual items are reported as error responses.
+	 *
+	 * @param inputs      batch items
+	 * @param concurrency maximum number of requests in flight
+	 * @param call        sends the request for an item
+	 * @return batch response
+	 */
+	static <I, T> CompletableFuture<BatchResponse<T>> execute(@NonNull final List<I> inputs, final int concurrency,
+			@NonNull final Function<I, CompletableFuture<IOperationResponse<T>>> call) {
+		return execute(inputs, concurrency, 0, call);
+	}
+
+	/**
+	 * Same as {@link #execute(List, int, Function)}, completing within the given
+	 * time.
+	 *
+	 * @param timeout time (milliseconds) within which the batch completes, zero
+	 *                for no deadline
+	 */
+	static <I, T> CompletableFuture<BatchResponse<T>> execute(@NonNull final List<I> inputs, final int concurrency,
+			final long timeout, @NonNull final Function<I, CompletableFuture<IOperationResponse<T>>> call) {
+		final BatchExecutor<I, T> batch = new BatchExecutor<>(inputs, call);
+		if (inputs.isEmpty()) {
+			batch.complete();
+			return batch.done;
+		}
+
+		if (timeout > 0) {
+			batch.deadline = Timer.INSTANCE.schedule(batch::expire, timeout, MILLISECONDS);
+		}
+		final int parallel = Math.min(Math.max(1, concurrency), inputs.size());
+		for (int i = 0; i < parallel; i++) {
+			batch.sendNext();
+		}
+		return batch.done;
+	}
+
+	/**
+	 * Completes with the result of the given future, or with the fallback if it
+	 * does not complete within the given time.
+	 *
+	 * @param timeout time (milliseconds), zero for no limit
+	 */
+	static <T> CompletableFuture<T> within(@NonNull final CompletableFuture<T> future, final long timeout,
+			@NonNull final Supplier<T> fallback) {
+		if (timeout <= 0) {
+			return future;
+		}
+
+		final CompletableFuture<T> result = new CompletableFuture<>();
+		final ScheduledFuture<?> timer = Timer.INSTANCE.schedule(() -> result.complete(fallback.get()), timeout,
+				MILLISECONDS);
+		future.whenComplete((value, error) -> {
+			timer.cancel(false);
+			if (error == null) {
+				result.complete(value);
+			} else {
+				result.completeExceptionally(error);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Sends the next items, until one is in flight or none is left. Items which
+	 * complete right away (e.g. rejected by the rate limiter) are recorded here,
+	 * rather than by sending the next item from their completion, which would
+	 * nest a call per item & overflow the stack on a large batch.
+	 */
+	private void sendNext() {
+		for (;;) {
+			final int index = this.next.getAndIncrement();
+			if (index >= this.inputs.size()) {
+				return;
+			}
+
+			final long sent = System.nanoTime();
+			CompletableFuture<IOperationResponse<T>> future;
+			try {
+				future = this.call.apply(this.inputs.get(index));
+			} catch (final Exception e) {
+				future = new CompletableFuture<>();
+				future.completeExceptionally(e);
+			}
+
+			if (!future.isDone()) {
+				future.whenComplete((response, error) -> {
+					if (this.record(index, sent, (error == null) ? response : errorResponse(error))) {
+						this.sendNext();
+					}
+				});
+				return;
+			}
+
+			IOperationResponse<T> response;
+			try {
+				response = future.join();
+			} catch (final CompletionException | CancellationException e) {
+				response = errorResponse(e);
+			}
+			if (!this.record(index, sent, response)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Records the response of an item.
+	 *
+	 * @return whether the next item is to be sent, <code>false</code> once the
+	 *         batch is complete or expired
+	 */
+	private boolean record(final int index, final long sent, final IOperationResponse<T> response) {
+		final long now = System.nanoTime();
+		if (!this.results.compareAndSet(index, null, response)) {
+			// Expired
+			return false;
+		}
+		this.latencies[index] = now - sent;
+		this.completions[index] = now - this.start;
+		if (this.remaining.decrementAndGet() == 0) {
+			this.complete();
+			return false;
+		}
+		return true;
+	}
+
+	private void expire() {
+		final long elapsed = System.nanoTime() - this.start;
+		// Claims the items not sent yet, so that they are never sent
+		final int sent = Math.min(this.next.getAndSet(this.inputs.size()), this.inputs.size());
+		for (int i = 0; i < this.inputs.size(); i++) {
+			final Exception error = new Exception((i < sent)
+					? "No response within the deadline, the request may still succeed on the server"
+					: "Not sent, deadline exceeded");
+			if (this.results.compareAndSet(i, null, OperationResponse.<T>builder().error(error).build())) {
+				this.latencies[i] = (i < sent) ? elapsed : 0;
+				this.completions[i] = elapsed;
+			}
+		}
+		this.complete();
+	}
+
+	private void complete() {
+		final ScheduledFuture<?> timer = this.deadline;
+		if (timer != null) {
+			timer.cancel(false);
+		}
+
+		final List<IOperationResponse<T>> list = new ArrayList<>(this.results.length());
+		for (int i = 0; i < this.results.length(); i++) {
+			list.add(this.results.get(i));
+		}
+		this.done.complete(new BatchResponse<>(Collections.unmodifiableList(list), this.latencies.clone(),
+				this.completions.clone(), System.nanoTime() - this.start));
+	}
+
+	private static <T> IOperationResponse<T> errorResponse(final Throwable error) {
+		final Throwable cause = ((error instanceof CompletionException) && (error.getCause() != null))
+				? error.getCause()
+				: error;
+		return OperationResponse.<T>builder()
+				.error((cause instanceof Exception) ? (Exception) cause : new Exception(cause)).build();
+	}
+
+	/**
+	 * Timer of batch deadlines, created when first needed.
+	 */
+	private static final class Timer {
+
+		private static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1, r -> {
+			final Thread t = new Thread(r, "at-api-batch-deadline");
+			t.setDaemon(true);
+			return t;
+		});
+
+		static {
+			INSTANCE.setRemoveOnCancelPolicy(true);
+		}
+
+	}
+
+}
@@ -0,0 +1,140 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import com.dakshata.data.model.common.IOperationResponse;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Result of a batch operation. Holds one response per item, in the same order
+ * as the input, along with timing of the batch.
+ *
+ * @author PRITESH
+ *
+ */
+public class BatchResponse<T> {
+
+	/**
+	 * Per item responses, in input order.
+	 */
+	@Getter
+	private final List<IOperationResponse<T>> results;
+
+	private final long[] latencies, completions;
+
+	private final long elapsed;
+
+	BatchResponse(@NonNull final List<IOperationResponse<T>> results, @NonNull final long[] latencies,
+			@NonNull final long[] completions, final long elapsed) {
+		this.results = results;
+		this.latencies = latencies;
+		this.completions = completions;
+		this.elapsed = elapsed;
+	}
+
+	BatchResponse(@NonNull final BatchResponse<T> batch) {
+		this(batch.results, batch.latencies, batch.completions, batch.elapsed);
+	}
+
+	public int size() {
+		return this.results.size();
+	}
+
+	public IOperationResponse<T> get(final int index) {
+		return this.results.get(index);
+	}
+
+	public int successCount() {
+		int count = 0;
+		for (final IOperationResponse<T> result : this.results) {
+			if (result.success()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public int failureCount() {
+		return this.size() - this.successCount();
+	}
+
+	/**
+	 * @return wall clock time taken by the whole batch
+	 */
+	public Duration getElapsed() {
+		return Duration.ofNanos(this.elapsed);
+	}
+
+	/**
+	 * @return time taken by the item at the given index (from sending the request
+	 *         till its response)
+	 */
+	public Duration getLatency(final int index) {
+		return Duration.ofNanos(this.latencies[index]);
+	}
+
+	public Duration getMaxLatency() {
+		long max = 0;
+		for (final long latency : this.latencies) {
+			max = Math.max(max, latency);
+		}
+		return Duration.ofNanos(max);
+	}
+
+	/**
+	 * @return time from the start of the batch till the response of the item at
+	 *         the given index, which includes the time it waited to be sent
+	 */
+	public Duration getCompletion(final int index) {
+		return Duration.ofNanos(this.completions[index]);
+	}
+
+	/**
+	 * @param percentile e.g. 99
+	 * @return latency (see {@link #getLatency(int)}) at the given percentile
+	 */
+	public Duration getLatencyPercentile(final double percentile) {
+		return Duration.ofNanos(percentile(this.latencies, percentile));
+	}
+
+	/**
+	 * @param percentile e.g. 99
+	 * @return completion time (see {@link #getCompletion(int)}) at the given
+	 *         percentile
+	 */
+	public Duration getCompletionPercentile(final double percentile) {
+		return Duration.ofNanos(percentile(this.completions, percentile));
+	}
+
+	public Duration getAverageLatency() {
+		if (this.latencies.length == 0) {
+			return Duration.ZERO;
+		}
+		long total = 0;
+		for (final long latency : this.latencies) {
+			total += latency;
+		}
+		return Duration.ofNanos(total / this.latencies.length);
+	}
+
+	/**
+	 * Nearest rank percentile.
+	 */
+	private static long percentile(final long[] values, final double percentile) {
+		if (values.length == 0) {
+			return 0;
+		}
+		final long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		final int rank = (int) Math.ceil((percentile / 100) * sorted.length);
+		return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+	}
+
+}
@@ -0,0 +1,36 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Connection pool sizes & timeouts of the client of an {@link EndpointGroup}
+ * which has a bulkhead, see {@link AutoTraderClientConfig#getBulkheads()}.
+ *
+ * @author PRITESH
+ *
+ */
+@Builder
+@Getter
+public class BulkheadConfig {
+
+	@Builder.Default
+	private final int maxConnections = 50, maxConnectionsPerRoute = 50;
+
+	/**
+	 * Connect & socket timeouts (milliseconds). Zero uses the timeout of the
+	 * {@link AutoTraderClientConfig}. The socket timeout also bounds the wait for
+	 * a pooled connection when the pool is saturated.
+	 */
+	@Builder.Default
+	private final int connectTimeout = 0, socketTimeout = 0;
+
+	public static final BulkheadConfig of(final int maxConnections) {
+		return BulkheadConfig.builder().maxConnections(maxConnections).maxConnectionsPerRoute(maxConnections)
+				.build();
+	}
+
+}
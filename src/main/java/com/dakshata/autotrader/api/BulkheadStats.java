@@ -0,0 +1,56 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import lombok.Value;
+
+/**
+ * Current usage of the connection pool an {@link EndpointGroup} sends its
+ * blocking requests with, see {@link AutoTraderClientConfig#getBulkheads()}.
+ *
+ * @author PRITESH
+ *
+ */
+@Value
+public class BulkheadStats {
+
+	/**
+	 * Whether the group has a pool of its own, otherwise the pool is shared with
+	 * the other groups which do not have one.
+	 */
+	private final boolean dedicated;
+
+	private final int maxConnections;
+
+	/**
+	 * Number of connections in use.
+	 */
+	private final int leased;
+
+	/**
+	 * Number of requests waiting for a connection.
+	 */
+	private final int pending;
+
+	/**
+	 * Number of idle connections.
+	 */
+	private final int available;
+
+	/**
+	 * @return fraction (0 - 1) of the connections in use
+	 */
+	public double getUtilization() {
+		return (this.maxConnections == 0) ? 0 : ((double) this.leased / this.maxConnections);
+	}
+
+	/**
+	 * @return whether all connections are in use or requests are waiting for
+	 *         one
+	 */
+	public boolean isSaturated() {
+		return (this.pending > 0) || (this.leased >= this.maxConnections);
+	}
+
+}
@@ -0,0 +1,33 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * An order to be cancelled as part of a batch.
+ *
+ * @author PRITESH
+ *
+ */
+@Builder
+@Getter
+public class CancelOrderRequest {
+
+	@NonNull
+	private final String pseudoAccount;
+
+	/**
+	 * Platform id (id given to order by trading platform).
+	 */
+	@NonNull
+	private final String platformId;
+
+	public static final CancelOrderRequest of(final String pseudoAccount, final String platformId) {
+		return CancelOrderRequest.builder().pseudoAccount(pseudoAccount).platformId(platformId).build();
+	}
+
+}
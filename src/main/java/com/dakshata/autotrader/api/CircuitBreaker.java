@@ -0,0 +1,257 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker per {@link EndpointGroup}. The circuit opens when the
+ * fraction of failed requests, among the last few requests of the group,
+ * crosses the threshold. Requests then fail fast with a
+ * {@link CircuitOpenException} error, instead of waiting for the socket
+ * timeout of a degraded server. After a while the circuit is half open: a few
+ * probe requests are sent, it closes if all of them succeed & opens again if
+ * any of them fails.
+ *
+ * A request fails when it throws an exception (e.g. a timeout) or the server
+ * responds with a 5xx status. Other errors (e.g. an order rejected by the
+ * broker) are not failures of the server.
+ *
+ * @author PRITESH
+ *
+ */
+@Slf4j
+final class CircuitBreaker {
+
+	private final Map<EndpointGroup, Circuit> circuits = new EnumMap<>(EndpointGroup.class);
+
+	private final CircuitBreakerListener listener;
+
+	CircuitBreaker(@NonNull final AutoTraderClientConfig config) {
+		for (final EndpointGroup group : EndpointGroup.values()) {
+			this.circuits.put(group, new Circuit(group, config));
+		}
+		this.listener = config.getCircuitBreakerListener();
+	}
+
+	/**
+	 * Creates the circuit breaker as per the configuration.
+	 *
+	 * @return circuit breaker or <code>null</code> when disabled
+	 */
+	static CircuitBreaker create(@NonNull final AutoTraderClientConfig config) {
+		return (config.getCircuitFailureRate() > 0) ? new CircuitBreaker(config) : null;
+	}
+
+	/**
+	 * @return a supplier which makes the request only if the circuit allows it,
+	 *         and records its outcome
+	 */
+	<R extends IOperationResponse<?>> Supplier<R> guard(final Endpoint endpoint, final Supplier<R> f) {
+		final Circuit circuit = this.circuits.get(endpoint.getGroup());
+		return () -> {
+			final long permit = circuit.acquire();
+			if (permit < 0) {
+				return rejected(circuit.group);
+			}
+
+			final R response;
+			try {
+				response = f.get();
+			} catch (final RuntimeException e) {
+				circuit.record(permit, true);
+				throw e;
+			}
+			circuit.record(permit, isFailure(response));
+			return response;
+		};
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #guard(Endpoint, Supplier)}.
+	 */
+	<R extends IOperationResponse<?>> Supplier<CompletableFuture<R>> guardAsync(final Endpoint endpoint,
+			final Supplier<CompletableFuture<R>> f) {
+		final Circuit circuit = this.circuits.get(endpoint.getGroup());
+		return () -> {
+			final long permit = circuit.acquire();
+			if (permit < 0) {
+				return CompletableFuture.completedFuture(rejected(circuit.group));
+			}
+
+			final CompletableFuture<R> future;
+			try {
+				future = f.get();
+			} catch (final RuntimeException e) {
+				circuit.record(permit, true);
+				throw e;
+			}
+			return future.whenComplete(
+					(response, error) -> circuit.record(permit, (error != null) || isFailure(response)));
+		};
+	}
+
+	Map<EndpointGroup, CircuitState> states() {
+		final Map<EndpointGroup, CircuitState> states = new EnumMap<>(EndpointGroup.class);
+		for (final Circuit circuit : this.circuits.values()) {
+			states.put(circuit.group, circuit.state());
+		}
+		return Collections.unmodifiableMap(states);
+	}
+
+	/**
+	 * Called with the lock of the circuit held, so that listeners receive the
+	 * changes in order.
+	 */
+	private void changed(final EndpointGroup group, final CircuitState from, final CircuitState to) {
+		if (to == CircuitState.OPEN) {
+			log.error("SD-ERR-052: Circuit of {} end points is open, requests will fail fast", group);
+		} else {
+			log.info("Circuit of {} end points is {}", group, to);
+		}
+		if (this.listener != null) {
+			try {
+				this.listener.stateChanged(group, from, to);
+			} catch (final RuntimeException e) {
+				log.error("SD-ERR-053: Circuit breaker listener failed: ", e);
+			}
+		}
+	}
+
+	private static boolean isFailure(final IOperationResponse<?> response) {
+		return (response != null) && (response.getError() instanceof HttpStatusException)
+				&& (((HttpStatusException) response.getError()).getStatus() >= 500);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <R extends IOperationResponse<?>> R rejected(final EndpointGroup group) {
+		return (R) OperationResponse.builder().error(new CircuitOpenException(group)).build();
+	}
+
+	/**
+	 * State of the circuit of a group. Permits carry the generation (incremented
+	 * on every state change) they were issued in, so that the outcome of a
+	 * request made in an earlier state is not taken as a probe result.
+	 */
+	private final class Circuit {
+
+		private final EndpointGroup group;
+
+		private final double failureRate;
+
+		private final int minimumRequests;
+
+		private final long openDuration;
+
+		private final int halfOpenProbes;
+
+		/**
+		 * Outcomes of the last requests, <code>true</code> for a failure.
+		 */
+		private final boolean[] window;
+
+		private int index, requests, failures;
+
+		private volatile CircuitState state = CircuitState.CLOSED;
+
+		private long generation, openedAt;
+
+		private int probes, probesSucceeded;
+
+		Circuit(final EndpointGroup group, final AutoTraderClientConfig config) {
+			this.group = group;
+			this.failureRate = config.getCircuitFailureRate();
+			this.window = new boolean[Math.max(1, config.getCircuitWindowSize())];
+			this.minimumRequests = Math.min(this.window.length, Math.max(1, config.getCircuitMinimumRequests()));
+			this.openDuration = MILLISECONDS.toNanos(config.getCircuitOpenDuration());
+			this.halfOpenProbes = Math.max(1, config.getCircuitHalfOpenProbes());
+		}
+
+		CircuitState state() {
+			return this.state;
+		}
+
+		/**
+		 * @return permit, negative if the request is not allowed
+		 */
+		synchronized long acquire() {
+			if (this.state == CircuitState.OPEN) {
+				if ((System.nanoTime() - this.openedAt) < this.openDuration) {
+					return -1;
+				}
+				this.transition(CircuitState.HALF_OPEN);
+			}
+			if (this.state == CircuitState.HALF_OPEN) {
+				if (this.probes >= this.halfOpenProbes) {
+					return -1;
+				}
+				this.probes++;
+			}
+			return this.generation;
+		}
+
+		synchronized void record(final long permit, final boolean failed) {
+			if (permit != this.generation) {
+				return;
+			}
+
+			if (this.state == CircuitState.HALF_OPEN) {
+				if (failed) {
+					this.transition(CircuitState.OPEN);
+				} else if (++this.probesSucceeded >= this.halfOpenProbes) {
+					this.transition(CircuitState.CLOSED);
+				}
+				return;
+			}
+
+			if (this.window[this.index]) {
+				this.failures--;
+			}
+			this.window[this.index] = failed;
+			if (failed) {
+				this.failures++;
+			}
+			this.index = (this.index + 1) % this.window.length;
+			this.requests = Math.min(this.requests + 1, this.window.length);
+
+			if (failed && (this.requests >= this.minimumRequests)
+					&& (this.failures >= (this.failureRate * this.requests))) {
+				this.transition(CircuitState.OPEN);
+			}
+		}
+
+		private void transition(final CircuitState to) {
+			final CircuitState from = this.state;
+			this.state = to;
+			this.generation++;
+			this.probes = 0;
+			this.probesSucceeded = 0;
+			if (to == CircuitState.OPEN) {
+				this.openedAt = System.nanoTime();
+			} else if (to == CircuitState.CLOSED) {
+				// Start afresh, failures before the circuit opened are irrelevant now
+				Arrays.fill(this.window, false);
+				this.index = 0;
+				this.requests = 0;
+				this.failures = 0;
+			}
+			CircuitBreaker.this.changed(this.group, from, to);
+		}
+
+	}
+
+}
@@ -0,0 +1,19 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+/**
+ * Notified when the circuit of an {@link EndpointGroup} changes state, e.g. to
+ * stop trading while the {@link EndpointGroup#TRADING} circuit is open. Called
+ * on the thread whose request caused the change, hence it must not block.
+ *
+ * @author PRITESH
+ *
+ */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+
+	void stateChanged(EndpointGroup group, CircuitState from, CircuitState to);
+
+}
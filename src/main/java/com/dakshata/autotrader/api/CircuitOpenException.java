@@ -0,0 +1,27 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import lombok.Getter;
+
+/**
+ * Error of a request which was not sent, as the circuit of its
+ * {@link EndpointGroup} is open.
+ *
+ * @author PRITESH
+ *
+ */
+public class CircuitOpenException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	@Getter
+	private final EndpointGroup group;
+
+	public CircuitOpenException(final EndpointGroup group) {
+		super("Circuit of " + group + " end points is open, request was not sent to the server");
+		this.group = group;
+	}
+
+}
@@ -0,0 +1,30 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+/**
+ * States of the circuit breaker of an {@link EndpointGroup}.
+ *
+ * @author PRITESH
+ *
+ */
+public enum CircuitState {
+
+	/**
+	 * Requests are sent, failures are counted.
+	 */
+	CLOSED,
+
+	/**
+	 * Too many requests failed, requests fail fast without being sent.
+	 */
+	OPEN,
+
+	/**
+	 * A few probe requests are sent to find out whether the server has
+	 * recovered.
+	 */
+	HALF_OPEN;
+
+}
@@ -0,0 +1,37 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates command ids, which identify an order placement, modification or
+ * cancellation. The server executes a command only once, hence a request can
+ * be safely retried with the same command id.
+ *
+ * Ids are a random prefix (chosen once per process) followed by a counter, so
+ * they are unique across processes without the cost of a random UUID per
+ * order.
+ *
+ * @author PRITESH
+ *
+ */
+final class CommandIds {
+
+	private static final String PREFIX = Long.toHexString(new SecureRandom().nextLong() | Long.MIN_VALUE) + "-";
+
+	private static final AtomicLong COUNTER = new AtomicLong();
+
+	private CommandIds() {
+	}
+
+	/**
+	 * @return a new command id
+	 */
+	static String next() {
+		return PREFIX + Long.toHexString(COUNTER.incrementAndGet());
+	}
+
+}
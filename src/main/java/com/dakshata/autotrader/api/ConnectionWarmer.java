@@ -0,0 +1,178 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import kong.unirest.Client;
+import kong.unirest.UnirestInstance;
+import kong.unirest.apache.ApacheClient;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opens connections to the servers in advance, so that the first orders do
+ * not pay for DNS lookup, TCP & TLS handshakes, and keeps them alive so that
+ * they are not stale when a burst of orders arrives.
+ *
+ * A few concurrent lightweight requests (the desktop version) are sent to
+ * every server, through both the blocking & non-blocking clients, as each of
+ * them has its own connection pool. Concurrent requests need as many
+ * connections, which remain pooled afterwards. The keep-alive task evicts the
+ * connections the server has expired, then repeats the requests, which
+ * replaces the evicted connections and resets the server's idle timeout of
+ * the others.
+ *
+ * @author PRITESH
+ *
+ */
+@Slf4j
+final class ConnectionWarmer {
+
+	/**
+	 * Time (milliseconds) after which an idle warm up thread ends, so that none
+	 * is held between keep-alive rounds.
+	 */
+	private static final long THREAD_IDLE_TIMEOUT = 1000;
+
+	private final UnirestInstance client;
+
+	private final List<String> urls;
+
+	private final int connections;
+
+	private final long keepAliveInterval;
+
+	private final ThreadPoolExecutor executor;
+
+	private ScheduledExecutorService scheduler;
+
+	private boolean shutdown;
+
+	ConnectionWarmer(@NonNull final UnirestInstance client, @NonNull final List<String> urls,
+			final int connections, final long keepAliveInterval) {
+		this.client = client;
+		this.urls = urls;
+		this.connections = connections;
+		this.keepAliveInterval = keepAliveInterval;
+		this.executor = new ThreadPoolExecutor(connections, connections, THREAD_IDLE_TIMEOUT, MILLISECONDS,
+				new LinkedBlockingQueue<>(), daemon("at-api-warm-up"));
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Creates the warmer as per the configuration.
+	 *
+	 * @return warmer or <code>null</code> when disabled
+	 */
+	static ConnectionWarmer create(@NonNull final AutoTraderClientConfig config,
+			@NonNull final UnirestInstance client, @NonNull final ServerPool servers) {
+		final int connections = Math.min(config.getWarmUpConnections(), config.getMaxConnectionsPerRoute());
+		if (connections <= 0) {
+			return null;
+		}
+
+		final List<String> urls = new ArrayList<>();
+		for (final ServerPool.Server server : servers.getServers()) {
+			urls.add(server.getUrl());
+		}
+		return new ConnectionWarmer(client, urls, connections, config.getKeepAliveInterval());
+	}
+
+	/**
+	 * Opens the connections, waiting for at most the given time.
+	 *
+	 * @return number of requests which succeeded
+	 */
+	int warmUp(final long timeout) {
+		final AtomicInteger succeeded = new AtomicInteger();
+		final List<CompletableFuture<?>> requests = new ArrayList<>();
+		for (final String url : this.urls) {
+			final String healthCheck = url + TradingService.HEALTH_PROBE_URI;
+			for (int i = 0; i < this.connections; i++) {
+				// Body must be read (not discarded with asEmpty) for the connection to be
+				// returned to the pool
+				requests.add(CompletableFuture.runAsync(() -> {
+					if (this.client.get(healthCheck).asString().isSuccess()) {
+						succeeded.incrementAndGet();
+					}
+				}, this.executor));
+				requests.add(this.client.get(healthCheck).asStringAsync().thenAccept(response -> {
+					if (response.isSuccess()) {
+						succeeded.incrementAndGet();
+					}
+				}));
+			}
+		}
+
+		try {
+			CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).get(timeout, MILLISECONDS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (final TimeoutException e) {
+			log.warn("SD-ERR-054: Connection warm up did not complete in {}ms", timeout);
+		} catch (final Exception e) {
+			log.warn("SD-ERR-054: Connection warm up failed: {}", e.getMessage());
+		}
+		return succeeded.get();
+	}
+
+	/**
+	 * Starts the keep-alive task in background, unless it is disabled.
+	 */
+	synchronized void start() {
+		if ((this.keepAliveInterval <= 0) || (this.scheduler != null) || this.shutdown) {
+			return;
+		}
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("at-api-keep-alive"));
+		this.scheduler.scheduleWithFixedDelay(this::keepAlive, this.keepAliveInterval, this.keepAliveInterval,
+				MILLISECONDS);
+	}
+
+	synchronized void shutdown() {
+		this.shutdown = true;
+		if (this.scheduler != null) {
+			this.scheduler.shutdownNow();
+		}
+		this.executor.shutdownNow();
+	}
+
+	private void keepAlive() {
+		try {
+			final Client c = this.client.config().getClient();
+			if (c instanceof ApacheClient) {
+				final PoolingHttpClientConnectionManager manager = ((ApacheClient) c).getManager();
+				if (manager != null) {
+					manager.closeExpiredConnections();
+				}
+			}
+			this.warmUp(this.keepAliveInterval);
+		} catch (final Exception e) {
+			log.warn("SD-ERR-054: Connection keep-alive failed: {}", e.getMessage());
+		}
+	}
+
+	private static ThreadFactory daemon(final String name) {
+		return r -> {
+			final Thread t = new Thread(r, name);
+			t.setDaemon(true);
+			return t;
+		};
+	}
+
+}
@@ -0,0 +1,58 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.time.Duration;
+
+import lombok.Value;
+
+/**
+ * Dispatch statistics of a request priority class, see
+ * {@link AutoTraderClientConfig#getMaxRequestsInFlight()}.
+ *
+ * @author PRITESH
+ *
+ */
+@Value
+public class DispatchStats {
+
+	/**
+	 * Number of requests currently queued.
+	 */
+	private final int queueDepth;
+
+	/**
+	 * Highest number of requests queued at once.
+	 */
+	private final int maxQueueDepth;
+
+	/**
+	 * Number of requests dispatched, including those which did not queue.
+	 */
+	private final long dispatched;
+
+	/**
+	 * Number of requests which queued.
+	 */
+	private final long queued;
+
+	/**
+	 * Number of requests dispatched ahead of higher priority requests, after
+	 * waiting for {@link AutoTraderClientConfig#getMaxQueueWait()}.
+	 */
+	private final long promoted;
+
+	/**
+	 * Total time spent in the queue by the requests which queued.
+	 */
+	private final Duration queueTime;
+
+	/**
+	 * @return average time spent in the queue by the requests which queued
+	 */
+	public Duration getAverageQueueTime() {
+		return (this.queued == 0) ? Duration.ZERO : this.queueTime.dividedBy(this.queued);
+	}
+
+}
@@ -0,0 +1,77 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import lombok.Getter;
+
+/**
+ * AutoTrader server end points used by this client.
+ *
+ * @author PRITESH
+ *
+ */
+public enum Endpoint {
+
+	FETCH_LIVE_PSEUDO_ACCOUNTS(true, EndpointGroup.ACCOUNT, RequestPriority.READ),
+
+	EXECUTE(false, EndpointGroup.TRADING, RequestPriority.ENTRY),
+
+	PLACE_ORDER(false, EndpointGroup.TRADING, RequestPriority.ENTRY),
+
+	PLACE_REGULAR_ORDER(false, EndpointGroup.TRADING, RequestPriority.ENTRY),
+
+	PLACE_BRACKET_ORDER(false, EndpointGroup.TRADING, RequestPriority.ENTRY),
+
+	PLACE_COVER_ORDER(false, EndpointGroup.TRADING, RequestPriority.ENTRY),
+
+	CANCEL_ORDER(false, EndpointGroup.TRADING, RequestPriority.RISK_REDUCING),
+
+	CANCEL_CHILD_ORDERS(false, EndpointGroup.TRADING, RequestPriority.RISK_REDUCING),
+
+	CANCEL_ALL_ORDERS(false, EndpointGroup.TRADING, RequestPriority.RISK_REDUCING),
+
+	MODIFY_ORDER(false, EndpointGroup.TRADING, RequestPriority.MODIFY),
+
+	SQUARE_OFF_POSITION(false, EndpointGroup.TRADING, RequestPriority.RISK_REDUCING),
+
+	SQUARE_OFF_PORTFOLIO(false, EndpointGroup.TRADING, RequestPriority.RISK_REDUCING),
+
+	READ_PLATFORM_ORDERS(true, EndpointGroup.READ, RequestPriority.READ),
+
+	READ_PLATFORM_POSITIONS(true, EndpointGroup.READ, RequestPriority.READ),
+
+	READ_PLATFORM_MARGINS(true, EndpointGroup.READ, RequestPriority.READ),
+
+	READ_PLATFORM_HOLDINGS(true, EndpointGroup.READ, RequestPriority.READ),
+
+	AUTOTRADER_DESKTOP_VERSION(true, EndpointGroup.ACCOUNT, RequestPriority.READ),
+
+	AUTOTRADER_DESKTOP_MIN_VERSION(true, EndpointGroup.ACCOUNT, RequestPriority.READ);
+
+	/**
+	 * <code>true</code> if the end point only reads data (and hence is safe to
+	 * cache or repeat), <code>false</code> if it changes orders or positions.
+	 */
+	@Getter
+	private final boolean readOnly;
+
+	/**
+	 * Group of the end point, which shares a circuit breaker.
+	 */
+	@Getter
+	private final EndpointGroup group;
+
+	/**
+	 * Priority of the end point's requests, when they queue for dispatch.
+	 */
+	@Getter
+	private final RequestPriority priority;
+
+	private Endpoint(final boolean readOnly, final EndpointGroup group, final RequestPriority priority) {
+		this.readOnly = readOnly;
+		this.group = group;
+		this.priority = priority;
+	}
+
+}
@@ -0,0 +1,29 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+/**
+ * Groups of {@link Endpoint}s, which are served (and hence degrade) together.
+ *
+ * @author PRITESH
+ *
+ */
+public enum EndpointGroup {
+
+	/**
+	 * Order placement, modification, cancellation & square off.
+	 */
+	TRADING,
+
+	/**
+	 * Reads of orders, positions, margins & holdings from the broker.
+	 */
+	READ,
+
+	/**
+	 * Pseudo accounts & AutoTrader versions, served by AutoTrader itself.
+	 */
+	ACCOUNT;
+
+}
@@ -0,0 +1,82 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.Map;
+
+import lombok.Value;
+
+/**
+ * Request metrics of an end point, see {@link MetricsRecorder}. Latencies are
+ * in microseconds.
+ *
+ * @author PRITESH
+ *
+ */
+@Value
+public class EndpointMetrics {
+
+	/**
+	 * Number of http requests made (including retries, excluding the health
+	 * checks sent by the client itself).
+	 */
+	private final long requests;
+
+	/**
+	 * Number of requests per http status, status zero counts requests which did
+	 * not receive a response.
+	 */
+	private final Map<Integer, Long> statuses;
+
+	/**
+	 * Number of responses which could not be parsed.
+	 */
+	private final long parseErrors;
+
+	/**
+	 * Number of requests retried after an error.
+	 */
+	private final long retries;
+
+	private final long meanLatency;
+
+	private final long p50Latency, p90Latency, p99Latency, p999Latency, maxLatency;
+
+	/**
+	 * Number of pooled connections in use, as per the latest sample.
+	 */
+	private final int leased;
+
+	/**
+	 * Number of requests waiting for a pooled connection, as per the latest
+	 * sample.
+	 */
+	private final int pending;
+
+	/**
+	 * Highest number of pooled connections in use, across the samples.
+	 */
+	private final int maxLeased;
+
+	/**
+	 * Highest number of requests waiting for a pooled connection, across the
+	 * samples.
+	 */
+	private final int maxPending;
+
+	/**
+	 * @return number of requests which failed without a response or with a 4xx /
+	 *         5xx status
+	 */
+	public long getErrors() {
+		long errors = 0;
+		for (final Map.Entry<Integer, Long> e : this.statuses.entrySet()) {
+			if ((e.getKey() < 200) || (e.getKey() >= 400)) {
+				errors += e.getValue();
+			}
+		}
+		return errors;
+	}
+
+}
@@ -0,0 +1,55 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import lombok.Value;
+
+/**
+ * Totals of positions & margins, of an account, an instrument or all
+ * accounts, see {@link ExposureAggregator}.
+ *
+ * @author PRITESH
+ *
+ */
+@Value
+public class Exposure {
+
+	public static final Exposure NONE = new Exposure(0, 0, 0, 0, 0, 0);
+
+	/**
+	 * Mark to market profit & loss.
+	 */
+	private final double mtm;
+
+	private final double pnl;
+
+	/**
+	 * Sum of the absolute values of the positions, at last traded price.
+	 */
+	private final double grossExposure;
+
+	/**
+	 * Sum of the signed values of the positions (long positive, short negative),
+	 * at last traded price.
+	 */
+	private final double netExposure;
+
+	/**
+	 * Margin utilized, zero for an instrument.
+	 */
+	private final double marginUtilized;
+
+	/**
+	 * Total margin, zero for an instrument.
+	 */
+	private final double marginTotal;
+
+	/**
+	 * @return fraction of the total margin utilized
+	 */
+	public double getMarginUtilization() {
+		return (this.marginTotal <= 0) ? 0 : (this.marginUtilized / this.marginTotal);
+	}
+
+}
@@ -0,0 +1,317 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.dakshata.constants.trading.PositionCategory;
+import com.dakshata.constants.trading.PositionType;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.trading.model.platform.PlatformMargin;
+import com.dakshata.trading.model.platform.PlatformPosition;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Running totals of profit & loss, exposure and margin utilization per
+ * account, per instrument and across all accounts, maintained from the reads
+ * of {@link IAutoTrader#readPlatformPositions(String)} &
+ * {@link IAutoTrader#readPlatformMargins(String)} (subscribe it to a
+ * {@link PollingScheduler}, or apply the reads with
+ * {@link #updatePositions(String, Collection)} &
+ * {@link #updateMargins(String, Collection)}).
+ *
+ * A snapshot of an account is compared row by row with the previous one, and
+ * only the rows which changed (or appeared, or disappeared) are applied to
+ * the totals, as the difference between their new & old values. Refreshing an
+ * account hence never touches the rows of the other accounts. Totals are reset
+ * to exactly zero once they have no rows left, so that rounding errors of the
+ * differences do not accumulate.
+ *
+ * Only the positions of a single category are considered (NET by default), as
+ * the DAY & NET positions of an instrument overlap.
+ *
+ * @author PRITESH
+ *
+ */
+public class ExposureAggregator implements PollListener {
+
+	private final PositionCategory category;
+
+	private final Map<String, Account> accounts = new HashMap<>();
+
+	private final Map<Instrument, Totals> instruments = new HashMap<>();
+
+	private final Totals global = new Totals();
+
+	/**
+	 * Number of accounts with margins.
+	 */
+	private int marginAccounts;
+
+	/**
+	 * Number of snapshots applied.
+	 */
+	private long snapshot;
+
+	public ExposureAggregator() {
+		this(PositionCategory.NET);
+	}
+
+	public ExposureAggregator(@NonNull final PositionCategory category) {
+		this.category = category;
+	}
+
+	/**
+	 * Applies the positions of the given account.
+	 *
+	 * @param positions all positions of the account
+	 */
+	public synchronized void updatePositions(@NonNull final String pseudoAccount,
+			@NonNull final Collection<PlatformPosition> positions) {
+		final Account account = this.accounts.computeIfAbsent(pseudoAccount, a -> new Account());
+		final long current = ++this.snapshot;
+		for (final PlatformPosition position : positions) {
+			if ((position.getCategory() != this.category) || (position.getExchange() == null)
+					|| (position.getSymbol() == null)) {
+				continue;
+			}
+
+			final PositionKey key = new PositionKey(position.getExchange(), position.getSymbol(), position.getType());
+			Row row = account.positions.get(key);
+			if (row == null) {
+				row = new Row(new Instrument(position.getExchange(), position.getSymbol()));
+				account.positions.put(key, row);
+				this.added(account, row);
+			}
+			row.snapshot = current;
+
+			final double value = (double) position.getNetQuantity() * position.getLtp()
+					* Math.max(1, position.getMultiplier());
+			if (row.set(position.getMtm(), position.getPnl(), Math.abs(value), value)) {
+				this.apply(account, row);
+			}
+		}
+
+		for (final Iterator<Row> i = account.positions.values().iterator(); i.hasNext();) {
+			final Row row = i.next();
+			if (row.snapshot != current) {
+				i.remove();
+				row.set(0, 0, 0, 0);
+				this.apply(account, row);
+				this.removed(account, row);
+			}
+		}
+	}
+
+	/**
+	 * Applies the margins of the given account.
+	 *
+	 * @param margins all margins of the account (one per category)
+	 */
+	public synchronized void updateMargins(@NonNull final String pseudoAccount,
+			@NonNull final Collection<PlatformMargin> margins) {
+		final Account account = this.accounts.computeIfAbsent(pseudoAccount, a -> new Account());
+		double utilized = 0;
+		double total = 0;
+		for (final PlatformMargin margin : margins) {
+			utilized += margin.getUtilized();
+			total += (margin.getTotal() > 0) ? margin.getTotal() : (margin.getUtilized() + margin.getAvailable());
+		}
+
+		final double utilizedDelta = utilized - account.totals.marginUtilized;
+		final double totalDelta = total - account.totals.marginTotal;
+		if ((utilizedDelta != 0) || (totalDelta != 0)) {
+			account.totals.marginUtilized = utilized;
+			account.totals.marginTotal = total;
+			this.global.marginUtilized += utilizedDelta;
+			this.global.marginTotal += totalDelta;
+		}
+		if (account.margins != !margins.isEmpty()) {
+			account.margins = !margins.isEmpty();
+			this.marginAccounts += account.margins ? 1 : -1;
+			if (this.marginAccounts == 0) {
+				this.global.marginUtilized = 0;
+				this.global.marginTotal = 0;
+			}
+		}
+	}
+
+	/**
+	 * Removes the given account from the totals.
+	 */
+	public synchronized void remove(@NonNull final String pseudoAccount) {
+		if (this.accounts.containsKey(pseudoAccount)) {
+			this.updatePositions(pseudoAccount, Collections.emptyList());
+			this.updateMargins(pseudoAccount, Collections.emptyList());
+			this.accounts.remove(pseudoAccount);
+		}
+	}
+
+	@Override
+	public void positionsPolled(final String pseudoAccount,
+			final IOperationResponse<Set<PlatformPosition>> positions) {
+		if (positions.success() && (positions.getResult() != null)) {
+			this.updatePositions(pseudoAccount, positions.getResult());
+		}
+	}
+
+	@Override
+	public void marginsPolled(final String pseudoAccount, final IOperationResponse<Set<PlatformMargin>> margins) {
+		if (margins.success() && (margins.getResult() != null)) {
+			this.updateMargins(pseudoAccount, margins.getResult());
+		}
+	}
+
+	/**
+	 * @return totals across all accounts
+	 */
+	public synchronized Exposure getTotals() {
+		return this.global.exposure();
+	}
+
+	/**
+	 * @return totals of the given account
+	 */
+	public synchronized Exposure getTotals(@NonNull final String pseudoAccount) {
+		final Account account = this.accounts.get(pseudoAccount);
+		return (account == null) ? Exposure.NONE : account.totals.exposure();
+	}
+
+	/**
+	 * @return totals of the given instrument across accounts, without margins
+	 */
+	public synchronized Exposure getTotals(@NonNull final String exchange, @NonNull final String symbol) {
+		final Totals totals = this.instruments.get(new Instrument(exchange, symbol));
+		return (totals == null) ? Exposure.NONE : totals.exposure();
+	}
+
+	/**
+	 * Applies the change of the row (since it was last applied) to the totals.
+	 */
+	private void apply(final Account account, final Row row) {
+		account.totals.add(row);
+		this.instruments.get(row.instrument).add(row);
+		this.global.add(row);
+		row.applied();
+	}
+
+	private void added(final Account account, final Row row) {
+		account.totals.rows++;
+		this.instruments.computeIfAbsent(row.instrument, i -> new Totals()).rows++;
+		this.global.rows++;
+	}
+
+	private void removed(final Account account, final Row row) {
+		account.totals.rows--;
+		account.totals.resetIfEmpty();
+		final Totals totals = this.instruments.get(row.instrument);
+		if (--totals.rows == 0) {
+			this.instruments.remove(row.instrument);
+		}
+		this.global.rows--;
+		this.global.resetIfEmpty();
+	}
+
+	@Value
+	private static class PositionKey {
+
+		private final String exchange;
+
+		private final String symbol;
+
+		private final PositionType type;
+
+	}
+
+	private static final class Account {
+
+		private final Map<PositionKey, Row> positions = new HashMap<>();
+
+		private final Totals totals = new Totals();
+
+		/**
+		 * Whether the latest margins snapshot had any row.
+		 */
+		private boolean margins;
+
+	}
+
+	/**
+	 * Values of a position, as of the latest snapshot & as last applied to the
+	 * totals.
+	 */
+	private static final class Row {
+
+		private final Instrument instrument;
+
+		private double mtm, pnl, gross, net;
+
+		private double appliedMtm, appliedPnl, appliedGross, appliedNet;
+
+		private long snapshot;
+
+		Row(final Instrument instrument) {
+			this.instrument = instrument;
+		}
+
+		/**
+		 * @return whether the values changed
+		 */
+		boolean set(final double mtm, final double pnl, final double gross, final double net) {
+			this.mtm = mtm;
+			this.pnl = pnl;
+			this.gross = gross;
+			this.net = net;
+			return (mtm != this.appliedMtm) || (pnl != this.appliedPnl) || (gross != this.appliedGross)
+					|| (net != this.appliedNet);
+		}
+
+		void applied() {
+			this.appliedMtm = this.mtm;
+			this.appliedPnl = this.pnl;
+			this.appliedGross = this.gross;
+			this.appliedNet = this.net;
+		}
+
+	}
+
+	private static final class Totals {
+
+		private double mtm, pnl, gross, net, marginUtilized, marginTotal;
+
+		/**
+		 * Number of position rows.
+		 */
+		private int rows;
+
+		void add(final Row row) {
+			this.mtm += row.mtm - row.appliedMtm;
+			this.pnl += row.pnl - row.appliedPnl;
+			this.gross += row.gross - row.appliedGross;
+			this.net += row.net - row.appliedNet;
+		}
+
+		void resetIfEmpty() {
+			if (this.rows == 0) {
+				this.mtm = 0;
+				this.pnl = 0;
+				this.gross = 0;
+				this.net = 0;
+			}
+		}
+
+		Exposure exposure() {
+			return new Exposure(this.mtm, this.pnl, this.gross, this.net, this.marginUtilized, this.marginTotal);
+		}
+
+	}
+
+}
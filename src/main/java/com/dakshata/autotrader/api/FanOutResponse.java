@@ -0,0 +1,104 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.dakshata.data.model.common.IOperationResponse;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Result of an operation fanned out to several pseudo accounts. Holds one
+ * response per account, along with the dispatch latency: time from the start
+ * of the fan-out till the response of an account.
+ *
+ * @author PRITESH
+ *
+ */
+public class FanOutResponse<T> extends BatchResponse<T> {
+
+	/**
+	 * Pseudo accounts, in the same order as {@link #getResults()}.
+	 */
+	@Getter
+	private final List<String> pseudoAccounts;
+
+	/**
+	 * Error which prevented the fan-out (e.g. live pseudo accounts could not be
+	 * fetched), <code>null</code> otherwise.
+	 */
+	@Getter
+	private final Exception error;
+
+	FanOutResponse(@NonNull final List<String> pseudoAccounts, @NonNull final BatchResponse<T> batch) {
+		super(batch);
+		this.pseudoAccounts = Collections.unmodifiableList(pseudoAccounts);
+		this.error = null;
+	}
+
+	FanOutResponse(@NonNull final Exception error) {
+		super(Collections.emptyList(), new long[0], new long[0], 0);
+		this.pseudoAccounts = Collections.emptyList();
+		this.error = error;
+	}
+
+	/**
+	 * @return whether the operation was fanned out, <code>false</code> when it
+	 *         failed as a whole (see {@link #getError()}) & hence no account was
+	 *         acted upon. Individual accounts may fail either way, see
+	 *         {@link #getFailedAccounts()}.
+	 */
+	public boolean isComplete() {
+		return this.error == null;
+	}
+
+	/**
+	 * @return response of the given account, <code>null</code> if it was not part
+	 *         of the fan-out
+	 */
+	public IOperationResponse<T> getResult(final String pseudoAccount) {
+		final int index = this.pseudoAccounts.indexOf(pseudoAccount);
+		return (index < 0) ? null : this.get(index);
+	}
+
+	/**
+	 * @return responses by pseudo account, in fan-out order
+	 */
+	public Map<String, IOperationResponse<T>> getResultsByAccount() {
+		final Map<String, IOperationResponse<T>> map = new LinkedHashMap<>();
+		for (int i = 0; i < this.pseudoAccounts.size(); i++) {
+			map.put(this.pseudoAccounts.get(i), this.get(i));
+		}
+		return map;
+	}
+
+	/**
+	 * @return accounts whose response is an error, in fan-out order
+	 */
+	public List<String> getFailedAccounts() {
+		final List<String> failed = new ArrayList<>();
+		for (int i = 0; i < this.pseudoAccounts.size(); i++) {
+			if (!this.get(i).success()) {
+				failed.add(this.pseudoAccounts.get(i));
+			}
+		}
+		return failed;
+	}
+
+	public Duration getP50DispatchLatency() {
+		return this.getCompletionPercentile(50);
+	}
+
+	public Duration getP99DispatchLatency() {
+		return this.getCompletionPercentile(99);
+	}
+
+}
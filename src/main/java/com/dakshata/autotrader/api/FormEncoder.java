@@ -0,0 +1,260 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.Arrays;
+
+/**
+ * Encodes form parameters (application/x-www-form-urlencoded) of the order
+ * requests. Unlike a parameter map handed over to the http client, it does not
+ * box numbers or create intermediate strings: names, enum names & numbers are
+ * written straight into a byte buffer, which is reused by all requests made
+ * from a thread. Only the final body is allocated per request.
+ *
+ * Use {@link #get()} to obtain the encoder of the current thread, and do not
+ * hold on to it after calling {@link #toByteArray()}.
+ *
+ * @author PRITESH
+ *
+ */
+final class FormEncoder {
+
+	static final String CONTENT_TYPE = "application/x-www-form-urlencoded; charset=UTF-8";
+
+	private static final ThreadLocal<FormEncoder> ENCODERS = ThreadLocal.withInitial(FormEncoder::new);
+
+	private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+	private static final long[] POWERS_OF_TEN = { 1, 10, 100, 1000, 10000, 100000, 1000000 };
+
+	/**
+	 * Floats of this magnitude or above are written using {@link Float#toString()}.
+	 */
+	private static final float MAX_PLAIN_FLOAT = 1e12f;
+
+	private static final byte[] INT_MIN_VALUE = Integer.toString(Integer.MIN_VALUE).getBytes();
+
+	private byte[] buffer = new byte[512];
+
+	private int size;
+
+	private FormEncoder() {
+	}
+
+	/**
+	 * @return the (emptied) encoder of the current thread
+	 */
+	static FormEncoder get() {
+		final FormEncoder encoder = ENCODERS.get();
+		encoder.size = 0;
+		return encoder;
+	}
+
+	FormEncoder add(final String name, final String value) {
+		this.name(name);
+		if (value != null) {
+			this.encode(value);
+		}
+		return this;
+	}
+
+	FormEncoder add(final String name, final Enum<?> value) {
+		this.name(name);
+		if (value != null) {
+			// Enum names are plain identifiers, nothing to escape
+			this.ascii(value.name());
+		}
+		return this;
+	}
+
+	FormEncoder add(final String name, final int value) {
+		this.name(name);
+		this.write(value);
+		return this;
+	}
+
+	FormEncoder add(final String name, final Integer value) {
+		this.name(name);
+		if (value != null) {
+			this.write(value.intValue());
+		}
+		return this;
+	}
+
+	FormEncoder add(final String name, final float value) {
+		this.name(name);
+		this.write(value);
+		return this;
+	}
+
+	FormEncoder add(final String name, final Float value) {
+		this.name(name);
+		if (value != null) {
+			this.write(value.floatValue());
+		}
+		return this;
+	}
+
+	FormEncoder add(final String name, final Boolean value) {
+		this.name(name);
+		if (value != null) {
+			this.ascii(value ? "true" : "false");
+		}
+		return this;
+	}
+
+	/**
+	 * @return encoded body
+	 */
+	byte[] toByteArray() {
+		return Arrays.copyOf(this.buffer, this.size);
+	}
+
+	@Override
+	public String toString() {
+		return new String(this.buffer, 0, this.size);
+	}
+
+	private void name(final String name) {
+		if (this.size > 0) {
+			this.put('&');
+		}
+		// Names are constants of this package, nothing to escape
+		this.ascii(name);
+		this.put('=');
+	}
+
+	private void ascii(final String value) {
+		final int length = value.length();
+		this.ensure(length);
+		for (int i = 0; i < length; i++) {
+			this.buffer[this.size++] = (byte) value.charAt(i);
+		}
+	}
+
+	/**
+	 * Url encodes the value, same as {@link java.net.URLEncoder} with UTF-8.
+	 */
+	private void encode(final String value) {
+		final int length = value.length();
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+			if (((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '-')
+					|| (c == '_') || (c == '.') || (c == '*')) {
+				this.put(c);
+			} else if (c == ' ') {
+				this.put('+');
+			} else if (c < 0x80) {
+				this.escape(c);
+			} else if (c < 0x800) {
+				this.escape(0xC0 | (c >> 6));
+				this.escape(0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && ((i + 1) < length)
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				final int cp = Character.toCodePoint(c, value.charAt(++i));
+				this.escape(0xF0 | (cp >> 18));
+				this.escape(0x80 | ((cp >> 12) & 0x3F));
+				this.escape(0x80 | ((cp >> 6) & 0x3F));
+				this.escape(0x80 | (cp & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// Lone surrogates are replaced, same as the JDK encoder
+				this.escape('?');
+			} else {
+				this.escape(0xE0 | (c >> 12));
+				this.escape(0x80 | ((c >> 6) & 0x3F));
+				this.escape(0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private void escape(final int b) {
+		this.ensure(3);
+		this.buffer[this.size++] = '%';
+		this.buffer[this.size++] = HEX[(b >> 4) & 0xF];
+		this.buffer[this.size++] = HEX[b & 0xF];
+	}
+
+	private void write(final int value) {
+		if (value == Integer.MIN_VALUE) {
+			this.ensure(INT_MIN_VALUE.length);
+			System.arraycopy(INT_MIN_VALUE, 0, this.buffer, this.size, INT_MIN_VALUE.length);
+			this.size += INT_MIN_VALUE.length;
+			return;
+		}
+		this.write((long) value);
+	}
+
+	private void write(final long value) {
+		long v = value;
+		if (v < 0) {
+			this.put('-');
+			v = -v;
+		}
+
+		int digits = 1;
+		for (long p = 10; (p <= v) && (digits < 19); p *= 10) {
+			digits++;
+		}
+
+		this.ensure(digits);
+		for (int i = (this.size + digits) - 1; i >= this.size; i--) {
+			this.buffer[i] = (byte) ('0' + (v % 10));
+			v /= 10;
+		}
+		this.size += digits;
+	}
+
+	/**
+	 * Writes the shortest decimal (up to six fraction digits) which reads back as
+	 * the same float, e.g. <code>123.45</code> & <code>500.0</code>. Other values
+	 * fall back to {@link Float#toString()}.
+	 */
+	private void write(final float value) {
+		if (Float.isNaN(value) || Float.isInfinite(value) || (Math.abs(value) >= MAX_PLAIN_FLOAT)) {
+			this.ascii(Float.toString(value));
+			return;
+		}
+
+		for (int decimals = 0; decimals < POWERS_OF_TEN.length; decimals++) {
+			final long scale = POWERS_OF_TEN[decimals];
+			final long scaled = Math.round((double) value * scale);
+			if ((float) ((double) scaled / scale) != value) {
+				continue;
+			}
+
+			final long abs = Math.abs(scaled);
+			if ((scaled < 0) || ((scaled == 0) && (Float.floatToRawIntBits(value) != 0))) {
+				this.put('-');
+			}
+			this.write(abs / scale);
+			this.put('.');
+			if (decimals == 0) {
+				this.put('0');
+			} else {
+				long fraction = abs % scale;
+				this.ensure(decimals);
+				for (int i = (this.size + decimals) - 1; i >= this.size; i--) {
+					this.buffer[i] = (byte) ('0' + (fraction % 10));
+					fraction /= 10;
+				}
+				this.size += decimals;
+			}
+			return;
+		}
+
+		this.ascii(Float.toString(value));
+	}
+
+	private void put(final char c) {
+		this.ensure(1);
+		this.buffer[this.size++] = (byte) c;
+	}
+
+	private void ensure(final int more) {
+		if ((this.size + more) > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + more));
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Keeps the metrics in memory, latency is tracked using an HdrHistogram per end
+ * point (microsecond resolution, auto resizing) so percentiles are accurate
+ * with constant time recording. Metrics accumulate for the lifetime of the
+ * recorder.
+ *
+ * @author PRITESH
+ *
+ */
+public class HdrHistogramMetricsRecorder implements MetricsRecorder {
+
+	/**
+	 * Statuses above this are counted against it.
+	 */
+	private static final int MAX_STATUS = 599;
+
+	private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+
+	public HdrHistogramMetricsRecorder() {
+		this(3);
+	}
+
+	/**
+	 * @param significantDigits latency precision (number of significant decimal
+	 *                          digits, 0 - 5)
+	 */
+	public HdrHistogramMetricsRecorder(final int significantDigits) {
+		for (final Endpoint endpoint : Endpoint.values()) {
+			this.stats.put(endpoint, new Stats(significantDigits));
+		}
+	}
+
+	@Override
+	public void recordRequest(final Endpoint endpoint, final int status, final long nanos) {
+		final Stats s = this.stats.get(endpoint);
+		s.latency.recordValue(Math.max(0, nanos / 1000));
+		s.statuses.incrementAndGet(Math.max(0, Math.min(status, MAX_STATUS)));
+	}
+
+	@Override
+	public void recordParseError(final Endpoint endpoint) {
+		this.stats.get(endpoint).parseErrors.increment();
+	}
+
+	@Override
+	public void recordRetry(final Endpoint endpoint) {
+		this.stats.get(endpoint).retries.increment();
+	}
+
+	@Override
+	public void recordPool(final Endpoint endpoint, final int leased, final int pending) {
+		final Stats s = this.stats.get(endpoint);
+		s.leased = leased;
+		s.pending = pending;
+		max(s.maxLeased, leased);
+		max(s.maxPending, pending);
+	}
+
+	@Override
+	public Map<Endpoint, EndpointMetrics> snapshot() {
+		final Map<Endpoint, EndpointMetrics> snapshot = new EnumMap<>(Endpoint.class);
+		this.stats.forEach((endpoint, s) -> snapshot.put(endpoint, s.snapshot()));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	private static void max(final AtomicInteger max, final int value) {
+		// Avoids the write in the common case
+		if (value > max.get()) {
+			max.accumulateAndGet(value, Math::max);
+		}
+	}
+
+	private static final class Stats {
+
+		private final Histogram latency;
+
+		private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS + 1);
+
+		private final LongAdder parseErrors = new LongAdder(), retries = new LongAdder();
+
+		private final AtomicInteger maxLeased = new AtomicInteger(), maxPending = new AtomicInteger();
+
+		/**
+		 * Pool usage as per the latest sample.
+		 */
+		private volatile int leased, pending;
+
+		Stats(final int significantDigits) {
+			this.latency = new ConcurrentHistogram(significantDigits);
+		}
+
+		EndpointMetrics snapshot() {
+			final Histogram h = this.latency.copy();
+
+			final Map<Integer, Long> counts = new TreeMap<>();
+			for (int status = 0; status <= MAX_STATUS; status++) {
+				final long count = this.statuses.get(status);
+				if (count > 0) {
+					counts.put(status, count);
+				}
+			}
+
+			return new EndpointMetrics(h.getTotalCount(), Collections.unmodifiableMap(counts),
+					this.parseErrors.sum(), this.retries.sum(), Math.round(h.getMean()), h.getValueAtPercentile(50),
+					h.getValueAtPercentile(90), h.getValueAtPercentile(99), h.getValueAtPercentile(99.9),
+					h.getMaxValue(), this.leased, this.pending, this.maxLeased.get(), this.maxPending.get());
+		}
+
+	}
+
+}
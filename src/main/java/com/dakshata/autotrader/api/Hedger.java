@@ -0,0 +1,287 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+
+/**
+ * Hedges read requests to cut tail latency. When a request has not answered
+ * within the configured percentile of recent latencies of its end point, a
+ * duplicate (hedge) request is sent. The first response is used and that of
+ * the other request is discarded. The other request cannot be aborted, as the
+ * http client does not stop a request in flight, hence it runs to completion
+ * & holds its connection meanwhile: it is counted in
+ * {@link HedgingStats#getLosersInFlight()} until then.
+ *
+ * Only idempotent read end points are hedged, as a duplicate order placement
+ * or modification is never safe.
+ *
+ * @author PRITESH
+ *
+ */
+class Hedger {
+
+	/**
+	 * End points which are hedged.
+	 */
+	private static final Endpoint[] HEDGED = { Endpoint.READ_PLATFORM_ORDERS, Endpoint.READ_PLATFORM_POSITIONS,
+			Endpoint.READ_PLATFORM_MARGINS, Endpoint.READ_PLATFORM_HOLDINGS };
+
+	/**
+	 * Number of recent latencies the percentile is computed from.
+	 */
+	private static final int WINDOW = 256;
+
+	/**
+	 * No hedging until these many latencies are known.
+	 */
+	private static final int MIN_SAMPLES = 20;
+
+	/**
+	 * The hedge delay is recomputed after these many new latencies.
+	 */
+	private static final int RECOMPUTE_EVERY = 16;
+
+	private final double percentile;
+
+	private final long minDelayNanos;
+
+	private final Map<Endpoint, Tracker> trackers = new EnumMap<>(Endpoint.class);
+
+	/**
+	 * Sends the hedge requests.
+	 */
+	private final ScheduledExecutorService scheduler;
+
+	Hedger(final double percentile, final long minDelayMillis, @NonNull final ScheduledExecutorService scheduler) {
+		if ((percentile <= 0) || (percentile >= 100)) {
+			throw new IllegalArgumentException("Hedge percentile must be between 0 & 100: " + percentile);
+		}
+
+		this.percentile = percentile;
+		this.minDelayNanos = MILLISECONDS.toNanos(minDelayMillis);
+		this.scheduler = scheduler;
+		for (final Endpoint endpoint : HEDGED) {
+			this.trackers.put(endpoint, new Tracker());
+		}
+	}
+
+	/**
+	 * Creates the hedger as per the configuration.
+	 *
+	 * @param scheduler sends the hedge requests
+	 * @return hedger or <code>null</code> when hedging is disabled
+	 */
+	static Hedger create(@NonNull final AutoTraderClientConfig config,
+			@NonNull final ScheduledExecutorService scheduler) {
+		return (config.getHedgePercentile() > 0)
+				? new Hedger(config.getHedgePercentile(), config.getHedgeMinDelay(), scheduler)
+				: null;
+	}
+
+	boolean isHedged(final Endpoint endpoint) {
+		return this.trackers.containsKey(endpoint);
+	}
+
+	/**
+	 * Executes the request, hedging it if it is slow.
+	 *
+	 * @param endpoint end point, must be a hedged one
+	 * @param request  sends the request
+	 * @param hedge    sends the hedge request, may return <code>null</code> when it
+	 *                 cannot be sent
+	 * @return the first response
+	 */
+	<T> CompletableFuture<T> execute(@NonNull final Endpoint endpoint,
+			@NonNull final Supplier<CompletableFuture<T>> request,
+			@NonNull final Supplier<CompletableFuture<T>> hedge) {
+		final Tracker tracker = this.trackers.get(endpoint);
+		tracker.requests.incrementAndGet();
+
+		final long start = System.nanoTime();
+		final long delay = tracker.delay;
+		if (delay < 0) {
+			return attempt(request).whenComplete((result, error) -> {
+				if (error == null) {
+					tracker.record(System.nanoTime() - start);
+				}
+			});
+		}
+
+		final Hedge<T> h = new Hedge<>(tracker, start);
+		final CompletableFuture<T> first = attempt(request);
+		h.first = first;
+		h.timer = this.scheduler.schedule(() -> h.fire(hedge), Math.max(delay, this.minDelayNanos), NANOSECONDS);
+		first.whenComplete((result, error) -> h.complete(first, result, error));
+		return h.result;
+	}
+
+	/**
+	 * @return hedging statistics per end point
+	 */
+	Map<Endpoint, HedgingStats> stats() {
+		final Map<Endpoint, HedgingStats> stats = new EnumMap<>(Endpoint.class);
+		this.trackers.forEach((endpoint, tracker) -> stats.put(endpoint, tracker.stats()));
+		return stats;
+	}
+
+	private static <T> CompletableFuture<T> attempt(final Supplier<CompletableFuture<T>> request) {
+		try {
+			return request.get();
+		} catch (final Exception e) {
+			final CompletableFuture<T> future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+			return future;
+		}
+	}
+
+	/**
+	 * A request with its (possible) hedge.
+	 */
+	private static final class Hedge<T> {
+
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+
+		private final Tracker tracker;
+
+		private final long start;
+
+		/**
+		 * Attempts which may still fail: the first request plus the hedge, which is
+		 * either in flight or yet to be decided.
+		 */
+		private final AtomicInteger pending = new AtomicInteger(2);
+
+		private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+		private volatile CompletableFuture<T> first, second;
+
+		private volatile ScheduledFuture<?> timer;
+
+		Hedge(final Tracker tracker, final long start) {
+			this.tracker = tracker;
+			this.start = start;
+		}
+
+		void fire(final Supplier<CompletableFuture<T>> hedge) {
+			if (this.result.isDone()) {
+				return;
+			}
+
+			final CompletableFuture<T> future = attempt(hedge);
+			if (future == null) {
+				// Not sent, the first request decides the result
+				if (this.pending.decrementAndGet() == 0) {
+					this.result.completeExceptionally(this.error.get());
+				}
+				return;
+			}
+
+			this.tracker.hedges.incrementAndGet();
+			this.second = future;
+			future.whenComplete((result, error) -> this.complete(future, result, error));
+		}
+
+		void complete(final CompletableFuture<T> attempt, final T value, final Throwable failure) {
+			if (failure == null) {
+				if (this.result.complete(value)) {
+					this.tracker.record(System.nanoTime() - this.start);
+					if (attempt == this.second) {
+						this.tracker.wins.incrementAndGet();
+					}
+					this.discardOthers(attempt);
+				}
+				return;
+			}
+
+			this.error.compareAndSet(null, failure);
+			int remaining = this.pending.decrementAndGet();
+			// The first request failed before the hedge was sent, do not send it
+			if ((attempt == this.first) && this.timer.cancel(false)) {
+				remaining = this.pending.decrementAndGet();
+			}
+			if (remaining == 0) {
+				this.result.completeExceptionally(this.error.get());
+			}
+		}
+
+		/**
+		 * Stops the hedge from being sent, and tracks the losing request (if any)
+		 * till it completes.
+		 */
+		private void discardOthers(final CompletableFuture<T> winner) {
+			this.timer.cancel(false);
+			final CompletableFuture<T> f = this.first, s = this.second;
+			if ((f != null) && (f != winner)) {
+				this.tracker.lost(f);
+			}
+			if ((s != null) && (s != winner)) {
+				this.tracker.lost(s);
+			}
+		}
+
+	}
+
+	/**
+	 * Recent latencies & statistics of an end point.
+	 */
+	private final class Tracker {
+
+		private final long[] samples = new long[WINDOW];
+
+		private int count, next, sinceRecompute;
+
+		/**
+		 * Nanos to wait before hedging, negative until enough samples are known.
+		 */
+		private volatile long delay = -1;
+
+		private final AtomicLong requests = new AtomicLong(), hedges = new AtomicLong(), wins = new AtomicLong(),
+				losersInFlight = new AtomicLong();
+
+		synchronized void record(final long nanos) {
+			this.samples[this.next] = nanos;
+			this.next = (this.next + 1) % WINDOW;
+			this.count = Math.min(this.count + 1, WINDOW);
+
+			if ((this.count >= MIN_SAMPLES) && ((this.delay < 0) || (++this.sinceRecompute >= RECOMPUTE_EVERY))) {
+				this.sinceRecompute = 0;
+				final long[] sorted = Arrays.copyOf(this.samples, this.count);
+				Arrays.sort(sorted);
+				final int index = (int) Math.ceil((Hedger.this.percentile / 100) * sorted.length) - 1;
+				this.delay = sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+			}
+		}
+
+		void lost(final CompletableFuture<?> loser) {
+			if (!loser.isDone()) {
+				this.losersInFlight.incrementAndGet();
+				loser.whenComplete((result, error) -> this.losersInFlight.decrementAndGet());
+			}
+		}
+
+		HedgingStats stats() {
+			final long d = this.delay;
+			return new HedgingStats(this.requests.get(), this.hedges.get(), this.wins.get(), this.losersInFlight.get(),
+					(d < 0) ? null : Duration.ofNanos(Math.max(d, Hedger.this.minDelayNanos)));
+		}
+
+	}
+
+}
@@ -0,0 +1,61 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.time.Duration;
+
+import lombok.Value;
+
+/**
+ * Request hedging statistics of an end point.
+ *
+ * @author PRITESH
+ *
+ */
+@Value
+public class HedgingStats {
+
+	/**
+	 * Number of requests made.
+	 */
+	private final long requests;
+
+	/**
+	 * Number of requests for which a duplicate (hedge) request was sent.
+	 */
+	private final long hedges;
+
+	/**
+	 * Number of hedge requests which answered before the original request.
+	 */
+	private final long wins;
+
+	/**
+	 * Number of requests which lost to the other request of their pair, but are
+	 * still in flight. They cannot be aborted & hold a connection (or a
+	 * dispatcher slot) until they complete, their response is discarded.
+	 */
+	private final long losersInFlight;
+
+	/**
+	 * Current wait before a hedge request is sent, <code>null</code> until
+	 * enough latency samples are collected.
+	 */
+	private final Duration delay;
+
+	/**
+	 * @return fraction of requests which were hedged
+	 */
+	public double getHedgeRate() {
+		return (this.requests == 0) ? 0 : ((double) this.hedges / this.requests);
+	}
+
+	/**
+	 * @return fraction of hedge requests which answered first
+	 */
+	public double getWinRate() {
+		return (this.hedges == 0) ? 0 : ((double) this.wins / this.hedges);
+	}
+
+}
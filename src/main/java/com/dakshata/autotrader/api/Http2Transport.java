@@ -0,0 +1,31 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import kong.unirest.Config;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends requests with the HTTP/2 client of the JDK (java.net.http), which
+ * multiplexes concurrent requests over a single connection per server, hence
+ * hundreds of concurrent orders do not need as many connections.
+ *
+ * It requires Java 11 or later; the implementation is in the Java 11 version
+ * of this class (multi-release jar). This version logs that it is not
+ * available and falls back to {@link HttpTransport#APACHE}, so that the client
+ * still works (over HTTP/1.1).
+ *
+ * @author PRITESH
+ *
+ */
+@Slf4j
+public class Http2Transport implements HttpTransport {
+
+	@Override
+	public void configure(final Config config) {
+		log.warn("SD-ERR-059: HTTP/2 transport requires Java 11 or later, falling back to HTTP/1.1");
+		HttpTransport.APACHE.configure(config);
+	}
+
+}
@@ -0,0 +1,26 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import lombok.Getter;
+
+/**
+ * Error of a response received with an http error status (other than 2xx).
+ *
+ * @author PRITESH
+ *
+ */
+public class HttpStatusException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	@Getter
+	private final int status;
+
+	public HttpStatusException(final int status, final String message) {
+		super(message);
+		this.status = status;
+	}
+
+}
@@ -0,0 +1,34 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import kong.unirest.Config;
+
+/**
+ * Http transport requests are sent with. Requests are built & responses are
+ * parsed by Unirest, the transport plugs its blocking & non-blocking http
+ * clients into the Unirest configuration (see
+ * {@link Config#httpClient(java.util.function.Function)} &
+ * {@link Config#asyncClient(java.util.function.Function)}).
+ *
+ * {@link #APACHE} (default) keeps the Apache HttpClient 4 based clients of
+ * Unirest: HTTP/1.1, with a pooled connection per request in flight.
+ * {@link Http2Transport} multiplexes requests over a few HTTP/2 connections.
+ *
+ * @author PRITESH
+ *
+ */
+@FunctionalInterface
+public interface HttpTransport {
+
+	HttpTransport APACHE = config -> {
+	};
+
+	/**
+	 * Called once, while the client of an {@link AutoTrader} instance is being
+	 * prepared (after timeouts, pool sizes & default headers are configured).
+	 */
+	void configure(Config config);
+
+}
@@ -0,0 +1,232 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import com.dakshata.constants.trading.*;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.trading.model.platform.PlatformHolding;
+import com.dakshata.trading.model.platform.PlatformMargin;
+import com.dakshata.trading.model.platform.PlatformOrder;
+import com.dakshata.trading.model.platform.PlatformPosition;
+import com.dakshata.trading.model.portfolio.Order;
+
+/**
+ * Non-blocking AutoTrader API. Every operation returns immediately with a
+ * future which is completed once the server responds, so a handful of threads
+ * can drive a large number of concurrent requests. Obtain an instance using
+ * {@link IAutoTrader#async()}.
+ *
+ * Futures complete exceptionally only on transport level failures (after the
+ * configured retry); business errors are reported through the returned
+ * {@link IOperationResponse}, same as the blocking API.
+ *
+ * @author PRITESH
+ *
+ */
+public interface IAsyncAutoTrader {
+
+	/**
+	 * Provides live pseudo accounts available under your user.
+	 *
+	 * @return live pseudo accounts
+	 */
+	CompletableFuture<IOperationResponse<Set<String>>> fetchLivePseudoAccounts();
+
+	/**
+	 * Places an order. For more information, please see <a href=
+	 * "https://stocksdeveloper.in/documentation/api/place-advanced-order/">api
+	 * docs</a>.
+	 *
+	 * @param order order object
+	 * @return the order id given by your stock broker
+	 */
+	CompletableFuture<IOperationResponse<String>> placeOrder(Order order);
+
+	/**
+	 * Places a regular order.
+	 *
+	 * @see IAutoTrader#placeRegularOrder(String, String, String, TradeType,
+	 *      OrderType, ProductType, int, float, float)
+	 */
+	CompletableFuture<IOperationResponse<String>> placeRegularOrder(String pseudoAccount, String exchange,
+			String symbol, TradeType tradeType, OrderType orderType, ProductType productType, int quantity,
+			float price, float triggerPrice);
+
+	/**
+	 * Places a bracket order.
+	 *
+	 * @see IAutoTrader#placeBracketOrder(String, String, String, TradeType,
+	 *      OrderType, int, float, float, float, float, float)
+	 */
+	CompletableFuture<IOperationResponse<String>> placeBracketOrder(String pseudoAccount, String exchange,
+			String symbol, TradeType tradeType, OrderType orderType, int quantity, float price, float triggerPrice,
+			float target, float stoploss, float trailingStoploss);
+
+	/**
+	 * Places a cover order.
+	 *
+	 * @see IAutoTrader#placeCoverOrder(String, String, String, TradeType,
+	 *      OrderType, int, float, float)
+	 */
+	CompletableFuture<IOperationResponse<String>> placeCoverOrder(String pseudoAccount, String exchange,
+			String symbol, TradeType tradeType, OrderType orderType, int quantity, float price, float triggerPrice);
+
+	/**
+	 * Places the given orders, sending several of them in parallel.
+	 *
+	 * @see IAutoTrader#placeOrders(List)
+	 */
+	CompletableFuture<BatchResponse<String>> placeOrders(List<Order> orders);
+
+	/**
+	 * Cancels the given orders, sending several of them in parallel.
+	 *
+	 * @see IAutoTrader#cancelOrders(List)
+	 */
+	CompletableFuture<BatchResponse<Boolean>> cancelOrders(List<CancelOrderRequest> orders);
+
+	/**
+	 * Modifies the given orders, sending several of them in parallel.
+	 *
+	 * @see IAutoTrader#modifyOrders(List)
+	 */
+	CompletableFuture<BatchResponse<Boolean>> modifyOrders(List<ModifyOrderRequest> orders);
+
+	/**
+	 * Places the given order for each of the given accounts, in parallel.
+	 *
+	 * @see IAutoTrader#fanOutOrder(OrderTemplate, Collection, long)
+	 */
+	CompletableFuture<FanOutResponse<String>> fanOutOrder(OrderTemplate order, Collection<String> pseudoAccounts,
+			long deadline);
+
+	/**
+	 * Places the given order for each of the live pseudo accounts, in parallel.
+	 *
+	 * @see IAutoTrader#fanOutOrder(OrderTemplate, long)
+	 */
+	CompletableFuture<FanOutResponse<String>> fanOutOrder(OrderTemplate order, long deadline);
+
+	/**
+	 * Cancels all open orders and squares off the portfolio of every live pseudo
+	 * account, in parallel, bypassing the client side rate limiter. The future
+	 * does not complete exceptionally, a failure to fetch the accounts yields a
+	 * response which is not {@link FanOutResponse#isComplete() complete}.
+	 *
+	 * @see IAutoTrader#emergencySquareOff(PositionCategory, long)
+	 */
+	CompletableFuture<FanOutResponse<Boolean>> emergencySquareOff(PositionCategory category, long deadline);
+
+	/**
+	 * Cancels an order.
+	 *
+	 * @see IAutoTrader#cancelOrderByPlatformId(String, String)
+	 */
+	CompletableFuture<IOperationResponse<Boolean>> cancelOrderByPlatformId(String pseudoAccount, String platformId);
+
+	/**
+	 * Cancels all open orders for the given account.
+	 *
+	 * @see IAutoTrader#cancelAllOrders(String)
+	 */
+	CompletableFuture<IOperationResponse<Boolean>> cancelAllOrders(String pseudoAccount);
+
+	/**
+	 * Cancels the child orders for the given parent (bracket or cover) order.
+	 *
+	 * @see IAutoTrader#cancelChildOrdersByPlatformId(String, String)
+	 */
+	CompletableFuture<IOperationResponse<Boolean>> cancelChildOrdersByPlatformId(String pseudoAccount,
+			String platformId);
+
+	/**
+	 * Modifies the order as per the parameters passed.
+	 *
+	 * @see IAutoTrader#modifyOrderByPlatformId(String, String, OrderType,
+	 *      Integer, Float, Float)
+	 */
+	CompletableFuture<IOperationResponse<Boolean>> modifyOrderByPlatformId(String pseudoAccount, String platformId,
+			OrderType orderType, Integer quantity, Float price, Float triggerPrice);
+
+	/**
+	 * Modifies the order, additionally setting the disclosed quantity percentage.
+	 *
+	 * @see IAutoTrader#modifyOrderByPlatformId(String, String, OrderType,
+	 *      Integer, Float, Float, Integer)
+	 */
+	CompletableFuture<IOperationResponse<Boolean>> modifyOrderByPlatformId(String pseudoAccount, String platformId,
+			OrderType orderType, Integer quantity, Float price, Float triggerPrice, Integer disclosedQtyPct);
+
+	/**
+	 * Submits a square-off position request.
+	 *
+	 * @see IAutoTrader#squareOffPosition(String, PositionCategory, PositionType,
+	 *      String, String, boolean)
+	 */
+	CompletableFuture<IOperationResponse<Boolean>> squareOffPosition(String pseudoAccount, PositionCategory category,
+			PositionType type, String exchange, String symbol, boolean cancelOpenOrders);
+
+	/**
+	 * Submits a square-off portfolio request.
+	 *
+	 * @see IAutoTrader#squareOffPortfolio(String, PositionCategory, boolean)
+	 */
+	CompletableFuture<IOperationResponse<Boolean>> squareOffPortfolio(String pseudoAccount, PositionCategory category,
+			boolean cancelOpenOrders);
+
+	/**
+	 * Executes a command in comma separated value (csv) format.
+	 *
+	 * @see IAutoTrader#execute(String)
+	 */
+	CompletableFuture<IOperationResponse<Object>> execute(String command);
+
+	/**
+	 * Read trading platform orders.
+	 *
+	 * @see IAutoTrader#readPlatformOrders(String)
+	 */
+	CompletableFuture<IOperationResponse<Set<PlatformOrder>>> readPlatformOrders(String pseudoAccount);
+
+	/**
+	 * Read trading platform positions.
+	 *
+	 * @see IAutoTrader#readPlatformPositions(String)
+	 */
+	CompletableFuture<IOperationResponse<Set<PlatformPosition>>> readPlatformPositions(String pseudoAccount);
+
+	/**
+	 * Read trading platform margins.
+	 *
+	 * @see IAutoTrader#readPlatformMargins(String)
+	 */
+	CompletableFuture<IOperationResponse<Set<PlatformMargin>>> readPlatformMargins(String pseudoAccount);
+
+	/**
+	 * Read trading platform holdings.
+	 *
+	 * @see IAutoTrader#readPlatformHoldings(String)
+	 */
+	CompletableFuture<IOperationResponse<Set<PlatformHolding>>> readPlatformHoldings(String pseudoAccount);
+
+	/**
+	 * Gets the latest version of at-desktop client.
+	 *
+	 * @return at-desktop latest version
+	 */
+	CompletableFuture<IOperationResponse<String>> autoTraderDesktopVersion();
+
+	/**
+	 * Gets the minimum version required of at-desktop client.
+	 *
+	 * @return at-desktop minimum version
+	 */
+	CompletableFuture<IOperationResponse<String>> autoTraderDesktopMinVersion();
+
+}
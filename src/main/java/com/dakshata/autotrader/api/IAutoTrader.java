@@ -3,6 +3,9 @@
  */
 package com.dakshata.autotrader.api;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.dakshata.constants.trading.*;
@@ -27,6 +30,14 @@ public interface IAutoTrader {
 
 	String SERVER_URL = PRIMARY_SERVER_URL;
 
+	/**
+	 * Provides the non-blocking view of this instance. It shares the connection
+	 * pool and configuration of this instance.
+	 *
+	 * @return asynchronous api
+	 */
+	IAsyncAutoTrader async();
+
 	/**
 	 * Provides live pseudo accounts available under your user.
 	 *
@@ -144,6 +155,85 @@ public interface IAutoTrader {
 	 */
 	IOperationResponse<Boolean> cancelOrderByPlatformId(String pseudoAccount, String platformId);
 
+	/**
+	 * Places the given orders, sending several of them in parallel (as per
+	 * {@link AutoTraderClientConfig#getBatchConcurrency()}).
+	 *
+	 * @param orders orders
+	 * @return order ids given by your stock broker, in the same order as input
+	 */
+	BatchResponse<String> placeOrders(List<Order> orders);
+
+	/**
+	 * Cancels the given orders, sending several of them in parallel.
+	 *
+	 * @param orders orders to cancel
+	 * @return <code>true</code> on success, <code>false</code> otherwise, in the
+	 *         same order as input
+	 */
+	BatchResponse<Boolean> cancelOrders(List<CancelOrderRequest> orders);
+
+	/**
+	 * Modifies the given orders, sending several of them in parallel.
+	 *
+	 * @param orders order modifications
+	 * @return <code>true</code> on success, <code>false</code> otherwise, in the
+	 *         same order as input
+	 */
+	BatchResponse<Boolean> modifyOrders(List<ModifyOrderRequest> orders);
+
+	/**
+	 * Places the given order for each of the given accounts, sending several of
+	 * them in parallel (as per
+	 * {@link AutoTraderClientConfig#getBatchConcurrency()}).
+	 *
+	 * The call returns by the deadline at the latest: orders not sent by then are
+	 * not sent at all, orders without a response by then are reported as errors,
+	 * though they may still get placed.
+	 *
+	 * @param order          order to place
+	 * @param pseudoAccounts pseudo accounts
+	 * @param deadline       time (milliseconds) within which to return, zero for
+	 *                       no deadline
+	 * @return order ids given by your stock broker, by pseudo account
+	 */
+	FanOutResponse<String> fanOutOrder(OrderTemplate order, Collection<String> pseudoAccounts, long deadline);
+
+	/**
+	 * Places the given order for each of the live pseudo accounts (see
+	 * {@link #fetchLivePseudoAccounts()}), the deadline includes fetching the
+	 * accounts. If they cannot be fetched, no order is placed & the response is
+	 * not {@link FanOutResponse#isComplete() complete}.
+	 *
+	 * @see #fanOutOrder(OrderTemplate, Collection, long)
+	 */
+	FanOutResponse<String> fanOutOrder(OrderTemplate order, long deadline);
+
+	/**
+	 * Emergency exit of every live pseudo account (see
+	 * {@link #fetchLivePseudoAccounts()}): cancels all open orders and then
+	 * squares off the portfolio, all accounts in parallel.
+	 *
+	 * Requests are sent right away, bypassing the client side rate limiter and
+	 * the circuit breaker. The call returns by the deadline at the latest, even
+	 * if some requests are still in progress.
+	 *
+	 * If the live pseudo accounts cannot be fetched (e.g. server error, rejected
+	 * api key or not within the deadline), nothing is squared off: the response
+	 * is not {@link FanOutResponse#isComplete() complete}, has no accounts & its
+	 * {@link FanOutResponse#getError() error} holds the cause. Check it before
+	 * {@link FanOutResponse#getFailedAccounts()}, which is empty in that case.
+	 *
+	 * @param category position category (DAY or NET portfolio to consider)
+	 * @param deadline time (milliseconds) within which to return, zero for no
+	 *                 deadline
+	 * @return <code>true</code> by pseudo account when both cancellation &
+	 *         square-off were accepted, an error otherwise; see
+	 *         {@link FanOutResponse#getFailedAccounts()} for the accounts which
+	 *         did not confirm
+	 */
+	FanOutResponse<Boolean> emergencySquareOff(PositionCategory category, long deadline);
+
 	/**
 	 * Cancels all open orders for the given account. For more information, please
 	 * see
@@ -239,6 +329,49 @@ public interface IAutoTrader {
 	 */
 	IOperationResponse<Set<PlatformHolding>> readPlatformHoldings(final String pseudoAccount);
 
+	/**
+	 * Provides request hedging statistics, see
+	 * {@link AutoTraderClientConfig#getHedgePercentile()}.
+	 *
+	 * @return statistics per hedged end point, empty when hedging is disabled
+	 */
+	Map<Endpoint, HedgingStats> hedgingStats();
+
+	/**
+	 * Request metrics recorded by the configured
+	 * {@link AutoTraderClientConfig#getMetricsRecorder() metrics recorder}.
+	 *
+	 * @return metrics per end point, empty if the recorder does not keep them
+	 */
+	Map<Endpoint, EndpointMetrics> metrics();
+
+	/**
+	 * Current state of the circuit breaker of every end point group, see
+	 * {@link AutoTraderClientConfig#getCircuitFailureRate()}.
+	 *
+	 * @return state per end point group, empty when the circuit breaker is
+	 *         disabled
+	 */
+	Map<EndpointGroup, CircuitState> circuitStates();
+
+	/**
+	 * Dispatch statistics (queue depths, etc.) of every request priority class,
+	 * see {@link AutoTraderClientConfig#getMaxRequestsInFlight()}.
+	 *
+	 * @return statistics per priority class, empty when the dispatcher is
+	 *         disabled
+	 */
+	Map<RequestPriority, DispatchStats> dispatchStats();
+
+	/**
+	 * Current usage of the connection pool of every end point group, see
+	 * {@link AutoTraderClientConfig#getBulkheads()}.
+	 *
+	 * @return pool usage per end point group, empty when the http transport does
+	 *         not expose its pools
+	 */
+	Map<EndpointGroup, BulkheadStats> bulkheadStats();
+
 	/**
 	 * Graceful shutdown. Call when your application is about to exit.
 	 */
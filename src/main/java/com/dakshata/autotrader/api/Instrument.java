@@ -0,0 +1,28 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import lombok.Value;
+
+/**
+ * Exchange & symbol, as a key of the indexes by instrument.
+ *
+ * @author PRITESH
+ *
+ */
+@Value
+final class Instrument {
+
+	private final String exchange;
+
+	private final String symbol;
+
+	/**
+	 * @return instrument, <code>null</code> if either part is missing
+	 */
+	static Instrument of(final String exchange, final String symbol) {
+		return ((exchange == null) || (symbol == null)) ? null : new Instrument(exchange, symbol);
+	}
+
+}
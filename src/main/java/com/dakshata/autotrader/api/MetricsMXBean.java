@@ -0,0 +1,22 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.Map;
+
+/**
+ * JMX view of the request metrics of an {@link AutoTrader} instance, registered
+ * as <code>com.dakshata.autotrader.api:type=Metrics,name=AutoTrader-N</code>.
+ *
+ * @author PRITESH
+ *
+ */
+public interface MetricsMXBean {
+
+	/**
+	 * @return metrics per end point
+	 */
+	Map<Endpoint, EndpointMetrics> getEndpoints();
+
+}
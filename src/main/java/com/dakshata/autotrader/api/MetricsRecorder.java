@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Receives runtime measurements of the requests made by an {@link AutoTrader}
+ * instance, per end point. Plug in an implementation using
+ * {@link AutoTraderClientConfig#getMetricsRecorder()}, e.g.
+ * {@link HdrHistogramMetricsRecorder} or an adapter to your own metrics
+ * library. By default nothing is recorded ({@link #NOOP}).
+ *
+ * Methods are called on the request threads (including the http client's
+ * threads for non-blocking requests), hence implementations must be thread safe
+ * and fast.
+ *
+ * @author PRITESH
+ *
+ */
+public interface MetricsRecorder {
+
+	/**
+	 * Records nothing.
+	 */
+	MetricsRecorder NOOP = new MetricsRecorder() {
+
+		@Override
+		public void recordRequest(final Endpoint endpoint, final int status, final long nanos) {
+		}
+
+		@Override
+		public void recordParseError(final Endpoint endpoint) {
+		}
+
+		@Override
+		public void recordRetry(final Endpoint endpoint) {
+		}
+
+		@Override
+		public void recordPool(final Endpoint endpoint, final int leased, final int pending) {
+		}
+
+	};
+
+	/**
+	 * Records a completed http request.
+	 *
+	 * @param endpoint end point
+	 * @param status   http status, zero when no response was received (e.g.
+	 *                 connection failure or timeout)
+	 * @param nanos    time taken
+	 */
+	void recordRequest(Endpoint endpoint, int status, long nanos);
+
+	/**
+	 * Records a response which could not be parsed.
+	 */
+	void recordParseError(Endpoint endpoint);
+
+	/**
+	 * Records a request retried after an error.
+	 */
+	void recordRetry(Endpoint endpoint);
+
+	/**
+	 * Records a sample of the usage of the connection pool the (blocking)
+	 * requests of the end point are sent with, taken from time to time & when
+	 * the metrics are read.
+	 *
+	 * @param leased  connections in use
+	 * @param pending requests waiting for a connection
+	 */
+	void recordPool(Endpoint endpoint, int leased, int pending);
+
+	/**
+	 * @return metrics recorded so far, empty if the implementation does not keep
+	 *         them
+	 */
+	default Map<Endpoint, EndpointMetrics> snapshot() {
+		return Collections.emptyMap();
+	}
+
+}
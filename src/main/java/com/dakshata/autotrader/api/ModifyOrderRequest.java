@@ -0,0 +1,43 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import com.dakshata.constants.trading.OrderType;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * An order modification to be applied as part of a batch. Leave a field null
+ * if you do not want to modify it.
+ *
+ * @author PRITESH
+ *
+ */
+@Builder
+@Getter
+public class ModifyOrderRequest {
+
+	@NonNull
+	private final String pseudoAccount;
+
+	/**
+	 * Platform id (id given to order by trading platform).
+	 */
+	@NonNull
+	private final String platformId;
+
+	private final OrderType orderType;
+
+	private final Integer quantity;
+
+	private final Float price, triggerPrice;
+
+	/**
+	 * Percent of order quantity to show in market depth.
+	 */
+	private final Integer disclosedQtyPct;
+
+}
@@ -0,0 +1,236 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves many API keys (tenants) over a single set of http clients, and hence
+ * connection pools, instead of an {@link AutoTrader} instance (with pools of
+ * its own) per API key. Every request carries the API key of its tenant.
+ *
+ * A tenant is an {@link IAutoTrader} with its own rate limiter, cache, retry
+ * budget, circuit breaker, etc. as per the configuration, created on first
+ * use without any global lock. Tenants are reference counted: every
+ * {@link #acquire(String)} must be matched by a {@link IAutoTrader#shutdown()}
+ * of the returned tenant, which only releases it. A tenant which has not been
+ * held by anyone for the idle timeout is evicted & shut down, it is created
+ * afresh on its next use.
+ *
+ * The http clients are shut down once the multi-tenant client is shut down &
+ * all tenants still held at that time are released. Metrics, bulkhead
+ * statistics, server failover, the request dispatcher & the thread which sends
+ * delayed requests are shared by all tenants.
+ *
+ * @author PRITESH
+ *
+ */
+@Slf4j
+public final class MultiTenantAutoTrader {
+
+	private final AutoTraderClientConfig config;
+
+	private final SharedClient client;
+
+	private final long idleTimeout;
+
+	private final ConcurrentMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService evictor;
+
+	private volatile boolean shutdown;
+
+	/**
+	 * @param config      configuration of the http clients & of every tenant,
+	 *                    its api key is not used
+	 * @param idleTimeout time (milliseconds) after which a tenant no one holds is
+	 *                    evicted, zero disables eviction
+	 */
+	public MultiTenantAutoTrader(@NonNull final AutoTraderClientConfig config, final long idleTimeout) {
+		this.config = config;
+		this.client = new SharedClient(config.toBuilder().apiKey(null).build());
+		this.client.warmUp();
+		this.idleTimeout = idleTimeout;
+		if (idleTimeout > 0) {
+			this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+				final Thread t = new Thread(r, "at-api-tenant-evictor");
+				t.setDaemon(true);
+				return t;
+			});
+			final long interval = Math.max(1, idleTimeout / 2);
+			this.evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, MILLISECONDS);
+		} else {
+			this.evictor = null;
+		}
+	}
+
+	/**
+	 * Returns the tenant of the given api key, creating it if needed. Release it
+	 * with {@link IAutoTrader#shutdown()} once done.
+	 *
+	 * @throws IllegalStateException if the multi-tenant client is shut down
+	 */
+	public IAutoTrader acquire(@NonNull final String apiKey) {
+		for (;;) {
+			if (this.shutdown) {
+				throw new IllegalStateException("Multi-tenant client is shut down");
+			}
+
+			Tenant tenant = this.tenants.get(apiKey);
+			if (tenant == null) {
+				tenant = this.tenants.computeIfAbsent(apiKey, this::create);
+			}
+			if (tenant.retain()) {
+				return tenant.autoTrader;
+			}
+			// Evicted meanwhile, it is replaced
+			this.tenants.remove(apiKey, tenant);
+		}
+	}
+
+	/**
+	 * @return api keys of the current tenants
+	 */
+	public Set<String> getApiKeys() {
+		return Collections.unmodifiableSet(this.tenants.keySet());
+	}
+
+	/**
+	 * @return current usage of the shared connection pool of every end point
+	 *         group
+	 */
+	public Map<EndpointGroup, BulkheadStats> bulkheadStats() {
+		return this.client.bulkheadStats();
+	}
+
+	/**
+	 * Shuts down the tenants no one holds, the others are shut down as soon as
+	 * they are released. The http clients are shut down with the last tenant.
+	 */
+	public void shutdown() {
+		if (this.shutdown) {
+			return;
+		}
+		this.shutdown = true;
+		if (this.evictor != null) {
+			this.evictor.shutdownNow();
+		}
+		for (final Tenant tenant : this.tenants.values()) {
+			this.evict(tenant);
+		}
+		this.client.release();
+	}
+
+	/**
+	 * Releases a tenant, called by its {@link AutoTrader#shutdown()}.
+	 */
+	void release(@NonNull final AutoTrader autoTrader) {
+		final Tenant tenant = this.tenants.get(autoTrader.getApiKey());
+		if ((tenant == null) || (tenant.autoTrader != autoTrader)) {
+			// Already evicted
+			return;
+		}
+		if (tenant.release() && this.shutdown) {
+			this.evict(tenant);
+		}
+	}
+
+	private Tenant create(final String apiKey) {
+		if (!this.client.retain()) {
+			throw new IllegalStateException("Multi-tenant client is shut down");
+		}
+		try {
+			return new Tenant(new AutoTrader(this.config.toBuilder().apiKey(apiKey).build(), this.client, this));
+		} catch (final RuntimeException e) {
+			this.client.release();
+			throw e;
+		}
+	}
+
+	private void evictIdle() {
+		final long now = System.nanoTime();
+		for (final Tenant tenant : this.tenants.values()) {
+			if ((now - tenant.lastReleased) >= MILLISECONDS.toNanos(this.idleTimeout)) {
+				this.evict(tenant);
+			}
+		}
+	}
+
+	/**
+	 * Shuts the tenant down, unless someone holds it.
+	 */
+	private void evict(final Tenant tenant) {
+		if (!tenant.references.compareAndSet(0, -1)) {
+			return;
+		}
+		this.tenants.remove(tenant.autoTrader.getApiKey(), tenant);
+		try {
+			tenant.autoTrader.close();
+		} catch (final Exception e) {
+			log.error("SD-ERR-058: Tenant could not be shut down: ", e);
+		}
+	}
+
+	private static final class Tenant {
+
+		private final AutoTrader autoTrader;
+
+		/**
+		 * Number of holders, -1 once evicted.
+		 */
+		private final AtomicInteger references = new AtomicInteger();
+
+		private volatile long lastReleased = System.nanoTime();
+
+		Tenant(final AutoTrader autoTrader) {
+			this.autoTrader = autoTrader;
+		}
+
+		/**
+		 * @return whether it was retained, <code>false</code> when it is evicted
+		 */
+		boolean retain() {
+			for (;;) {
+				final int current = this.references.get();
+				if (current < 0) {
+					return false;
+				}
+				if (this.references.compareAndSet(current, current + 1)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * @return whether no one holds it anymore
+		 */
+		boolean release() {
+			for (;;) {
+				final int current = this.references.get();
+				if (current <= 0) {
+					// Released more often than acquired
+					return false;
+				}
+				this.lastReleased = System.nanoTime();
+				if (this.references.compareAndSet(current, current - 1)) {
+					return current == 1;
+				}
+			}
+		}
+
+	}
+
+}
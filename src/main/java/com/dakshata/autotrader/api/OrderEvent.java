@@ -0,0 +1,47 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import com.dakshata.constants.trading.OrderStatus;
+import com.dakshata.trading.model.platform.PlatformOrder;
+
+import lombok.Value;
+
+/**
+ * Change of an order between two successive snapshots, see
+ * {@link OrderTracker}.
+ *
+ * @author PRITESH
+ *
+ */
+@Value
+public class OrderEvent {
+
+	private final OrderEventType type;
+
+	private final String pseudoAccount;
+
+	/**
+	 * Order as per the latest snapshot.
+	 */
+	private final PlatformOrder order;
+
+	/**
+	 * Status as per the previous snapshot, <code>null</code> for a new order.
+	 */
+	private final OrderStatus previousStatus;
+
+	/**
+	 * Filled quantity as per the previous snapshot, zero for a new order.
+	 */
+	private final int previousFilledQuantity;
+
+	/**
+	 * @return quantity filled since the previous snapshot
+	 */
+	public int getNewlyFilledQuantity() {
+		return this.order.getFilledQuantity() - this.previousFilledQuantity;
+	}
+
+}
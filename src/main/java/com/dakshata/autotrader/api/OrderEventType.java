@@ -0,0 +1,31 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+/**
+ * Kind of change of an order between two successive snapshots, see
+ * {@link OrderTracker}.
+ *
+ * @author PRITESH
+ *
+ */
+public enum OrderEventType {
+
+	/**
+	 * Order seen for the first time.
+	 */
+	NEW,
+
+	/**
+	 * Status changed, e.g. open order got rejected.
+	 */
+	STATUS_CHANGED,
+
+	/**
+	 * Filled quantity changed (with the status unchanged), e.g. partial fill of
+	 * an open order.
+	 */
+	FILL_CHANGED
+
+}
@@ -0,0 +1,19 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+/**
+ * Notified of the changes of orders detected by an {@link OrderTracker}, e.g.
+ * to act upon fills & rejections. Called on the thread which updates the
+ * tracker, hence it must not block.
+ *
+ * @author PRITESH
+ *
+ */
+@FunctionalInterface
+public interface OrderListener {
+
+	void orderChanged(OrderEvent event);
+
+}
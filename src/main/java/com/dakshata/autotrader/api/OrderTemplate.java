@@ -0,0 +1,46 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.ProductType;
+import com.dakshata.constants.trading.TradeType;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Regular order without the pseudo account, placed for several accounts at
+ * once, see {@link IAutoTrader#fanOutOrder(OrderTemplate, java.util.Collection, long)}.
+ *
+ * @author PRITESH
+ *
+ */
+@Value
+@Builder
+public class OrderTemplate {
+
+	@NonNull
+	private final String exchange;
+
+	@NonNull
+	private final String symbol;
+
+	@NonNull
+	private final TradeType tradeType;
+
+	@NonNull
+	private final OrderType orderType;
+
+	@NonNull
+	private final ProductType productType;
+
+	private final int quantity;
+
+	private final float price;
+
+	private final float triggerPrice;
+
+}
@@ -0,0 +1,306 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.dakshata.constants.trading.OrderStatus;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+import com.dakshata.trading.model.platform.PlatformOrder;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the orders of pseudo accounts across successive snapshots (as read by
+ * {@link IAutoTrader#readPlatformOrders(String)}) and reports what changed:
+ * new orders, status changes and fills.
+ *
+ * Every account has an index of its orders by platform id, holding the status
+ * & filled quantity last seen. A snapshot is compared order by order against
+ * the index, which is updated in place, hence only the orders which changed
+ * allocate (an event). Orders missing from a snapshot are dropped from the
+ * index.
+ *
+ * Snapshots of an account are applied one at a time, listeners are notified
+ * in order, on the thread which applies the snapshot. Every read of an account
+ * is numbered when it is sent: responses may arrive in any order, and one
+ * older than the snapshot already applied is dropped.
+ *
+ * @author PRITESH
+ *
+ */
+@Slf4j
+public class OrderTracker {
+
+	private final IAutoTrader autoTrader;
+
+	private final Map<String, Book> books = new ConcurrentHashMap<>();
+
+	private final List<OrderListener> listeners = new CopyOnWriteArrayList<>();
+
+	public OrderTracker(@NonNull final IAutoTrader autoTrader) {
+		this.autoTrader = autoTrader;
+	}
+
+	public void addListener(@NonNull final OrderListener listener) {
+		this.listeners.add(listener);
+	}
+
+	public void removeListener(@NonNull final OrderListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Reads the orders of the given account and applies them, see
+	 * {@link #update(String, Collection)}.
+	 *
+	 * @param pseudoAccount pseudo account
+	 * @return changes, or the error if orders could not be read (in which case
+	 *         the tracker is unchanged). No changes if a read sent later was
+	 *         applied first.
+	 */
+	public IOperationResponse<List<OrderEvent>> poll(@NonNull final String pseudoAccount) {
+		final Book book = this.books.computeIfAbsent(pseudoAccount, a -> new Book());
+		final long sequence = book.next();
+		return this.apply(pseudoAccount, book, sequence, this.autoTrader.readPlatformOrders(pseudoAccount));
+	}
+
+	/**
+	 * Non-blocking variant of {@link #poll(String)}.
+	 */
+	public CompletableFuture<IOperationResponse<List<OrderEvent>>> pollAsync(@NonNull final String pseudoAccount) {
+		final Book book = this.books.computeIfAbsent(pseudoAccount, a -> new Book());
+		final long sequence = book.next();
+		return this.autoTrader.async().readPlatformOrders(pseudoAccount)
+				.thenApply(response -> this.apply(pseudoAccount, book, sequence, response));
+	}
+
+	/**
+	 * Applies a snapshot of the orders of the given account, notifying the
+	 * listeners of the changes since the previous snapshot. All orders of the
+	 * first snapshot are new.
+	 *
+	 * @param pseudoAccount pseudo account
+	 * @param orders        all orders of the account
+	 * @return changes, in snapshot order
+	 */
+	public List<OrderEvent> update(@NonNull final String pseudoAccount,
+			@NonNull final Collection<PlatformOrder> orders) {
+		while (true) {
+			final Book book = this.books.computeIfAbsent(pseudoAccount, a -> new Book());
+			synchronized (book) {
+				// Unless reset meanwhile
+				if (!book.removed) {
+					return this.apply(pseudoAccount, book, ++book.sent, orders);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return order as per the latest snapshot, <code>null</code> if unknown
+	 */
+	public PlatformOrder getOrder(@NonNull final String pseudoAccount, @NonNull final String platformId) {
+		final Book book = this.books.get(pseudoAccount);
+		if (book == null) {
+			return null;
+		}
+		synchronized (book) {
+			final Entry entry = book.orders.get(platformId);
+			return (entry == null) ? null : entry.order;
+		}
+	}
+
+	/**
+	 * @return orders of the account as per the latest snapshot
+	 */
+	public List<PlatformOrder> getOrders(@NonNull final String pseudoAccount) {
+		final Book book = this.books.get(pseudoAccount);
+		if (book == null) {
+			return Collections.emptyList();
+		}
+		synchronized (book) {
+			final List<PlatformOrder> orders = new ArrayList<>(book.orders.size());
+			for (final Entry entry : book.orders.values()) {
+				orders.add(entry.order);
+			}
+			return orders;
+		}
+	}
+
+	/**
+	 * Forgets the orders of the given account, the next snapshot reports all of
+	 * them as new.
+	 */
+	public void reset(@NonNull final String pseudoAccount) {
+		final Book book = this.books.get(pseudoAccount);
+		if (book == null) {
+			return;
+		}
+		// Reads in flight are dropped, as they are applied to this book
+		synchronized (book) {
+			book.removed = true;
+			book.orders.clear();
+			this.books.remove(pseudoAccount, book);
+		}
+	}
+
+	private IOperationResponse<List<OrderEvent>> apply(final String pseudoAccount, final Book book,
+			final long sequence, final IOperationResponse<Set<PlatformOrder>> response) {
+		if (!response.success()) {
+			return OperationResponse.<List<OrderEvent>>builder().error(response.getError())
+					.message(response.getMessage()).errorCode(response.getErrorCode()).build();
+		}
+
+		final Set<PlatformOrder> orders = response.getResult();
+		final List<OrderEvent> events;
+		synchronized (book) {
+			events = this.apply(pseudoAccount, book, sequence, (orders == null) ? Collections.emptySet() : orders);
+		}
+		return OperationResponse.<List<OrderEvent>>builder().result(events).message(response.getMessage()).build();
+	}
+
+	/**
+	 * Applies the snapshot read with the given sequence, unless a newer one is
+	 * applied already. The caller holds the lock of the book.
+	 */
+	private List<OrderEvent> apply(final String pseudoAccount, final Book book, final long sequence,
+			final Collection<PlatformOrder> orders) {
+		if (book.removed || (sequence <= book.applied)) {
+			log.debug("Dropped stale orders of {}", pseudoAccount);
+			return Collections.emptyList();
+		}
+
+		book.applied = sequence;
+		final List<OrderEvent> events = book.update(pseudoAccount, orders);
+		for (final OrderEvent event : events) {
+			this.notify(event);
+		}
+		return events;
+	}
+
+	private void notify(final OrderEvent event) {
+		for (final OrderListener listener : this.listeners) {
+			try {
+				listener.orderChanged(event);
+			} catch (final Exception e) {
+				log.error("SD-ERR-055: Order listener failed: ", e);
+			}
+		}
+	}
+
+	/**
+	 * Orders of an account, guarded by itself.
+	 */
+	private static final class Book {
+
+		private final Map<String, Entry> orders = new HashMap<>();
+
+		/**
+		 * Number of snapshots applied.
+		 */
+		private long snapshot;
+
+		/**
+		 * Sequence of the latest read sent.
+		 */
+		private long sent;
+
+		/**
+		 * Sequence of the latest snapshot applied.
+		 */
+		private long applied;
+
+		/**
+		 * Set once the book is reset, it then takes no more snapshots.
+		 */
+		private boolean removed;
+
+		/**
+		 * @return sequence of a read about to be sent
+		 */
+		synchronized long next() {
+			return ++this.sent;
+		}
+
+		List<OrderEvent> update(final String pseudoAccount, final Collection<PlatformOrder> snapshot) {
+			final long current = ++this.snapshot;
+			List<OrderEvent> events = null;
+			int seen = 0;
+			for (final PlatformOrder order : snapshot) {
+				final String platformId = order.getPlatformId();
+				if (platformId == null) {
+					continue;
+				}
+
+				Entry entry = this.orders.get(platformId);
+				OrderEvent event = null;
+				if (entry == null) {
+					entry = new Entry();
+					this.orders.put(platformId, entry);
+					event = new OrderEvent(OrderEventType.NEW, pseudoAccount, order, null, 0);
+				} else if (entry.status != order.getStatus()) {
+					event = new OrderEvent(OrderEventType.STATUS_CHANGED, pseudoAccount, order, entry.status,
+							entry.filledQuantity);
+				} else if (entry.filledQuantity != order.getFilledQuantity()) {
+					event = new OrderEvent(OrderEventType.FILL_CHANGED, pseudoAccount, order, entry.status,
+							entry.filledQuantity);
+				}
+
+				if (entry.snapshot != current) {
+					seen++;
+				}
+				entry.order = order;
+				entry.status = order.getStatus();
+				entry.filledQuantity = order.getFilledQuantity();
+				entry.snapshot = current;
+				if (event != null) {
+					if (events == null) {
+						events = new ArrayList<>();
+					}
+					events.add(event);
+				}
+			}
+
+			if (seen < this.orders.size()) {
+				// Orders missing from the snapshot
+				for (final Iterator<Entry> i = this.orders.values().iterator(); i.hasNext();) {
+					if (i.next().snapshot != current) {
+						i.remove();
+					}
+				}
+			}
+			return (events == null) ? Collections.emptyList() : events;
+		}
+
+	}
+
+	/**
+	 * Order as last seen.
+	 */
+	private static final class Entry {
+
+		private PlatformOrder order;
+
+		private OrderStatus status;
+
+		private int filledQuantity;
+
+		private long snapshot;
+
+	}
+
+}
@@ -0,0 +1,33 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.Set;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.trading.model.platform.PlatformMargin;
+import com.dakshata.trading.model.platform.PlatformOrder;
+import com.dakshata.trading.model.platform.PlatformPosition;
+
+/**
+ * Receives the results of the polls of a {@link PollingScheduler}, including
+ * errors. Called on the thread which completes the request, hence it must not
+ * block. Override the methods of interest.
+ *
+ * @author PRITESH
+ *
+ */
+public interface PollListener {
+
+	default void ordersPolled(final String pseudoAccount, final IOperationResponse<Set<PlatformOrder>> orders) {
+	}
+
+	default void positionsPolled(final String pseudoAccount,
+			final IOperationResponse<Set<PlatformPosition>> positions) {
+	}
+
+	default void marginsPolled(final String pseudoAccount, final IOperationResponse<Set<PlatformMargin>> margins) {
+	}
+
+}
@@ -0,0 +1,51 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Configuration of a {@link PollingScheduler}.
+ *
+ * @author PRITESH
+ *
+ */
+@Builder
+@Getter
+public class PollingConfig {
+
+	/**
+	 * Interval (milliseconds) between the polls of an active account: the first
+	 * polls, the polls after a request changed the account and the polls after a
+	 * change was seen.
+	 */
+	@Builder.Default
+	private final long minInterval = 500;
+
+	/**
+	 * Interval (milliseconds) between the polls of an idle account.
+	 */
+	@Builder.Default
+	private final long maxInterval = 5000;
+
+	/**
+	 * Factor by which the interval grows after each poll which saw no change,
+	 * up to {@link #maxInterval}.
+	 */
+	@Builder.Default
+	private final double backoffMultiplier = 2;
+
+	/**
+	 * Random variation of each interval, as a fraction of it, so that polls of
+	 * different accounts do not fire together.
+	 */
+	@Builder.Default
+	private final double jitter = 0.2;
+
+	public static final PollingConfig defaultConfig() {
+		return PollingConfig.builder().build();
+	}
+
+}
@@ -0,0 +1,337 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Polls the orders, positions and/or margins of the registered accounts and
+ * delivers the results to the {@link PollListener}s, replacing a polling
+ * thread per account and component with a single scheduler thread (requests
+ * are non-blocking).
+ *
+ * The interval of an account adapts to its activity: it drops to
+ * {@link PollingConfig#getMinInterval()} when a request changes the account
+ * (e.g. an order is placed, detected automatically when polling through
+ * {@link AutoTrader}, see also {@link #activity(String)}) or a poll sees a
+ * change, and grows towards {@link PollingConfig#getMaxInterval()} while the
+ * polls see no change. Every interval is jittered, so that the polls of the
+ * accounts are spread over time.
+ *
+ * @author PRITESH
+ *
+ */
+@Slf4j
+public class PollingScheduler {
+
+	/**
+	 * End points which can be polled.
+	 */
+	public static final Set<Endpoint> POLLED_ENDPOINTS = Collections.unmodifiableSet(EnumSet
+			.of(Endpoint.READ_PLATFORM_ORDERS, Endpoint.READ_PLATFORM_POSITIONS, Endpoint.READ_PLATFORM_MARGINS));
+
+	private final IAutoTrader autoTrader;
+
+	private final PollingConfig config;
+
+	private final ScheduledExecutorService scheduler;
+
+	private final Map<String, Poll> polls = new ConcurrentHashMap<>();
+
+	private final List<PollListener> listeners = new CopyOnWriteArrayList<>();
+
+	private final Consumer<String> commandListener = this::activity;
+
+	public PollingScheduler(@NonNull final IAutoTrader autoTrader) {
+		this(autoTrader, PollingConfig.defaultConfig());
+	}
+
+	public PollingScheduler(@NonNull final IAutoTrader autoTrader, @NonNull final PollingConfig config) {
+		this(autoTrader, config, Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread t = new Thread(r, "at-api-poller");
+			t.setDaemon(true);
+			return t;
+		}));
+	}
+
+	/**
+	 * @param scheduler runs the polls, shut down along with this
+	 */
+	PollingScheduler(@NonNull final IAutoTrader autoTrader, @NonNull final PollingConfig config,
+			@NonNull final ScheduledExecutorService scheduler) {
+		this.autoTrader = autoTrader;
+		this.config = config;
+		this.scheduler = scheduler;
+		if (autoTrader instanceof AutoTrader) {
+			((AutoTrader) autoTrader).addCommandListener(this.commandListener);
+		}
+	}
+
+	public void addListener(@NonNull final PollListener listener) {
+		this.listeners.add(listener);
+	}
+
+	public void removeListener(@NonNull final PollListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Polls all of {@link #POLLED_ENDPOINTS} for the given account.
+	 */
+	public void register(@NonNull final String pseudoAccount) {
+		this.register(pseudoAccount, POLLED_ENDPOINTS);
+	}
+
+	/**
+	 * Polls the given end points for the given account, replacing its previous
+	 * registration if any. The first poll is made within the minimum interval.
+	 *
+	 * @param endpoints any of {@link #POLLED_ENDPOINTS}
+	 */
+	public void register(@NonNull final String pseudoAccount, @NonNull final Set<Endpoint> endpoints) {
+		if (endpoints.isEmpty() || !POLLED_ENDPOINTS.containsAll(endpoints)) {
+			throw new IllegalArgumentException("End points must be some of " + POLLED_ENDPOINTS);
+		}
+
+		final Poll poll = new Poll(pseudoAccount, EnumSet.copyOf(endpoints));
+		final Poll previous = this.polls.put(pseudoAccount, poll);
+		if (previous != null) {
+			previous.cancel();
+		}
+		poll.schedule(ThreadLocalRandom.current().nextLong(Math.max(1, this.config.getMinInterval())));
+	}
+
+	public void unregister(@NonNull final String pseudoAccount) {
+		final Poll poll = this.polls.remove(pseudoAccount);
+		if (poll != null) {
+			poll.cancel();
+		}
+	}
+
+	/**
+	 * Signals that the given account changed, or is about to, e.g. an order was
+	 * placed through another client: its interval drops to the minimum and its
+	 * next poll is brought forward accordingly.
+	 *
+	 * @param pseudoAccount pseudo account, <code>null</code> for all accounts
+	 */
+	public void activity(final String pseudoAccount) {
+		if (pseudoAccount == null) {
+			for (final Poll poll : this.polls.values()) {
+				poll.activity();
+			}
+			return;
+		}
+
+		final Poll poll = this.polls.get(pseudoAccount);
+		if (poll != null) {
+			poll.activity();
+		}
+	}
+
+	/**
+	 * @return current interval (milliseconds) between the polls of the account,
+	 *         zero if it is not registered
+	 */
+	public long getInterval(@NonNull final String pseudoAccount) {
+		final Poll poll = this.polls.get(pseudoAccount);
+		return (poll == null) ? 0 : poll.getInterval();
+	}
+
+	/**
+	 * Stops polling. Polls in progress still deliver their results.
+	 */
+	public void shutdown() {
+		if (this.autoTrader instanceof AutoTrader) {
+			((AutoTrader) this.autoTrader).removeCommandListener(this.commandListener);
+		}
+		for (final Poll poll : this.polls.values()) {
+			poll.cancel();
+		}
+		this.polls.clear();
+		this.scheduler.shutdownNow();
+	}
+
+	private long jittered(final long interval) {
+		final double variation = this.config.getJitter() * ((2 * ThreadLocalRandom.current().nextDouble()) - 1);
+		return Math.max(1, Math.round(interval * (1 + variation)));
+	}
+
+	private void notify(final Consumer<PollListener> event) {
+		for (final PollListener listener : this.listeners) {
+			try {
+				event.accept(listener);
+			} catch (final Exception e) {
+				log.error("SD-ERR-057: Poll listener failed: ", e);
+			}
+		}
+	}
+
+	private static <T> IOperationResponse<T> response(final IOperationResponse<T> response, final Throwable error) {
+		if (error == null) {
+			return response;
+		}
+		final Throwable cause = Retrier.unwrap(error);
+		return OperationResponse.<T>builder()
+				.error((cause instanceof Exception) ? (Exception) cause : new Exception(cause)).build();
+	}
+
+	/**
+	 * Polls of an account, rescheduled after each poll completes, guarded by
+	 * itself.
+	 */
+	private final class Poll implements Runnable {
+
+		private final String pseudoAccount;
+
+		private final Set<Endpoint> endpoints;
+
+		/**
+		 * Result of the last successful poll per end point.
+		 */
+		private final Map<Endpoint, Object> results = new EnumMap<>(Endpoint.class);
+
+		private long interval = PollingScheduler.this.config.getMinInterval();
+
+		private ScheduledFuture<?> next;
+
+		private boolean polling, active, cancelled;
+
+		Poll(final String pseudoAccount, final Set<Endpoint> endpoints) {
+			this.pseudoAccount = pseudoAccount;
+			this.endpoints = endpoints;
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (this.cancelled || this.polling) {
+					return;
+				}
+				this.polling = true;
+				this.active = false;
+			}
+
+			try {
+				final List<CompletableFuture<Boolean>> changes = new ArrayList<>(this.endpoints.size());
+				for (final Endpoint endpoint : this.endpoints) {
+					changes.add(this.poll(endpoint));
+				}
+				CompletableFuture.allOf(changes.toArray(new CompletableFuture<?>[0])).whenComplete((v, e) -> {
+					boolean changed = false;
+					for (final CompletableFuture<Boolean> change : changes) {
+						changed |= !change.isCompletedExceptionally() && change.getNow(false);
+					}
+					this.completed(changed);
+				});
+			} catch (final Exception e) {
+				log.error("SD-ERR-057: Poll of {} failed: ", this.pseudoAccount, e);
+				this.completed(false);
+			}
+		}
+
+		/**
+		 * @return whether the result changed since the previous poll
+		 */
+		private CompletableFuture<Boolean> poll(final Endpoint endpoint) {
+			final IAsyncAutoTrader async = PollingScheduler.this.autoTrader.async();
+			final String account = this.pseudoAccount;
+			switch (endpoint) {
+			case READ_PLATFORM_ORDERS:
+				return async.readPlatformOrders(account).handle(PollingScheduler::response).thenApply(r -> {
+					PollingScheduler.this.notify(l -> l.ordersPolled(account, r));
+					return this.changed(endpoint, r);
+				});
+			case READ_PLATFORM_POSITIONS:
+				return async.readPlatformPositions(account).handle(PollingScheduler::response).thenApply(r -> {
+					PollingScheduler.this.notify(l -> l.positionsPolled(account, r));
+					return this.changed(endpoint, r);
+				});
+			case READ_PLATFORM_MARGINS:
+				return async.readPlatformMargins(account).handle(PollingScheduler::response).thenApply(r -> {
+					PollingScheduler.this.notify(l -> l.marginsPolled(account, r));
+					return this.changed(endpoint, r);
+				});
+			default:
+				throw new IllegalStateException("Not polled: " + endpoint);
+			}
+		}
+
+		private synchronized boolean changed(final Endpoint endpoint, final IOperationResponse<?> response) {
+			if (!response.success()) {
+				return false;
+			}
+			final Object previous = this.results.put(endpoint, response.getResult());
+			return (previous != null) && !Objects.equals(previous, response.getResult());
+		}
+
+		private synchronized void completed(final boolean changed) {
+			this.polling = false;
+			final PollingConfig config = PollingScheduler.this.config;
+			this.interval = (changed || this.active) ? config.getMinInterval()
+					: Math.min(config.getMaxInterval(), Math.round(this.interval * config.getBackoffMultiplier()));
+			this.schedule(PollingScheduler.this.jittered(this.interval));
+		}
+
+		synchronized void activity() {
+			this.interval = PollingScheduler.this.config.getMinInterval();
+			if (this.polling) {
+				// Rescheduled at the minimum interval once the poll completes
+				this.active = true;
+				return;
+			}
+
+			final long delay = PollingScheduler.this.jittered(this.interval);
+			if ((this.next == null) || (this.next.getDelay(MILLISECONDS) > delay)) {
+				this.schedule(delay);
+			}
+		}
+
+		synchronized void schedule(final long delay) {
+			if (this.cancelled) {
+				return;
+			}
+			if (this.next != null) {
+				this.next.cancel(false);
+			}
+			this.next = PollingScheduler.this.scheduler.schedule(this, delay, MILLISECONDS);
+		}
+
+		synchronized long getInterval() {
+			return this.interval;
+		}
+
+		synchronized void cancel() {
+			this.cancelled = true;
+			if (this.next != null) {
+				this.next.cancel(false);
+			}
+		}
+
+	}
+
+}
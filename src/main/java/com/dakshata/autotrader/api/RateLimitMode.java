@@ -0,0 +1,32 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+/**
+ * Decides what happens to a request when the client side rate limit is
+ * exhausted.
+ *
+ * @author PRITESH
+ *
+ */
+public enum RateLimitMode {
+
+	/**
+	 * Wait (as long as required) until the request is allowed.
+	 */
+	BLOCK,
+
+	/**
+	 * Reject the request immediately, without sending it to the server.
+	 */
+	FAIL_FAST,
+
+	/**
+	 * Wait for the request to be allowed, but only as long as the configured rate
+	 * limit timeout. Requests which cannot be sent within the timeout are rejected
+	 * immediately instead of waiting.
+	 */
+	DEADLINE
+
+}
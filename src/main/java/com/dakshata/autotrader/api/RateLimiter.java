@@ -0,0 +1,324 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+
+/**
+ * Client side token bucket rate limiter. One bucket limits all requests made
+ * with the api key, optionally another bucket per pseudo account limits the
+ * requests made for that account. A request is sent only when both buckets
+ * allow it.
+ *
+ * Buckets hand out reservations, a request which cannot be allowed right away
+ * gets the time it has to wait for its turn. Hence waiting requests are served
+ * in the order they arrived, and asynchronous requests can be delayed without
+ * blocking a thread.
+ *
+ * An account bucket which is idle long enough to be refilled is the same as a
+ * new one, hence such buckets are evicted from time to time, so that the
+ * accounts seen once are not kept forever.
+ *
+ * @author PRITESH
+ *
+ */
+class RateLimiter {
+
+	private final TokenBucket keyBucket;
+
+	private final double accountPermitsPerSecond;
+
+	private final int accountBurst;
+
+	private final ConcurrentMap<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+
+	/**
+	 * Nanos an idle account bucket takes to refill, idle buckets are evicted
+	 * once per this interval.
+	 */
+	private final long evictionInterval;
+
+	private final AtomicLong lastEviction = new AtomicLong(System.nanoTime());
+
+	private final long maxWaitNanos;
+
+	/**
+	 * Sends the delayed asynchronous requests.
+	 */
+	private final ScheduledExecutorService scheduler;
+
+	RateLimiter(final double permitsPerSecond, final int burst, final double accountPermitsPerSecond,
+			final int accountBurst, @NonNull final RateLimitMode mode, final long timeoutMillis,
+			@NonNull final ScheduledExecutorService scheduler) {
+		this.scheduler = scheduler;
+		this.keyBucket = (permitsPerSecond > 0) ? new TokenBucket(permitsPerSecond, burst) : null;
+		this.accountPermitsPerSecond = accountPermitsPerSecond;
+		this.accountBurst = accountBurst;
+		this.evictionInterval = (accountPermitsPerSecond > 0)
+				? (long) Math.ceil((SECONDS.toNanos(1) * Math.max(1, accountBurst)) / accountPermitsPerSecond)
+				: 0;
+
+		switch (mode) {
+		case FAIL_FAST:
+			this.maxWaitNanos = 0;
+			break;
+		case DEADLINE:
+			this.maxWaitNanos = MILLISECONDS.toNanos(timeoutMillis);
+			break;
+		default:
+			this.maxWaitNanos = Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * Creates the rate limiter as per the configuration.
+	 *
+	 * @param scheduler sends the delayed asynchronous requests
+	 * @return rate limiter or <code>null</code> when rate limiting is disabled
+	 */
+	static RateLimiter create(@NonNull final AutoTraderClientConfig config,
+			@NonNull final ScheduledExecutorService scheduler) {
+		if ((config.getRateLimitPerSecond() <= 0) && (config.getAccountRateLimitPerSecond() <= 0)) {
+			return null;
+		}
+		return new RateLimiter(config.getRateLimitPerSecond(), config.getRateLimitBurst(),
+				config.getAccountRateLimitPerSecond(), config.getAccountRateLimitBurst(), config.getRateLimitMode(),
+				config.getRateLimitTimeout(), scheduler);
+	}
+
+	/**
+	 * Blocks the calling thread until the request is allowed.
+	 *
+	 * @param pseudoAccount pseudo account (may be null)
+	 * @return <code>true</code> when the request can be sent, <code>false</code>
+	 *         when it is rejected
+	 */
+	boolean acquire(final String pseudoAccount) {
+		final long wait = this.reserve(pseudoAccount, System.nanoTime());
+		if (wait < 0) {
+			return false;
+		}
+		if (wait > 0) {
+			try {
+				NANOSECONDS.sleep(wait);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				// The request is not sent, its turn goes to the next one
+				this.cancel(pseudoAccount);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Invokes the request once it is allowed, without blocking the calling
+	 * thread.
+	 *
+	 * @param pseudoAccount pseudo account (may be null)
+	 * @param request       the request
+	 * @param rejection     provides the result for a rejected request
+	 * @return request result
+	 */
+	<R> CompletableFuture<R> acquireAsync(final String pseudoAccount, final Supplier<CompletableFuture<R>> request,
+			final Supplier<R> rejection) {
+		final long wait = this.reserve(pseudoAccount, System.nanoTime());
+		if (wait < 0) {
+			return CompletableFuture.completedFuture(rejection.get());
+		}
+		if (wait == 0) {
+			return request.get();
+		}
+
+		final CompletableFuture<R> result = new CompletableFuture<>();
+		this.scheduler.schedule(() -> {
+			try {
+				request.get().whenComplete((r, e) -> {
+					if (e == null) {
+						result.complete(r);
+					} else {
+						result.completeExceptionally(e);
+					}
+				});
+			} catch (final Exception e) {
+				result.completeExceptionally(e);
+			}
+		}, wait, NANOSECONDS);
+		return result;
+	}
+
+	/**
+	 * Takes a permit only if one is available right away, irrespective of the
+	 * configured mode. Used for optional requests (e.g. hedge requests).
+	 *
+	 * @param pseudoAccount pseudo account (may be null)
+	 * @return <code>true</code> when the request can be sent
+	 */
+	boolean tryAcquire(final String pseudoAccount) {
+		return this.reserve(pseudoAccount, System.nanoTime(), 0) == 0;
+	}
+
+	/**
+	 * Reserves a permit from the api key bucket & the account bucket.
+	 *
+	 * @param pseudoAccount pseudo account (may be null)
+	 * @param now           current {@link System#nanoTime()}
+	 * @return nanos to wait before sending the request, or <code>-1</code> when
+	 *         the request cannot be sent within the allowed wait time
+	 */
+	long reserve(final String pseudoAccount, final long now) {
+		return this.reserve(pseudoAccount, now, this.maxWaitNanos);
+	}
+
+	private long reserve(final String pseudoAccount, final long now, final long maxWaitNanos) {
+		this.evictIdle(now);
+
+		TokenBucket accountBucket = null;
+		long wait = 0;
+		if ((pseudoAccount != null) && (this.accountPermitsPerSecond > 0)) {
+			do {
+				accountBucket = this.accountBuckets.computeIfAbsent(pseudoAccount,
+						k -> new TokenBucket(this.accountPermitsPerSecond, this.accountBurst));
+				wait = accountBucket.reserve(now, maxWaitNanos);
+				// Evicted meanwhile, reserve from its replacement
+			} while (wait == TokenBucket.EVICTED);
+			if (wait < 0) {
+				return -1;
+			}
+		}
+
+		if (this.keyBucket != null) {
+			final long keyWait = this.keyBucket.reserve(now, maxWaitNanos);
+			if (keyWait < 0) {
+				if (accountBucket != null) {
+					accountBucket.release();
+				}
+				return -1;
+			}
+			wait = Math.max(wait, keyWait);
+		}
+
+		return wait;
+	}
+
+	/**
+	 * Gives back a reservation of a request which is not sent.
+	 */
+	private void cancel(final String pseudoAccount) {
+		final TokenBucket accountBucket = (pseudoAccount == null) ? null : this.accountBuckets.get(pseudoAccount);
+		if (accountBucket != null) {
+			accountBucket.release();
+		}
+		if (this.keyBucket != null) {
+			this.keyBucket.release();
+		}
+	}
+
+	/**
+	 * Evicts the account buckets which are refilled, at most once per eviction
+	 * interval.
+	 */
+	private void evictIdle(final long now) {
+		final long last = this.lastEviction.get();
+		if ((this.evictionInterval == 0) || ((now - last) < this.evictionInterval)
+				|| !this.lastEviction.compareAndSet(last, now)) {
+			return;
+		}
+		for (final Map.Entry<String, TokenBucket> entry : this.accountBuckets.entrySet()) {
+			if (entry.getValue().evictIfIdle(now)) {
+				this.accountBuckets.remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @return number of account buckets
+	 */
+	int accountBuckets() {
+		return this.accountBuckets.size();
+	}
+
+	/**
+	 * Token bucket which allows reservations in advance, tokens go negative for
+	 * the requests which are waiting for their turn.
+	 */
+	static final class TokenBucket {
+
+		/**
+		 * Returned by {@link #reserve(long, long)} of an evicted bucket.
+		 */
+		static final long EVICTED = Long.MIN_VALUE;
+
+		private final double capacity;
+
+		private final double nanosPerToken;
+
+		private double tokens;
+
+		private long lastRefill;
+
+		private boolean evicted;
+
+		TokenBucket(final double permitsPerSecond, final int burst) {
+			this.capacity = Math.max(1, burst);
+			this.nanosPerToken = SECONDS.toNanos(1) / permitsPerSecond;
+			this.tokens = this.capacity;
+			this.lastRefill = System.nanoTime();
+		}
+
+		synchronized long reserve(final long now, final long maxWaitNanos) {
+			if (this.evicted) {
+				return EVICTED;
+			}
+			this.refill(now);
+
+			final long wait = (this.tokens >= 1) ? 0 : (long) Math.ceil((1 - this.tokens) * this.nanosPerToken);
+			if (wait > maxWaitNanos) {
+				return -1;
+			}
+
+			this.tokens -= 1;
+			return wait;
+		}
+
+		synchronized void release() {
+			this.tokens = Math.min(this.capacity, this.tokens + 1);
+		}
+
+		/**
+		 * Marks the bucket evicted if it is refilled, it then takes no more
+		 * reservations.
+		 *
+		 * @return <code>true</code> when evicted
+		 */
+		synchronized boolean evictIfIdle(final long now) {
+			this.refill(now);
+			if (this.tokens >= this.capacity) {
+				this.evicted = true;
+			}
+			return this.evicted;
+		}
+
+		private void refill(final long now) {
+			if (now > this.lastRefill) {
+				this.tokens = Math.min(this.capacity, this.tokens + ((now - this.lastRefill) / this.nanosPerToken));
+				this.lastRefill = now;
+			}
+		}
+
+	}
+
+}
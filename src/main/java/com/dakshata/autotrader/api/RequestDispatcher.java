@@ -0,0 +1,299 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+
+import lombok.NonNull;
+
+/**
+ * Limits the number of requests in flight, queueing the others by the
+ * {@link RequestPriority} of their end point. Requests then wait here, where
+ * a cancellation goes ahead of the queued reads, instead of waiting for a
+ * pooled connection, which is first come first served.
+ *
+ * A freed slot goes to the oldest request of the highest priority class,
+ * unless the oldest request of a class has waited for longer than the maximum
+ * queue wait: the oldest such request then goes first, whatever its class.
+ *
+ * Every attempt (including retries) is dispatched separately, so that a
+ * request does not hold its slot while it waits to be retried.
+ *
+ * A blocked request waits for its turn up to the socket timeout, after which
+ * (or when interrupted) it leaves the queue with an error response.
+ *
+ * @author PRITESH
+ *
+ */
+final class RequestDispatcher {
+
+	private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+	private final int maxInFlight;
+
+	private final long maxWait;
+
+	/**
+	 * Maximum time (milliseconds) a blocked request waits for its turn.
+	 */
+	private final long timeout;
+
+	private final Map<RequestPriority, Queue> queues = new EnumMap<>(RequestPriority.class);
+
+	private int inFlight;
+
+	/**
+	 * Waiters whose turn is to be completed, by the thread handing over slots.
+	 */
+	private final ArrayDeque<Waiter> granted = new ArrayDeque<>();
+
+	private boolean handingOver;
+
+	RequestDispatcher(final int maxInFlight, final long maxWait, final long timeout) {
+		this.maxInFlight = maxInFlight;
+		this.maxWait = Duration.ofMillis(maxWait).toNanos();
+		this.timeout = timeout;
+		for (final RequestPriority priority : RequestPriority.values()) {
+			this.queues.put(priority, new Queue());
+		}
+	}
+
+	/**
+	 * Creates the dispatcher as per the configuration.
+	 *
+	 * @return dispatcher or <code>null</code> when disabled
+	 */
+	static RequestDispatcher create(@NonNull final AutoTraderClientConfig config) {
+		return (config.getMaxRequestsInFlight() > 0)
+				? new RequestDispatcher(config.getMaxRequestsInFlight(), config.getMaxQueueWait(),
+						config.getSocketTimeout())
+				: null;
+	}
+
+	/**
+	 * @return a supplier which waits (blocking) for its turn before making the
+	 *         request, or returns an error response if the turn does not come
+	 *         within the timeout
+	 */
+	<R extends IOperationResponse<?>> Supplier<R> dispatch(final Endpoint endpoint, final Supplier<R> f) {
+		final Queue queue = this.queues.get(endpoint.getPriority());
+		return () -> {
+			final R rejected = this.await(queue, endpoint);
+			if (rejected != null) {
+				return rejected;
+			}
+			try {
+				return f.get();
+			} finally {
+				this.release();
+			}
+		};
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #dispatch(Endpoint, Supplier)}.
+	 */
+	<R> Supplier<CompletableFuture<R>> dispatchAsync(final Endpoint endpoint,
+			final Supplier<CompletableFuture<R>> f) {
+		final Queue queue = this.queues.get(endpoint.getPriority());
+		return () -> this.acquire(queue).thenCompose(granted -> {
+			final CompletableFuture<R> future;
+			try {
+				future = f.get();
+			} catch (final RuntimeException e) {
+				this.release();
+				throw e;
+			}
+			return future.whenComplete((response, error) -> this.release());
+		});
+	}
+
+	/**
+	 * @return statistics per priority class
+	 */
+	synchronized Map<RequestPriority, DispatchStats> stats() {
+		final Map<RequestPriority, DispatchStats> stats = new EnumMap<>(RequestPriority.class);
+		for (final Map.Entry<RequestPriority, Queue> entry : this.queues.entrySet()) {
+			final Queue queue = entry.getValue();
+			stats.put(entry.getKey(), new DispatchStats(queue.waiters.size(), queue.maxDepth, queue.dispatched,
+					queue.queued, queue.promoted, Duration.ofNanos(queue.queueTime)));
+		}
+		return Collections.unmodifiableMap(stats);
+	}
+
+	/**
+	 * Waits (blocking) for the turn of a request.
+	 *
+	 * @return <code>null</code> once the request may be sent, an error response
+	 *         if it is not to be sent
+	 */
+	@SuppressWarnings("unchecked")
+	private <R extends IOperationResponse<?>> R await(final Queue queue, final Endpoint endpoint) {
+		final CompletableFuture<Void> turn = this.acquire(queue);
+		if (turn == GRANTED) {
+			return null;
+		}
+
+		final String error;
+		try {
+			turn.get(this.timeout, TimeUnit.MILLISECONDS);
+			return null;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			error = "Interrupted while queued";
+		} catch (final TimeoutException e) {
+			error = "Not dispatched within " + this.timeout + " ms";
+		} catch (final ExecutionException e) {
+			// Never completed exceptionally
+			throw new IllegalStateException(e);
+		}
+
+		if (!this.leave(queue, turn)) {
+			// Its turn came meanwhile
+			this.release();
+		}
+		return (R) OperationResponse.builder()
+				.error(new Exception(error + ", request to " + endpoint + " was not sent to the server")).build();
+	}
+
+	/**
+	 * @return future completed when the request may be sent
+	 */
+	private synchronized CompletableFuture<Void> acquire(final Queue queue) {
+		if (this.inFlight < this.maxInFlight) {
+			this.inFlight++;
+			queue.dispatched++;
+			return GRANTED;
+		}
+
+		final Waiter waiter = new Waiter(System.nanoTime());
+		queue.waiters.add(waiter);
+		queue.queued++;
+		queue.maxDepth = Math.max(queue.maxDepth, queue.waiters.size());
+		return waiter.turn;
+	}
+
+	/**
+	 * Removes the waiter of the given turn from the queue.
+	 *
+	 * @return <code>false</code> if it is no longer queued, i.e. it was handed a
+	 *         slot
+	 */
+	private synchronized boolean leave(final Queue queue, final CompletableFuture<Void> turn) {
+		for (final Iterator<Waiter> i = queue.waiters.iterator(); i.hasNext();) {
+			if (i.next().turn == turn) {
+				i.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Hands the slot of a completed request over to the next queued request, if
+	 * any.
+	 *
+	 * Completing the turn of an asynchronous waiter sends its request on this
+	 * thread, which may complete right away & release its slot in turn. Such a
+	 * nested release only queues the next waiter, the outermost one completes
+	 * them in a loop, so that the stack does not grow with the queue.
+	 */
+	private void release() {
+		synchronized (this) {
+			final Waiter next = this.next();
+			if (next == null) {
+				this.inFlight--;
+				return;
+			}
+			this.granted.add(next);
+			if (this.handingOver) {
+				return;
+			}
+			this.handingOver = true;
+		}
+
+		while (true) {
+			final Waiter next;
+			synchronized (this) {
+				next = this.granted.poll();
+				if (next == null) {
+					this.handingOver = false;
+					return;
+				}
+			}
+			// Outside the lock, as it sends the request of an asynchronous waiter
+			next.turn.complete(null);
+		}
+	}
+
+	private Waiter next() {
+		final long now = System.nanoTime();
+		Queue highest = null;
+		Queue starved = null;
+		for (final Queue queue : this.queues.values()) {
+			final Waiter head = queue.waiters.peek();
+			if (head == null) {
+				continue;
+			}
+			if (highest == null) {
+				highest = queue;
+			}
+			if (((now - head.since) >= this.maxWait)
+					&& ((starved == null) || (head.since < starved.waiters.peek().since))) {
+				starved = queue;
+			}
+		}
+		if (highest == null) {
+			return null;
+		}
+
+		final Queue queue = (starved == null) ? highest : starved;
+		if (queue != highest) {
+			queue.promoted++;
+		}
+		final Waiter waiter = queue.waiters.poll();
+		queue.dispatched++;
+		queue.queueTime += now - waiter.since;
+		return waiter;
+	}
+
+	/**
+	 * Queue of a priority class, guarded by the dispatcher.
+	 */
+	private static final class Queue {
+
+		private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+		private int maxDepth;
+
+		private long dispatched, queued, promoted, queueTime;
+
+	}
+
+	private static final class Waiter {
+
+		private final long since;
+
+		private final CompletableFuture<Void> turn = new CompletableFuture<>();
+
+		Waiter(final long since) {
+			this.since = since;
+		}
+
+	}
+
+}
@@ -0,0 +1,125 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import kong.unirest.Client;
+import kong.unirest.HttpRequestSummary;
+import kong.unirest.MetricContext;
+import kong.unirest.UniMetric;
+import kong.unirest.UnirestInstance;
+import kong.unirest.apache.ApacheClient;
+import lombok.NonNull;
+
+/**
+ * Http client metric hook of an {@link AutoTrader} instance. Feeds the outcome
+ * of every request to the {@link ServerPool} and to the {@link MetricsRecorder}
+ * (against the end point resolved from the request url). Health checks sent by
+ * the client itself are not recorded.
+ *
+ * Pool usage is sampled from time to time (rather than per request, as reading
+ * it locks the pool), from the connection pool of the blocking client of every
+ * end point group (see {@link AutoTraderClientConfig#getBulkheads()}); the
+ * non-blocking client does not expose its pool.
+ *
+ * @author PRITESH
+ *
+ */
+final class RequestMetrics implements UniMetric {
+
+	private final ServerPool servers;
+
+	private final MetricsRecorder recorder;
+
+	private volatile Map<EndpointGroup, PoolingHttpClientConnectionManager> pools = Collections.emptyMap();
+
+	private final Map<EndpointGroup, List<Endpoint>> endpoints = new EnumMap<>(EndpointGroup.class);
+
+	RequestMetrics(@NonNull final ServerPool servers, @NonNull final MetricsRecorder recorder) {
+		this.servers = servers;
+		this.recorder = recorder;
+		for (final Endpoint endpoint : Endpoint.values()) {
+			this.endpoints.computeIfAbsent(endpoint.getGroup(), g -> new ArrayList<>()).add(endpoint);
+		}
+	}
+
+	/**
+	 * @param service service whose http clients report to this hook
+	 */
+	void start(@NonNull final TradingService service) {
+		if (this.recorder == MetricsRecorder.NOOP) {
+			return;
+		}
+		final Map<EndpointGroup, PoolingHttpClientConnectionManager> pools = new EnumMap<>(EndpointGroup.class);
+		for (final EndpointGroup group : EndpointGroup.values()) {
+			final PoolingHttpClientConnectionManager pool = pool(service.getClient(group));
+			if (pool != null) {
+				pools.put(group, pool);
+			}
+		}
+		this.pools = pools;
+	}
+
+	/**
+	 * @return connection pool of the blocking client, <code>null</code> if it
+	 *         does not expose one
+	 */
+	static PoolingHttpClientConnectionManager pool(@NonNull final UnirestInstance client) {
+		final Client c = client.config().getClient();
+		return (c instanceof ApacheClient) ? ((ApacheClient) c).getManager() : null;
+	}
+
+	MetricsRecorder getRecorder() {
+		return this.recorder;
+	}
+
+	/**
+	 * @return whether there are pools to sample
+	 */
+	boolean isSampled() {
+		return !this.pools.isEmpty();
+	}
+
+	/**
+	 * Records the current usage of every pool, against the end points of its
+	 * group.
+	 */
+	void sample() {
+		for (final Map.Entry<EndpointGroup, PoolingHttpClientConnectionManager> pool : this.pools.entrySet()) {
+			final PoolStats stats = pool.getValue().getTotalStats();
+			for (final Endpoint endpoint : this.endpoints.get(pool.getKey())) {
+				this.recorder.recordPool(endpoint, stats.getLeased(), stats.getPending());
+			}
+		}
+	}
+
+	@Override
+	public MetricContext begin(final HttpRequestSummary request) {
+		final MetricContext server = this.servers.begin(request);
+		if ((this.recorder == MetricsRecorder.NOOP) || ServerPool.isProbe(request.getUrl())) {
+			return server;
+		}
+
+		final Endpoint endpoint = TradingService.endpoint(request.getUrl());
+		if (endpoint == null) {
+			return server;
+		}
+
+		final long start = System.nanoTime();
+		return (response, exception) -> {
+			final long nanos = System.nanoTime() - start;
+			server.complete(response, exception);
+			this.recorder.recordRequest(endpoint, (response == null) ? 0 : response.getStatus(), nanos);
+		};
+	}
+
+}
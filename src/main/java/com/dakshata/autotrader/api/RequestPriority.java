@@ -0,0 +1,36 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+/**
+ * Priority classes of requests, highest first. When requests queue for
+ * dispatch (see {@link AutoTraderClientConfig#getMaxRequestsInFlight()}), a
+ * request is sent before all the queued requests of the lower classes.
+ *
+ * @author PRITESH
+ *
+ */
+public enum RequestPriority {
+
+	/**
+	 * Cancellations & square-offs, which reduce the risk.
+	 */
+	RISK_REDUCING,
+
+	/**
+	 * Placing orders (and generic commands).
+	 */
+	ENTRY,
+
+	/**
+	 * Modifying orders.
+	 */
+	MODIFY,
+
+	/**
+	 * Reads.
+	 */
+	READ
+
+}
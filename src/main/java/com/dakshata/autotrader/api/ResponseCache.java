@@ -0,0 +1,168 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dakshata.data.model.common.IOperationResponse;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Read-through cache of successful read responses, keyed by end point & pseudo
+ * account. Entries expire after the time to live configured for their end point
+ * and the least recently used entries are evicted once the cache is full.
+ *
+ * Any change (order placement, modification, cancellation or square-off) for
+ * an account invalidates all its entries. A read which was already in flight
+ * when the account was invalidated is not cached, as it may not reflect the
+ * change.
+ *
+ * Cached responses are shared by all callers, hence they must not be modified.
+ *
+ * @author PRITESH
+ *
+ */
+class ResponseCache {
+
+	private final Map<Endpoint, Long> ttls;
+
+	private final int maxEntries;
+
+	private final LinkedHashMap<Key, CacheEntry> entries;
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final Map<String, Long> invalidated = new HashMap<>();
+
+	private long allInvalidated;
+
+	ResponseCache(@NonNull final Map<Endpoint, Long> ttls, final int maxEntries) {
+		this.ttls = new EnumMap<>(ttls);
+		this.maxEntries = Math.max(1, maxEntries);
+		this.entries = new LinkedHashMap<Key, CacheEntry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, CacheEntry> eldest) {
+				return this.size() > ResponseCache.this.maxEntries;
+			}
+
+		};
+	}
+
+	/**
+	 * Creates the cache as per the configuration.
+	 *
+	 * @return cache or <code>null</code> when caching is disabled
+	 */
+	static ResponseCache create(@NonNull final AutoTraderClientConfig config) {
+		final Map<Endpoint, Long> ttls = new EnumMap<>(Endpoint.class);
+		putTtl(ttls, Endpoint.READ_PLATFORM_ORDERS, config.getOrdersCacheTtl());
+		putTtl(ttls, Endpoint.READ_PLATFORM_POSITIONS, config.getPositionsCacheTtl());
+		putTtl(ttls, Endpoint.READ_PLATFORM_MARGINS, config.getMarginsCacheTtl());
+		putTtl(ttls, Endpoint.READ_PLATFORM_HOLDINGS, config.getHoldingsCacheTtl());
+		return ttls.isEmpty() ? null : new ResponseCache(ttls, config.getCacheMaxEntries());
+	}
+
+	private static void putTtl(final Map<Endpoint, Long> ttls, final Endpoint endpoint, final long ttl) {
+		if (ttl > 0) {
+			ttls.put(endpoint, MILLISECONDS.toNanos(ttl));
+		}
+	}
+
+	boolean isCached(final Endpoint endpoint) {
+		return this.ttls.containsKey(endpoint);
+	}
+
+	/**
+	 * Marks the start of a read, pass the returned value to
+	 * {@link #put(Endpoint, String, long, IOperationResponse)}.
+	 */
+	long begin() {
+		return this.clock.get();
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> IOperationResponse<T> get(final Endpoint endpoint, final String pseudoAccount) {
+		final Key key = new Key(endpoint, pseudoAccount);
+		synchronized (this) {
+			final CacheEntry entry = this.entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if ((System.nanoTime() - entry.getExpiresAt()) >= 0) {
+				this.entries.remove(key);
+				return null;
+			}
+			return (IOperationResponse<T>) entry.getResponse();
+		}
+	}
+
+	void put(final Endpoint endpoint, final String pseudoAccount, final long begin,
+			final IOperationResponse<?> response) {
+		if ((response == null) || !response.success()) {
+			return;
+		}
+
+		final long expiresAt = System.nanoTime() + this.ttls.get(endpoint);
+		synchronized (this) {
+			final Long accountInvalidated = this.invalidated.get(pseudoAccount);
+			if ((this.allInvalidated > begin) || ((accountInvalidated != null) && (accountInvalidated > begin))) {
+				return;
+			}
+			this.entries.put(new Key(endpoint, pseudoAccount), new CacheEntry(response, expiresAt));
+		}
+	}
+
+	/**
+	 * Invalidates all cached responses of the given account.
+	 *
+	 * @param pseudoAccount pseudo account, <code>null</code> invalidates all
+	 *                      accounts
+	 */
+	void invalidate(final String pseudoAccount) {
+		final long now = this.clock.incrementAndGet();
+		synchronized (this) {
+			if (pseudoAccount == null) {
+				this.allInvalidated = now;
+				this.invalidated.clear();
+				this.entries.clear();
+				return;
+			}
+
+			this.invalidated.put(pseudoAccount, now);
+			for (final Endpoint endpoint : this.ttls.keySet()) {
+				this.entries.remove(new Key(endpoint, pseudoAccount));
+			}
+		}
+	}
+
+	@Value
+	private static class Key {
+
+		private final Endpoint endpoint;
+
+		private final String pseudoAccount;
+
+	}
+
+	@Value
+	private static class CacheEntry {
+
+		private final IOperationResponse<?> response;
+
+		private final long expiresAt;
+
+	}
+
+}
@@ -0,0 +1,130 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static com.dakshata.constants.ErrorCode.SYSTEM_FORBIDDEN;
+import static com.dakshata.tools.internet.HttpStatus.toTextDefault;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.dakshata.data.model.autotrader.web.AdjustHoldingsResponse;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+import com.dakshata.trading.model.platform.PlatformHolding;
+import com.dakshata.trading.model.platform.PlatformMargin;
+import com.dakshata.trading.model.platform.PlatformOrder;
+import com.dakshata.trading.model.platform.PlatformPosition;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import kong.unirest.RawResponse;
+import kong.unirest.UnirestParsingException;
+
+/**
+ * Converts a raw http response to an operation response. The body is parsed
+ * straight from the response stream, using a Jackson reader built once per
+ * response type (instead of reading the body into a string and resolving the
+ * type on every call).
+ *
+ * Http errors and parsing errors are converted to error responses, same as
+ * {@link TradingService} always did.
+ *
+ * @author PRITESH
+ *
+ */
+final class ResponseCodec<T> implements Function<RawResponse, IOperationResponse<T>> {
+
+	/**
+	 * Configured same as the Unirest Jackson object mapper.
+	 */
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	static final ResponseCodec<String> STRING = new ResponseCodec<>(new TypeReference<OperationResponse<String>>() {
+	});
+
+	static final ResponseCodec<Boolean> BOOLEAN = new ResponseCodec<>(
+			new TypeReference<OperationResponse<Boolean>>() {
+			});
+
+	static final ResponseCodec<Object> OBJECT = new ResponseCodec<>(new TypeReference<OperationResponse<Object>>() {
+	});
+
+	static final ResponseCodec<Set<String>> STRINGS = new ResponseCodec<>(
+			new TypeReference<OperationResponse<Set<String>>>() {
+			});
+
+	static final ResponseCodec<Set<PlatformOrder>> ORDERS = new ResponseCodec<>(
+			new TypeReference<OperationResponse<Set<PlatformOrder>>>() {
+			});
+
+	static final ResponseCodec<Set<PlatformPosition>> POSITIONS = new ResponseCodec<>(
+			new TypeReference<OperationResponse<Set<PlatformPosition>>>() {
+			});
+
+	static final ResponseCodec<Set<PlatformMargin>> MARGINS = new ResponseCodec<>(
+			new TypeReference<OperationResponse<Set<PlatformMargin>>>() {
+			});
+
+	static final ResponseCodec<Set<PlatformHolding>> HOLDINGS = new ResponseCodec<>(
+			new TypeReference<OperationResponse<Set<PlatformHolding>>>() {
+			});
+
+	static final ResponseCodec<List<AdjustHoldingsResponse>> ADJUST_HOLDINGS = new ResponseCodec<>(
+			new TypeReference<OperationResponse<List<AdjustHoldingsResponse>>>() {
+			});
+
+	private final ObjectReader reader;
+
+	private ResponseCodec(final TypeReference<OperationResponse<T>> type) {
+		this.reader = MAPPER.readerFor(type);
+	}
+
+	@Override
+	public IOperationResponse<T> apply(final RawResponse raw) {
+		final int status = raw.getStatus();
+		if ((status < 200) || (status >= 300)) {
+			return httpError(status, raw.getStatusText());
+		}
+		if (!raw.hasContent()) {
+			return nullResponse();
+		}
+
+		try (InputStream in = raw.getContent()) {
+			return this.read(in);
+		} catch (final IOException e) {
+			return OperationResponse.<T>builder().error(new UnirestParsingException(e.getMessage(), e)).build();
+		}
+	}
+
+	/**
+	 * Parses an operation response.
+	 *
+	 * @param in json
+	 * @return response or an error response when the input is empty
+	 */
+	IOperationResponse<T> read(final InputStream in) throws IOException {
+		final IOperationResponse<T> response = this.reader.readValue(in);
+		return (response == null) ? nullResponse() : response;
+	}
+
+	static <T> IOperationResponse<T> nullResponse() {
+		return OperationResponse.<T>builder().error(new Exception("Null response received from server")).build();
+	}
+
+	static <T> IOperationResponse<T> httpError(final int status, final String statusText) {
+		final String message = (status == 403) ? "Either your API Key is wrong or the user might be disabled."
+				: toTextDefault(status, statusText);
+
+		final Exception error = new HttpStatusException(status, status + ": " + message);
+		return OperationResponse.<T>builder().error(error).errorCode(SYSTEM_FORBIDDEN).build();
+	}
+
+}
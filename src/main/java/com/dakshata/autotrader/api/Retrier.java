@@ -0,0 +1,191 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import com.dakshata.data.model.common.IOperationResponse;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes requests, retrying the failed ones as per the {@link RetryPolicy}
+ * of the end point (read or mutating) and the {@link RetryBudget}. A request
+ * fails when it throws an exception or its response has an
+ * {@link HttpStatusException} error.
+ *
+ * Blocking requests wait for the retry delay on the calling thread,
+ * non-blocking ones are re-issued from a timer thread.
+ *
+ * @author PRITESH
+ *
+ */
+@Slf4j
+class Retrier {
+
+	private final RetryPolicy readPolicy;
+
+	private final RetryPolicy orderPolicy;
+
+	private final RetryBudget budget;
+
+	private final MetricsRecorder recorder;
+
+	/**
+	 * Sends the delayed asynchronous retries.
+	 */
+	private final ScheduledExecutorService scheduler;
+
+	Retrier(@NonNull final RetryPolicy readPolicy, @NonNull final RetryPolicy orderPolicy, final RetryBudget budget,
+			@NonNull final MetricsRecorder recorder, @NonNull final ScheduledExecutorService scheduler) {
+		this.readPolicy = readPolicy;
+		this.orderPolicy = orderPolicy;
+		this.budget = budget;
+		this.recorder = recorder;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Creates the retrier as per the configuration.
+	 *
+	 * @param scheduler sends the delayed asynchronous retries
+	 */
+	static Retrier create(@NonNull final AutoTraderClientConfig config,
+			@NonNull final ScheduledExecutorService scheduler) {
+		if (!config.isAutoRetryOnError()) {
+			return new Retrier(RetryPolicy.NONE, RetryPolicy.NONE, null, config.getMetricsRecorder(), scheduler);
+		}
+		return new Retrier(config.getReadRetryPolicy(), config.getOrderRetryPolicy(), RetryBudget.create(config),
+				config.getMetricsRecorder(), scheduler);
+	}
+
+	<R extends IOperationResponse<?>> R execute(final Endpoint endpoint, final Supplier<R> f) {
+		if (this.budget != null) {
+			this.budget.deposit();
+		}
+
+		for (int retries = 0;; retries++) {
+			R response = null;
+			RuntimeException error = null;
+			try {
+				response = f.get();
+			} catch (final RuntimeException e) {
+				error = e;
+			}
+
+			final long delay = this.retryDelay(endpoint, retries, error, response);
+			if (delay < 0) {
+				if (error != null) {
+					throw error;
+				}
+				return response;
+			}
+
+			if (delay > 0) {
+				try {
+					Thread.sleep(delay);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					if (error != null) {
+						throw error;
+					}
+					return response;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #execute(Endpoint, Supplier)}.
+	 */
+	<R extends IOperationResponse<?>> CompletableFuture<R> executeAsync(final Endpoint endpoint,
+			final Supplier<CompletableFuture<R>> f) {
+		if (this.budget != null) {
+			this.budget.deposit();
+		}
+		return this.executeAsync(endpoint, f, 0);
+	}
+
+	private <R extends IOperationResponse<?>> CompletableFuture<R> executeAsync(final Endpoint endpoint,
+			final Supplier<CompletableFuture<R>> f, final int retries) {
+		return attempt(f).handle((response, error) -> {
+			final Throwable cause = (error == null) ? null : unwrap(error);
+			final long delay = this.retryDelay(endpoint, retries, cause, response);
+			if (delay < 0) {
+				return (cause == null) ? CompletableFuture.completedFuture(response) : Retrier.<R>failedFuture(cause);
+			}
+			if (delay == 0) {
+				return this.executeAsync(endpoint, f, retries + 1);
+			}
+
+			final CompletableFuture<R> retry = new CompletableFuture<>();
+			this.scheduler.schedule(() -> this.executeAsync(endpoint, f, retries + 1).whenComplete((r, e) -> {
+				if (e == null) {
+					retry.complete(r);
+				} else {
+					retry.completeExceptionally(unwrap(e));
+				}
+			}), delay, MILLISECONDS);
+			return retry;
+		}).thenCompose(future -> future);
+	}
+
+	/**
+	 * @return delay (milliseconds) before the retry, negative to not retry
+	 */
+	private long retryDelay(final Endpoint endpoint, final int retries, final Throwable error,
+			final IOperationResponse<?> response) {
+		final int status = ((response != null) && (response.getError() instanceof HttpStatusException))
+				? ((HttpStatusException) response.getError()).getStatus()
+				: 0;
+		if ((error == null) && (status == 0)) {
+			return -1;
+		}
+
+		final RetryPolicy policy = endpoint.isReadOnly() ? this.readPolicy : this.orderPolicy;
+		final long delay = policy.retryDelay(endpoint, retries, error, status);
+		if (delay < 0) {
+			return -1;
+		}
+		if ((this.budget != null) && !this.budget.withdraw()) {
+			log.debug("Retry budget exhausted, not retrying {}", endpoint);
+			return -1;
+		}
+
+		log.error("SD-ERR-048: Retrying on error: {}",
+				(error == null) ? response.getError().getMessage() : error.getMessage());
+		this.recorder.recordRetry(endpoint);
+		return delay;
+	}
+
+	private static <R> CompletableFuture<R> attempt(final Supplier<CompletableFuture<R>> f) {
+		try {
+			return f.get();
+		} catch (final Exception e) {
+			return failedFuture(e);
+		}
+	}
+
+	static <R> CompletableFuture<R> failedFuture(final Throwable error) {
+		final CompletableFuture<R> future = new CompletableFuture<>();
+		future.completeExceptionally(error);
+		return future;
+	}
+
+	static Throwable unwrap(final Throwable error) {
+		Throwable t = error;
+		while (((t instanceof CompletionException) || (t instanceof ExecutionException)) && (t.getCause() != null)) {
+			t = t.getCause();
+		}
+		return t;
+	}
+
+}
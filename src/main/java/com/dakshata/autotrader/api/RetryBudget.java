@@ -0,0 +1,101 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits retries to a fraction of the requests made, so that during an outage
+ * retries do not multiply the load on the server. Every request earns a
+ * fraction of a retry, a retry spends a whole one. A few retries per second
+ * are always allowed, so that a client making few requests can still retry.
+ *
+ * @author PRITESH
+ *
+ */
+final class RetryBudget {
+
+	/**
+	 * Balance is kept in thousandths of a retry.
+	 */
+	private static final long SCALE = 1000;
+
+	/**
+	 * Maximum number of unused retries which can be saved up.
+	 */
+	private static final long MAX_BALANCE = 100 * SCALE;
+
+	private final long deposit;
+
+	private final int minPerSecond;
+
+	private final AtomicLong balance = new AtomicLong();
+
+	private long second;
+
+	private int spent;
+
+	/**
+	 * @param ratio        retries allowed per request (e.g. 0.1)
+	 * @param minPerSecond retries allowed per second irrespective of the ratio
+	 */
+	RetryBudget(final double ratio, final int minPerSecond) {
+		this.deposit = Math.round(ratio * SCALE);
+		this.minPerSecond = minPerSecond;
+	}
+
+	/**
+	 * Creates the retry budget as per the configuration.
+	 *
+	 * @return budget or <code>null</code> when retries are not limited
+	 */
+	static RetryBudget create(final AutoTraderClientConfig config) {
+		return (config.getRetryBudgetRatio() > 0)
+				? new RetryBudget(config.getRetryBudgetRatio(), config.getRetryBudgetMinPerSecond())
+				: null;
+	}
+
+	/**
+	 * Called for every request (not for retries).
+	 */
+	void deposit() {
+		if (this.balance.get() < MAX_BALANCE) {
+			this.balance.accumulateAndGet(this.deposit, (b, d) -> Math.min(MAX_BALANCE, b + d));
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if a retry is allowed
+	 */
+	boolean withdraw() {
+		if (this.withdrawMin()) {
+			return true;
+		}
+
+		long b;
+		do {
+			b = this.balance.get();
+			if (b < SCALE) {
+				return false;
+			}
+		} while (!this.balance.compareAndSet(b, b - SCALE));
+		return true;
+	}
+
+	private synchronized boolean withdrawMin() {
+		final long now = System.nanoTime() / SECONDS.toNanos(1);
+		if (now != this.second) {
+			this.second = now;
+			this.spent = 0;
+		}
+		if (this.spent < this.minPerSecond) {
+			this.spent++;
+			return true;
+		}
+		return false;
+	}
+
+}
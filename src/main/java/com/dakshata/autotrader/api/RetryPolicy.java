@@ -0,0 +1,41 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+/**
+ * Decides whether a failed request is retried and when. Configured separately
+ * for read & mutating end points, see
+ * {@link AutoTraderClientConfig#getReadRetryPolicy()} &
+ * {@link AutoTraderClientConfig#getOrderRetryPolicy()}.
+ * {@link BackoffRetryPolicy} covers the common cases.
+ *
+ * Retries are further limited by the retry budget shared by all requests of an
+ * {@link AutoTrader} instance, so retries cannot multiply the load on a server
+ * which is already failing.
+ *
+ * @author PRITESH
+ *
+ */
+@FunctionalInterface
+public interface RetryPolicy {
+
+	/**
+	 * Never retries.
+	 */
+	RetryPolicy NONE = (endpoint, retries, error, status) -> -1;
+
+	/**
+	 * Called when a request fails with an exception or an http error status.
+	 *
+	 * @param endpoint end point
+	 * @param retries  number of retries already made for the request
+	 * @param error    exception thrown, <code>null</code> when a response was
+	 *                 received
+	 * @param status   http error status, zero when no response was received
+	 * @return delay (milliseconds) before the request is retried, negative to not
+	 *         retry
+	 */
+	long retryDelay(Endpoint endpoint, int retries, Throwable error, int status);
+
+}
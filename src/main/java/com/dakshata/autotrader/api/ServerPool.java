@@ -0,0 +1,346 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import kong.unirest.HttpRequestSummary;
+import kong.unirest.HttpResponseSummary;
+import kong.unirest.MetricContext;
+import kong.unirest.UniMetric;
+import kong.unirest.UnirestInstance;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AutoTrader servers a client can send its requests to, the first one being
+ * the primary server. Tracks the health & latency of every server and routes
+ * the requests to the healthiest one.
+ *
+ * Outcome of every request (including the periodic health checks) is recorded
+ * through the http client's metric hook. A server is unhealthy after a few
+ * consecutive failures (connection errors or 5xx responses), until a request
+ * to it succeeds again. Latency is tracked as an exponentially weighted moving
+ * average (EWMA) of the health check (probe) requests only, as every server
+ * gets those alike while only the current one gets the (slower) broker backed
+ * requests. Requests switch to another server when the current one is
+ * unhealthy, or when another healthy server is significantly faster; the
+ * margin avoids flapping between servers with similar latency.
+ *
+ * @author PRITESH
+ *
+ */
+@Slf4j
+class ServerPool implements UniMetric {
+
+	/**
+	 * Weight of the latest sample in the latency average.
+	 */
+	private static final double EWMA_ALPHA = 0.2;
+
+	/**
+	 * Another server is preferred only if its latency is below this fraction of
+	 * the current server's latency.
+	 */
+	private static final double SWITCH_RATIO = 0.7;
+
+	private static final MetricContext IGNORE = (response, exception) -> {
+	};
+
+	private final List<Server> servers;
+
+	private final int unhealthyThreshold;
+
+	private final long healthCheckInterval;
+
+	private volatile Server current;
+
+	/**
+	 * Server chosen for the requests made by the current thread, overriding
+	 * {@link #current}.
+	 */
+	private final ThreadLocal<Server> override = new ThreadLocal<>();
+
+	private ScheduledExecutorService scheduler;
+
+	ServerPool(@NonNull final List<String> urls, final int unhealthyThreshold, final long healthCheckInterval) {
+		if (urls.isEmpty()) {
+			throw new IllegalArgumentException("At least one server url is required");
+		}
+
+		final List<Server> list = new ArrayList<>(urls.size());
+		for (final String url : urls) {
+			list.add(new Server(url));
+		}
+		this.servers = Collections.unmodifiableList(list);
+		this.unhealthyThreshold = Math.max(1, unhealthyThreshold);
+		this.healthCheckInterval = healthCheckInterval;
+		this.current = list.get(0);
+	}
+
+	/**
+	 * Single server, requests always go to it.
+	 */
+	static ServerPool of(@NonNull final String url) {
+		return new ServerPool(Collections.singletonList(url), 1, 0);
+	}
+
+	/**
+	 * Creates the server pool as per the configuration.
+	 */
+	static ServerPool create(@NonNull final AutoTraderClientConfig config) {
+		final List<String> urls = new ArrayList<>();
+		urls.add(config.getServiceUrl());
+		if (config.getBackupServiceUrls() != null) {
+			urls.addAll(config.getBackupServiceUrls());
+		}
+		return new ServerPool(urls, config.getUnhealthyThreshold(), config.getHealthCheckInterval());
+	}
+
+	/**
+	 * @return base url of the server the next request should go to
+	 */
+	String select() {
+		if (this.servers.size() == 1) {
+			return this.current.getUrl();
+		}
+		final Server server = this.override.get();
+		return (server == null) ? this.current.getUrl() : server.getUrl();
+	}
+
+	/**
+	 * Sends the request to a healthy server other than the current one, if there
+	 * is any. The request must be sent from the calling thread.
+	 */
+	<T> T alternate(@NonNull final Supplier<T> request) {
+		if (this.servers.size() == 1) {
+			return request.get();
+		}
+
+		final Server from = this.current;
+		Server to = null;
+		for (final Server server : this.servers) {
+			if ((server != from) && server.isHealthy()) {
+				to = server;
+				break;
+			}
+		}
+		if (to == null) {
+			return request.get();
+		}
+
+		this.override.set(to);
+		try {
+			return request.get();
+		} finally {
+			this.override.remove();
+		}
+	}
+
+	List<Server> getServers() {
+		return this.servers;
+	}
+
+	@Override
+	public MetricContext begin(final HttpRequestSummary request) {
+		if (this.servers.size() == 1) {
+			return IGNORE;
+		}
+
+		final Server server = this.server(request.getUrl());
+		if (server == null) {
+			return IGNORE;
+		}
+
+		final boolean probe = isProbe(request.getUrl());
+		final long start = System.nanoTime();
+		return (response, exception) -> {
+			if (server.record(System.nanoTime() - start, this.failed(response, exception), probe,
+					this.unhealthyThreshold)) {
+				this.route();
+			}
+		};
+	}
+
+	/**
+	 * Starts checking the health of all servers periodically in background. Does
+	 * nothing for a single server or when health checks are disabled.
+	 *
+	 * @param client http client which reports to this pool
+	 */
+	synchronized void start(@NonNull final UnirestInstance client) {
+		if ((this.servers.size() == 1) || (this.healthCheckInterval <= 0) || (this.scheduler != null)) {
+			return;
+		}
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread t = new Thread(r, "at-api-health-check");
+			t.setDaemon(true);
+			return t;
+		});
+		this.scheduler.scheduleWithFixedDelay(() -> this.checkHealth(client), 0, this.healthCheckInterval,
+				MILLISECONDS);
+	}
+
+	synchronized void shutdown() {
+		if (this.scheduler != null) {
+			this.scheduler.shutdownNow();
+		}
+	}
+
+	private void checkHealth(final UnirestInstance client) {
+		for (final Server server : this.servers) {
+			try {
+				// Outcome is recorded by the metric hook
+				client.get(server.getUrl() + TradingService.HEALTH_PROBE_URI).asStringAsync();
+			} catch (final Exception e) {
+				log.warn("SD-ERR-049: Health check failed for {}: {}", server.getUrl(), e.getMessage());
+			}
+		}
+	}
+
+	private boolean failed(final HttpResponseSummary response, final Exception exception) {
+		return (exception != null) || (response == null) || (response.getStatus() >= 500);
+	}
+
+	private Server server(final String url) {
+		if (url == null) {
+			return null;
+		}
+		for (final Server server : this.servers) {
+			if (isOf(url, server.getUrl())) {
+				return server;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return whether the url is of a health check request sent by the client
+	 *         itself, whose latency is comparable across servers
+	 */
+	static boolean isProbe(final String url) {
+		return (url != null) && url.endsWith(TradingService.HEALTH_PROBE_URI);
+	}
+
+	/**
+	 * @return whether the url is on the server with the given base url, which
+	 *         must be followed by a path, query or nothing, e.g.
+	 *         http://host:8080/x is not on http://host:80
+	 */
+	static boolean isOf(final String url, final String base) {
+		if (!url.startsWith(base)) {
+			return false;
+		}
+		return (url.length() == base.length()) || base.endsWith("/") || ("/?#".indexOf(url.charAt(base.length())) >= 0);
+	}
+
+	/**
+	 * Picks the server for the subsequent requests.
+	 */
+	private synchronized void route() {
+		final Server from = this.current;
+
+		Server best = null;
+		for (final Server server : this.servers) {
+			if (server.isHealthy() && server.hasLatency()
+					&& ((best == null) || (server.getLatency() < best.getLatency()))) {
+				best = server;
+			}
+		}
+
+		if (from.isHealthy()) {
+			if ((best == null) || !from.hasLatency() || (best.getLatency() >= (from.getLatency() * SWITCH_RATIO))) {
+				return;
+			}
+		} else if (best == null) {
+			// Prefer any server not known to be down
+			for (final Server server : this.servers) {
+				if (server.isHealthy()) {
+					best = server;
+					break;
+				}
+			}
+			if (best == null) {
+				return;
+			}
+		}
+
+		this.current = best;
+		log.warn("SD-ERR-050: Switched from server {} to {}", from.getUrl(), best.getUrl());
+	}
+
+	/**
+	 * Health & latency of a server.
+	 */
+	static final class Server {
+
+		@Getter
+		private final String url;
+
+		private double latency = Double.NaN;
+
+		private int failures;
+
+		private boolean healthy = true;
+
+		Server(final String url) {
+			this.url = url;
+		}
+
+		/**
+		 * Records the outcome of a request.
+		 *
+		 * @param probe whether it is a health check request, only those update the
+		 *              latency
+		 * @return <code>true</code> if the routing may have to change: health
+		 *         changed or latency was updated
+		 */
+		synchronized boolean record(final long nanos, final boolean failed, final boolean probe,
+				final int unhealthyThreshold) {
+			if (failed) {
+				this.failures++;
+				if (this.healthy && (this.failures >= unhealthyThreshold)) {
+					this.healthy = false;
+					return true;
+				}
+				return false;
+			}
+
+			this.failures = 0;
+			if (probe) {
+				this.latency = Double.isNaN(this.latency) ? nanos
+						: ((EWMA_ALPHA * nanos) + ((1 - EWMA_ALPHA) * this.latency));
+			}
+			final boolean recovered = !this.healthy;
+			this.healthy = true;
+			return probe || recovered;
+		}
+
+		synchronized boolean isHealthy() {
+			return this.healthy;
+		}
+
+		synchronized boolean hasLatency() {
+			return !Double.isNaN(this.latency);
+		}
+
+		/**
+		 * @return average latency (nanos) of the health check requests
+		 */
+		synchronized double getLatency() {
+			return this.latency;
+		}
+
+	}
+
+}
@@ -0,0 +1,268 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static com.dakshata.constants.autotrader.IAutoTrader.API_KEY_HEADER;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import kong.unirest.Config;
+import kong.unirest.JacksonObjectMapper;
+import kong.unirest.UnirestInstance;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Http clients (with their connection pools), servers & metrics requests are
+ * sent with. An {@link AutoTrader} instance has its own, the tenants of a
+ * {@link MultiTenantAutoTrader} share one: along with the thread which sends
+ * the delayed requests (rate limited requests, retries & hedges) and the
+ * dispatcher, so that the priority of a request holds across tenants.
+ *
+ * It is reference counted: every user retains it & releases it once done, the
+ * last release shuts it down.
+ *
+ * @author PRITESH
+ *
+ */
+@Slf4j
+final class SharedClient {
+
+	private static final AtomicInteger MBEAN_ID = new AtomicInteger();
+
+	@Getter
+	private final ServerPool servers;
+
+	@Getter
+	private final MetricsRecorder recorder;
+
+	private final RequestMetrics metrics;
+
+	/**
+	 * Service of the clients, which authenticates requests with the default
+	 * header of the client (if any).
+	 */
+	@Getter
+	private final TradingService tradingService;
+
+	private final ConnectionWarmer warmer;
+
+	private final long warmUpTimeout;
+
+	/**
+	 * Number of users, zero once shut down.
+	 */
+	private final AtomicInteger references = new AtomicInteger(1);
+
+	/**
+	 * Runs the delayed tasks of the users & the pool sampling, its thread is
+	 * started on first use.
+	 */
+	@Getter
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * Dispatcher of the requests of all users, <code>null</code> when disabled.
+	 */
+	@Getter
+	private final RequestDispatcher dispatcher;
+
+	private ObjectName mbean;
+
+	/**
+	 * Creates the clients, retained by the caller.
+	 *
+	 * @param config configuration, requests carry its api key (if any) by
+	 *               default
+	 */
+	SharedClient(@NonNull final AutoTraderClientConfig config) {
+		this.servers = ServerPool.create(config);
+		this.recorder = config.getMetricsRecorder();
+		this.metrics = new RequestMetrics(this.servers, this.recorder);
+		this.scheduler = createScheduler();
+		this.dispatcher = RequestDispatcher.create(config);
+		this.tradingService = new TradingService(this.servers, this.prepareClient(config, null));
+		for (final Map.Entry<EndpointGroup, BulkheadConfig> bulkhead : config.getBulkheads().entrySet()) {
+			this.tradingService.setClient(bulkhead.getKey(), this.prepareClient(config, bulkhead.getValue()));
+		}
+		this.servers.start(this.tradingService.getClient());
+		this.metrics.start(this.tradingService);
+		final long sampleInterval = config.getPoolSampleInterval();
+		if ((sampleInterval > 0) && this.metrics.isSampled()) {
+			this.scheduler.scheduleWithFixedDelay(this.metrics::sample, sampleInterval, sampleInterval,
+					TimeUnit.MILLISECONDS);
+		}
+		if (config.isMetricsMBean() && (this.recorder != MetricsRecorder.NOOP)) {
+			this.registerMBean();
+		}
+		// Orders benefit from warm connections the most
+		this.warmer = ConnectionWarmer.create(config, this.tradingService.getClient(EndpointGroup.TRADING),
+				this.servers);
+		this.warmUpTimeout = config.getWarmUpTimeout();
+	}
+
+	/**
+	 * Opens the connections in advance (if enabled), waiting for at most the
+	 * warm up timeout, and then keeps them alive.
+	 */
+	void warmUp() {
+		if (this.warmer != null) {
+			this.warmer.warmUp(this.warmUpTimeout);
+			this.warmer.start();
+		}
+	}
+
+	/**
+	 * @return whether it was retained, <code>false</code> when it is already
+	 *         shut down
+	 */
+	boolean retain() {
+		for (;;) {
+			final int current = this.references.get();
+			if (current <= 0) {
+				return false;
+			}
+			if (this.references.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Shuts the clients down once released by all users.
+	 */
+	void release() {
+		if (this.references.decrementAndGet() != 0) {
+			return;
+		}
+
+		this.servers.shutdown();
+		if (this.warmer != null) {
+			this.warmer.shutdown();
+		}
+		this.scheduler.shutdownNow();
+		this.unregisterMBean();
+		for (final UnirestInstance client : this.tradingService.getClients()) {
+			shutdownClient(client);
+		}
+	}
+
+	/**
+	 * @return metrics recorded so far, with the current pool usage
+	 */
+	Map<Endpoint, EndpointMetrics> metrics() {
+		if (this.metrics.isSampled()) {
+			this.metrics.sample();
+		}
+		return this.recorder.snapshot();
+	}
+
+	/**
+	 * @return current usage of the connection pool of every end point group
+	 */
+	Map<EndpointGroup, BulkheadStats> bulkheadStats() {
+		final Map<EndpointGroup, BulkheadStats> stats = new EnumMap<>(EndpointGroup.class);
+		for (final EndpointGroup group : EndpointGroup.values()) {
+			final PoolingHttpClientConnectionManager pool = RequestMetrics.pool(this.tradingService.getClient(group));
+			if (pool != null) {
+				final PoolStats total = pool.getTotalStats();
+				stats.put(group, new BulkheadStats(this.tradingService.isBulkhead(group), total.getMax(),
+						total.getLeased(), total.getPending(), total.getAvailable()));
+			}
+		}
+		return Collections.unmodifiableMap(stats);
+	}
+
+	/**
+	 * @param bulkhead pool sizes & timeouts of the client of a bulkhead,
+	 *                 <code>null</code> for the shared client
+	 */
+	private UnirestInstance prepareClient(final AutoTraderClientConfig atConfig, final BulkheadConfig bulkhead) {
+		final Config config = new Config();
+		if (atConfig.getApiKey() != null) {
+			config.setDefaultHeader(API_KEY_HEADER, atConfig.getApiKey());
+		}
+		// Spring boot uses Jackson by default, hence we use jackson here
+		config.setObjectMapper(new JacksonObjectMapper());
+		if (bulkhead == null) {
+			config.connectTimeout(atConfig.getConnectTimeout());
+			config.socketTimeout(atConfig.getSocketTimeout());
+			config.concurrency(atConfig.getMaxConnections(), atConfig.getMaxConnectionsPerRoute());
+		} else {
+			config.connectTimeout(
+					(bulkhead.getConnectTimeout() > 0) ? bulkhead.getConnectTimeout() : atConfig.getConnectTimeout());
+			config.socketTimeout(
+					(bulkhead.getSocketTimeout() > 0) ? bulkhead.getSocketTimeout() : atConfig.getSocketTimeout());
+			config.concurrency(bulkhead.getMaxConnections(), bulkhead.getMaxConnectionsPerRoute());
+		}
+		// Disable ssl verification to improve performance (as we are connecting to our
+		// own servers). This will not stop ssl connection, it will only skip
+		// verification.
+		config.verifySsl(false);
+		config.instrumentWith(this.metrics);
+		atConfig.getTransport().configure(config);
+		return new UnirestInstance(config);
+	}
+
+	private static ScheduledExecutorService createScheduler() {
+		final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+			final Thread t = new Thread(r, "at-api-scheduler");
+			t.setDaemon(true);
+			return t;
+		});
+		// Hedge timers are mostly cancelled
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+
+	private static void shutdownClient(final UnirestInstance client) {
+		try {
+			if (client != null) {
+				client.shutDown();
+			}
+		} catch (final Exception e) {
+			log.error("Error while shutting down client: ", e);
+		}
+	}
+
+	private void registerMBean() {
+		try {
+			final ObjectName name = new ObjectName(
+					"com.dakshata.autotrader.api:type=Metrics,name=AutoTrader-" + MBEAN_ID.incrementAndGet());
+			final MetricsMXBean bean = this::metrics;
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(bean, MetricsMXBean.class, true),
+					name);
+			this.mbean = name;
+		} catch (final Exception e) {
+			log.warn("SD-ERR-051: Metrics could not be registered with JMX: {}", e.getMessage());
+		}
+	}
+
+	private void unregisterMBean() {
+		if (this.mbean == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.mbean);
+		} catch (final Exception e) {
+			log.warn("SD-ERR-051: Metrics could not be unregistered from JMX: {}", e.getMessage());
+		}
+		this.mbean = null;
+	}
+
+}
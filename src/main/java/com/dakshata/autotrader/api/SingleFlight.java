@@ -0,0 +1,104 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import lombok.Value;
+
+/**
+ * Coalesces identical requests which are in progress at the same time. The
+ * first caller (leader) sends the request, others arriving before it completes
+ * wait for & receive the same response (or error).
+ *
+ * @author PRITESH
+ *
+ */
+class SingleFlight {
+
+	private final ConcurrentMap<Key, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+	@SuppressWarnings("unchecked")
+	<R> R execute(final Endpoint endpoint, final String apiKey, final String pseudoAccount, final Supplier<R> f) {
+		final Key key = new Key(endpoint, apiKey, pseudoAccount);
+		final CompletableFuture<R> flight = new CompletableFuture<>();
+		final CompletableFuture<R> leader = (CompletableFuture<R>) this.inFlight.putIfAbsent(key, flight);
+		if (leader != null) {
+			return join(leader);
+		}
+
+		try {
+			final R result = f.get();
+			this.inFlight.remove(key, flight);
+			flight.complete(result);
+			return result;
+		} catch (final RuntimeException | Error e) {
+			this.inFlight.remove(key, flight);
+			flight.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	<R> CompletableFuture<R> executeAsync(final Endpoint endpoint, final String apiKey, final String pseudoAccount,
+			final Supplier<CompletableFuture<R>> f) {
+		final Key key = new Key(endpoint, apiKey, pseudoAccount);
+		final CompletableFuture<R> flight = new CompletableFuture<>();
+		final CompletableFuture<R> leader = (CompletableFuture<R>) this.inFlight.putIfAbsent(key, flight);
+		if (leader != null) {
+			// Separate future per caller, so one caller can not complete or cancel it for
+			// others
+			return leader.thenApply(r -> r);
+		}
+
+		CompletableFuture<R> request;
+		try {
+			request = f.get();
+		} catch (final RuntimeException e) {
+			request = new CompletableFuture<>();
+			request.completeExceptionally(e);
+		}
+
+		request.whenComplete((result, error) -> {
+			this.inFlight.remove(key, flight);
+			if (error == null) {
+				flight.complete(result);
+			} else {
+				flight.completeExceptionally(error);
+			}
+		});
+		return flight.thenApply(r -> r);
+	}
+
+	private static <R> R join(final CompletableFuture<R> leader) {
+		try {
+			return leader.join();
+		} catch (final CompletionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+	@Value
+	private static class Key {
+
+		private final Endpoint endpoint;
+
+		private final String apiKey;
+
+		private final String pseudoAccount;
+
+	}
+
+}
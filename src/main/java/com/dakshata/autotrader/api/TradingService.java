@@ -3,16 +3,19 @@
  */
 package com.dakshata.autotrader.api;
 
-import static com.dakshata.constants.ErrorCode.SYSTEM_FORBIDDEN;
 import static com.dakshata.constants.autotrader.IAutoTrader.API_KEY_HEADER;
 import static com.dakshata.constants.trading.Variety.REGULAR;
-import static com.dakshata.tools.internet.HttpStatus.toTextDefault;
 import static com.dakshata.tools.string.StringUtil.isEmpty;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import com.dakshata.constants.trading.*;
 import com.dakshata.data.model.autotrader.web.AdjustHoldingsRequest;
@@ -46,87 +49,183 @@ public class TradingService implements ITradingService {
 
 	private static final String ACCOUNT_URI = "/account";
 
-	private final String commandUrl, livePseudoAccountsUrl;
+	/**
+	 * Health check end point, it is cheap & does not need authentication.
+	 */
+	static final String HEALTH_CHECK_URI = TRADING_URI + "/autoTraderDesktopVersion";
 
-	private final String readPlatformOrdersUrl, readPlatformPositionsUrl, readPlatformMarginsUrl,
-			readPlatformHoldingsUrl;
+	/**
+	 * Health check sent by the client itself (server health checks & connection
+	 * warm up), marked so that it is told apart from the requests of the user.
+	 */
+	static final String HEALTH_PROBE_URI = HEALTH_CHECK_URI + "?probe=true";
 
-	private final String placeOrderUrl, placeTvOrderUrl, placeRegularOrderUrl, placeCoverOrderUrl, placeBracketOrderUrl,
-			placeAdvancedOrderUrl;
+	private static final String EXECUTE_URI = COMMAND_URI + "/execute";
 
-	private final String cancelOrderByPlatformIdUrl, modifyOrderByPlatformIdUrl;
+	private static final String READ_PLATFORM_ORDERS_URI = TRADING_URI + "/readPlatformOrders";
 
-	private final String cancelChildOrdersByPlatformIdUrl, cancelAllOrdersUrl;
+	private static final String READ_PLATFORM_POSITIONS_URI = TRADING_URI + "/readPlatformPositions";
 
-	private final String squareOffPositionUrl, squareOffTvPositionUrl, squareOffPortfolioUrl, adjustHoldingsUrl;
+	private static final String READ_PLATFORM_MARGINS_URI = TRADING_URI + "/readPlatformMargins";
 
-	private final String autoTraderDesktopVersionUrl, autoTraderDesktopMinVersionUrl;
+	private static final String READ_PLATFORM_HOLDINGS_URI = TRADING_URI + "/readPlatformHoldings";
 
+	private static final String PLACE_ORDER_URI = TRADING_URI + "/placeOrder";
+
+	private static final String PLACE_TV_ORDER_URI = TRADING_URI + "/placeTvOrder";
+
+	private static final String PLACE_REGULAR_ORDER_URI = TRADING_URI + "/placeRegularOrder";
+
+	private static final String PLACE_COVER_ORDER_URI = TRADING_URI + "/placeCoverOrder";
+
+	private static final String PLACE_BRACKET_ORDER_URI = TRADING_URI + "/placeBracketOrder";
+
+	private static final String PLACE_ADVANCED_ORDER_URI = TRADING_URI + "/placeAdvancedOrder";
+
+	private static final String CANCEL_ORDER_BY_PLATFORM_ID_URI = TRADING_URI + "/cancelOrderByPlatformId";
+
+	private static final String CANCEL_CHILD_ORDERS_BY_PLATFORM_ID_URI = TRADING_URI + "/cancelChildOrdersByPlatformId";
+
+	private static final String CANCEL_ALL_ORDERS_URI = TRADING_URI + "/cancelAllOrders";
+
+	private static final String MODIFY_ORDER_BY_PLATFORM_ID_URI = TRADING_URI + "/modifyOrderByPlatformId";
+
+	private static final String LIVE_PSEUDO_ACCOUNTS_URI = ACCOUNT_URI + "/fetchLivePseudoAccounts";
+
+	private static final String SQUARE_OFF_POSITION_URI = TRADING_URI + "/squareOffPosition";
+
+	private static final String SQUARE_OFF_TV_POSITION_URI = TRADING_URI + "/squareOffTvPosition";
+
+	private static final String SQUARE_OFF_PORTFOLIO_URI = TRADING_URI + "/squareOffPortfolio";
+
+	private static final String ADJUST_HOLDINGS_URI = TRADING_URI + "/adjustHoldings";
+
+	private static final String AUTO_TRADER_DESKTOP_MIN_VERSION_URI = TRADING_URI + "/autoTraderDesktopMinVersion";
+
+	/**
+	 * End points by uri, for metrics. Variants (e.g. tv orders) are recorded
+	 * against the closest end point.
+	 */
+	private static final Map<String, Endpoint> ENDPOINTS = new HashMap<>();
+
+	static {
+		ENDPOINTS.put(EXECUTE_URI, Endpoint.EXECUTE);
+		ENDPOINTS.put(READ_PLATFORM_ORDERS_URI, Endpoint.READ_PLATFORM_ORDERS);
+		ENDPOINTS.put(READ_PLATFORM_POSITIONS_URI, Endpoint.READ_PLATFORM_POSITIONS);
+		ENDPOINTS.put(READ_PLATFORM_MARGINS_URI, Endpoint.READ_PLATFORM_MARGINS);
+		ENDPOINTS.put(READ_PLATFORM_HOLDINGS_URI, Endpoint.READ_PLATFORM_HOLDINGS);
+		ENDPOINTS.put(PLACE_ORDER_URI, Endpoint.PLACE_ORDER);
+		ENDPOINTS.put(PLACE_TV_ORDER_URI, Endpoint.PLACE_ORDER);
+		ENDPOINTS.put(PLACE_ADVANCED_ORDER_URI, Endpoint.PLACE_ORDER);
+		ENDPOINTS.put(PLACE_REGULAR_ORDER_URI, Endpoint.PLACE_REGULAR_ORDER);
+		ENDPOINTS.put(PLACE_COVER_ORDER_URI, Endpoint.PLACE_COVER_ORDER);
+		ENDPOINTS.put(PLACE_BRACKET_ORDER_URI, Endpoint.PLACE_BRACKET_ORDER);
+		ENDPOINTS.put(CANCEL_ORDER_BY_PLATFORM_ID_URI, Endpoint.CANCEL_ORDER);
+		ENDPOINTS.put(CANCEL_CHILD_ORDERS_BY_PLATFORM_ID_URI, Endpoint.CANCEL_CHILD_ORDERS);
+		ENDPOINTS.put(CANCEL_ALL_ORDERS_URI, Endpoint.CANCEL_ALL_ORDERS);
+		ENDPOINTS.put(MODIFY_ORDER_BY_PLATFORM_ID_URI, Endpoint.MODIFY_ORDER);
+		ENDPOINTS.put(LIVE_PSEUDO_ACCOUNTS_URI, Endpoint.FETCH_LIVE_PSEUDO_ACCOUNTS);
+		ENDPOINTS.put(SQUARE_OFF_POSITION_URI, Endpoint.SQUARE_OFF_POSITION);
+		ENDPOINTS.put(SQUARE_OFF_TV_POSITION_URI, Endpoint.SQUARE_OFF_POSITION);
+		ENDPOINTS.put(SQUARE_OFF_PORTFOLIO_URI, Endpoint.SQUARE_OFF_PORTFOLIO);
+		ENDPOINTS.put(HEALTH_CHECK_URI, Endpoint.AUTOTRADER_DESKTOP_VERSION);
+		ENDPOINTS.put(AUTO_TRADER_DESKTOP_MIN_VERSION_URI, Endpoint.AUTOTRADER_DESKTOP_MIN_VERSION);
+	}
+
+	private final ServerPool servers;
+
+	/**
+	 * Client of the end point groups which do not have a bulkhead.
+	 */
 	@Getter
 	@Setter
 	private UnirestInstance client;
 
+	/**
+	 * Clients (each with its own connection pool) of the end point groups which
+	 * have a bulkhead.
+	 */
+	private final Map<EndpointGroup, UnirestInstance> bulkheads = new EnumMap<>(EndpointGroup.class);
+
+	/**
+	 * Api key every request is authenticated with, <code>null</code> to rely on
+	 * the default header of the client.
+	 */
+	private final String apiKey;
+
 	public TradingService(final String serviceUrl, final UnirestInstance client, final boolean autoRetryOnError) {
-		this.client = client;
-		this.commandUrl = serviceUrl + COMMAND_URI + "/execute";
-		this.readPlatformOrdersUrl = serviceUrl + TRADING_URI + "/readPlatformOrders";
-		this.readPlatformPositionsUrl = serviceUrl + TRADING_URI + "/readPlatformPositions";
-		this.readPlatformMarginsUrl = serviceUrl + TRADING_URI + "/readPlatformMargins";
-		this.readPlatformHoldingsUrl = serviceUrl + TRADING_URI + "/readPlatformHoldings";
-		this.placeOrderUrl = serviceUrl + TRADING_URI + "/placeOrder";
-		this.placeTvOrderUrl = serviceUrl + TRADING_URI + "/placeTvOrder";
-		this.placeRegularOrderUrl = serviceUrl + TRADING_URI + "/placeRegularOrder";
-		this.placeCoverOrderUrl = serviceUrl + TRADING_URI + "/placeCoverOrder";
-		this.placeBracketOrderUrl = serviceUrl + TRADING_URI + "/placeBracketOrder";
-		this.placeAdvancedOrderUrl = serviceUrl + TRADING_URI + "/placeAdvancedOrder";
-		this.cancelOrderByPlatformIdUrl = serviceUrl + TRADING_URI + "/cancelOrderByPlatformId";
-		this.cancelChildOrdersByPlatformIdUrl = serviceUrl + TRADING_URI + "/cancelChildOrdersByPlatformId";
-		this.cancelAllOrdersUrl = serviceUrl + TRADING_URI + "/cancelAllOrders";
-		this.modifyOrderByPlatformIdUrl = serviceUrl + TRADING_URI + "/modifyOrderByPlatformId";
-		this.livePseudoAccountsUrl = serviceUrl + ACCOUNT_URI + "/fetchLivePseudoAccounts";
-		this.squareOffPositionUrl = serviceUrl + TRADING_URI + "/squareOffPosition";
-		this.squareOffTvPositionUrl = serviceUrl + TRADING_URI + "/squareOffTvPosition";
-		this.squareOffPortfolioUrl = serviceUrl + TRADING_URI + "/squareOffPortfolio";
-		this.adjustHoldingsUrl = serviceUrl + TRADING_URI + "/adjustHoldings";
-		this.autoTraderDesktopVersionUrl = serviceUrl + TRADING_URI + "/autoTraderDesktopVersion";
-		this.autoTraderDesktopMinVersionUrl = serviceUrl + TRADING_URI + "/autoTraderDesktopMinVersion";
+		this(ServerPool.of(serviceUrl), client);
 	}
 
 	public TradingService(final String serviceUrl, final UnirestInstance client) {
 		this(serviceUrl, client, false);
 	}
 
+	TradingService(@NonNull final ServerPool servers, final UnirestInstance client) {
+		this.servers = servers;
+		this.client = client;
+		this.apiKey = null;
+	}
+
+	/**
+	 * Creates a service which sends its requests with the clients of the given
+	 * service, authenticated with the given api key.
+	 */
+	TradingService(@NonNull final TradingService service, @NonNull final String apiKey) {
+		this.servers = service.servers;
+		this.client = service.client;
+		this.bulkheads.putAll(service.bulkheads);
+		this.apiKey = apiKey;
+	}
+
+	/**
+	 * @param url request url
+	 * @return end point the url belongs to, <code>null</code> if unknown
+	 */
+	static Endpoint endpoint(final String url) {
+		if (url == null) {
+			return null;
+		}
+		int end = url.indexOf('?');
+		if (end < 0) {
+			end = url.length();
+		}
+		// Uris are made of two segments, the server url may have a path of its own
+		final int last = url.lastIndexOf('/', end - 1);
+		final int start = (last <= 0) ? -1 : url.lastIndexOf('/', last - 1);
+		return (start < 0) ? null : ENDPOINTS.get(url.substring(start, end));
+	}
+
 	@Override
 	public IOperationResponse<Set<String>> fetchLivePseudoAccounts() {
-		final HttpResponse<OperationResponse<Set<String>>> response = this.client.get(this.livePseudoAccountsUrl)
-				.asObject(new GenericType<OperationResponse<Set<String>>>() {
-				});
+		final HttpResponse<IOperationResponse<Set<String>>> response = this.get(LIVE_PSEUDO_ACCOUNTS_URI)
+				.asObject(ResponseCodec.STRINGS);
 
 		return this.processResponse(response);
 	}
 
+	/**
+	 * Non-blocking variant of {@link #fetchLivePseudoAccounts()}.
+	 */
+	public CompletableFuture<IOperationResponse<Set<String>>> fetchLivePseudoAccountsAsync() {
+		return this.get(LIVE_PSEUDO_ACCOUNTS_URI)
+				.asObjectAsync(ResponseCodec.STRINGS).thenApply(this::processResponse);
+	}
+
 	@Override
 	public IOperationResponse<? extends Object> execute(@NonNull final String command) {
-		final HttpResponse<OperationResponse<? extends Object>> response = this.client.post(this.commandUrl)
-				.field("command", command).asObject(new GenericType<OperationResponse<? extends Object>>() {
-				});
+		final HttpResponse<IOperationResponse<Object>> response = this.post(EXECUTE_URI)
+				.field("command", command).asObject(ResponseCodec.OBJECT);
 
-		if (response == null) {
-			return OperationResponse.<Object>builder().error(new Exception("Null response received from server"))
-					.build();
-		}
-		if (!response.isSuccess()) {
-			// Process parsing errors only when http status code is 200, otherwise for other
-			// errors there will always be parsing errors
-			if ((response.getStatus() == 200) && response.getParsingError().isPresent()) {
-				return this.processParsingError(response.getParsingError().get());
-			} else {
-				return this.processHttpError(response);
-			}
-		}
+		return this.processResponse(response);
+	}
 
-		// If no errors, then return original response
-		return response.getBody();
+	/**
+	 * Non-blocking variant of {@link #execute(String)}.
+	 */
+	public CompletableFuture<IOperationResponse<Object>> executeAsync(@NonNull final String command) {
+		return this.post(EXECUTE_URI).field("command", command)
+				.asObjectAsync(ResponseCodec.OBJECT).thenApply(this::processResponse);
 	}
 
 	@Override
@@ -136,26 +235,44 @@ public class TradingService implements ITradingService {
 
 	@Override
 	public IOperationResponse<String> placeOrder(final String apiKey, final IOrder order) {
-		final HttpRequestWithBody request = this.client.post(this.placeOrderUrl);
-		if (!isEmpty(apiKey)) {
-			request.header(API_KEY_HEADER, apiKey);
-		}
+		return this.placeOrder(apiKey, order, CommandIds.next());
+	}
 
-		final HttpResponse<OperationResponse<String>> response = request.header("Content-Type", "application/json")
-				.body(order).asObject(new GenericType<OperationResponse<String>>() {
-				});
+	/**
+	 * Same as {@link #placeOrder(String, IOrder)}, identified by the given command
+	 * id. Requests with the same command id are executed only once.
+	 */
+	IOperationResponse<String> placeOrder(final String apiKey, final IOrder order, final String commandId) {
+		final HttpResponse<IOperationResponse<String>> response = this.placeOrderRequest(apiKey, order, commandId)
+				.asObject(ResponseCodec.STRING);
 
 		return this.processResponse(response);
 	}
 
+	/**
+	 * Non-blocking variant of {@link #placeOrder(IOrder)}.
+	 */
+	public CompletableFuture<IOperationResponse<String>> placeOrderAsync(@NonNull final IOrder order,
+			final String commandId) {
+		return this.placeOrderRequest(null, order, commandId).asObjectAsync(ResponseCodec.STRING)
+				.thenApply(this::processResponse);
+	}
+
+	private RequestBodyEntity placeOrderRequest(final String apiKey, final IOrder order, final String commandId) {
+		// The order is sent as json, the command id goes with the url
+		final HttpRequestWithBody request = this.post(this.url(PLACE_ORDER_URI), apiKey);
+		if (!isEmpty(commandId)) {
+			request.queryString("commandId", commandId);
+		}
+		return request.header("Content-Type", "application/json").body(order);
+	}
+
 	@Override
 	public IOperationResponse<Boolean> placeTvOrder(@NonNull final String apiKey, final TvOrder order) {
-		final HttpRequestWithBody request = this.client.post(this.placeTvOrderUrl);
-		request.header(API_KEY_HEADER, apiKey);
+		final HttpRequestWithBody request = this.post(this.url(PLACE_TV_ORDER_URI), apiKey);
 
-		final HttpResponse<OperationResponse<Boolean>> response = request.header("Content-Type", "application/json")
-				.body(order).asObject(new GenericType<OperationResponse<Boolean>>() {
-				});
+		final HttpResponse<IOperationResponse<Boolean>> response = request.header("Content-Type", "application/json")
+				.body(order).asObject(ResponseCodec.BOOLEAN);
 
 		return this.processResponse(response);
 	}
@@ -165,18 +282,42 @@ public class TradingService implements ITradingService {
 			final @NonNull String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
 			@NonNull final OrderType orderType, @NonNull final ProductType productType, final int quantity,
 			final float price, final float triggerPrice) {
-		final Map<String, Object> params = new HashMap<>();
-		params.put("pseudoAccount", pseudoAccount);
-		params.put("exchange", exchange);
-		params.put("symbol", symbol);
-		params.put("tradeType", tradeType);
-		params.put("orderType", orderType);
-		params.put("productType", productType);
-		params.put("quantity", quantity);
-		params.put("price", price);
-		params.put("triggerPrice", triggerPrice);
+		return this.placeRegularOrder(pseudoAccount, exchange, symbol, tradeType, orderType, productType, quantity,
+				price, triggerPrice, CommandIds.next());
+	}
+
+	/**
+	 * Same as
+	 * {@link #placeRegularOrder(String, String, String, TradeType, OrderType, ProductType, int, float, float)},
+	 * identified by the given command id.
+	 */
+	IOperationResponse<String> placeRegularOrder(@NonNull final String pseudoAccount, final @NonNull String exchange,
+			@NonNull final String symbol, @NonNull final TradeType tradeType, @NonNull final OrderType orderType,
+			@NonNull final ProductType productType, final int quantity, final float price, final float triggerPrice,
+			final String commandId) {
+		return this.postOrder(this.url(PLACE_REGULAR_ORDER_URI), this.regularOrderParams(pseudoAccount, exchange,
+				symbol, tradeType, orderType, productType, quantity, price, triggerPrice, commandId));
+	}
+
+	/**
+	 * Non-blocking variant of
+	 * {@link #placeRegularOrder(String, String, String, TradeType, OrderType, ProductType, int, float, float)}.
+	 */
+	public CompletableFuture<IOperationResponse<String>> placeRegularOrderAsync(@NonNull final String pseudoAccount,
+			final @NonNull String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
+			@NonNull final OrderType orderType, @NonNull final ProductType productType, final int quantity,
+			final float price, final float triggerPrice, final String commandId) {
+		return this.postOrderAsync(this.url(PLACE_REGULAR_ORDER_URI), this.regularOrderParams(pseudoAccount, exchange,
+				symbol, tradeType, orderType, productType, quantity, price, triggerPrice, commandId));
+	}
 
-		return this.postOrder(this.placeRegularOrderUrl, params);
+	private byte[] regularOrderParams(final String pseudoAccount, final String exchange, final String symbol,
+			final TradeType tradeType, final OrderType orderType, final ProductType productType, final int quantity,
+			final float price, final float triggerPrice, final String commandId) {
+		return FormEncoder.get().add("pseudoAccount", pseudoAccount).add("exchange", exchange).add("symbol", symbol)
+				.add("tradeType", tradeType).add("orderType", orderType).add("productType", productType)
+				.add("quantity", quantity).add("price", price).add("triggerPrice", triggerPrice)
+				.add("commandId", commandId).toByteArray();
 	}
 
 	@Override
@@ -184,37 +325,85 @@ public class TradingService implements ITradingService {
 			@NonNull final String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
 			@NonNull final OrderType orderType, final int quantity, final float price, final float triggerPrice,
 			final float target, final float stoploss, final float trailingStoploss) {
-		final Map<String, Object> params = new HashMap<>();
-		params.put("pseudoAccount", pseudoAccount);
-		params.put("exchange", exchange);
-		params.put("symbol", symbol);
-		params.put("tradeType", tradeType);
-		params.put("orderType", orderType);
-		params.put("quantity", quantity);
-		params.put("price", price);
-		params.put("triggerPrice", triggerPrice);
-		params.put("target", target);
-		params.put("stoploss", stoploss);
-		params.put("trailingStoploss", trailingStoploss);
+		return this.placeBracketOrder(pseudoAccount, exchange, symbol, tradeType, orderType, quantity, price,
+				triggerPrice, target, stoploss, trailingStoploss, CommandIds.next());
+	}
+
+	/**
+	 * Same as
+	 * {@link #placeBracketOrder(String, String, String, TradeType, OrderType, int, float, float, float, float, float)},
+	 * identified by the given command id.
+	 */
+	IOperationResponse<String> placeBracketOrder(@NonNull final String pseudoAccount, @NonNull final String exchange,
+			@NonNull final String symbol, @NonNull final TradeType tradeType, @NonNull final OrderType orderType,
+			final int quantity, final float price, final float triggerPrice, final float target,
+			final float stoploss, final float trailingStoploss, final String commandId) {
+		return this.postOrder(this.url(PLACE_BRACKET_ORDER_URI), this.bracketOrderParams(pseudoAccount, exchange,
+				symbol, tradeType, orderType, quantity, price, triggerPrice, target, stoploss, trailingStoploss,
+				commandId));
+	}
+
+	/**
+	 * Non-blocking variant of
+	 * {@link #placeBracketOrder(String, String, String, TradeType, OrderType, int, float, float, float, float, float)}.
+	 */
+	public CompletableFuture<IOperationResponse<String>> placeBracketOrderAsync(@NonNull final String pseudoAccount,
+			@NonNull final String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
+			@NonNull final OrderType orderType, final int quantity, final float price, final float triggerPrice,
+			final float target, final float stoploss, final float trailingStoploss, final String commandId) {
+		return this.postOrderAsync(this.url(PLACE_BRACKET_ORDER_URI), this.bracketOrderParams(pseudoAccount, exchange,
+				symbol, tradeType, orderType, quantity, price, triggerPrice, target, stoploss, trailingStoploss,
+				commandId));
+	}
 
-		return this.postOrder(this.placeBracketOrderUrl, params);
+	private byte[] bracketOrderParams(final String pseudoAccount, final String exchange, final String symbol,
+			final TradeType tradeType, final OrderType orderType, final int quantity, final float price,
+			final float triggerPrice, final float target, final float stoploss, final float trailingStoploss,
+			final String commandId) {
+		return FormEncoder.get().add("pseudoAccount", pseudoAccount).add("exchange", exchange).add("symbol", symbol)
+				.add("tradeType", tradeType).add("orderType", orderType).add("quantity", quantity).add("price", price)
+				.add("triggerPrice", triggerPrice).add("target", target).add("stoploss", stoploss)
+				.add("trailingStoploss", trailingStoploss).add("commandId", commandId).toByteArray();
 	}
 
 	@Override
 	public IOperationResponse<String> placeCoverOrder(@NonNull final String pseudoAccount,
 			@NonNull final String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
 			@NonNull final OrderType orderType, final int quantity, final float price, final float triggerPrice) {
-		final Map<String, Object> params = new HashMap<>();
-		params.put("pseudoAccount", pseudoAccount);
-		params.put("exchange", exchange);
-		params.put("symbol", symbol);
-		params.put("tradeType", tradeType);
-		params.put("orderType", orderType);
-		params.put("quantity", quantity);
-		params.put("price", price);
-		params.put("triggerPrice", triggerPrice);
+		return this.placeCoverOrder(pseudoAccount, exchange, symbol, tradeType, orderType, quantity, price,
+				triggerPrice, CommandIds.next());
+	}
+
+	/**
+	 * Same as
+	 * {@link #placeCoverOrder(String, String, String, TradeType, OrderType, int, float, float)},
+	 * identified by the given command id.
+	 */
+	IOperationResponse<String> placeCoverOrder(@NonNull final String pseudoAccount, @NonNull final String exchange,
+			@NonNull final String symbol, @NonNull final TradeType tradeType, @NonNull final OrderType orderType,
+			final int quantity, final float price, final float triggerPrice, final String commandId) {
+		return this.postOrder(this.url(PLACE_COVER_ORDER_URI), this.coverOrderParams(pseudoAccount, exchange, symbol,
+				tradeType, orderType, quantity, price, triggerPrice, commandId));
+	}
+
+	/**
+	 * Non-blocking variant of
+	 * {@link #placeCoverOrder(String, String, String, TradeType, OrderType, int, float, float)}.
+	 */
+	public CompletableFuture<IOperationResponse<String>> placeCoverOrderAsync(@NonNull final String pseudoAccount,
+			@NonNull final String exchange, @NonNull final String symbol, @NonNull final TradeType tradeType,
+			@NonNull final OrderType orderType, final int quantity, final float price, final float triggerPrice,
+			final String commandId) {
+		return this.postOrderAsync(this.url(PLACE_COVER_ORDER_URI), this.coverOrderParams(pseudoAccount, exchange,
+				symbol, tradeType, orderType, quantity, price, triggerPrice, commandId));
+	}
 
-		return this.postOrder(this.placeCoverOrderUrl, params);
+	private byte[] coverOrderParams(final String pseudoAccount, final String exchange, final String symbol,
+			final TradeType tradeType, final OrderType orderType, final int quantity, final float price,
+			final float triggerPrice, final String commandId) {
+		return FormEncoder.get().add("pseudoAccount", pseudoAccount).add("exchange", exchange).add("symbol", symbol)
+				.add("tradeType", tradeType).add("orderType", orderType).add("quantity", quantity).add("price", price)
+				.add("triggerPrice", triggerPrice).add("commandId", commandId).toByteArray();
 	}
 
 	@Override
@@ -229,7 +418,7 @@ public class TradingService implements ITradingService {
 			@NonNull final String platformId, final OrderType orderType, final Integer quantity, final Float price,
 			final Float triggerPrice) {
 		return this.modifyOrderGeneric(apiKey, pseudoAccount, platformId, orderType, quantity, price, triggerPrice,
-				null, null);
+				null, CommandIds.next());
 	}
 
 	@Override
@@ -237,7 +426,31 @@ public class TradingService implements ITradingService {
 			@NonNull final String platformId, final OrderType orderType, final Integer quantity, final Float price,
 			final Float triggerPrice, final Integer disclosedQtyPct) {
 		return this.modifyOrderGeneric(apiKey, pseudoAccount, platformId, orderType, quantity, price, triggerPrice,
-				disclosedQtyPct, null);
+				disclosedQtyPct, CommandIds.next());
+	}
+
+	/**
+	 * Same as
+	 * {@link #modifyOrderByPlatformId(String, String, String, OrderType, Integer, Float, Float, Integer)},
+	 * identified by the given command id.
+	 */
+	IOperationResponse<Boolean> modifyOrderByPlatformId(final String apiKey, @NonNull final String pseudoAccount,
+			@NonNull final String platformId, final OrderType orderType, final Integer quantity, final Float price,
+			final Float triggerPrice, final Integer disclosedQtyPct, final String commandId) {
+		return this.modifyOrderGeneric(apiKey, pseudoAccount, platformId, orderType, quantity, price, triggerPrice,
+				disclosedQtyPct, commandId);
+	}
+
+	/**
+	 * Non-blocking variant of
+	 * {@link #modifyOrderByPlatformId(String, String, String, OrderType, Integer, Float, Float, Integer)}.
+	 */
+	public CompletableFuture<IOperationResponse<Boolean>> modifyOrderByPlatformIdAsync(final String apiKey,
+			@NonNull final String pseudoAccount, @NonNull final String platformId, final OrderType orderType,
+			final Integer quantity, final Float price, final Float triggerPrice, final Integer disclosedQtyPct,
+			final String commandId) {
+		return this.modifyOrderRequest(apiKey, pseudoAccount, platformId, orderType, quantity, price, triggerPrice,
+				disclosedQtyPct, commandId).asObjectAsync(ResponseCodec.BOOLEAN).thenApply(this::processResponse);
 	}
 
 	@Override
@@ -249,7 +462,26 @@ public class TradingService implements ITradingService {
 	@Override
 	public IOperationResponse<Boolean> cancelOrderByPlatformId(final String apiKey, final String pseudoAccount,
 			final String platformId) {
-		return this.cancelGeneric(this.cancelOrderByPlatformIdUrl, apiKey, pseudoAccount, platformId);
+		return this.cancelOrderByPlatformId(apiKey, pseudoAccount, platformId, CommandIds.next());
+	}
+
+	/**
+	 * Same as {@link #cancelOrderByPlatformId(String, String, String)}, identified
+	 * by the given command id.
+	 */
+	IOperationResponse<Boolean> cancelOrderByPlatformId(final String apiKey, final String pseudoAccount,
+			final String platformId, final String commandId) {
+		return this.cancelGeneric(this.url(CANCEL_ORDER_BY_PLATFORM_ID_URI), apiKey, pseudoAccount, platformId,
+				commandId);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #cancelOrderByPlatformId(String, String)}.
+	 */
+	public CompletableFuture<IOperationResponse<Boolean>> cancelOrderByPlatformIdAsync(
+			@NonNull final String pseudoAccount, @NonNull final String platformId, final String commandId) {
+		return this.cancelGenericAsync(this.url(CANCEL_ORDER_BY_PLATFORM_ID_URI), null, pseudoAccount, platformId,
+				commandId);
 	}
 
 	@Override
@@ -259,7 +491,24 @@ public class TradingService implements ITradingService {
 
 	@Override
 	public IOperationResponse<Boolean> cancelAllOrders(final String apiKey, final String pseudoAccount) {
-		return this.cancelGeneric(this.cancelAllOrdersUrl, apiKey, pseudoAccount, null);
+		return this.cancelAllOrders(apiKey, pseudoAccount, CommandIds.next());
+	}
+
+	/**
+	 * Same as {@link #cancelAllOrders(String, String)}, identified by the given
+	 * command id.
+	 */
+	IOperationResponse<Boolean> cancelAllOrders(final String apiKey, final String pseudoAccount,
+			final String commandId) {
+		return this.cancelGeneric(this.url(CANCEL_ALL_ORDERS_URI), apiKey, pseudoAccount, null, commandId);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #cancelAllOrders(String)}.
+	 */
+	public CompletableFuture<IOperationResponse<Boolean>> cancelAllOrdersAsync(final String pseudoAccount,
+			final String commandId) {
+		return this.cancelGenericAsync(this.url(CANCEL_ALL_ORDERS_URI), null, pseudoAccount, null, commandId);
 	}
 
 	@Override
@@ -271,7 +520,26 @@ public class TradingService implements ITradingService {
 	@Override
 	public IOperationResponse<Boolean> cancelChildOrdersByPlatformId(final String apiKey, final String pseudoAccount,
 			final String platformId) {
-		return this.cancelGeneric(this.cancelChildOrdersByPlatformIdUrl, apiKey, pseudoAccount, platformId);
+		return this.cancelChildOrdersByPlatformId(apiKey, pseudoAccount, platformId, CommandIds.next());
+	}
+
+	/**
+	 * Same as {@link #cancelChildOrdersByPlatformId(String, String, String)},
+	 * identified by the given command id.
+	 */
+	IOperationResponse<Boolean> cancelChildOrdersByPlatformId(final String apiKey, final String pseudoAccount,
+			final String platformId, final String commandId) {
+		return this.cancelGeneric(this.url(CANCEL_CHILD_ORDERS_BY_PLATFORM_ID_URI), apiKey, pseudoAccount, platformId,
+				commandId);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #cancelChildOrdersByPlatformId(String, String)}.
+	 */
+	public CompletableFuture<IOperationResponse<Boolean>> cancelChildOrdersByPlatformIdAsync(
+			final String pseudoAccount, final String platformId, final String commandId) {
+		return this.cancelGenericAsync(this.url(CANCEL_CHILD_ORDERS_BY_PLATFORM_ID_URI), null, pseudoAccount,
+				platformId, commandId);
 	}
 
 	@Override
@@ -284,6 +552,39 @@ public class TradingService implements ITradingService {
 	public IOperationResponse<Boolean> squareOffPosition(final String apiKey, final String pseudoAccount,
 			final PositionCategory category, final PositionType type, final String exchange, final String symbol,
 			final boolean cancelOpenOrders) {
+		return this.squareOffPosition(apiKey, pseudoAccount, category, type, exchange, symbol, cancelOpenOrders,
+				CommandIds.next());
+	}
+
+	/**
+	 * Same as
+	 * {@link #squareOffPosition(String, String, PositionCategory, PositionType, String, String, boolean)},
+	 * identified by the given command id.
+	 */
+	IOperationResponse<Boolean> squareOffPosition(final String apiKey, final String pseudoAccount,
+			final PositionCategory category, final PositionType type, final String exchange, final String symbol,
+			final boolean cancelOpenOrders, final String commandId) {
+		final HttpResponse<IOperationResponse<Boolean>> response = this.squareOffPositionRequest(apiKey,
+				pseudoAccount, category, type, exchange, symbol, cancelOpenOrders, commandId)
+				.asObject(ResponseCodec.BOOLEAN);
+
+		return this.processResponse(response);
+	}
+
+	/**
+	 * Non-blocking variant of
+	 * {@link #squareOffPosition(String, PositionCategory, PositionType, String, String, boolean)}.
+	 */
+	public CompletableFuture<IOperationResponse<Boolean>> squareOffPositionAsync(final String pseudoAccount,
+			final PositionCategory category, final PositionType type, final String exchange, final String symbol,
+			final boolean cancelOpenOrders, final String commandId) {
+		return this.squareOffPositionRequest(null, pseudoAccount, category, type, exchange, symbol, cancelOpenOrders,
+				commandId).asObjectAsync(ResponseCodec.BOOLEAN).thenApply(this::processResponse);
+	}
+
+	private MultipartBody squareOffPositionRequest(final String apiKey, final String pseudoAccount,
+			final PositionCategory category, final PositionType type, final String exchange, final String symbol,
+			final boolean cancelOpenOrders, final String commandId) {
 		final Map<String, Object> params = new HashMap<>();
 		params.put("pseudoAccount", pseudoAccount);
 		params.put("category", category);
@@ -291,28 +592,20 @@ public class TradingService implements ITradingService {
 		params.put("exchange", exchange);
 		params.put("symbol", symbol);
 		params.put("cancelOpenOrders", cancelOpenOrders);
-
-		final HttpRequestWithBody request = this.client.post(this.squareOffPositionUrl);
-		if (!isEmpty(apiKey)) {
-			request.header(API_KEY_HEADER, apiKey);
+		if (commandId != null) {
+			params.put("commandId", commandId);
 		}
 
-		final HttpResponse<OperationResponse<Boolean>> response = request.fields(params)
-				.asObject(new GenericType<OperationResponse<Boolean>>() {
-				});
-
-		return this.processResponse(response);
+		return this.post(this.url(SQUARE_OFF_POSITION_URI), apiKey).fields(params);
 	}
 
 	@Override
 	public IOperationResponse<Boolean> squareOffTvPosition(@NonNull final String apiKey,
 			@NonNull final TvPosSqOff input) {
-		final HttpRequestWithBody request = this.client.post(this.squareOffTvPositionUrl);
-		request.header(API_KEY_HEADER, apiKey);
+		final HttpRequestWithBody request = this.post(this.url(SQUARE_OFF_TV_POSITION_URI), apiKey);
 
-		final HttpResponse<OperationResponse<Boolean>> response = request.header("Content-Type", "application/json")
-				.body(input).asObject(new GenericType<OperationResponse<Boolean>>() {
-				});
+		final HttpResponse<IOperationResponse<Boolean>> response = request.header("Content-Type", "application/json")
+				.body(input).asObject(ResponseCodec.BOOLEAN);
 
 		return this.processResponse(response);
 	}
@@ -326,29 +619,48 @@ public class TradingService implements ITradingService {
 	@Override
 	public IOperationResponse<Boolean> squareOffPortfolio(final String apiKey, final String pseudoAccount,
 			final PositionCategory category, final boolean cancelOpenOrders) {
+		return this.squareOffPortfolio(apiKey, pseudoAccount, category, cancelOpenOrders, CommandIds.next());
+	}
+
+	/**
+	 * Same as {@link #squareOffPortfolio(String, String, PositionCategory, boolean)},
+	 * identified by the given command id.
+	 */
+	IOperationResponse<Boolean> squareOffPortfolio(final String apiKey, final String pseudoAccount,
+			final PositionCategory category, final boolean cancelOpenOrders, final String commandId) {
+		final HttpResponse<IOperationResponse<Boolean>> response = this
+				.squareOffPortfolioRequest(apiKey, pseudoAccount, category, cancelOpenOrders, commandId)
+				.asObject(ResponseCodec.BOOLEAN);
+
+		return this.processResponse(response);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #squareOffPortfolio(String, PositionCategory, boolean)}.
+	 */
+	public CompletableFuture<IOperationResponse<Boolean>> squareOffPortfolioAsync(final String pseudoAccount,
+			final PositionCategory category, final boolean cancelOpenOrders, final String commandId) {
+		return this.squareOffPortfolioRequest(null, pseudoAccount, category, cancelOpenOrders, commandId)
+				.asObjectAsync(ResponseCodec.BOOLEAN).thenApply(this::processResponse);
+	}
+
+	private MultipartBody squareOffPortfolioRequest(final String apiKey, final String pseudoAccount,
+			final PositionCategory category, final boolean cancelOpenOrders, final String commandId) {
 		final Map<String, Object> params = new HashMap<>();
 		params.put("pseudoAccount", pseudoAccount);
 		params.put("category", category);
 		params.put("cancelOpenOrders", cancelOpenOrders);
-
-		final HttpRequestWithBody request = this.client.post(this.squareOffPortfolioUrl);
-		if (!isEmpty(apiKey)) {
-			request.header(API_KEY_HEADER, apiKey);
+		if (commandId != null) {
+			params.put("commandId", commandId);
 		}
 
-		final HttpResponse<OperationResponse<Boolean>> response = request.fields(params)
-				.asObject(new GenericType<OperationResponse<Boolean>>() {
-				});
-
-		return this.processResponse(response);
+		return this.post(this.url(SQUARE_OFF_PORTFOLIO_URI), apiKey).fields(params);
 	}
 
 	@Override
 	public IOperationResponse<Set<PlatformOrder>> readPlatformOrders(@NonNull final String pseudoAccount) {
-		final HttpResponse<OperationResponse<Set<PlatformOrder>>> response = this.client
-				.post(this.readPlatformOrdersUrl).field("pseudoAccount", pseudoAccount)
-				.asObject(new GenericType<OperationResponse<Set<PlatformOrder>>>() {
-				});
+		final HttpResponse<IOperationResponse<Set<PlatformOrder>>> response = this.post(READ_PLATFORM_ORDERS_URI)
+				.field("pseudoAccount", pseudoAccount).asObject(ResponseCodec.ORDERS);
 
 		return this.processResponse(response);
 	}
@@ -356,91 +668,183 @@ public class TradingService implements ITradingService {
 	@Override
 	public IOperationResponse<Set<PlatformOrder>> readPlatformOrders(@NonNull final String apiKey,
 			@NonNull final String pseudoAccount) {
-		final HttpResponse<OperationResponse<Set<PlatformOrder>>> response = this.client
-				.post(this.readPlatformOrdersUrl).field("pseudoAccount", pseudoAccount).header(API_KEY_HEADER, apiKey)
-				.asObject(new GenericType<OperationResponse<Set<PlatformOrder>>>() {
-				});
+		final HttpResponse<IOperationResponse<Set<PlatformOrder>>> response = this
+				.post(this.url(READ_PLATFORM_ORDERS_URI), apiKey).field("pseudoAccount", pseudoAccount)
+				.asObject(ResponseCodec.ORDERS);
 
 		return this.processResponse(response);
 	}
 
 	@Override
 	public IOperationResponse<Set<PlatformPosition>> readPlatformPositions(@NonNull final String pseudoAccount) {
-		final HttpResponse<OperationResponse<Set<PlatformPosition>>> response = this.client
-				.post(this.readPlatformPositionsUrl).field("pseudoAccount", pseudoAccount)
-				.asObject(new GenericType<OperationResponse<Set<PlatformPosition>>>() {
-				});
+		final HttpResponse<IOperationResponse<Set<PlatformPosition>>> response = this.post(READ_PLATFORM_POSITIONS_URI)
+				.field("pseudoAccount", pseudoAccount).asObject(ResponseCodec.POSITIONS);
 
 		return this.processResponse(response);
 	}
 
 	@Override
 	public IOperationResponse<Set<PlatformMargin>> readPlatformMargins(@NonNull final String pseudoAccount) {
-		final HttpResponse<OperationResponse<Set<PlatformMargin>>> response = this.client
-				.post(this.readPlatformMarginsUrl).field("pseudoAccount", pseudoAccount)
-				.asObject(new GenericType<OperationResponse<Set<PlatformMargin>>>() {
-				});
+		final HttpResponse<IOperationResponse<Set<PlatformMargin>>> response = this.post(READ_PLATFORM_MARGINS_URI)
+				.field("pseudoAccount", pseudoAccount).asObject(ResponseCodec.MARGINS);
 
 		return this.processResponse(response);
 	}
 
 	@Override
 	public IOperationResponse<Set<PlatformHolding>> readPlatformHoldings(@NonNull final String pseudoAccount) {
-		final HttpResponse<OperationResponse<Set<PlatformHolding>>> response = this.client
-				.post(this.readPlatformHoldingsUrl).field("pseudoAccount", pseudoAccount)
-				.asObject(new GenericType<OperationResponse<Set<PlatformHolding>>>() {
-				});
+		final HttpResponse<IOperationResponse<Set<PlatformHolding>>> response = this.post(READ_PLATFORM_HOLDINGS_URI)
+				.field("pseudoAccount", pseudoAccount).asObject(ResponseCodec.HOLDINGS);
 
 		return this.processResponse(response);
 	}
 
-	private IOperationResponse<String> postOrder(final String url, final Map<String, Object> params) {
-		final HttpResponse<OperationResponse<String>> response = this.client.post(url).fields(params)
-				.asObject(new GenericType<OperationResponse<String>>() {
-				});
+	/**
+	 * Non-blocking variant of {@link #readPlatformOrders(String)}.
+	 */
+	public CompletableFuture<IOperationResponse<Set<PlatformOrder>>> readPlatformOrdersAsync(
+			@NonNull final String pseudoAccount) {
+		return this.post(READ_PLATFORM_ORDERS_URI).field("pseudoAccount", pseudoAccount)
+				.asObjectAsync(ResponseCodec.ORDERS).thenApply(this::processResponse);
+	}
 
-		return this.processResponse(response);
+	/**
+	 * Non-blocking variant of {@link #readPlatformPositions(String)}.
+	 */
+	public CompletableFuture<IOperationResponse<Set<PlatformPosition>>> readPlatformPositionsAsync(
+			@NonNull final String pseudoAccount) {
+		return this.post(READ_PLATFORM_POSITIONS_URI).field("pseudoAccount", pseudoAccount)
+				.asObjectAsync(ResponseCodec.POSITIONS).thenApply(this::processResponse);
 	}
 
-	private final <T> IOperationResponse<T> processResponse(final HttpResponse<OperationResponse<T>> response) {
-		if (response == null) {
-			return OperationResponse.<T>builder().error(new Exception("Null response received from server")).build();
-		}
-		if (!response.isSuccess()) {
-			// Process parsing errors only when http status code is 200, otherwise for other
-			// errors there will always be parsing errors
-			if ((response.getStatus() == 200) && response.getParsingError().isPresent()) {
-				return this.processParsingError(response.getParsingError().get());
-			} else {
-				return this.processHttpError(response);
-			}
+	/**
+	 * Non-blocking variant of {@link #readPlatformMargins(String)}.
+	 */
+	public CompletableFuture<IOperationResponse<Set<PlatformMargin>>> readPlatformMarginsAsync(
+			@NonNull final String pseudoAccount) {
+		return this.post(READ_PLATFORM_MARGINS_URI).field("pseudoAccount", pseudoAccount)
+				.asObjectAsync(ResponseCodec.MARGINS).thenApply(this::processResponse);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #readPlatformHoldings(String)}.
+	 */
+	public CompletableFuture<IOperationResponse<Set<PlatformHolding>>> readPlatformHoldingsAsync(
+			@NonNull final String pseudoAccount) {
+		return this.post(READ_PLATFORM_HOLDINGS_URI).field("pseudoAccount", pseudoAccount)
+				.asObjectAsync(ResponseCodec.HOLDINGS).thenApply(this::processResponse);
+	}
+
+	/**
+	 * Gives the end point group its own client, so that its requests do not
+	 * compete with those of the other groups for pooled connections. Only called
+	 * while the service is being set up.
+	 */
+	void setClient(@NonNull final EndpointGroup group, @NonNull final UnirestInstance client) {
+		this.bulkheads.put(group, client);
+	}
+
+	/**
+	 * @return client requests of the given end point group are sent with
+	 */
+	UnirestInstance getClient(@NonNull final EndpointGroup group) {
+		final UnirestInstance bulkhead = this.bulkheads.get(group);
+		return (bulkhead == null) ? this.client : bulkhead;
+	}
+
+	/**
+	 * @return whether the given end point group has a client of its own
+	 */
+	boolean isBulkhead(@NonNull final EndpointGroup group) {
+		return this.bulkheads.containsKey(group);
+	}
+
+	/**
+	 * @return all clients, each once
+	 */
+	Collection<UnirestInstance> getClients() {
+		final Set<UnirestInstance> clients = Collections.newSetFromMap(new IdentityHashMap<>());
+		clients.add(this.client);
+		clients.addAll(this.bulkheads.values());
+		return clients;
+	}
+
+	/**
+	 * @param url request url (or uri)
+	 * @return client of the end point group the url belongs to
+	 */
+	private UnirestInstance client(final String url) {
+		if (this.bulkheads.isEmpty()) {
+			return this.client;
 		}
+		final Endpoint endpoint = endpoint(url);
+		return (endpoint == null) ? this.client : this.getClient(endpoint.getGroup());
+	}
 
-		// If no errors, then return original response
-		return response.getBody();
+	private String url(final String uri) {
+		return this.servers.select() + uri;
 	}
 
-	private final <T> IOperationResponse<T> processParsingError(final UnirestParsingException pe) {
-		return OperationResponse.<T>builder().error(pe).build();
+	private GetRequest get(final String uri) {
+		return this.authenticated(this.client(uri).get(this.url(uri)));
 	}
 
-	private final <T> IOperationResponse<T> processHttpError(final HttpResponse<?> response) {
-		final int status = response.getStatus();
+	private HttpRequestWithBody post(final String uri) {
+		return this.authenticated(this.client(uri).post(this.url(uri)));
+	}
 
-		final String message = (status == 403) ? "Either your API Key is wrong or the user might be disabled."
-				: toTextDefault(status, response.getStatusText());
+	private HttpRequestWithBody post(final String url, final String apiKey) {
+		final HttpRequestWithBody request = this.client(url).post(url);
+		if (!isEmpty(apiKey)) {
+			request.header(API_KEY_HEADER, apiKey);
+			return request;
+		}
+		return this.authenticated(request);
+	}
 
-		final Exception error = new Exception(status + ": " + message);
-		return OperationResponse.<T>builder().error(error).errorCode(SYSTEM_FORBIDDEN).build();
+	/**
+	 * Adds the api key of the service, if any, to the request.
+	 */
+	private <R extends HttpRequest<R>> R authenticated(final R request) {
+		return (this.apiKey == null) ? request : request.header(API_KEY_HEADER, this.apiKey);
 	}
 
-	private IOperationResponse<Boolean> cancelGeneric(final String url, final String apiKey, final String pseudoAccount,
-			final String platformId) {
-		return this.cancelGeneric(url, apiKey, pseudoAccount, platformId, null);
+	private IOperationResponse<String> postOrder(final String url, final byte[] form) {
+		final HttpResponse<IOperationResponse<String>> response = this.post(url, null)
+				.contentType(FormEncoder.CONTENT_TYPE).body(form).asObject(ResponseCodec.STRING);
+
+		return this.processResponse(response);
+	}
+
+	private CompletableFuture<IOperationResponse<String>> postOrderAsync(final String url, final byte[] form) {
+		return this.post(url, null).contentType(FormEncoder.CONTENT_TYPE).body(form)
+				.asObjectAsync(ResponseCodec.STRING).thenApply(this::processResponse);
+	}
+
+	private final <T> IOperationResponse<T> processResponse(final HttpResponse<IOperationResponse<T>> response) {
+		// Errors are already converted to responses by the codec
+		if ((response == null) || (response.getBody() == null)) {
+			return ResponseCodec.nullResponse();
+		}
+		return response.getBody();
 	}
 
 	private IOperationResponse<Boolean> cancelGeneric(final String url, final String apiKey, final String pseudoAccount,
 			final String platformId, final String commandId) {
+		final HttpResponse<IOperationResponse<Boolean>> response = this
+				.cancelRequest(url, apiKey, pseudoAccount, platformId, commandId).asObject(ResponseCodec.BOOLEAN);
+
+		return this.processResponse(response);
+	}
+
+	private CompletableFuture<IOperationResponse<Boolean>> cancelGenericAsync(final String url, final String apiKey,
+			final String pseudoAccount, final String platformId, final String commandId) {
+		return this.cancelRequest(url, apiKey, pseudoAccount, platformId, commandId)
+				.asObjectAsync(ResponseCodec.BOOLEAN).thenApply(this::processResponse);
+	}
+
+	private MultipartBody cancelRequest(final String url, final String apiKey, final String pseudoAccount,
+			final String platformId, final String commandId) {
 		final Map<String, Object> params = new HashMap<>();
 		params.put("pseudoAccount", pseudoAccount);
 		if (platformId != null) {
@@ -450,44 +854,46 @@ public class TradingService implements ITradingService {
 			params.put("commandId", commandId);
 		}
 
-		final HttpRequestWithBody request = this.client.post(url);
-		if (!isEmpty(apiKey)) {
-			request.header(API_KEY_HEADER, apiKey);
-		}
-
-		final HttpResponse<OperationResponse<Boolean>> response = request.fields(params)
-				.asObject(new GenericType<OperationResponse<Boolean>>() {
-				});
-
-		return this.processResponse(response);
+		return this.post(url, apiKey).fields(params);
 	}
 
 	@Override
 	public IOperationResponse<String> autoTraderDesktopVersion() {
-		final HttpResponse<OperationResponse<String>> response = this.client.get(this.autoTraderDesktopVersionUrl)
-				.asObject(new GenericType<OperationResponse<String>>() {
-				});
+		final HttpResponse<IOperationResponse<String>> response = this.get(HEALTH_CHECK_URI)
+				.asObject(ResponseCodec.STRING);
 		return this.processResponse(response);
 	}
 
 	@Override
 	public IOperationResponse<String> autoTraderDesktopMinVersion() {
-		final HttpResponse<OperationResponse<String>> response = this.client.get(this.autoTraderDesktopMinVersionUrl)
-				.asObject(new GenericType<OperationResponse<String>>() {
-				});
+		final HttpResponse<IOperationResponse<String>> response = this.get(AUTO_TRADER_DESKTOP_MIN_VERSION_URI)
+				.asObject(ResponseCodec.STRING);
 		return this.processResponse(response);
 	}
 
+	/**
+	 * Non-blocking variant of {@link #autoTraderDesktopVersion()}.
+	 */
+	public CompletableFuture<IOperationResponse<String>> autoTraderDesktopVersionAsync() {
+		return this.get(HEALTH_CHECK_URI)
+				.asObjectAsync(ResponseCodec.STRING).thenApply(this::processResponse);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #autoTraderDesktopMinVersion()}.
+	 */
+	public CompletableFuture<IOperationResponse<String>> autoTraderDesktopMinVersionAsync() {
+		return this.get(AUTO_TRADER_DESKTOP_MIN_VERSION_URI)
+				.asObjectAsync(ResponseCodec.STRING).thenApply(this::processResponse);
+	}
+
 	@Override
 	public IOperationResponse<List<AdjustHoldingsResponse>> adjustHoldings(final String apiKey,
 			final AdjustHoldingsRequest input) {
-		final HttpRequestWithBody request = this.client.post(this.adjustHoldingsUrl);
-		request.header(API_KEY_HEADER, apiKey);
+		final HttpRequestWithBody request = this.post(this.url(ADJUST_HOLDINGS_URI), apiKey);
 
-		final HttpResponse<OperationResponse<List<AdjustHoldingsResponse>>> response = request
-				.header("Content-Type", "application/json").body(input)
-				.asObject(new GenericType<OperationResponse<List<AdjustHoldingsResponse>>>() {
-				});
+		final HttpResponse<IOperationResponse<List<AdjustHoldingsResponse>>> response = request
+				.header("Content-Type", "application/json").body(input).asObject(ResponseCodec.ADJUST_HOLDINGS);
 
 		return this.processResponse(response);
 	}
@@ -497,25 +903,15 @@ public class TradingService implements ITradingService {
 			final String exchange, final String symbol, final TradeType tradeType, final OrderType orderType,
 			final ProductType productType, final int quantity, final float price, final float triggerPrice,
 			final Validity validity, final Boolean amo, final String publisherId, final String commandId) {
-		final Map<String, Object> params = new HashMap<>();
-		params.put("variety", REGULAR);
-		params.put("pseudoAccount", pseudoAccount);
-		params.put("exchange", exchange);
-		params.put("symbol", symbol);
-		params.put("tradeType", tradeType);
-		params.put("orderType", orderType);
-		params.put("productType", productType);
-		params.put("quantity", quantity);
-		params.put("price", price);
-		params.put("triggerPrice", triggerPrice);
-		params.put("validity", validity);
-		params.put("amo", amo);
-		params.put("publisherId", publisherId);
-		params.put("commandId", commandId);
-
-		final HttpResponse<OperationResponse<String>> response = this.client.post(this.placeAdvancedOrderUrl)
-				.header(API_KEY_HEADER, apiKey).fields(params).asObject(new GenericType<OperationResponse<String>>() {
-				});
+		final byte[] form = FormEncoder.get().add("variety", REGULAR).add("pseudoAccount", pseudoAccount)
+				.add("exchange", exchange).add("symbol", symbol).add("tradeType", tradeType).add("orderType", orderType)
+				.add("productType", productType).add("quantity", quantity).add("price", price)
+				.add("triggerPrice", triggerPrice).add("validity", validity).add("amo", amo)
+				.add("publisherId", publisherId).add("commandId", commandId).toByteArray();
+
+		final HttpResponse<IOperationResponse<String>> response = this
+				.post(this.url(PLACE_ADVANCED_ORDER_URI), apiKey).contentType(FormEncoder.CONTENT_TYPE).body(form)
+				.asObject(ResponseCodec.STRING);
 
 		return this.processResponse(response);
 	}
@@ -523,7 +919,8 @@ public class TradingService implements ITradingService {
 	@Override
 	public IOperationResponse<Boolean> cancelOrderMCA(final String apiKey, final String pseudoAccount,
 			final String platformId, final String commandId) {
-		return this.cancelGeneric(this.cancelOrderByPlatformIdUrl, apiKey, pseudoAccount, platformId, commandId);
+		return this.cancelGeneric(this.url(CANCEL_ORDER_BY_PLATFORM_ID_URI), apiKey, pseudoAccount, platformId,
+				commandId);
 	}
 
 	@Override
@@ -537,30 +934,29 @@ public class TradingService implements ITradingService {
 	private IOperationResponse<Boolean> modifyOrderGeneric(final String apiKey, @NonNull final String pseudoAccount,
 			@NonNull final String platformId, final OrderType orderType, final Integer quantity, final Float price,
 			final Float triggerPrice, final Integer disclosedQtyPct, final String commandId) {
-		final Map<String, Object> params = new HashMap<>();
-		params.put("pseudoAccount", pseudoAccount);
-		params.put("platformId", platformId);
-		params.put("orderType", (orderType == null) ? "" : orderType.name());
-		params.put("quantity", quantity);
-		params.put("price", price);
-		params.put("triggerPrice", triggerPrice);
+		final HttpResponse<IOperationResponse<Boolean>> response = this
+				.modifyOrderRequest(apiKey, pseudoAccount, platformId, orderType, quantity, price, triggerPrice,
+						disclosedQtyPct, commandId).asObject(ResponseCodec.BOOLEAN);
+
+		return this.processResponse(response);
+	}
+
+	private RequestBodyEntity modifyOrderRequest(final String apiKey, final String pseudoAccount,
+			final String platformId, final OrderType orderType, final Integer quantity, final Float price,
+			final Float triggerPrice, final Integer disclosedQtyPct, final String commandId) {
+		// Missing values are sent empty
+		final FormEncoder form = FormEncoder.get().add("pseudoAccount", pseudoAccount).add("platformId", platformId)
+				.add("orderType", orderType).add("quantity", quantity).add("price", price)
+				.add("triggerPrice", triggerPrice);
 		if (disclosedQtyPct != null) {
-			params.put("disclosedQtyPct", disclosedQtyPct);
+			form.add("disclosedQtyPct", disclosedQtyPct);
 		}
 		if (!isEmpty(commandId)) {
-			params.put("commandId", commandId);
+			form.add("commandId", commandId);
 		}
 
-		final HttpRequestWithBody request = this.client.post(this.modifyOrderByPlatformIdUrl);
-		if (!isEmpty(apiKey)) {
-			request.header(API_KEY_HEADER, apiKey);
-		}
-
-		final HttpResponse<OperationResponse<Boolean>> response = request.fields(params)
-				.asObject(new GenericType<OperationResponse<Boolean>>() {
-				});
-
-		return this.processResponse(response);
+		return this.post(this.url(MODIFY_ORDER_BY_PLATFORM_ID_URI), apiKey).contentType(FormEncoder.CONTENT_TYPE)
+				.body(form.toByteArray());
 	}
 
 }
@@ -0,0 +1,429 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.Charset;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import kong.unirest.AsyncClient;
+import kong.unirest.BasicResponse;
+import kong.unirest.Body;
+import kong.unirest.BodyPart;
+import kong.unirest.Client;
+import kong.unirest.Config;
+import kong.unirest.Header;
+import kong.unirest.Headers;
+import kong.unirest.HttpRequest;
+import kong.unirest.HttpRequestSummary;
+import kong.unirest.HttpResponse;
+import kong.unirest.MetricContext;
+import kong.unirest.Proxy;
+import kong.unirest.RawResponse;
+import kong.unirest.RawResponseBase;
+import kong.unirest.UnirestException;
+
+/**
+ * Sends requests with the HTTP/2 client of the JDK (java.net.http), which
+ * multiplexes concurrent requests over a single connection per server, hence
+ * hundreds of concurrent orders do not need as many connections. Servers
+ * which do not support HTTP/2 are spoken to over HTTP/1.1.
+ *
+ * Requests are still built by Unirest, they are translated to the JDK client
+ * here: url, headers (including the default ones) and the body (raw, or
+ * fields sent url encoded; file uploads are not supported). Responses are
+ * buffered and handed to the Unirest response transformers, after the metric
+ * hook & interceptor of the configuration are notified, just like the Apache
+ * clients of Unirest do. Blocking & non-blocking requests share a single JDK
+ * client.
+ *
+ * When ssl verification is disabled in the configuration, certificates are
+ * trusted without verification; host names are still verified, as the JDK
+ * client does not allow turning that off per client.
+ *
+ * @author PRITESH
+ *
+ */
+public class Http2Transport implements HttpTransport {
+
+	/**
+	 * Headers the JDK client sets itself & does not allow to be set.
+	 */
+	private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+			"upgrade");
+
+	@Override
+	public void configure(final Config config) {
+		final Exchange exchange = new Exchange(config);
+		config.httpClient(c -> exchange);
+		config.asyncClient(c -> new AsyncExchange(exchange));
+	}
+
+	/**
+	 * Blocking client, which also does the translation for the non-blocking one.
+	 */
+	private static final class Exchange implements Client {
+
+		private final Config config;
+
+		private final HttpClient client;
+
+		Exchange(final Config config) {
+			this.config = config;
+			final HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2)
+					.followRedirects(config.getFollowRedirects() ? HttpClient.Redirect.NORMAL
+							: HttpClient.Redirect.NEVER);
+			if (config.getConnectionTimeout() > 0) {
+				builder.connectTimeout(Duration.ofMillis(config.getConnectionTimeout()));
+			}
+			final Proxy proxy = config.getProxy();
+			if (proxy != null) {
+				builder.proxy(ProxySelector.of(new InetSocketAddress(proxy.getHost(), proxy.getPort())));
+			}
+			if (!config.isVerifySsl()) {
+				builder.sslContext(trustAll());
+			}
+			this.client = builder.build();
+		}
+
+		@Override
+		public Object getClient() {
+			return this.client;
+		}
+
+		@Override
+		public <T> HttpResponse<T> request(final HttpRequest request,
+				final Function<RawResponse, HttpResponse<T>> transformer) {
+			final HttpRequestSummary summary = request.toSummary();
+			this.config.getUniInterceptor().onRequest(request, this.config);
+			final MetricContext metric = this.config.getMetric().begin(summary);
+			try {
+				final java.net.http.HttpResponse<byte[]> response = this.client.send(this.prepare(request),
+						BodyHandlers.ofByteArray());
+				return this.complete(summary, metric, response, transformer);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return this.fail(summary, metric, e);
+			} catch (final Exception e) {
+				return this.fail(summary, metric, e);
+			}
+		}
+
+		<T> CompletableFuture<HttpResponse<T>> requestAsync(final HttpRequest request,
+				final Function<RawResponse, HttpResponse<T>> transformer,
+				final CompletableFuture<HttpResponse<T>> callback) {
+			final HttpRequestSummary summary = request.toSummary();
+			this.config.getUniInterceptor().onRequest(request, this.config);
+			final MetricContext metric = this.config.getMetric().begin(summary);
+
+			final java.net.http.HttpRequest prepared;
+			try {
+				prepared = this.prepare(request);
+			} catch (final Exception e) {
+				this.failAsync(summary, metric, e, callback);
+				return callback;
+			}
+
+			this.client.sendAsync(prepared, BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+				if (error != null) {
+					this.failAsync(summary, metric, (error.getCause() instanceof Exception)
+							? (Exception) error.getCause()
+							: new UnirestException(error), callback);
+					return;
+				}
+				try {
+					callback.complete(this.complete(summary, metric, response, transformer));
+				} catch (final Exception e) {
+					callback.completeExceptionally(e);
+				}
+			});
+			return callback;
+		}
+
+		@Override
+		public Stream<Exception> close() {
+			// Connections of the JDK client are closed when it is garbage collected
+			return Stream.empty();
+		}
+
+		@Override
+		public void registerShutdownHook() {
+			// Nothing to release
+		}
+
+		private <T> HttpResponse<T> complete(final HttpRequestSummary summary, final MetricContext metric,
+				final java.net.http.HttpResponse<byte[]> response,
+				final Function<RawResponse, HttpResponse<T>> transformer) {
+			final Response raw = new Response(response, this.config);
+			metric.complete(raw.toSummary(), null);
+
+			HttpResponse<T> result;
+			try {
+				result = transformer.apply(raw);
+			} catch (final RuntimeException e) {
+				result = new BasicResponse<>(raw, raw.getContentAsString(), e);
+			}
+			this.config.getUniInterceptor().onResponse(result, summary, this.config);
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T> HttpResponse<T> fail(final HttpRequestSummary summary, final MetricContext metric,
+				final Exception error) {
+			metric.complete(null, error);
+			return (HttpResponse<T>) this.config.getUniInterceptor().onFail(error, summary, this.config);
+		}
+
+		private <T> void failAsync(final HttpRequestSummary summary, final MetricContext metric, final Exception error,
+				final CompletableFuture<HttpResponse<T>> callback) {
+			try {
+				callback.complete(this.fail(summary, metric, error));
+			} catch (final Exception e) {
+				callback.completeExceptionally(e);
+			}
+		}
+
+		private java.net.http.HttpRequest prepare(final HttpRequest<?> request) {
+			final java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest
+					.newBuilder(URI.create(request.getUrl()));
+			if (request.getSocketTimeout() > 0) {
+				builder.timeout(Duration.ofMillis(request.getSocketTimeout()));
+			}
+
+			boolean contentType = false;
+			for (final Header header : request.getHeaders().all()) {
+				final String name = header.getName();
+				if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+					builder.header(name, header.getValue());
+					contentType |= "content-type".equalsIgnoreCase(name);
+				}
+			}
+
+			final Optional<Body> body = request.getBody();
+			BodyPublisher publisher = BodyPublishers.noBody();
+			if (body.isPresent()) {
+				if (body.get().isEntityBody()) {
+					publisher = entity(body.get());
+					if (!contentType) {
+						builder.header("Content-Type", "text/plain; charset=" + body.get().getCharset().name());
+					}
+				} else {
+					publisher = BodyPublishers.ofString(form(body.get()), UTF_8);
+					if (!contentType) {
+						builder.header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+					}
+				}
+			}
+			return builder.method(request.getHttpMethod().name(), publisher).build();
+		}
+
+		private static BodyPublisher entity(final Body body) {
+			final Object value = body.uniPart().getValue();
+			if (value instanceof byte[]) {
+				return BodyPublishers.ofByteArray((byte[]) value);
+			}
+			if (value instanceof InputStream) {
+				return BodyPublishers.ofInputStream(() -> (InputStream) value);
+			}
+			return BodyPublishers.ofString(String.valueOf(value), body.getCharset());
+		}
+
+		private static String form(final Body body) {
+			if (body.isMultiPart()) {
+				throw new UnirestException("Multipart requests are not supported by the HTTP/2 transport");
+			}
+			final Collection<BodyPart> parts = body.multiParts();
+			final StringBuilder form = new StringBuilder();
+			for (final BodyPart part : parts) {
+				if (part.isFile()) {
+					throw new UnirestException("File uploads are not supported by the HTTP/2 transport");
+				}
+				if (form.length() > 0) {
+					form.append('&');
+				}
+				form.append(URLEncoder.encode(part.getName(), UTF_8)).append('=')
+						.append(URLEncoder.encode(String.valueOf(part.getValue()), UTF_8));
+			}
+			return form.toString();
+		}
+
+		private static SSLContext trustAll() {
+			try {
+				final SSLContext context = SSLContext.getInstance("TLS");
+				context.init(null, new TrustManager[] { new X509TrustManager() {
+
+					@Override
+					public void checkClientTrusted(final X509Certificate[] chain, final String authType) {
+					}
+
+					@Override
+					public void checkServerTrusted(final X509Certificate[] chain, final String authType) {
+					}
+
+					@Override
+					public X509Certificate[] getAcceptedIssuers() {
+						return new X509Certificate[0];
+					}
+
+				} }, new SecureRandom());
+				return context;
+			} catch (final Exception e) {
+				throw new UnirestException(e);
+			}
+		}
+
+	}
+
+	/**
+	 * Non-blocking client, sharing the JDK client of the blocking one.
+	 */
+	private static final class AsyncExchange implements AsyncClient {
+
+		private final Exchange exchange;
+
+		AsyncExchange(final Exchange exchange) {
+			this.exchange = exchange;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T getClient() {
+			return (T) this.exchange.getClient();
+		}
+
+		@Override
+		public <T> CompletableFuture<HttpResponse<T>> request(final HttpRequest request,
+				final Function<RawResponse, HttpResponse<T>> transformer,
+				final CompletableFuture<HttpResponse<T>> callback) {
+			return this.exchange.requestAsync(request, transformer, callback);
+		}
+
+		@Override
+		public void registerShutdownHook() {
+			// Nothing to release
+		}
+
+	}
+
+	/**
+	 * Buffered response of the JDK client.
+	 */
+	private static final class Response extends RawResponseBase {
+
+		private final java.net.http.HttpResponse<byte[]> response;
+
+		private final Headers headers = new Headers();
+
+		Response(final java.net.http.HttpResponse<byte[]> response, final Config config) {
+			super(config);
+			this.response = response;
+			for (final Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+				for (final String value : header.getValue()) {
+					this.headers.add(header.getKey(), value);
+				}
+			}
+		}
+
+		@Override
+		public int getStatus() {
+			return this.response.statusCode();
+		}
+
+		@Override
+		public String getStatusText() {
+			// Not available in HTTP/2
+			return "";
+		}
+
+		@Override
+		public Headers getHeaders() {
+			return this.headers;
+		}
+
+		@Override
+		public InputStream getContent() {
+			return new ByteArrayInputStream(this.getContentAsBytes());
+		}
+
+		@Override
+		public byte[] getContentAsBytes() {
+			final byte[] body = this.response.body();
+			return (body == null) ? new byte[0] : body;
+		}
+
+		@Override
+		public String getContentAsString() {
+			return this.getContentAsString(null);
+		}
+
+		@Override
+		public String getContentAsString(final String charset) {
+			return new String(this.getContentAsBytes(), this.charset(charset));
+		}
+
+		@Override
+		public InputStreamReader getContentReader() {
+			return new InputStreamReader(this.getContent(), this.charset(null));
+		}
+
+		@Override
+		public boolean hasContent() {
+			return this.getContentAsBytes().length > 0;
+		}
+
+		@Override
+		public String getContentType() {
+			return this.headers.getFirst("Content-Type");
+		}
+
+		@Override
+		public String getEncoding() {
+			return this.headers.getFirst("Content-Encoding");
+		}
+
+		private Charset charset(final String charset) {
+			if ((charset != null) && !charset.isEmpty()) {
+				return Charset.forName(charset);
+			}
+			final String type = this.getContentType();
+			final int index = (type == null) ? -1 : type.toLowerCase().indexOf("charset=");
+			if (index >= 0) {
+				try {
+					return Charset.forName(type.substring(index + 8).replace("\"", "").trim());
+				} catch (final RuntimeException e) {
+					// Unknown charset, use the default
+				}
+			}
+			return Charset.forName(this.config.getDefaultResponseEncoding());
+		}
+
+	}
+
+}
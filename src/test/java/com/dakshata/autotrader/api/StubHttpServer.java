@@ -0,0 +1,109 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local AutoTrader server stub for tests. Every request is answered with the
+ * json returned by the handler of the test.
+ *
+ * @author PRITESH
+ *
+ */
+final class StubHttpServer {
+
+	private final HttpServer server;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	/**
+	 * Starts the server on a free local port.
+	 */
+	StubHttpServer(final Handler handler) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		this.server.createContext("/", exchange -> {
+			final Response response;
+			try {
+				response = handler.handle(exchange, read(exchange.getRequestBody()));
+			} catch (final Exception e) {
+				exchange.sendResponseHeaders(500, -1);
+				exchange.close();
+				return;
+			}
+
+			final byte[] body = response.body.getBytes(UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(response.status, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		this.server.setExecutor(this.executor);
+		this.server.start();
+	}
+
+	String url() {
+		return "http://127.0.0.1:" + this.server.getAddress().getPort();
+	}
+
+	void stop() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	private static String read(final InputStream in) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[1024];
+		for (int n; (n = in.read(buffer)) > 0;) {
+			out.write(buffer, 0, n);
+		}
+		return out.toString("UTF-8");
+	}
+
+	@FunctionalInterface
+	interface Handler {
+
+		/**
+		 * @param exchange request, whose body is already read
+		 * @param body     request body
+		 * @return response to send
+		 */
+		Response handle(HttpExchange exchange, String body) throws Exception;
+
+	}
+
+	static final class Response {
+
+		private final int status;
+
+		private final String body;
+
+		private Response(final int status, final String body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		static Response ok(final String json) {
+			return new Response(200, json);
+		}
+
+		static Response of(final int status, final String json) {
+			return new Response(status, json);
+		}
+
+	}
+
+}
@@ -0,0 +1,100 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.constants.trading.OrderStatus;
+import com.dakshata.constants.trading.PositionCategory;
+import com.dakshata.data.model.common.OperationResponse;
+import com.dakshata.trading.model.platform.PlatformOrder;
+import com.dakshata.trading.model.platform.PlatformPosition;
+
+/**
+ * Tests for the indexes of the account book.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestAccountBook {
+
+	private final AccountBook book = new AccountBook();
+
+	@Test
+	public void testOrders() {
+		final PlatformOrder sbin = order("ACC1", "101", "SBIN", OrderStatus.OPEN);
+		final PlatformOrder infy = order("ACC1", "102", "INFY", OrderStatus.COMPLETE);
+		this.book.updateOrders("ACC1", Arrays.asList(sbin, infy));
+		this.book.updateOrders("ACC2", Arrays.asList(order("ACC2", "201", "SBIN", OrderStatus.OPEN)));
+
+		assertSame(sbin, this.book.getOrder("ACC1", "101"));
+		assertNull(this.book.getOrder("ACC2", "101"));
+		assertEquals(Arrays.asList(sbin), this.book.getOrders("ACC1", "NSE", "SBIN"));
+		assertEquals(Arrays.asList(infy), this.book.getOrders("ACC1", OrderStatus.COMPLETE));
+		assertEquals(2, this.book.getOrders("NSE", "SBIN").size());
+		assertEquals(2, this.book.getOrders(OrderStatus.OPEN).size());
+
+		// Refresh replaces the account's orders in every index
+		final PlatformOrder filled = order("ACC1", "101", "SBIN", OrderStatus.COMPLETE);
+		this.book.updateOrders("ACC1", Arrays.asList(filled));
+		assertSame(filled, this.book.getOrder("ACC1", "101"));
+		assertNull(this.book.getOrder("ACC1", "102"));
+		assertEquals(1, this.book.getOrders(OrderStatus.OPEN).size());
+		assertEquals(Arrays.asList(filled), this.book.getOrders(OrderStatus.COMPLETE));
+		assertTrue(this.book.getOrders("NSE", "INFY").isEmpty());
+
+		this.book.remove("ACC2");
+		assertTrue(this.book.getOrders(OrderStatus.OPEN).isEmpty());
+		assertEquals(Collections.singleton("ACC1"), this.book.getPseudoAccounts());
+	}
+
+	@Test
+	public void testPositions() {
+		this.book.positionsPolled("ACC1", OperationResponse.<Set<PlatformPosition>>builder()
+				.result(Collections.singleton(position("NIFTY", PositionCategory.NET, 50))).build());
+		this.book.updatePositions("ACC2", Arrays.asList(position("NIFTY", PositionCategory.NET, -25),
+				position("NIFTY", PositionCategory.DAY, -25), position("SBIN", PositionCategory.NET, 10)));
+
+		assertEquals(25, this.book.getNetQuantity(PositionCategory.NET, "NSE", "NIFTY"));
+		assertEquals(-25, this.book.getNetQuantity(PositionCategory.DAY, "NSE", "NIFTY"));
+		assertEquals(3, this.book.getPositions("NSE", "NIFTY").size());
+		assertEquals(1, this.book.getPositions("ACC2", "NSE", "SBIN").size());
+		assertEquals(0, this.book.getNetQuantity(PositionCategory.NET, "NSE", "INFY"));
+
+		// Failed poll keeps the positions
+		this.book.positionsPolled("ACC1", OperationResponse.<Set<PlatformPosition>>builder()
+				.error(new Exception("Down")).build());
+		assertEquals(1, this.book.getPositions("ACC1").size());
+	}
+
+	private static PlatformOrder order(final String account, final String platformId, final String symbol,
+			final OrderStatus status) {
+		final PlatformOrder order = new PlatformOrder();
+		order.setPseudoAccount(account);
+		order.setPlatformId(platformId);
+		order.setExchange("NSE");
+		order.setSymbol(symbol);
+		order.setStatus(status);
+		return order;
+	}
+
+	private static PlatformPosition position(final String symbol, final PositionCategory category, final int net) {
+		final PlatformPosition position = new PlatformPosition();
+		position.setExchange("NSE");
+		position.setSymbol(symbol);
+		position.setCategory(category);
+		position.setNetQuantity(net);
+		return position;
+	}
+
+}
@@ -0,0 +1,172 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+import com.dakshata.trading.model.portfolio.Order;
+
+/**
+ * Tests for batches of orders, using a local stub server which returns the
+ * pseudo account as order id, fails platform id BAD & answers later items of
+ * a batch sooner. Up to 3 requests are in flight at a time.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestBatchOrders {
+
+	private static final Pattern ACCOUNT = Pattern.compile("pseudoAccount\\W+(\\w+)");
+
+	private static final Pattern PLATFORM_ID = Pattern.compile("platformId=(\\w+)");
+
+	private final AtomicInteger inFlight = new AtomicInteger(), maxInFlight = new AtomicInteger();
+
+	private StubHttpServer server;
+
+	private IAutoTrader autoTrader;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			final int current = this.inFlight.incrementAndGet();
+			this.maxInFlight.accumulateAndGet(current, Math::max);
+			try {
+				final Matcher account = ACCOUNT.matcher(body);
+				account.find();
+				// ACC0 is the slowest
+				Thread.sleep(100 - (10 * Integer.parseInt(account.group(1).substring(3))));
+
+				final Matcher platformId = PLATFORM_ID.matcher(body);
+				if (!platformId.find()) {
+					return Response.ok("{\"result\":\"" + account.group(1) + "\"}");
+				}
+				return "BAD".equals(platformId.group(1)) ? Response.of(503, "{}") : Response.ok("{\"result\":true}");
+			} finally {
+				this.inFlight.decrementAndGet();
+			}
+		});
+		this.autoTrader = this.create(AutoTraderClientConfig.builder().batchConcurrency(3));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testPlaceOrders() {
+		final List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			final Order order = new Order();
+			order.setPseudoAccount("ACC" + i);
+			orders.add(order);
+		}
+
+		final BatchResponse<String> response = this.autoTrader.placeOrders(orders);
+		// In input order, though answered in reverse
+		assertEquals(10, response.successCount());
+		for (int i = 0; i < 10; i++) {
+			assertEquals("ACC" + i, response.get(i).getResult());
+		}
+		assertEquals(3, this.maxInFlight.get());
+	}
+
+	@Test
+	public void testCancelOrders() {
+		final List<CancelOrderRequest> orders = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			orders.add(CancelOrderRequest.of("ACC" + i, (i == 4) ? "BAD" : ("10" + i)));
+		}
+
+		final BatchResponse<Boolean> response = this.autoTrader.cancelOrders(orders);
+		assertEquals(9, response.successCount());
+		assertFalse(response.get(4).success());
+		assertTrue(response.get(5).getResult());
+		assertEquals(3, this.maxInFlight.get());
+	}
+
+	@Test
+	public void testModifyOrders() {
+		final List<ModifyOrderRequest> orders = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			orders.add(ModifyOrderRequest.builder().pseudoAccount("ACC" + i)
+					.platformId((i == 0) ? "BAD" : ("10" + i)).orderType(OrderType.LIMIT).price(10f).build());
+		}
+
+		final BatchResponse<Boolean> response = this.autoTrader.modifyOrders(orders);
+		assertEquals(9, response.successCount());
+		assertFalse(response.get(0).success());
+		assertTrue(response.get(9).getResult());
+		assertEquals(3, this.maxInFlight.get());
+	}
+
+	@Test
+	public void testDeadline() {
+		final List<Integer> inputs = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			inputs.add(i);
+		}
+
+		// Item 1 never completes
+		final BatchResponse<String> response = BatchExecutor.execute(inputs, 2, 200,
+				(final Integer i) -> (i == 1) ? new CompletableFuture<IOperationResponse<String>>()
+						: CompletableFuture.completedFuture(OperationResponse.<String>builder().result("" + i).build()))
+				.join();
+		assertTrue(response.getElapsed().toMillis() < 1000, response.getElapsed().toString());
+		assertEquals(4, response.successCount());
+		assertEquals("4", response.get(4).getResult());
+		assertTrue(response.get(1).getError().getMessage().contains("may still succeed"));
+
+		final BatchResponse<String> unsent = BatchExecutor.execute(inputs, 1, 200,
+				(final Integer i) -> new CompletableFuture<IOperationResponse<String>>()).join();
+		assertTrue(unsent.get(0).getError().getMessage().contains("may still succeed"));
+		assertTrue(unsent.get(4).getError().getMessage().startsWith("Not sent"));
+	}
+
+	@Test
+	public void testRejectedBatch() throws Exception {
+		this.autoTrader.shutdown();
+		this.autoTrader = this.create(AutoTraderClientConfig.builder().rateLimitPerSecond(0.1).rateLimitBurst(1)
+				.rateLimitMode(RateLimitMode.FAIL_FAST));
+
+		// Rejected right away, without a request
+		final List<CancelOrderRequest> orders = new ArrayList<>();
+		for (int i = 0; i < 50_000; i++) {
+			orders.add(CancelOrderRequest.of("ACC1", "101"));
+		}
+		// Never completes if the stack overflows
+		final BatchResponse<Boolean> response = this.autoTrader.async().cancelOrders(orders).get(10, TimeUnit.SECONDS);
+		assertEquals(50_000, response.size());
+		assertEquals(1, response.successCount());
+		assertTrue(response.get(49_999).getError().getMessage().contains("rate limit"));
+	}
+
+	private IAutoTrader create(final AutoTraderClientConfig.AutoTraderClientConfigBuilder builder) {
+		return AutoTrader.createInstance(builder.apiKey(UUID.randomUUID().toString()).serviceUrl(this.server.url())
+				.autoRetryOnError(false).build());
+	}
+
+}
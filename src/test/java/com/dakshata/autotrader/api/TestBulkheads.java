@@ -0,0 +1,119 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.ProductType;
+import com.dakshata.constants.trading.TradeType;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.trading.model.platform.PlatformHolding;
+
+/**
+ * Tests for the bulkheads, using a local stub server whose holdings reads
+ * hang until released. Reads have a bulkhead of two connections.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestBulkheads {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final ExecutorService readers = Executors.newFixedThreadPool(4);
+
+	private StubHttpServer server;
+
+	private IAutoTrader autoTrader;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			if (!exchange.getRequestURI().getPath().endsWith("/readPlatformHoldings")) {
+				return Response.ok("{\"result\":\"101\"}");
+			}
+			this.release.await(5, TimeUnit.SECONDS);
+			return Response.ok("{\"result\":[]}");
+		});
+
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder()
+				.apiKey(UUID.randomUUID().toString())
+				.serviceUrl(this.server.url()).autoRetryOnError(false)
+				.bulkheads(Collections.singletonMap(EndpointGroup.READ, BulkheadConfig.of(2))).build());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.release.countDown();
+		this.readers.shutdownNow();
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testIsolation() throws Exception {
+		final List<Future<IOperationResponse<Set<PlatformHolding>>>> reads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			reads.add(this.readers.submit(() -> this.autoTrader.readPlatformHoldings("ACC1")));
+		}
+		final BulkheadStats saturated = this.awaitSaturated();
+		assertTrue(saturated.isDedicated());
+		assertEquals(2, saturated.getMaxConnections());
+		assertEquals(2, saturated.getLeased());
+		assertEquals(1, saturated.getUtilization(), 0);
+
+		// Orders are not stuck behind the reads
+		final long start = System.nanoTime();
+		final IOperationResponse<String> order = this.autoTrader.placeRegularOrder("ACC1", "NSE", "SBIN",
+				TradeType.BUY, OrderType.MARKET, ProductType.INTRADAY, 1, 0, 0);
+		assertEquals("101", order.getResult());
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+		final BulkheadStats trading = this.autoTrader.bulkheadStats().get(EndpointGroup.TRADING);
+		assertFalse(trading.isDedicated());
+		assertFalse(trading.isSaturated());
+		assertEquals(250, trading.getMaxConnections());
+		// Account end points share the pool of the trading end points
+		assertEquals(trading, this.autoTrader.bulkheadStats().get(EndpointGroup.ACCOUNT));
+
+		this.release.countDown();
+		for (final Future<IOperationResponse<Set<PlatformHolding>>> read : reads) {
+			assertTrue(read.get(5, TimeUnit.SECONDS).success());
+		}
+		assertFalse(this.autoTrader.bulkheadStats().get(EndpointGroup.READ).isSaturated());
+	}
+
+	private BulkheadStats awaitSaturated() throws InterruptedException {
+		for (int i = 0; i < 200; i++) {
+			final Map<EndpointGroup, BulkheadStats> stats = this.autoTrader.bulkheadStats();
+			if (stats.get(EndpointGroup.READ).getPending() == 2) {
+				return stats.get(EndpointGroup.READ);
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Reads did not saturate the pool: " + this.autoTrader.bulkheadStats());
+	}
+
+}
@@ -0,0 +1,110 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+
+import kong.unirest.UnirestException;
+
+/**
+ * Tests for the circuit breaker.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestCircuitBreaker {
+
+	private final List<String> events = new CopyOnWriteArrayList<>();
+
+	private final CircuitBreaker breaker = new CircuitBreaker(AutoTraderClientConfig.builder().circuitFailureRate(0.5)
+			.circuitWindowSize(4).circuitMinimumRequests(4).circuitOpenDuration(50).circuitHalfOpenProbes(2)
+			.circuitBreakerListener((group, from, to) -> this.events.add(group + ":" + from + ">" + to)).build());
+
+	private final AtomicInteger sent = new AtomicInteger();
+
+	@Test
+	public void testOpenAndClose() throws InterruptedException {
+		final Supplier<IOperationResponse<String>> failing = this.breaker.guard(Endpoint.PLACE_ORDER,
+				() -> this.response(503));
+		final Supplier<IOperationResponse<String>> ok = this.breaker.guard(Endpoint.PLACE_REGULAR_ORDER,
+				() -> this.response(200));
+
+		// 2 of 4 failed
+		ok.get();
+		failing.get();
+		ok.get();
+		assertEquals(CircuitState.CLOSED, this.breaker.states().get(EndpointGroup.TRADING));
+		failing.get();
+		assertEquals(CircuitState.OPEN, this.breaker.states().get(EndpointGroup.TRADING));
+
+		// Fails fast, other groups are not affected
+		this.sent.set(0);
+		assertTrue(ok.get().getError() instanceof CircuitOpenException);
+		assertEquals(0, this.sent.get());
+		assertEquals(CircuitState.CLOSED, this.breaker.states().get(EndpointGroup.READ));
+
+		// Half open, a failed probe opens it again
+		Thread.sleep(60);
+		failing.get();
+		assertEquals(CircuitState.OPEN, this.breaker.states().get(EndpointGroup.TRADING));
+
+		// Both probes must succeed
+		Thread.sleep(60);
+		ok.get();
+		assertEquals(CircuitState.HALF_OPEN, this.breaker.states().get(EndpointGroup.TRADING));
+		ok.get();
+		assertEquals(CircuitState.CLOSED, this.breaker.states().get(EndpointGroup.TRADING));
+
+		assertEquals(Arrays.asList("TRADING:CLOSED>OPEN", "TRADING:OPEN>HALF_OPEN", "TRADING:HALF_OPEN>OPEN",
+				"TRADING:OPEN>HALF_OPEN", "TRADING:HALF_OPEN>CLOSED"), this.events);
+	}
+
+	@Test
+	public void testExceptionsAndAsync() {
+		final Supplier<IOperationResponse<String>> throwing = this.breaker.guard(Endpoint.READ_PLATFORM_ORDERS,
+				() -> {
+					throw new UnirestException("timeout");
+				});
+		final Supplier<CompletableFuture<IOperationResponse<String>>> async = this.breaker
+				.guardAsync(Endpoint.READ_PLATFORM_POSITIONS, () -> {
+					final CompletableFuture<IOperationResponse<String>> future = new CompletableFuture<>();
+					future.completeExceptionally(new UnirestException("timeout"));
+					return future;
+				});
+		// Client errors are not failures of the server
+		final Supplier<IOperationResponse<String>> rejected = this.breaker.guard(Endpoint.READ_PLATFORM_MARGINS,
+				() -> this.response(400));
+
+		for (int i = 0; i < 4; i++) {
+			rejected.get();
+		}
+		assertEquals(CircuitState.CLOSED, this.breaker.states().get(EndpointGroup.READ));
+
+		assertThrows(UnirestException.class, throwing::get);
+		assertTrue(async.get().isCompletedExceptionally());
+		assertEquals(CircuitState.OPEN, this.breaker.states().get(EndpointGroup.READ));
+		assertTrue(async.get().join().getError() instanceof CircuitOpenException);
+	}
+
+	private IOperationResponse<String> response(final int status) {
+		this.sent.incrementAndGet();
+		return (status == 200) ? OperationResponse.<String>builder().result("ok").build()
+				: ResponseCodec.httpError(status, "Error");
+	}
+
+}
@@ -0,0 +1,88 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.ProductType;
+import com.dakshata.constants.trading.TradeType;
+
+/**
+ * Tests that retried orders carry the same command id, using a local stub
+ * server which fails every other order request.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestCommandIds {
+
+	private static final Pattern COMMAND_ID = Pattern.compile("commandId=([^&]+)");
+
+	private final List<String> commandIds = new CopyOnWriteArrayList<>();
+
+	private StubHttpServer server;
+
+	private IAutoTrader autoTrader;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			final Matcher m = COMMAND_ID.matcher(body);
+			this.commandIds.add(m.find() ? m.group(1) : "");
+			return Response.of(((this.commandIds.size() % 2) == 1) ? 503 : 200, "{\"result\":true}");
+		});
+
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder()
+				.apiKey(UUID.randomUUID().toString())
+				.serviceUrl(this.server.url())
+				.orderRetryPolicy(
+						BackoffRetryPolicy.builder().statuses(BackoffRetryPolicy.TRANSIENT_STATUSES).build())
+				.build());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testUnique() {
+		final Set<String> ids = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(ids.add(CommandIds.next()));
+		}
+	}
+
+	@Test
+	public void testRetriesReuseCommandId() {
+		assertTrue(this.autoTrader.placeRegularOrder("ACC1", "NSE", "SBIN", TradeType.BUY, OrderType.MARKET,
+				ProductType.INTRADAY, 1, 0f, 0f).success());
+		assertTrue(this.autoTrader.cancelOrderByPlatformId("ACC1", "101").success());
+
+		assertEquals(4, this.commandIds.size());
+		assertTrue(!this.commandIds.get(0).isEmpty());
+		assertEquals(this.commandIds.get(0), this.commandIds.get(1));
+		assertEquals(this.commandIds.get(2), this.commandIds.get(3));
+		assertNotEquals(this.commandIds.get(0), this.commandIds.get(2));
+	}
+
+}
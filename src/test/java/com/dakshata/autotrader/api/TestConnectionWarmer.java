@@ -0,0 +1,81 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.ProductType;
+import com.dakshata.constants.trading.TradeType;
+
+/**
+ * Tests for connection warm up & keep-alive, using a local stub server which
+ * tracks the connections (client ports) requests arrive on.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestConnectionWarmer {
+
+	private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger versionRequests = new AtomicInteger();
+
+	private StubHttpServer server;
+
+	private IAutoTrader autoTrader;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			this.connections.add(exchange.getRemoteAddress().getPort());
+			if (exchange.getRequestURI().getPath().endsWith("/autoTraderDesktopVersion")) {
+				this.versionRequests.incrementAndGet();
+				// Keeps the warm up requests concurrent
+				Thread.sleep(50);
+			}
+			return Response.ok("{\"result\":\"1\"}");
+		});
+
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder()
+				.apiKey(UUID.randomUUID().toString())
+				.serviceUrl(this.server.url()).warmUpConnections(3)
+				.keepAliveInterval(200).build());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testWarmUp() throws InterruptedException {
+		// 3 blocking & 3 non-blocking
+		assertEquals(6, this.versionRequests.get());
+		assertEquals(6, this.connections.size());
+
+		// Order goes on a warm connection
+		assertTrue(this.autoTrader.placeRegularOrder("ACC1", "NSE", "SBIN", TradeType.BUY, OrderType.MARKET,
+				ProductType.INTRADAY, 1, 0f, 0f).success());
+		assertEquals(6, this.connections.size());
+
+		// Kept alive
+		Thread.sleep(500);
+		assertTrue(this.versionRequests.get() >= 12);
+	}
+
+}
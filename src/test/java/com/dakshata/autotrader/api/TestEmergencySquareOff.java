@@ -0,0 +1,133 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.PositionCategory;
+
+/**
+ * Tests for the emergency square-off, using a local stub server with accounts
+ * ACC1, ACC2 (whose cancellation is rejected) and SLOW (whose square-off takes
+ * a second). The client side rate limit allows a single request.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestEmergencySquareOff {
+
+	private static final Pattern ACCOUNT = Pattern.compile("pseudoAccount=(\\w+)");
+
+	/**
+	 * Requests received, as end point & account.
+	 */
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Status & delay (milliseconds) of the live pseudo accounts.
+	 */
+	private volatile int fetchStatus = 200, fetchDelay;
+
+	private StubHttpServer server;
+
+	private IAutoTrader autoTrader;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			final String path = exchange.getRequestURI().getPath();
+			final String endpoint = path.substring(path.lastIndexOf('/') + 1);
+			final Matcher matcher = ACCOUNT.matcher(body);
+			if (!matcher.find()) {
+				Thread.sleep(this.fetchDelay);
+				return Response.of(this.fetchStatus, "{\"result\":[\"ACC1\",\"ACC2\",\"SLOW\"]}");
+			}
+			final String account = matcher.group(1);
+			this.requests.add(endpoint + " " + account);
+			if ("SLOW".equals(account) && endpoint.equals("squareOffPortfolio")) {
+				Thread.sleep(1000);
+			}
+			final boolean rejected = "ACC2".equals(account) && endpoint.equals("cancelAllOrders");
+			return Response.ok(rejected ? "{\"result\":false,\"message\":\"Rejected\"}" : "{\"result\":true}");
+		});
+
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder()
+				.apiKey(UUID.randomUUID().toString())
+				.serviceUrl(this.server.url()).rateLimitPerSecond(0.1)
+				.rateLimitBurst(1).rateLimitMode(RateLimitMode.FAIL_FAST).build());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testSquareOff() {
+		// Exhausts the rate limit (and loads the classes involved)
+		assertTrue(this.autoTrader.cancelAllOrders("ACC1").getResult());
+		assertTrue(this.autoTrader.cancelAllOrders("ACC1").getError().getMessage().contains("rate limit"));
+		this.requests.clear();
+
+		final FanOutResponse<Boolean> response = this.autoTrader.emergencySquareOff(PositionCategory.NET, 500);
+		assertTrue(response.isComplete());
+		assertTrue(response.getElapsed().toMillis() < 1000, response.getElapsed().toString());
+		assertEquals(3, response.size());
+
+		// Not limited
+		assertTrue(response.getResult("ACC1").success());
+		assertTrue(response.getResult("ACC1").getResult());
+
+		final List<String> failed = response.getFailedAccounts();
+		Collections.sort(failed);
+		assertEquals(Arrays.asList("ACC2", "SLOW"), failed);
+		assertTrue(response.getResult("ACC2").getError().getMessage().contains("may not be cancelled"));
+		assertTrue(response.getResult("SLOW").getError().getMessage().contains("may still succeed"));
+
+		// Cancellation precedes square-off
+		for (final String account : new String[] { "ACC1", "ACC2", "SLOW" }) {
+			assertTrue(this.requests.indexOf("cancelAllOrders " + account) < this.requests
+					.indexOf("squareOffPortfolio " + account), this.requests.toString());
+		}
+	}
+
+	@Test
+	public void testAccountsNotFetched() {
+		this.fetchStatus = 503;
+		FanOutResponse<Boolean> response = this.autoTrader.emergencySquareOff(PositionCategory.NET, 5000);
+		assertFalse(response.isComplete());
+		assertNotNull(response.getError());
+		assertEquals(0, response.size());
+		assertTrue(response.getFailedAccounts().isEmpty());
+
+		this.fetchStatus = 200;
+		this.fetchDelay = 1000;
+		final long start = System.nanoTime();
+		response = this.autoTrader.emergencySquareOff(PositionCategory.NET, 200);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		assertFalse(response.isComplete());
+		assertTrue(response.getError().getMessage().contains("within the deadline"));
+		assertTrue(this.requests.isEmpty(), this.requests.toString());
+	}
+
+}
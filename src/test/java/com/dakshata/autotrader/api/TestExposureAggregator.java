@@ -0,0 +1,101 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.constants.trading.PositionCategory;
+import com.dakshata.constants.trading.PositionType;
+import com.dakshata.trading.model.platform.PlatformMargin;
+import com.dakshata.trading.model.platform.PlatformPosition;
+
+/**
+ * Tests for the incremental totals of the exposure aggregator.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestExposureAggregator {
+
+	private static final double DELTA = 1e-6;
+
+	private final ExposureAggregator aggregator = new ExposureAggregator();
+
+	@Test
+	public void testPositions() {
+		this.aggregator.updatePositions("ACC1",
+				Arrays.asList(position("SBIN", PositionCategory.NET, 10, 100f, 50f),
+						position("SBIN", PositionCategory.DAY, 10, 100f, 50f),
+						position("INFY", PositionCategory.NET, -5, 200f, -20f)));
+		this.aggregator.updatePositions("ACC2", Arrays.asList(position("SBIN", PositionCategory.NET, -4, 100f, 8f)));
+
+		Exposure total = this.aggregator.getTotals();
+		assertEquals(38, total.getMtm(), DELTA);
+		assertEquals(1000 + 1000 + 400, total.getGrossExposure(), DELTA);
+		assertEquals(1000 - 1000 - 400, total.getNetExposure(), DELTA);
+		assertEquals(600, this.aggregator.getTotals("NSE", "SBIN").getNetExposure(), DELTA);
+		assertEquals(30, this.aggregator.getTotals("ACC1").getMtm(), DELTA);
+
+		// Only the changed row of ACC1 is applied
+		this.aggregator.updatePositions("ACC1",
+				Arrays.asList(position("SBIN", PositionCategory.NET, 10, 110f, 150f),
+						position("INFY", PositionCategory.NET, -5, 200f, -20f)));
+		total = this.aggregator.getTotals();
+		assertEquals(138, total.getMtm(), DELTA);
+		assertEquals(700, this.aggregator.getTotals("NSE", "SBIN").getNetExposure(), DELTA);
+
+		// Closed position is removed
+		this.aggregator.updatePositions("ACC1",
+				Arrays.asList(position("SBIN", PositionCategory.NET, 10, 110f, 150f)));
+		assertSame(Exposure.NONE, this.aggregator.getTotals("NSE", "INFY"));
+		assertEquals(158, this.aggregator.getTotals().getMtm(), DELTA);
+
+		this.aggregator.remove("ACC1");
+		this.aggregator.updatePositions("ACC2", Collections.emptyList());
+		assertEquals(0, this.aggregator.getTotals().getMtm(), 0);
+		assertEquals(0, this.aggregator.getTotals().getGrossExposure(), 0);
+	}
+
+	@Test
+	public void testMargins() {
+		this.aggregator.updateMargins("ACC1", Arrays.asList(margin(25, 100), margin(0, 100)));
+		this.aggregator.updateMargins("ACC2", Arrays.asList(margin(75, 200)));
+		assertEquals(0.25, this.aggregator.getTotals().getMarginUtilization(), DELTA);
+		assertEquals(0.125, this.aggregator.getTotals("ACC1").getMarginUtilization(), DELTA);
+
+		this.aggregator.updateMargins("ACC2", Arrays.asList(margin(150, 200)));
+		assertEquals(175, this.aggregator.getTotals().getMarginUtilized(), DELTA);
+
+		this.aggregator.remove("ACC1");
+		this.aggregator.remove("ACC2");
+		assertEquals(0, this.aggregator.getTotals().getMarginTotal(), 0);
+	}
+
+	private static PlatformPosition position(final String symbol, final PositionCategory category, final int net,
+			final float ltp, final float mtm) {
+		final PlatformPosition position = new PlatformPosition();
+		position.setExchange("NSE");
+		position.setSymbol(symbol);
+		position.setCategory(category);
+		position.setType(PositionType.MIS);
+		position.setNetQuantity(net);
+		position.setLtp(ltp);
+		position.setMtm(mtm);
+		return position;
+	}
+
+	private static PlatformMargin margin(final float utilized, final float total) {
+		final PlatformMargin margin = new PlatformMargin();
+		margin.setUtilized(utilized);
+		margin.setTotal(total);
+		return margin;
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.ProductType;
+import com.dakshata.constants.trading.TradeType;
+
+/**
+ * Tests for fanning out an order to several accounts, using a local stub
+ * server which returns the pseudo account as order id, and delays the orders
+ * of account SLOW.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestFanOut {
+
+	private static final Pattern ACCOUNT = Pattern.compile("pseudoAccount=(\\w+)");
+
+	private final OrderTemplate order = OrderTemplate.builder().exchange("NSE").symbol("SBIN").tradeType(TradeType.BUY)
+			.orderType(OrderType.MARKET).productType(ProductType.INTRADAY).quantity(1).build();
+
+	private StubHttpServer server;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			final Matcher matcher = ACCOUNT.matcher(body);
+			if (!matcher.find()) {
+				return Response.ok("{\"result\":[\"ACC1\",\"ACC2\",\"ACC3\"]}");
+			}
+			if ("SLOW".equals(matcher.group(1))) {
+				Thread.sleep(1000);
+			}
+			return Response.ok("{\"result\":\"" + matcher.group(1) + "\"}");
+		});
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.server.stop();
+	}
+
+	@Test
+	public void testLiveAccounts() {
+		final IAutoTrader autoTrader = this.create(20);
+		try {
+			final FanOutResponse<String> response = autoTrader.fanOutOrder(this.order, 5000);
+			assertEquals(new HashSet<>(Arrays.asList("ACC1", "ACC2", "ACC3")),
+					new HashSet<>(response.getPseudoAccounts()));
+			assertEquals(3, response.successCount());
+			assertEquals("ACC2", response.getResult("ACC2").getResult());
+			assertEquals("ACC3", response.getResultsByAccount().get("ACC3").getResult());
+			assertTrue(response.getP50DispatchLatency().compareTo(response.getP99DispatchLatency()) <= 0);
+			assertTrue(response.getP99DispatchLatency().compareTo(response.getElapsed()) <= 0);
+		} finally {
+			autoTrader.shutdown();
+		}
+	}
+
+	@Test
+	public void testDeadline() {
+		final IAutoTrader autoTrader = this.create(1);
+		try {
+			final FanOutResponse<String> response = autoTrader.fanOutOrder(this.order,
+					Arrays.asList("SLOW", "ACC1", "SLOW"), 200);
+			assertTrue(response.getElapsed().toMillis() < 1000, response.getElapsed().toString());
+			// Duplicates dropped
+			assertEquals(Arrays.asList("SLOW", "ACC1"), response.getPseudoAccounts());
+			assertFalse(response.getResult("SLOW").success());
+			assertTrue(response.getResult("SLOW").getError().getMessage().contains("may still succeed"));
+			assertTrue(response.getResult("ACC1").getError().getMessage().startsWith("Not sent"));
+		} finally {
+			autoTrader.shutdown();
+		}
+	}
+
+	private IAutoTrader create(final int concurrency) {
+		return AutoTrader.createInstance(AutoTraderClientConfig.builder().apiKey(UUID.randomUUID().toString())
+				.serviceUrl(this.server.url()).batchConcurrency(concurrency)
+				.build());
+	}
+
+}
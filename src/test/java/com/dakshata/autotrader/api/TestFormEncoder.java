@@ -0,0 +1,66 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.TradeType;
+
+/**
+ * Tests for form encoding of order requests.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestFormEncoder {
+
+	@Test
+	public void testEncode() {
+		final String form = new String(FormEncoder.get().add("pseudoAccount", "ACC 1").add("tradeType", TradeType.BUY)
+				.add("orderType", (OrderType) null).add("quantity", 25).add("price", 123.45f)
+				.add("triggerPrice", 500f).add("amo", Boolean.FALSE).toByteArray(), UTF_8);
+
+		assertEquals("pseudoAccount=ACC+1&tradeType=BUY&orderType=&quantity=25&price=123.45&triggerPrice=500.0"
+				+ "&amo=false", form);
+	}
+
+	@Test
+	public void testEncoderIsReused() {
+		FormEncoder.get().add("symbol", "SBIN").toByteArray();
+		assertEquals("symbol=NIFTY", new String(FormEncoder.get().add("symbol", "NIFTY").toByteArray(), UTF_8));
+	}
+
+	@Test
+	public void testStrings() throws UnsupportedEncodingException {
+		final String value = "M&M-EQ_1.* /%é₹😀";
+		final String form = new String(FormEncoder.get().add("symbol", value).toByteArray(), UTF_8);
+		assertEquals("symbol=" + URLEncoder.encode(value, "UTF-8"), form);
+		assertEquals(value, URLDecoder.decode(form.substring(7), "UTF-8"));
+	}
+
+	@Test
+	public void testNumbers() {
+		final int[] ints = { 0, 7, -7, 10, 1_000_000, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		for (final int i : ints) {
+			assertEquals("q=" + i, new String(FormEncoder.get().add("q", i).toByteArray(), UTF_8));
+		}
+
+		final float[] floats = { 0f, -0f, 0.05f, 123.45f, -123.45f, 99999.95f, 1e7f, 1e-7f, 3.4028235e38f,
+				Float.NaN, 1f / 3 };
+		for (final float f : floats) {
+			final String form = new String(FormEncoder.get().add("p", f).toByteArray(), UTF_8);
+			assertEquals(Float.floatToIntBits(f), Float.floatToIntBits(Float.parseFloat(form.substring(2))), form);
+		}
+		assertEquals("p=0.05", new String(FormEncoder.get().add("p", 0.05f).toByteArray(), UTF_8));
+	}
+
+}
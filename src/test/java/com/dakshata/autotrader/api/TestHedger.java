@@ -0,0 +1,125 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for read request hedging.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestHedger {
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+	private final Hedger hedger = new Hedger(90, 5, this.scheduler);
+
+	@AfterEach
+	public void tearDown() {
+		this.scheduler.shutdownNow();
+	}
+
+	private void warmUp() {
+		for (int i = 0; i < 32; i++) {
+			this.hedger.execute(Endpoint.READ_PLATFORM_ORDERS, () -> CompletableFuture.completedFuture("fast"),
+					() -> CompletableFuture.completedFuture("hedge")).join();
+		}
+	}
+
+	@Test
+	public void testMutatingEndpointsAreNotHedged() {
+		for (final Endpoint endpoint : Endpoint.values()) {
+			if (this.hedger.isHedged(endpoint)) {
+				assertTrue(endpoint.isReadOnly(), endpoint.name());
+			}
+		}
+		assertFalse(this.hedger.isHedged(Endpoint.PLACE_ORDER));
+		assertFalse(this.hedger.isHedged(Endpoint.CANCEL_ORDER));
+	}
+
+	@Test
+	public void testNoHedgeUntilLatencyIsKnown() {
+		final AtomicInteger hedges = new AtomicInteger();
+		final CompletableFuture<String> slow = new CompletableFuture<>();
+		final CompletableFuture<String> result = this.hedger.execute(Endpoint.READ_PLATFORM_ORDERS, () -> slow,
+				() -> {
+					hedges.incrementAndGet();
+					return CompletableFuture.completedFuture("hedge");
+				});
+
+		slow.complete("first");
+		assertEquals("first", result.join());
+		assertEquals(0, hedges.get());
+	}
+
+	@Test
+	public void testSlowRequestIsHedged() {
+		this.warmUp();
+
+		final CompletableFuture<String> slow = new CompletableFuture<>();
+		final String result = this.hedger.execute(Endpoint.READ_PLATFORM_ORDERS, () -> slow,
+				() -> CompletableFuture.completedFuture("hedge")).join();
+
+		assertEquals("hedge", result);
+
+		final HedgingStats stats = this.hedger.stats().get(Endpoint.READ_PLATFORM_ORDERS);
+		assertEquals(33, stats.getRequests());
+		assertEquals(1, stats.getHedges());
+		assertEquals(1, stats.getWins());
+		// Loser is tracked till it completes
+		assertFalse(slow.isDone());
+		assertEquals(1, stats.getLosersInFlight());
+		slow.complete("first");
+		assertEquals(0, this.hedger.stats().get(Endpoint.READ_PLATFORM_ORDERS).getLosersInFlight());
+	}
+
+	@Test
+	public void testHedgeNotSent() {
+		this.warmUp();
+
+		final CompletableFuture<String> slow = new CompletableFuture<>();
+		final CompletableFuture<String> result = this.hedger.execute(Endpoint.READ_PLATFORM_ORDERS, () -> slow,
+				() -> null);
+		slow.completeExceptionally(new IllegalStateException("down"));
+
+		final CompletionException e = assertThrows(CompletionException.class, result::join);
+		assertEquals("down", e.getCause().getMessage());
+		assertEquals(0, this.hedger.stats().get(Endpoint.READ_PLATFORM_ORDERS).getHedges());
+	}
+
+	@Test
+	public void testFailedHedgeFallsBackToFirst() throws InterruptedException {
+		this.warmUp();
+
+		final CompletableFuture<String> slow = new CompletableFuture<>();
+		final CompletableFuture<String> hedge = new CompletableFuture<>();
+		final CompletableFuture<String> result = this.hedger.execute(Endpoint.READ_PLATFORM_ORDERS, () -> slow,
+				() -> hedge);
+
+		while (this.hedger.stats().get(Endpoint.READ_PLATFORM_ORDERS).getHedges() == 0) {
+			Thread.sleep(1);
+		}
+		hedge.completeExceptionally(new IllegalStateException("hedge failed"));
+		assertFalse(result.isDone());
+
+		slow.complete("first");
+		assertEquals("first", result.join());
+		assertEquals(0, this.hedger.stats().get(Endpoint.READ_PLATFORM_ORDERS).getWins());
+	}
+
+}
@@ -0,0 +1,90 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static com.dakshata.constants.autotrader.IAutoTrader.API_KEY_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.ProductType;
+import com.dakshata.constants.trading.TradeType;
+
+/**
+ * Tests for the HTTP/2 transport (Java 11+), using a local stub server which
+ * records the requests it receives. The stub only speaks HTTP/1.1, hence this
+ * verifies the translation of requests & responses, not the multiplexing.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestHttp2Transport {
+
+	/**
+	 * Last request (api key, content type & body) per path.
+	 */
+	private final Map<String, String> requests = new ConcurrentHashMap<>();
+
+	private final String apiKey = UUID.randomUUID().toString();
+
+	private StubHttpServer server;
+
+	private IAutoTrader autoTrader;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			final String path = exchange.getRequestURI().getPath();
+			this.requests.put(path.substring(path.lastIndexOf('/') + 1),
+					exchange.getRequestHeaders().getFirst(API_KEY_HEADER) + " "
+							+ exchange.getRequestHeaders().getFirst("Content-Type") + " " + body);
+			return Response.ok(
+					path.endsWith("/cancelOrderByPlatformId") ? "{\"result\":true}" : "{\"result\":\"1.2.3\"}");
+		});
+
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder().apiKey(this.apiKey)
+				.serviceUrl(this.server.url())
+				.transport(new Http2Transport()).metricsRecorder(new HdrHistogramMetricsRecorder()).build());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testRequests() {
+		assertEquals("1.2.3", this.autoTrader.autoTraderDesktopVersion().getResult());
+		assertTrue(this.requests.get("autoTraderDesktopVersion").startsWith(this.apiKey));
+
+		// Pre-encoded form
+		assertEquals("1.2.3", this.autoTrader.placeRegularOrder("ACC1", "NSE", "M&M", TradeType.BUY,
+				OrderType.MARKET, ProductType.INTRADAY, 1, 0f, 0f).getResult());
+		final String place = this.requests.get("placeRegularOrder");
+		assertTrue(place.startsWith(this.apiKey + " application/x-www-form-urlencoded"), place);
+		assertTrue(place.contains("pseudoAccount=ACC1&exchange=NSE&symbol=M%26M&tradeType=BUY"), place);
+
+		// Form of fields
+		assertTrue(this.autoTrader.async().cancelOrderByPlatformId("ACC1", "101").join().getResult());
+		final String cancel = this.requests.get("cancelOrderByPlatformId");
+		assertTrue(cancel.startsWith(this.apiKey + " application/x-www-form-urlencoded"), cancel);
+		assertTrue(cancel.contains("platformId=101"), cancel);
+
+		// Metric hook is called
+		final EndpointMetrics metrics = this.autoTrader.metrics().get(Endpoint.PLACE_REGULAR_ORDER);
+		assertEquals(1L, metrics.getStatuses().get(200));
+	}
+
+}
@@ -0,0 +1,135 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.ProductType;
+import com.dakshata.constants.trading.TradeType;
+
+/**
+ * Tests for request metrics, using a local stub server.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestMetrics {
+
+	/**
+	 * Holds the responses while closed.
+	 */
+	private volatile CountDownLatch gate = new CountDownLatch(0);
+
+	private StubHttpServer server;
+
+	private IAutoTrader autoTrader;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			this.gate.await();
+			final String path = exchange.getRequestURI().getPath();
+			// Truncated json
+			return Response.of(path.endsWith("/placeRegularOrder") ? 503 : 200,
+					path.endsWith("/readPlatformOrders") ? "{\"result\":[" : "{\"result\":\"1.0.0\"}");
+		});
+
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder()
+				.apiKey(UUID.randomUUID().toString())
+				.serviceUrl(this.server.url())
+				.metricsRecorder(new HdrHistogramMetricsRecorder())
+				// Health checks sent to warm up are not recorded
+				.warmUpConnections(2).build());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testEndpoint() {
+		assertEquals(Endpoint.PLACE_REGULAR_ORDER,
+				TradingService.endpoint("https://apix.stocksdeveloper.in/trading/placeRegularOrder"));
+		assertEquals(Endpoint.FETCH_LIVE_PSEUDO_ACCOUNTS,
+				TradingService.endpoint("http://localhost:8080/api/account/fetchLivePseudoAccounts?x=1"));
+		assertNull(TradingService.endpoint("http://localhost:8080/trading/unknown"));
+		assertNull(TradingService.endpoint("/"));
+	}
+
+	@Test
+	public void testMetrics() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			assertTrue(this.autoTrader.autoTraderDesktopVersion().success());
+		}
+		this.autoTrader.placeRegularOrder("ACC1", "NSE", "SBIN", TradeType.BUY, OrderType.MARKET,
+				ProductType.INTRADAY, 1, 0f, 0f);
+		this.autoTrader.readPlatformOrders("ACC1");
+
+		final Map<Endpoint, EndpointMetrics> metrics = this.autoTrader.metrics();
+
+		final EndpointMetrics version = metrics.get(Endpoint.AUTOTRADER_DESKTOP_VERSION);
+		assertEquals(10, version.getRequests());
+		assertEquals(10L, version.getStatuses().get(200));
+		assertEquals(0, version.getErrors());
+		assertTrue(version.getP50Latency() > 0);
+		assertTrue(version.getMaxLatency() >= version.getP99Latency());
+
+		final EndpointMetrics place = metrics.get(Endpoint.PLACE_REGULAR_ORDER);
+		assertEquals(1L, place.getStatuses().get(503));
+		assertEquals(1, place.getErrors());
+
+		assertEquals(1, metrics.get(Endpoint.READ_PLATFORM_ORDERS).getParseErrors());
+
+		final MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = mbeans.queryNames(new ObjectName("com.dakshata.autotrader.api:type=Metrics,*"), null)
+				.iterator().next();
+		assertEquals(Endpoint.values().length, ((TabularData) mbeans.getAttribute(name, "Endpoints")).size());
+	}
+
+	@Test
+	public void testPoolUsage() throws Exception {
+		this.gate = new CountDownLatch(1);
+		final CompletableFuture<?> held = CompletableFuture.runAsync(() -> this.autoTrader.readPlatformOrders("ACC1"));
+
+		// Sampled when read
+		EndpointMetrics orders = this.autoTrader.metrics().get(Endpoint.READ_PLATFORM_ORDERS);
+		for (int i = 0; (i < 500) && (orders.getLeased() == 0); i++) {
+			Thread.sleep(10);
+			orders = this.autoTrader.metrics().get(Endpoint.READ_PLATFORM_ORDERS);
+		}
+		assertEquals(1, orders.getLeased());
+		// Of the pool of the group
+		assertEquals(1, this.autoTrader.metrics().get(Endpoint.READ_PLATFORM_POSITIONS).getLeased());
+
+		this.gate.countDown();
+		held.get(10, TimeUnit.SECONDS);
+		orders = this.autoTrader.metrics().get(Endpoint.READ_PLATFORM_ORDERS);
+		assertEquals(0, orders.getLeased());
+		assertEquals(1, orders.getMaxLeased());
+		assertEquals(0, orders.getPending());
+	}
+
+}
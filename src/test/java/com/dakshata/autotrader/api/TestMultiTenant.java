@@ -0,0 +1,122 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static com.dakshata.constants.autotrader.IAutoTrader.API_KEY_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+
+/**
+ * Tests for the multi-tenant client, using a local stub server which records
+ * the api keys of the requests.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestMultiTenant {
+
+	private final List<String> apiKeys = new CopyOnWriteArrayList<>();
+
+	private StubHttpServer server;
+
+	private MultiTenantAutoTrader host;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			this.apiKeys.addAll(exchange.getRequestHeaders().get(API_KEY_HEADER));
+			return Response.ok("{\"result\":[\"ACC1\"]}");
+		});
+
+		this.host = new MultiTenantAutoTrader(AutoTraderClientConfig.builder()
+				.serviceUrl(this.server.url()).build(), 100);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.host.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testApiKeys() {
+		final IAutoTrader key1 = this.host.acquire("KEY1");
+		final IAutoTrader key2 = this.host.acquire("KEY2");
+		assertSame(key1, this.host.acquire("KEY1"));
+
+		assertEquals(Collections.singleton("ACC1"), key1.fetchLivePseudoAccounts().getResult());
+		assertTrue(key2.async().fetchLivePseudoAccounts().join().success());
+		// One header per request, with the key of the tenant
+		assertEquals(Arrays.asList("KEY1", "KEY2"), this.apiKeys);
+
+		// Shared pool
+		assertEquals(new HashSet<>(Arrays.asList("KEY1", "KEY2")), this.host.getApiKeys());
+		assertEquals(250, key1.bulkheadStats().get(EndpointGroup.TRADING).getMaxConnections());
+		assertEquals(this.host.bulkheadStats(), key2.bulkheadStats());
+	}
+
+	@Test
+	public void testSharedDispatcher() {
+		this.host.shutdown();
+		this.host = new MultiTenantAutoTrader(AutoTraderClientConfig.builder().serviceUrl(this.server.url())
+				.maxRequestsInFlight(1).build(), 0);
+
+		final IAutoTrader key1 = this.host.acquire("KEY1");
+		final IAutoTrader key2 = this.host.acquire("KEY2");
+		assertTrue(key1.fetchLivePseudoAccounts().success());
+		assertTrue(key2.async().fetchLivePseudoAccounts().join().success());
+
+		// Requests of all tenants go through one dispatcher
+		final long dispatched = key1.dispatchStats().get(Endpoint.FETCH_LIVE_PSEUDO_ACCOUNTS.getPriority())
+				.getDispatched();
+		assertEquals(2, dispatched);
+		assertEquals(key1.dispatchStats(), key2.dispatchStats());
+		key1.shutdown();
+		key2.shutdown();
+	}
+
+	@Test
+	public void testEviction() throws InterruptedException {
+		final IAutoTrader held = this.host.acquire("HELD");
+		final IAutoTrader idle = this.host.acquire("IDLE");
+		idle.shutdown();
+
+		this.awaitEvicted("IDLE");
+		assertEquals(Collections.singleton("HELD"), this.host.getApiKeys());
+		// Evicted tenant is created afresh
+		final IAutoTrader recreated = this.host.acquire("IDLE");
+		assertNotSame(idle, recreated);
+		recreated.shutdown();
+
+		// Held tenant keeps working after the shutdown, until it is released
+		this.host.shutdown();
+		assertThrows(IllegalStateException.class, () -> this.host.acquire("HELD"));
+		assertTrue(held.fetchLivePseudoAccounts().success());
+		held.shutdown();
+		assertTrue(this.host.getApiKeys().isEmpty());
+	}
+
+	private void awaitEvicted(final String apiKey) throws InterruptedException {
+		for (int i = 0; (i < 100) && this.host.getApiKeys().contains(apiKey); i++) {
+			Thread.sleep(20);
+		}
+	}
+
+}
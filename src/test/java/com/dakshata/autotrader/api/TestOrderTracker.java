@@ -0,0 +1,165 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.OrderStatus;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.trading.model.platform.PlatformOrder;
+
+/**
+ * Tests for the order tracker, using a local stub server which returns a
+ * single open order.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestOrderTracker {
+
+	private StubHttpServer server;
+
+	private IAutoTrader autoTrader;
+
+	private OrderTracker tracker;
+
+	private final List<OrderEvent> notified = new ArrayList<>();
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> Response.ok("{\"result\":[{\"pseudoAccount\":\"ACC1\","
+				+ "\"platformId\":\"101\",\"status\":\"OPEN\",\"quantity\":10}]}"));
+
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder()
+				.apiKey(UUID.randomUUID().toString())
+				.serviceUrl(this.server.url()).build());
+		this.tracker = new OrderTracker(this.autoTrader);
+		this.tracker.addListener(this.notified::add);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testChanges() {
+		final PlatformOrder open = order("101", OrderStatus.OPEN, 0);
+		final PlatformOrder other = order("102", OrderStatus.OPEN, 0);
+		List<OrderEvent> events = this.tracker.update("ACC1", Arrays.asList(open, other));
+		assertEquals(2, events.size());
+		assertEquals(OrderEventType.NEW, events.get(0).getType());
+		assertNull(events.get(0).getPreviousStatus());
+
+		// Unchanged
+		assertTrue(this.tracker.update("ACC1", Arrays.asList(order("101", OrderStatus.OPEN, 0), other)).isEmpty());
+
+		// Partial fill, then complete
+		final PlatformOrder partial = order("101", OrderStatus.OPEN, 4);
+		events = this.tracker.update("ACC1", Arrays.asList(partial, other));
+		assertEquals(1, events.size());
+		assertEquals(OrderEventType.FILL_CHANGED, events.get(0).getType());
+		assertEquals(4, events.get(0).getNewlyFilledQuantity());
+		assertSame(partial, this.tracker.getOrder("ACC1", "101"));
+
+		events = this.tracker.update("ACC1", Arrays.asList(order("101", OrderStatus.COMPLETE, 10), other));
+		assertEquals(OrderEventType.STATUS_CHANGED, events.get(0).getType());
+		assertEquals(OrderStatus.OPEN, events.get(0).getPreviousStatus());
+		assertEquals(6, events.get(0).getNewlyFilledQuantity());
+
+		// Missing order is dropped
+		assertTrue(this.tracker.update("ACC1", Arrays.asList(other)).isEmpty());
+		assertNull(this.tracker.getOrder("ACC1", "101"));
+		assertEquals(1, this.tracker.getOrders("ACC1").size());
+
+		// Accounts are independent
+		assertEquals(1, this.tracker.update("ACC2", Arrays.asList(order("101", OrderStatus.OPEN, 0))).size());
+
+		assertEquals(5, this.notified.size());
+	}
+
+	@Test
+	public void testPoll() {
+		final IOperationResponse<List<OrderEvent>> response = this.tracker.poll("ACC1");
+		assertTrue(response.success());
+		assertEquals(1, response.getResult().size());
+		assertEquals(10, response.getResult().get(0).getOrder().getQuantity());
+
+		assertTrue(this.tracker.pollAsync("ACC1").join().getResult().isEmpty());
+		assertEquals(1, this.notified.size());
+	}
+
+	@Test
+	public void testStaleSnapshotDropped() throws Exception {
+		this.autoTrader.shutdown();
+		this.server.stop();
+
+		// The first read is answered last, with the older snapshot
+		final AtomicInteger reads = new AtomicInteger();
+		final CountDownLatch first = new CountDownLatch(1);
+		this.server = new StubHttpServer((exchange, body) -> {
+			final int filled;
+			if (reads.incrementAndGet() == 1) {
+				first.countDown();
+				Thread.sleep(300);
+				filled = 0;
+			} else {
+				Thread.sleep(50);
+				filled = 4;
+			}
+			return Response.ok("{\"result\":[{\"pseudoAccount\":\"ACC1\",\"platformId\":\"101\","
+					+ "\"status\":\"OPEN\",\"quantity\":10,\"filledQuantity\":" + filled + "}]}");
+		});
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder()
+				.apiKey(UUID.randomUUID().toString()).serviceUrl(this.server.url()).build());
+		this.tracker = new OrderTracker(this.autoTrader);
+		this.tracker.addListener(this.notified::add);
+
+		final CompletableFuture<IOperationResponse<List<OrderEvent>>> older = this.tracker.pollAsync("ACC1");
+		assertTrue(first.await(10, TimeUnit.SECONDS));
+		assertEquals(1, this.tracker.poll("ACC1").getResult().size());
+
+		final IOperationResponse<List<OrderEvent>> stale = older.get(10, TimeUnit.SECONDS);
+		assertTrue(stale.success());
+		assertTrue(stale.getResult().isEmpty());
+		assertEquals(4, this.tracker.getOrder("ACC1", "101").getFilledQuantity());
+		assertEquals(1, this.notified.size());
+
+		// Reads in flight are dropped on reset
+		final CompletableFuture<IOperationResponse<List<OrderEvent>>> reset = this.tracker.pollAsync("ACC1");
+		this.tracker.reset("ACC1");
+		assertTrue(reset.get(10, TimeUnit.SECONDS).getResult().isEmpty());
+		assertTrue(this.tracker.getOrders("ACC1").isEmpty());
+	}
+
+	private static PlatformOrder order(final String platformId, final OrderStatus status, final int filled) {
+		final PlatformOrder order = new PlatformOrder();
+		order.setPseudoAccount("ACC1");
+		order.setPlatformId(platformId);
+		order.setStatus(status);
+		order.setQuantity(10);
+		order.setFilledQuantity(filled);
+		return order;
+	}
+
+}
@@ -0,0 +1,237 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+import com.dakshata.constants.trading.OrderType;
+import com.dakshata.constants.trading.ProductType;
+import com.dakshata.constants.trading.TradeType;
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+import com.dakshata.trading.model.platform.PlatformMargin;
+import com.dakshata.trading.model.platform.PlatformOrder;
+import com.dakshata.trading.model.platform.PlatformPosition;
+
+/**
+ * Tests for the polling scheduler, using a local stub server whose order book
+ * changes with {@link #filled}.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestPollingScheduler {
+
+	private final AtomicInteger filled = new AtomicInteger();
+
+	/**
+	 * Polls delivered, by account & kind.
+	 */
+	private final Map<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+
+	private StubHttpServer server;
+
+	private IAutoTrader autoTrader;
+
+	private final RecordingExecutor executor = new RecordingExecutor();
+
+	private PollingScheduler scheduler;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.server = new StubHttpServer((exchange, body) -> {
+			final String path = exchange.getRequestURI().getPath();
+			return Response.ok(path.endsWith("/readPlatformOrders")
+					? "{\"result\":[{\"platformId\":\"101\",\"filledQuantity\":" + this.filled.get() + "}]}"
+					: path.contains("/readPlatform") ? "{\"result\":[]}" : "{\"result\":\"1\"}");
+		});
+
+		this.autoTrader = AutoTrader.createInstance(AutoTraderClientConfig.builder()
+				.apiKey(UUID.randomUUID().toString())
+				.serviceUrl(this.server.url()).build());
+		this.scheduler = new PollingScheduler(this.autoTrader,
+				PollingConfig.builder().minInterval(50).maxInterval(400).jitter(0.1).build(), this.executor);
+		this.scheduler.addListener(new PollListener() {
+
+			@Override
+			public void ordersPolled(final String pseudoAccount, final IOperationResponse<Set<PlatformOrder>> orders) {
+				TestPollingScheduler.this.polled(pseudoAccount + " orders", orders);
+			}
+
+			@Override
+			public void positionsPolled(final String pseudoAccount,
+					final IOperationResponse<Set<PlatformPosition>> positions) {
+				TestPollingScheduler.this.polled(pseudoAccount + " positions", positions);
+			}
+
+			@Override
+			public void marginsPolled(final String pseudoAccount,
+					final IOperationResponse<Set<PlatformMargin>> margins) {
+				TestPollingScheduler.this.polled(pseudoAccount + " margins", margins);
+			}
+
+		});
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.scheduler.shutdown();
+		this.autoTrader.shutdown();
+		this.server.stop();
+	}
+
+	@Test
+	public void testAdaptiveInterval() throws InterruptedException {
+		this.scheduler.register("ACC1", EnumSet.of(Endpoint.READ_PLATFORM_ORDERS));
+		// 50, 100, 200, 400
+		this.awaitInterval(400);
+		assertEquals(0, this.count("ACC1 positions"));
+		final long delay = this.executor.delays.get(this.executor.delays.size() - 1);
+		assertTrue((delay >= 360) && (delay <= 440), "Jittered by 10%: " + delay);
+
+		// Placing an order brings the next poll forward
+		int scheduled = this.executor.delays.size();
+		final int before = this.count("ACC1 orders");
+		assertTrue(this.autoTrader.placeRegularOrder("ACC1", "NSE", "SBIN", TradeType.BUY, OrderType.MARKET,
+				ProductType.INTRADAY, 1, 0f, 0f).success());
+		// Either now or, if it is due sooner anyway, after the next poll
+		this.awaitDelay(scheduled, 110);
+		this.await("ACC1 orders", before + 1);
+
+		// So does a change seen by a poll
+		this.awaitInterval(400);
+		scheduled = this.executor.delays.size();
+		this.filled.set(5);
+		this.awaitDelay(scheduled, 55);
+	}
+
+	@Test
+	public void testAccounts() throws InterruptedException {
+		this.scheduler.register("ACC1");
+		final Runnable acc1 = this.executor.tasks.get(0);
+		this.scheduler.register("ACC2", EnumSet.of(Endpoint.READ_PLATFORM_MARGINS));
+		assertThrows(IllegalArgumentException.class,
+				() -> this.scheduler.register("ACC3", EnumSet.of(Endpoint.PLACE_REGULAR_ORDER)));
+
+		this.await("ACC1 orders", 1);
+		this.await("ACC1 positions", 1);
+		this.await("ACC1 margins", 1);
+		this.await("ACC2 margins", 1);
+		assertEquals(0, this.count("ACC2 orders"));
+
+		this.scheduler.unregister("ACC1");
+		assertEquals(0, this.scheduler.getInterval("ACC1"));
+		final int scheduled = this.executor.tasks.size();
+		// ACC2 is still polled, ACC1 is not scheduled again
+		this.await("ACC2 margins", this.count("ACC2 margins") + 2);
+		for (final Runnable task : this.executor.tasks.subList(scheduled, this.executor.tasks.size())) {
+			assertNotSame(acc1, task);
+		}
+	}
+
+	@Test
+	public void testUrgentReadIsNoActivity() throws Exception {
+		final List<String> notified = new CopyOnWriteArrayList<>();
+		final AutoTrader autoTrader = (AutoTrader) this.autoTrader;
+		autoTrader.addCommandListener(notified::add);
+
+		assertTrue(autoTrader.callUrgentAsync(Endpoint.FETCH_LIVE_PSEUDO_ACCOUNTS, null,
+				() -> CompletableFuture.completedFuture(OperationResponse.<String>builder().result("ACC1").build()))
+				.get(10, TimeUnit.SECONDS).success());
+		assertTrue(notified.isEmpty(), notified.toString());
+
+		assertTrue(this.autoTrader.placeRegularOrder("ACC1", "NSE", "SBIN", TradeType.BUY, OrderType.MARKET,
+				ProductType.INTRADAY, 1, 0f, 0f).success());
+		assertEquals(1, notified.size());
+	}
+
+	private void polled(final String key, final IOperationResponse<?> response) {
+		assertTrue(response.success());
+		this.polls.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+	}
+
+	/**
+	 * Waits for the given number of polls, the first one is slow to arrive while
+	 * the client warms up.
+	 */
+	private void await(final String key, final int polls) throws InterruptedException {
+		for (int i = 0; (i < 500) && (this.count(key) < polls); i++) {
+			Thread.sleep(10);
+		}
+		assertTrue(this.count(key) >= polls, key);
+	}
+
+	private void awaitInterval(final long interval) throws InterruptedException {
+		for (int i = 0; (i < 500) && (this.scheduler.getInterval("ACC1") != interval); i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(interval, this.scheduler.getInterval("ACC1"));
+	}
+
+	/**
+	 * Waits for a poll to be scheduled within the given delay, after the given
+	 * number of polls were scheduled.
+	 */
+	private void awaitDelay(final int scheduled, final long maxDelay) throws InterruptedException {
+		for (int i = 0; i < 500; i++) {
+			for (final long delay : this.executor.delays.subList(scheduled, this.executor.delays.size())) {
+				if (delay <= maxDelay) {
+					return;
+				}
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("No poll within " + maxDelay + ": " + this.executor.delays);
+	}
+
+	private int count(final String key) {
+		final AtomicInteger count = this.polls.get(key);
+		return (count == null) ? 0 : count.get();
+	}
+
+	/**
+	 * Records the polls scheduled & their delays (milliseconds).
+	 */
+	private static final class RecordingExecutor extends ScheduledThreadPoolExecutor {
+
+		private final List<Runnable> tasks = new CopyOnWriteArrayList<>();
+
+		private final List<Long> delays = new CopyOnWriteArrayList<>();
+
+		RecordingExecutor() {
+			super(1);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit) {
+			this.tasks.add(command);
+			this.delays.add(unit.toMillis(delay));
+			return super.schedule(command, delay, unit);
+		}
+
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for client side rate limiter.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestRateLimiter {
+
+	/**
+	 * Not used, requests are only reserved.
+	 */
+	private static final ScheduledExecutorService SCHEDULER = new ScheduledThreadPoolExecutor(1);
+
+	@Test
+	public void testFailFast() {
+		final RateLimiter limiter = new RateLimiter(10, 2, 0, 0, RateLimitMode.FAIL_FAST, 0, SCHEDULER);
+		final long now = System.nanoTime();
+
+		// Burst is allowed, then rejected until a token is refilled
+		assertEquals(0, limiter.reserve(null, now));
+		assertEquals(0, limiter.reserve(null, now));
+		assertEquals(-1, limiter.reserve(null, now));
+		assertEquals(0, limiter.reserve(null, now + MILLISECONDS.toNanos(100)));
+	}
+
+	@Test
+	public void testDeadline() {
+		final RateLimiter limiter = new RateLimiter(10, 1, 0, 0, RateLimitMode.DEADLINE, 250, SCHEDULER);
+		final long now = System.nanoTime();
+
+		// Requests queue up behind each other, until the wait crosses the deadline
+		assertEquals(0, limiter.reserve(null, now));
+		assertEquals(MILLISECONDS.toNanos(100), limiter.reserve(null, now), 1);
+		assertEquals(MILLISECONDS.toNanos(200), limiter.reserve(null, now), 1);
+		assertEquals(-1, limiter.reserve(null, now));
+	}
+
+	@Test
+	public void testAccountLimit() {
+		final RateLimiter limiter = new RateLimiter(0, 0, 1, 1, RateLimitMode.FAIL_FAST, 0, SCHEDULER);
+		final long now = System.nanoTime();
+
+		assertEquals(0, limiter.reserve("ACC1", now));
+		assertEquals(-1, limiter.reserve("ACC1", now));
+		assertEquals(0, limiter.reserve("ACC2", now));
+		// Requests without account are not limited by account buckets
+		assertEquals(0, limiter.reserve(null, now));
+	}
+
+	@Test
+	public void testIdleAccountsEvicted() {
+		final RateLimiter limiter = new RateLimiter(0, 0, 10, 2, RateLimitMode.FAIL_FAST, 0, SCHEDULER);
+		final long now = System.nanoTime();
+
+		assertEquals(0, limiter.reserve("ACC2", now));
+		assertEquals(0, limiter.reserve("ACC1", now + MILLISECONDS.toNanos(150)));
+		assertEquals(0, limiter.reserve("ACC1", now + MILLISECONDS.toNanos(150)));
+		assertEquals(2, limiter.accountBuckets());
+
+		// ACC2 is refilled by then, ACC1 is not
+		final long later = now + MILLISECONDS.toNanos(210);
+		assertEquals(-1, limiter.reserve("ACC1", later));
+		assertEquals(1, limiter.accountBuckets());
+		assertEquals(0, limiter.reserve("ACC2", later));
+		assertEquals(2, limiter.accountBuckets());
+	}
+
+	@Test
+	public void testInterruptReleasesReservation() {
+		final RateLimiter limiter = new RateLimiter(10, 1, 0, 0, RateLimitMode.BLOCK, 0, SCHEDULER);
+		assertEquals(0, limiter.reserve(null, System.nanoTime()));
+
+		Thread.currentThread().interrupt();
+		assertFalse(limiter.acquire(null));
+		assertTrue(Thread.interrupted());
+
+		// Waits for the first request only
+		assertTrue(limiter.reserve(null, System.nanoTime()) <= MILLISECONDS.toNanos(100));
+	}
+
+	@Test
+	public void testDisabled() {
+		assertNull(RateLimiter.create(AutoTraderClientConfig.defaultConfig("key"), SCHEDULER));
+	}
+
+}
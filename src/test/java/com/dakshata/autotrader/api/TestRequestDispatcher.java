@@ -0,0 +1,147 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+
+/**
+ * Tests for the priority dispatch of requests, with a single request in
+ * flight at a time. Requests are futures completed by the test.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestRequestDispatcher {
+
+	/**
+	 * End points of the requests sent, in order.
+	 */
+	private final List<Endpoint> sent = new ArrayList<>();
+
+	/**
+	 * Responses of the requests sent, in order.
+	 */
+	private final List<CompletableFuture<String>> responses = new ArrayList<>();
+
+	@Test
+	public void testPriority() {
+		final RequestDispatcher dispatcher = new RequestDispatcher(1, 60000, 60000);
+		this.send(dispatcher, Endpoint.READ_PLATFORM_ORDERS);
+		for (final Endpoint endpoint : new Endpoint[] { Endpoint.READ_PLATFORM_POSITIONS, Endpoint.MODIFY_ORDER,
+				Endpoint.PLACE_REGULAR_ORDER, Endpoint.CANCEL_ORDER, Endpoint.SQUARE_OFF_POSITION }) {
+			this.send(dispatcher, endpoint);
+		}
+		assertEquals(1, this.sent.size());
+		assertEquals(2, dispatcher.stats().get(RequestPriority.RISK_REDUCING).getQueueDepth());
+		assertEquals(1, dispatcher.stats().get(RequestPriority.READ).getMaxQueueDepth());
+
+		for (int i = 0; i < 6; i++) {
+			this.responses.get(i).complete("OK");
+		}
+		assertEquals(Arrays.asList(Endpoint.READ_PLATFORM_ORDERS, Endpoint.CANCEL_ORDER,
+				Endpoint.SQUARE_OFF_POSITION, Endpoint.PLACE_REGULAR_ORDER, Endpoint.MODIFY_ORDER,
+				Endpoint.READ_PLATFORM_POSITIONS), this.sent);
+
+		final Map<RequestPriority, DispatchStats> stats = dispatcher.stats();
+		assertEquals(0, stats.get(RequestPriority.READ).getQueueDepth());
+		assertEquals(2, stats.get(RequestPriority.READ).getDispatched());
+		assertEquals(1, stats.get(RequestPriority.READ).getQueued());
+		assertEquals(2, stats.get(RequestPriority.RISK_REDUCING).getQueued());
+		assertEquals(0, stats.get(RequestPriority.READ).getPromoted());
+	}
+
+	@Test
+	public void testStarvation() throws InterruptedException {
+		final RequestDispatcher dispatcher = new RequestDispatcher(1, 50, 60000);
+		this.send(dispatcher, Endpoint.PLACE_REGULAR_ORDER);
+		this.send(dispatcher, Endpoint.READ_PLATFORM_ORDERS);
+		Thread.sleep(60);
+		this.send(dispatcher, Endpoint.CANCEL_ORDER);
+
+		// Read waited too long, goes ahead of the cancellation
+		this.responses.get(0).complete("OK");
+		assertEquals(Endpoint.READ_PLATFORM_ORDERS, this.sent.get(1));
+		this.responses.get(1).complete("OK");
+		assertEquals(Endpoint.CANCEL_ORDER, this.sent.get(2));
+		assertEquals(1, dispatcher.stats().get(RequestPriority.READ).getPromoted());
+	}
+
+	@Test
+	public void testBlocking() {
+		final RequestDispatcher dispatcher = new RequestDispatcher(1, 60000, 60000);
+		assertEquals("OK", dispatcher.dispatch(Endpoint.CANCEL_ORDER, TestRequestDispatcher::ok).get().getResult());
+		this.send(dispatcher, Endpoint.READ_PLATFORM_ORDERS);
+		this.responses.get(0).complete("OK");
+		// Slot was released by both
+		assertEquals("OK", dispatcher.dispatch(Endpoint.CANCEL_ORDER, TestRequestDispatcher::ok).get().getResult());
+		assertEquals(3, dispatcher.stats().get(RequestPriority.RISK_REDUCING).getDispatched()
+				+ dispatcher.stats().get(RequestPriority.READ).getDispatched());
+	}
+
+	@Test
+	public void testBlockingTimeout() {
+		final RequestDispatcher dispatcher = new RequestDispatcher(1, 60000, 50);
+		this.send(dispatcher, Endpoint.READ_PLATFORM_ORDERS);
+
+		// Leaves the queue once timed out
+		final IOperationResponse<String> response = dispatcher.dispatch(Endpoint.CANCEL_ORDER,
+				TestRequestDispatcher::ok).get();
+		assertTrue(response.getError().getMessage().contains("was not sent"));
+		assertEquals(0, dispatcher.stats().get(RequestPriority.RISK_REDUCING).getQueueDepth());
+
+		this.responses.get(0).complete("OK");
+		assertEquals("OK", dispatcher.dispatch(Endpoint.CANCEL_ORDER, TestRequestDispatcher::ok).get().getResult());
+
+		// As does an interrupted one
+		this.send(dispatcher, Endpoint.READ_PLATFORM_ORDERS);
+		Thread.currentThread().interrupt();
+		assertFalse(dispatcher.dispatch(Endpoint.CANCEL_ORDER, TestRequestDispatcher::ok).get().success());
+		assertTrue(Thread.interrupted());
+		assertEquals(0, dispatcher.stats().get(RequestPriority.RISK_REDUCING).getQueueDepth());
+	}
+
+	@Test
+	public void testHandOverWithoutRecursion() {
+		final RequestDispatcher dispatcher = new RequestDispatcher(1, 60000, 60000);
+		this.send(dispatcher, Endpoint.READ_PLATFORM_ORDERS);
+
+		// Queued requests which complete as soon as they are sent
+		final AtomicInteger completed = new AtomicInteger();
+		for (int i = 0; i < 50_000; i++) {
+			dispatcher.<String>dispatchAsync(Endpoint.READ_PLATFORM_ORDERS,
+					() -> CompletableFuture.completedFuture("OK")).get().thenRun(completed::incrementAndGet);
+		}
+		this.responses.get(0).complete("OK");
+		assertEquals(50_000, completed.get());
+		assertEquals(0, dispatcher.stats().get(RequestPriority.READ).getQueueDepth());
+	}
+
+	private static IOperationResponse<String> ok() {
+		return OperationResponse.<String>builder().result("OK").build();
+	}
+
+	private CompletableFuture<String> send(final RequestDispatcher dispatcher, final Endpoint endpoint) {
+		return dispatcher.<String>dispatchAsync(endpoint, () -> {
+			this.sent.add(endpoint);
+			final CompletableFuture<String> response = new CompletableFuture<>();
+			this.responses.add(response);
+			return response;
+		}).get();
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+
+/**
+ * Tests for read response cache.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestResponseCache {
+
+	private static final long MINUTE = 60_000_000_000L;
+
+	private static ResponseCache cache(final long ttl, final int maxEntries) {
+		final Map<Endpoint, Long> ttls = new EnumMap<>(Endpoint.class);
+		ttls.put(Endpoint.READ_PLATFORM_ORDERS, ttl);
+		ttls.put(Endpoint.READ_PLATFORM_POSITIONS, ttl);
+		return new ResponseCache(ttls, maxEntries);
+	}
+
+	private static IOperationResponse<String> response(final String result) {
+		return OperationResponse.<String>builder().result(result).build();
+	}
+
+	@Test
+	public void testReadThrough() {
+		final ResponseCache cache = cache(MINUTE, 10);
+		final IOperationResponse<String> response = response("orders");
+
+		assertNull(cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC1"));
+		cache.put(Endpoint.READ_PLATFORM_ORDERS, "ACC1", cache.begin(), response);
+		assertSame(response, cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC1"));
+		assertNull(cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC2"));
+		assertNull(cache.get(Endpoint.READ_PLATFORM_POSITIONS, "ACC1"));
+	}
+
+	@Test
+	public void testExpiry() {
+		final ResponseCache cache = cache(0, 10);
+		cache.put(Endpoint.READ_PLATFORM_ORDERS, "ACC1", cache.begin(), response("orders"));
+		assertNull(cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC1"));
+	}
+
+	@Test
+	public void testErrorsAreNotCached() {
+		final ResponseCache cache = cache(MINUTE, 10);
+		cache.put(Endpoint.READ_PLATFORM_ORDERS, "ACC1", cache.begin(),
+				OperationResponse.<String>builder().error(new Exception("failed")).build());
+		assertNull(cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC1"));
+	}
+
+	@Test
+	public void testInvalidate() {
+		final ResponseCache cache = cache(MINUTE, 10);
+		final IOperationResponse<String> response = response("orders");
+		cache.put(Endpoint.READ_PLATFORM_ORDERS, "ACC1", cache.begin(), response);
+		cache.put(Endpoint.READ_PLATFORM_POSITIONS, "ACC1", cache.begin(), response);
+		cache.put(Endpoint.READ_PLATFORM_ORDERS, "ACC2", cache.begin(), response);
+
+		cache.invalidate("ACC1");
+		assertNull(cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC1"));
+		assertNull(cache.get(Endpoint.READ_PLATFORM_POSITIONS, "ACC1"));
+		assertSame(response, cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC2"));
+
+		cache.invalidate(null);
+		assertNull(cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC2"));
+	}
+
+	@Test
+	public void testReadInFlightDuringInvalidation() {
+		final ResponseCache cache = cache(MINUTE, 10);
+		final long begin = cache.begin();
+		cache.invalidate("ACC1");
+		cache.put(Endpoint.READ_PLATFORM_ORDERS, "ACC1", begin, response("stale"));
+		assertNull(cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC1"));
+	}
+
+	@Test
+	public void testEviction() {
+		final ResponseCache cache = cache(MINUTE, 2);
+		final IOperationResponse<String> response = response("orders");
+		cache.put(Endpoint.READ_PLATFORM_ORDERS, "ACC1", cache.begin(), response);
+		cache.put(Endpoint.READ_PLATFORM_ORDERS, "ACC2", cache.begin(), response);
+		// Access ACC1, so ACC2 becomes least recently used
+		cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC1");
+		cache.put(Endpoint.READ_PLATFORM_ORDERS, "ACC3", cache.begin(), response);
+
+		assertSame(response, cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC1"));
+		assertNull(cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC2"));
+		assertSame(response, cache.get(Endpoint.READ_PLATFORM_ORDERS, "ACC3"));
+	}
+
+}
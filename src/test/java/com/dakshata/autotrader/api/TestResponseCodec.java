@@ -0,0 +1,60 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.trading.model.platform.PlatformOrder;
+
+/**
+ * Tests for response codecs.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestResponseCodec {
+
+	private static InputStream json(final String json) {
+		return new ByteArrayInputStream(json.getBytes(UTF_8));
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		final IOperationResponse<Set<PlatformOrder>> response = ResponseCodec.ORDERS
+				.read(json("{\"result\":[{\"platformId\":\"1\",\"unknown\":1},{\"platformId\":\"2\"}]}"));
+
+		assertNull(response.getError());
+		assertEquals(2, response.getResult().size());
+	}
+
+	@Test
+	public void testNullResponse() throws IOException {
+		assertNotNull(ResponseCodec.STRING.read(json("null")).getError());
+	}
+
+	@Test
+	public void testInvalidJson() {
+		assertThrows(IOException.class, () -> ResponseCodec.BOOLEAN.read(json("{\"result\":")));
+	}
+
+	@Test
+	public void testHttpError() {
+		final IOperationResponse<String> response = ResponseCodec.httpError(403, "Forbidden");
+		assertEquals("403: Either your API Key is wrong or the user might be disabled.",
+				response.getError().getMessage());
+	}
+
+}
@@ -0,0 +1,130 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.NoHttpResponseException;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.data.model.common.IOperationResponse;
+import com.dakshata.data.model.common.OperationResponse;
+
+import kong.unirest.UnirestException;
+
+/**
+ * Tests for retry policies, retry budget & retries.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestRetry {
+
+	private static final RetryPolicy POLICY = BackoffRetryPolicy.builder().maxRetries(3).initialDelay(10)
+			.maxDelay(25).jitter(0).statuses(BackoffRetryPolicy.TRANSIENT_STATUSES).build();
+
+	@Test
+	public void testBackoff() {
+		final Endpoint e = Endpoint.READ_PLATFORM_ORDERS;
+		assertEquals(10, POLICY.retryDelay(e, 0, null, 503));
+		assertEquals(20, POLICY.retryDelay(e, 1, null, 429));
+		assertEquals(25, POLICY.retryDelay(e, 2, null, 502));
+		assertEquals(-1, POLICY.retryDelay(e, 3, null, 502));
+		assertEquals(-1, POLICY.retryDelay(e, 0, null, 500));
+
+		final RetryPolicy jittered = BackoffRetryPolicy.builder().maxRetries(1).initialDelay(100).build();
+		for (int i = 0; i < 100; i++) {
+			final long delay = jittered.retryDelay(e, 0, new NoHttpResponseException("x"), 0);
+			assertTrue((delay >= 50) && (delay <= 100), String.valueOf(delay));
+		}
+	}
+
+	@Test
+	public void testExceptions() {
+		final Endpoint e = Endpoint.PLACE_ORDER;
+		final RetryPolicy policy = BackoffRetryPolicy.builder().build();
+
+		// No cause
+		assertEquals(-1, policy.retryDelay(e, 0, new UnirestException("x"), 0));
+		assertEquals(0, policy.retryDelay(e, 0, new NoHttpResponseException("x"), 0));
+		assertEquals(0, policy.retryDelay(e, 0,
+				new UnirestException(new RuntimeException(new NoHttpResponseException("x"))), 0));
+		assertEquals(-1, policy.retryDelay(e, 0, new UnirestException(new IOException("x")), 0));
+		assertEquals(-1, policy.retryDelay(e, 0, null, 503));
+	}
+
+	@Test
+	public void testBudget() {
+		final RetryBudget budget = new RetryBudget(0.1, 0);
+		assertFalse(budget.withdraw());
+		for (int i = 0; i < 25; i++) {
+			budget.deposit();
+		}
+		assertTrue(budget.withdraw());
+		assertTrue(budget.withdraw());
+		assertFalse(budget.withdraw());
+
+		final RetryBudget min = new RetryBudget(0, 2);
+		assertTrue(min.withdraw());
+		assertTrue(min.withdraw());
+	}
+
+	@Test
+	public void testRetry() {
+		final Retrier retrier = new Retrier(POLICY, RetryPolicy.NONE, null, MetricsRecorder.NOOP,
+				Executors.newSingleThreadScheduledExecutor());
+		final AtomicInteger attempts = new AtomicInteger();
+
+		final IOperationResponse<String> response = retrier.execute(Endpoint.READ_PLATFORM_ORDERS,
+				() -> (attempts.incrementAndGet() < 3) ? ResponseCodec.<String>httpError(503, "Unavailable")
+						: OperationResponse.<String>builder().result("ok").build());
+		assertEquals("ok", response.getResult());
+		assertEquals(3, attempts.get());
+
+		// Mutating end point
+		attempts.set(0);
+		retrier.execute(Endpoint.PLACE_ORDER, () -> {
+			attempts.incrementAndGet();
+			return ResponseCodec.<String>httpError(503, "Unavailable");
+		});
+		assertEquals(1, attempts.get());
+
+		attempts.set(0);
+		assertThrows(UnirestException.class, () -> retrier.execute(Endpoint.READ_PLATFORM_ORDERS, () -> {
+			attempts.incrementAndGet();
+			throw new UnirestException(new NoHttpResponseException("x"));
+		}));
+		assertEquals(4, attempts.get());
+	}
+
+	@Test
+	public void testRetryAsync() {
+		final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		final Retrier retrier = new Retrier(POLICY, RetryPolicy.NONE, new RetryBudget(0.1, 1),
+				MetricsRecorder.NOOP, scheduler);
+		final AtomicInteger attempts = new AtomicInteger();
+		try {
+			// Budget allows a single retry
+			final IOperationResponse<String> response = retrier
+					.executeAsync(Endpoint.READ_PLATFORM_MARGINS, () -> {
+						attempts.incrementAndGet();
+						return CompletableFuture.completedFuture(ResponseCodec.<String>httpError(429, "Busy"));
+					}).join();
+			assertEquals(429, ((HttpStatusException) response.getError()).getStatus());
+			assertEquals(2, attempts.get());
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,202 @@
+/**
+ *
+ */
+package com.dakshata.autotrader.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dakshata.autotrader.api.StubHttpServer.Response;
+
+import kong.unirest.Config;
+import kong.unirest.HttpMethod;
+import kong.unirest.HttpRequestSummary;
+import kong.unirest.HttpResponseSummary;
+import kong.unirest.JacksonObjectMapper;
+import kong.unirest.MetricContext;
+import kong.unirest.UnirestInstance;
+
+/**
+ * Tests for failover between servers, using two local stub servers.
+ *
+ * @author PRITESH
+ *
+ */
+public class TestServerFailover {
+
+	private final AtomicInteger primaryHits = new AtomicInteger(), backupHits = new AtomicInteger();
+
+	private StubHttpServer primary, backup;
+
+	private ServerPool pool;
+
+	private UnirestInstance client;
+
+	private TradingService tradingService;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.primary = new StubHttpServer((exchange, body) -> hit(this.primaryHits));
+		this.backup = new StubHttpServer((exchange, body) -> hit(this.backupHits));
+		this.pool = new ServerPool(Arrays.asList(this.primary.url(), this.backup.url()), 1, 50);
+
+		final Config config = new Config();
+		config.setObjectMapper(new JacksonObjectMapper());
+		config.connectTimeout(1000);
+		config.socketTimeout(1000);
+		config.instrumentWith(this.pool);
+		this.client = new UnirestInstance(config);
+		this.tradingService = new TradingService(this.pool, this.client);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.pool.shutdown();
+		this.client.shutDown();
+		this.primary.stop();
+		this.backup.stop();
+	}
+
+	@Test
+	public void testFailover() throws InterruptedException {
+		this.tradingService.autoTraderDesktopVersion();
+		assertEquals(1, this.primaryHits.get());
+		assertEquals(0, this.backupHits.get());
+
+		this.pool.start(this.client);
+		this.primary.stop();
+
+		// Health checks find the primary server down
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (this.primary.url().equals(this.pool.select()) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(20);
+		}
+		assertEquals(this.backup.url(), this.pool.select());
+
+		final int before = this.backupHits.get();
+		this.tradingService.autoTraderDesktopVersion();
+		assertTrue(this.backupHits.get() > before);
+	}
+
+	@Test
+	public void testLatencyAwareRouting() {
+		final ServerPool pool = new ServerPool(Arrays.asList("http://a", "http://b"), 3, 0);
+
+		record(pool, "http://a", 100, 200);
+		record(pool, "http://b", 100, 200);
+		// Similar latency, stays on the primary server
+		assertEquals("http://a", pool.select());
+
+		record(pool, "http://a", 500, 200);
+		record(pool, "http://a", 500, 200);
+		record(pool, "http://a", 500, 200);
+		assertEquals("http://b", pool.select());
+
+		// Server errors count as failures
+		record(pool, "http://b", 0, 503);
+		record(pool, "http://b", 0, 503);
+		assertEquals("http://b", pool.select());
+		record(pool, "http://b", 0, 503);
+		assertEquals("http://a", pool.select());
+	}
+
+	@Test
+	public void testServerOfUrl() {
+		assertTrue(ServerPool.isOf("http://host:80/trading/placeOrder", "http://host:80"));
+		assertTrue(ServerPool.isOf("http://host:80?x=1", "http://host:80"));
+		assertTrue(ServerPool.isOf("http://host:80", "http://host:80"));
+		assertTrue(ServerPool.isOf("http://host:80/api", "http://host:80/"));
+		assertFalse(ServerPool.isOf("http://host:8080/trading/placeOrder", "http://host:80"));
+
+		// Latency of one server is not taken for the other
+		final ServerPool pool = new ServerPool(Arrays.asList("http://host:80", "http://host:8080"), 3, 0);
+		record(pool, "http://host:80", 0, 200);
+		for (int i = 0; i < 3; i++) {
+			record(pool, "http://host:8080", 0, 503);
+		}
+		assertEquals("http://host:80", pool.select());
+	}
+
+	@Test
+	public void testOnlyProbesCountForLatency() {
+		final ServerPool pool = new ServerPool(Arrays.asList("http://a", "http://b"), 3, 0);
+		record(pool, "http://a", 50, 200);
+		record(pool, "http://b", 50, 200);
+
+		// Slow broker backed requests, which only the current server gets
+		for (int i = 0; i < 3; i++) {
+			record(pool, "http://a", "/trading/placeOrder", 300, 200);
+		}
+		assertEquals("http://a", pool.select());
+		assertTrue(ServerPool.isProbe("http://a" + TradingService.HEALTH_PROBE_URI));
+		// Same end point, called by the user
+		assertFalse(ServerPool.isProbe("http://a" + TradingService.HEALTH_CHECK_URI));
+		assertFalse(ServerPool.isProbe("http://a" + "/trading/placeOrder"));
+	}
+
+	private static void record(final ServerPool pool, final String url, final long millis, final int status) {
+		record(pool, url, TradingService.HEALTH_PROBE_URI, millis, status);
+	}
+
+	private static void record(final ServerPool pool, final String url, final String uri, final long millis,
+			final int status) {
+		final MetricContext context = pool.begin(new HttpRequestSummary() {
+
+			@Override
+			public HttpMethod getHttpMethod() {
+				return HttpMethod.GET;
+			}
+
+			@Override
+			public String getUrl() {
+				return url + uri;
+			}
+
+			@Override
+			public String getRawPath() {
+				return this.getUrl();
+			}
+
+			@Override
+			public String asString() {
+				return this.getUrl();
+			}
+
+		});
+
+		try {
+			Thread.sleep(millis);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		context.complete(new HttpResponseSummary() {
+
+			@Override
+			public int getStatus() {
+				return status;
+			}
+
+			@Override
+			public String getStatusText() {
+				return null;
+			}
+
+		}, null);
+	}
+
+	private static Response hit(final AtomicInteger hits) {
+		hits.incrementAndGet();
+		return Response.ok("{\"result\":\"1.0.0\"}");
+	}
+
+}
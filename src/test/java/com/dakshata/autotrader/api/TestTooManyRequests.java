@@ -4,6 +4,7 @@
 package com.dakshata.autotrader.api;
 
 import java.time.LocalTime;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Tag;
@@ -47,4 +48,21 @@ public class TestTooManyRequests {
 
 	}
 
+	@Tag("skip")
+	@Test
+	public void testTooManyRequestsAsync() {
+
+		// Same as above, but all requests are in flight at once from a single thread
+
+		final CompletableFuture<?>[] futures = IntStream.range(1, 200)
+				.mapToObj(i -> AT.async()
+						.placeRegularOrder(ACC, "NSE", "SBIN", TradeType.BUY, OrderType.LIMIT, ProductType.INTRADAY, 1,
+								188.55f, 0f)
+						.thenAccept(response -> System.out
+								.println(i + "|" + LocalTime.now() + "|" + response.getMessage())))
+				.toArray(CompletableFuture[]::new);
+
+		CompletableFuture.allOf(futures).join();
+	}
+
 }